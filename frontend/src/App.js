@@ -643,6 +643,39 @@ const formatDurationDisplay = () => {
     return () => clearInterval(interval);
   }, []);
 
+  useEffect(() => {
+    // Reload the services when the registry changes, the listing is revalidated through its ETag
+    if (typeof EventSource === 'undefined') return undefined;
+
+    const source = new EventSource(`${API_BASE_URL}/services/changes/stream`);
+    let reloadTimer = null;
+    const scheduleReload = () => {
+      clearTimeout(reloadTimer);
+      reloadTimer = setTimeout(async () => {
+        try {
+          const data = await fetchAllServices();
+          const safeData = data || { serviceConfigs: [] };
+          setServicesData(previous => ({
+            serviceConfigs: safeData.serviceConfigs || [],
+            totalServices: safeData.serviceConfigs ? safeData.serviceConfigs.length : 0,
+            unavailableServices: 0,
+            lastDiscovery: previous ? previous.lastDiscovery : new Date().toISOString()
+          }));
+        } catch (err) {
+          console.error('Failed to reload services after a change:', err);
+        }
+      }, 300);
+    };
+
+    ['SERVICE_ADDED', 'SERVICE_REMOVED', 'SERVICE_UPDATED', 'BEHAVIOUR_CHANGED', 'STATUS_CHANGED', 'reset']
+      .forEach(type => source.addEventListener(type, scheduleReload));
+
+    return () => {
+      clearTimeout(reloadTimer);
+      source.close();
+    };
+  }, []);
+
   if (loading) {
     return (
       <div className="loading">
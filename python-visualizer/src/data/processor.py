@@ -4,6 +4,7 @@ Handles loading, parsing, and transformation of experiment data.
 """
 
 import json
+import zipfile
 import pandas as pd
 from typing import Dict, List, Any, Optional
 
@@ -16,10 +17,11 @@ class DataProcessor:
         self.df_rankings = None
         self.df_configs = None
         self.df_metrics = None
+        self.samples = None
         
     def load_data_from_file(self, filepath: str) -> bool:
         """
-        Load experiment data from JSON file.
+        Load experiment data from JSON file or from the CSV export of a run (.zip).
         
         Args:
             filepath: Path to the JSON file containing experiment results
@@ -28,8 +30,11 @@ class DataProcessor:
             bool: True if data loaded successfully, False otherwise
         """
         try:
-            with open(filepath, 'r') as file:
-                self.data = json.load(file)
+            if zipfile.is_zipfile(filepath):
+                self.data = self._load_csv_export(filepath)
+            else:
+                with open(filepath, 'r') as file:
+                    self.data = json.load(file)
                 
             if not self._validate_data():
                 return False
@@ -37,10 +42,116 @@ class DataProcessor:
             self._process_data()
             return True
             
-        except (FileNotFoundError, json.JSONDecodeError, KeyError) as e:
+        except (FileNotFoundError, json.JSONDecodeError, KeyError, ValueError, zipfile.BadZipFile) as e:
             print(f"Error loading data: {e}")
             return False
     
+    def _load_csv_export(self, filepath: str) -> Dict[str, Any]:
+        """
+        Rebuild the JSON results layout from the CSV export of a run (/api/runs/{runId}/export).
+        The export is a ZIP of row-oriented CSV tables: the fact tables only hold integer codes,
+        resolved against the dictionary tables. Raw samples are kept in self.samples.
+        """
+        with zipfile.ZipFile(filepath) as archive:
+            def read_table(name: str, dtype: Dict[str, str]) -> pd.DataFrame:
+                # Empty cells stay empty strings, only the value columns hold numbers that may be missing
+                with archive.open(name) as table:
+                    return pd.read_csv(table, dtype=dtype, keep_default_na=False,
+                                       na_values={column: [''] for column in ('value', 'rank') if column in dtype})
+            
+            metrics = read_table('metrics.csv', {'metric': 'int32', 'name': 'str', 'unit': 'str', 'order': 'str',
+                                                 'direction': 'str', 'estimator': 'str'}).sort_values('metric')
+            services = read_table('services.csv', {'service': 'int32', 'name': 'str'}).sort_values('service')
+            behaviours = read_table('behaviours.csv', {'behaviour': 'int32', 'service': 'int32', 'class_name': 'str',
+                                                       'method_name': 'str', 'behaviour_id': 'str'})
+            configurations = read_table('configurations.csv', {'configuration': 'int32', 'configuration_id': 'str',
+                                                               'rank': 'Int32', 'behaviours': 'str'}).sort_values('configuration')
+            system_metrics = read_table('system_metrics.csv', {'configuration': 'int32', 'metric': 'int32', 'value': 'float64'})
+            samples = read_table('samples.csv', {'configuration': 'int32', 'service': 'int32', 'metric': 'int32',
+                                                 'sample': 'int32', 'value': 'float64'})
+        
+        metric_names = dict(zip(metrics['metric'], metrics['name']))
+        metric_units = dict(zip(metrics['metric'], metrics['unit']))
+        service_names = dict(zip(services['service'], services['name']))
+        behaviours = behaviours.set_index('behaviour')
+        
+        def to_float(value: float) -> Optional[float]:
+            return None if pd.isna(value) else float(value)
+        
+        system_results: Dict[int, List[Dict[str, Any]]] = {}
+        for row in system_metrics.itertuples(index=False):
+            system_results.setdefault(row.configuration, []).append({
+                'metricName': metric_names[row.metric],
+                'value': to_float(row.value),
+                'unit': metric_units[row.metric]
+            })
+        
+        service_results: Dict[int, Dict[str, List[Dict[str, Any]]]] = {}
+        for row in samples[samples['sample'] == -1].itertuples(index=False):
+            service_results.setdefault(row.configuration, {}).setdefault(service_names[row.service], []).append({
+                'metricName': metric_names[row.metric],
+                'value': to_float(row.value),
+                'unit': metric_units[row.metric]
+            })
+        
+        ranking = []
+        for configuration in configurations.itertuples(index=False):
+            if pd.isna(configuration.rank):
+                continue
+            
+            system_config: Dict[str, Dict[str, List[Dict[str, str]]]] = {}
+            for code in filter(None, configuration.behaviours.split(';')):
+                behaviour = behaviours.loc[int(code)]
+                classes = system_config.setdefault(service_names[behaviour['service']], {})
+                classes.setdefault(behaviour['class_name'], []).append({
+                    'methodName': behaviour['method_name'],
+                    'behaviourId': behaviour['behaviour_id']
+                })
+            
+            code = configuration.configuration
+            ranking.append({
+                'position': int(configuration.rank) + 1,
+                'systemConfig': [
+                    {
+                        'serviceName': service_name,
+                        'classConfigs': [
+                            {'className': class_name, 'behaviours': methods}
+                            for class_name, methods in classes.items()
+                        ]
+                    }
+                    for service_name, classes in system_config.items()
+                ],
+                'systemResults': system_results.get(code, []),
+                'serviceResults': [
+                    {'serviceName': service_name, 'results': results}
+                    for service_name, results in service_results.get(code, {}).items()
+                ]
+            })
+        ranking.sort(key=lambda entry: entry['position'])
+        
+        # Codes are positions in the dictionaries, so the names become categoricals without any lookup
+        raw = samples[samples['sample'] >= 0]
+        self.samples = pd.DataFrame({
+            'configuration_id': pd.Categorical.from_codes(raw['configuration'].to_numpy(),
+                                                          categories=configurations['configuration_id'].to_numpy()),
+            'service_name': pd.Categorical.from_codes(raw['service'].to_numpy(), categories=services['name'].to_numpy()),
+            'metric_name': pd.Categorical.from_codes(raw['metric'].to_numpy(), categories=metrics['name'].to_numpy()),
+            'sample_index': raw['sample'].to_numpy(),
+            'value': raw['value'].to_numpy()
+        })
+        
+        metric_configs = [
+            {
+                'metricName': metric.name,
+                'order': int(metric.order),
+                'unit': metric.unit,
+                'direction': metric.direction
+            }
+            for metric in metrics.itertuples(index=False) if metric.order
+        ]
+        
+        return {'metricConfigs': metric_configs, 'ranking': ranking}
+    
     def _validate_data(self) -> bool:
         """Validate that required data fields are present."""
         if not self.data:
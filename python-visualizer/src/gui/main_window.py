@@ -305,7 +305,7 @@ class ModernExperimentAnalyzer:
         # Open file dialog
         filepath = filedialog.askopenfilename(
             title="Select Experiment Results File",
-            filetypes=[("JSON files", "*.json"), ("All files", "*.*")],
+            filetypes=[("JSON files", "*.json"), ("Columnar exports", "*.zip"), ("All files", "*.*")],
             initialdir=project_dir
         )
         
@@ -0,0 +1,155 @@
+package org.marionette.controlplane.benchmarks;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.URI;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.marionette.controlplane.domain.entities.ConfigRegistry;
+import org.marionette.controlplane.domain.values.BehaviourIdSet;
+import org.marionette.controlplane.domain.values.ClassName;
+import org.marionette.controlplane.domain.values.MethodName;
+import org.marionette.controlplane.domain.values.ServiceName;
+import org.marionette.controlplane.usecases.domain.configsnapshot.ClassSnapshot;
+import org.marionette.controlplane.usecases.domain.configsnapshot.ServiceSnapshot;
+import org.marionette.controlplane.usecases.domain.dto.ClassConfigData;
+import org.marionette.controlplane.usecases.domain.dto.MethodConfigData;
+import org.marionette.controlplane.usecases.domain.dto.ServiceConfigData;
+import org.marionette.controlplane.usecases.domain.mappers.ServiceConfigDataMapper;
+import org.marionette.controlplane.usecases.inbound.abntest.domain.VariationPoint;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.AggregateMetric;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.MetricEstimator;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.OptimizationDirection;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.OrderedMetricMetadata;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.ServiceMetricsDataPoint;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.SystemMetricsDataPoint;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.timeseries.SampleSeries;
+
+/**
+ * Deterministic inputs shaped like a real deployment: services with a few classes of a few methods, each with
+ * a handful of behaviours, and the three metrics of the default configuration.
+ */
+final class BenchmarkData {
+
+    static final int CLASSES_PER_SERVICE = 4;
+    static final int METHODS_PER_CLASS = 3;
+    static final int BEHAVIOURS_PER_METHOD = 3;
+    static final int SAMPLES_PER_METRIC = 60;
+
+    static final List<OrderedMetricMetadata> METRICS = List.of(
+            new OrderedMetricMetadata("latency", 1, OptimizationDirection.LOWER_IS_BETTER, "ms", MetricEstimator.MEDIAN, 0.05),
+            new OrderedMetricMetadata("cpu", 2, OptimizationDirection.LOWER_IS_BETTER, "cores", MetricEstimator.MEAN),
+            new OrderedMetricMetadata("memory", 3, OptimizationDirection.LOWER_IS_BETTER, "MiB", MetricEstimator.TRIMMED_MEAN));
+
+    static final long SEED = 42;
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * The code under test logs every step on the console, which would dominate the measurements
+     */
+    static void silenceConsole() {
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    static String serviceName(int service) {
+        return "service-" + service;
+    }
+
+    /**
+     * Parses a "pointsxbehaviours" shape, as used in the benchmark parameters
+     */
+    static List<VariationPoint> variationPoints(String shape) {
+        String[] parts = shape.split("x");
+        int points = Integer.parseInt(parts[0]);
+        int behaviours = Integer.parseInt(parts[1]);
+
+        List<VariationPoint> variationPoints = new ArrayList<>(points);
+        for (int point = 0; point < points; point++) {
+            List<String> behaviourIds = new ArrayList<>(behaviours);
+            for (int behaviour = 0; behaviour < behaviours; behaviour++) {
+                behaviourIds.add("behaviour-" + behaviour);
+            }
+            variationPoints.add(new VariationPoint(
+                    ServiceName.of(serviceName(point % 5)),
+                    ClassName.of("org.example.Component" + point),
+                    MethodName.of("handle"),
+                    BehaviourIdSet.fromStringCollection(behaviourIds)));
+        }
+        return variationPoints;
+    }
+
+    static ServiceConfigData serviceConfigData(int service) {
+        List<ClassConfigData> classes = new ArrayList<>(CLASSES_PER_SERVICE);
+        for (int c = 0; c < CLASSES_PER_SERVICE; c++) {
+            List<MethodConfigData> methods = new ArrayList<>(METHODS_PER_CLASS);
+            for (int m = 0; m < METHODS_PER_CLASS; m++) {
+                List<String> behaviours = new ArrayList<>(BEHAVIOURS_PER_METHOD);
+                for (int b = 0; b < BEHAVIOURS_PER_METHOD; b++) {
+                    behaviours.add("behaviour-" + b);
+                }
+                methods.add(new MethodConfigData("method" + m, "behaviour-0", "behaviour-" + (service % BEHAVIOURS_PER_METHOD), behaviours));
+            }
+            classes.add(new ClassConfigData("org.example.service" + service + ".Component" + c, methods));
+        }
+        return new ServiceConfigData(serviceName(service), classes);
+    }
+
+    static ConfigRegistry configRegistry(int services) {
+        ConfigRegistry registry = new ConfigRegistry();
+        for (int service = 0; service < services; service++) {
+            registry.addDiscoveredService(ServiceName.of(serviceName(service)),
+                    ServiceConfigDataMapper.toDomainServiceConfig(serviceConfigData(service)),
+                    URI.create("http://" + serviceName(service) + ":8080"));
+        }
+        return registry;
+    }
+
+    static ServiceSnapshot serviceSnapshot(int service) {
+        Map<String, ClassSnapshot> classes = new HashMap<>();
+        for (ClassConfigData classData : serviceConfigData(service).classConfigs()) {
+            Map<String, String> methods = new HashMap<>();
+            for (MethodConfigData methodData : classData.methodConfigData()) {
+                methods.put(methodData.methodName(), methodData.currentBehaviourId());
+            }
+            classes.put(classData.className(), new ClassSnapshot(classData.className(), methods));
+        }
+        return new ServiceSnapshot(serviceName(service), classes);
+    }
+
+    static SystemMetricsDataPoint systemMetrics(int services, Random random) {
+        Instant now = Instant.parse("2025-01-01T00:00:00Z");
+        List<ServiceMetricsDataPoint> serviceMetrics = new ArrayList<>(services);
+        for (int service = 0; service < services; service++) {
+            List<AggregateMetric> metrics = new ArrayList<>(METRICS.size());
+            for (OrderedMetricMetadata metadata : METRICS) {
+                double mean = 10 + random.nextDouble() * 100;
+                SampleSeries.Builder samples = new SampleSeries.Builder();
+                for (int sample = 0; sample < SAMPLES_PER_METRIC; sample++) {
+                    samples.append(now.toEpochMilli() + sample * 1000L, mean + random.nextGaussian() * mean * 0.1);
+                }
+                metrics.add(new AggregateMetric(metadata.metricName(), mean, now, metadata.unit())
+                        .withSamples(samples.build()));
+            }
+            serviceMetrics.add(new ServiceMetricsDataPoint(serviceSnapshot(service), metrics));
+        }
+        return new SystemMetricsDataPoint(serviceMetrics);
+    }
+
+    static List<AggregateMetric> systemLevelMetrics(Random random) {
+        Instant now = Instant.parse("2025-01-01T00:00:00Z");
+        List<AggregateMetric> metrics = new ArrayList<>(METRICS.size());
+        for (OrderedMetricMetadata metadata : METRICS) {
+            // Few distinct values, so that ties push the comparison down to the lower priority metrics
+            metrics.add(new AggregateMetric(metadata.metricName(), 10 + random.nextInt(20), now, metadata.unit()));
+        }
+        return metrics;
+    }
+
+}
@@ -0,0 +1,57 @@
+package org.marionette.controlplane.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.marionette.controlplane.usecases.inbound.abntest.ranking.ComparableSystemConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Sorting of the tested configurations by their prioritised metrics. Every invocation sorts a fresh copy of the
+ * same shuffled list, the copy is part of the measurement.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 2)
+public class ConfigurationRankingBenchmark {
+
+    @Param({ "10", "1000", "100000" })
+    public int configurations;
+
+    private List<ComparableSystemConfiguration> tested;
+
+    @Setup
+    public void setUp() {
+        BenchmarkData.silenceConsole();
+        Random random = new Random(BenchmarkData.SEED);
+        tested = new ArrayList<>(configurations);
+        for (int i = 0; i < configurations; i++) {
+            tested.add(new ComparableSystemConfiguration("config-" + i, BenchmarkData.systemLevelMetrics(random),
+                    BenchmarkData.METRICS));
+        }
+    }
+
+    @Benchmark
+    public List<ComparableSystemConfiguration> sort() {
+        List<ComparableSystemConfiguration> ranking = new ArrayList<>(tested);
+        Collections.sort(ranking);
+        return ranking;
+    }
+
+}
@@ -0,0 +1,54 @@
+package org.marionette.controlplane.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.marionette.controlplane.domain.entities.ConfigRegistry;
+import org.marionette.controlplane.usecases.domain.configsnapshot.ConfigurationFingerprint;
+import org.marionette.controlplane.usecases.domain.configsnapshot.SystemConfigurationSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Snapshot of the runtime configurations taken at every slice of an A/B test, and its fingerprint
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 2)
+public class ConfigurationSnapshotBenchmark {
+
+    @Param({ "10", "100", "500" })
+    public int services;
+
+    private ConfigRegistry registry;
+    private SystemConfigurationSnapshot snapshot;
+
+    @Setup
+    public void setUp() {
+        BenchmarkData.silenceConsole();
+        registry = BenchmarkData.configRegistry(services);
+        snapshot = SystemConfigurationSnapshot.fromConfigRegistry(registry);
+    }
+
+    @Benchmark
+    public SystemConfigurationSnapshot fromConfigRegistry() {
+        return SystemConfigurationSnapshot.fromConfigRegistry(registry);
+    }
+
+    @Benchmark
+    public ConfigurationFingerprint fingerprint() {
+        return snapshot.fingerprint();
+    }
+
+}
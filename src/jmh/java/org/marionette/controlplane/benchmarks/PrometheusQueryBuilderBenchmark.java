@@ -0,0 +1,60 @@
+package org.marionette.controlplane.benchmarks;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import org.marionette.controlplane.adapters.outbound.fetchmetrics.prometheus.PrometheusQueryBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Query URL built for every service and metric of every slice
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 2)
+public class PrometheusQueryBuilderBenchmark {
+
+    private static final String PROMETHEUS_URL = "http://prometheus-server.monitoring:9090";
+    private static final String QUERY_TEMPLATE = "histogram_quantile(0.95, sum(rate(http_server_requests_seconds_bucket{service=\"{service}\"}[{timespan}])) by (le)) * 1000";
+    private static final Duration TIMESPAN = Duration.ofSeconds(60);
+    private static final Duration SAMPLING = Duration.ofSeconds(15);
+    private static final Instant END = Instant.parse("2025-01-01T00:00:00Z");
+
+    private int service;
+
+    @Setup
+    public void setUp() {
+        BenchmarkData.silenceConsole();
+    }
+
+    @Benchmark
+    public String buildQuery() {
+        return PrometheusQueryBuilder.buildQuery(PROMETHEUS_URL, "/api/v1/query", QUERY_TEMPLATE,
+                nextServiceName(), TIMESPAN, SAMPLING);
+    }
+
+    @Benchmark
+    public String buildRangeQuery() {
+        return PrometheusQueryBuilder.buildRangeQuery(PROMETHEUS_URL, "/api/v1/query_range", QUERY_TEMPLATE,
+                nextServiceName(), TIMESPAN, SAMPLING, END);
+    }
+
+    private String nextServiceName() {
+        service = (service + 1) % 500;
+        return BenchmarkData.serviceName(service);
+    }
+
+}
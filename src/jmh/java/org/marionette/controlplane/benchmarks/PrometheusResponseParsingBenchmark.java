@@ -0,0 +1,86 @@
+package org.marionette.controlplane.benchmarks;
+
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.marionette.controlplane.adapters.outbound.fetchmetrics.prometheus.dto.PrometheusApiResponse;
+import org.marionette.controlplane.adapters.outbound.fetchmetrics.prometheus.dto.PrometheusQueryData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Parsing of Prometheus responses the way the metrics adapter does it: an instant vector with one series per
+ * pod, and a range matrix of one sample per sampling period over the slice.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 2)
+public class PrometheusResponseParsingBenchmark {
+
+    private static final TypeReference<PrometheusApiResponse<PrometheusQueryData>> RESPONSE_TYPE = new TypeReference<PrometheusApiResponse<PrometheusQueryData>>() {
+    };
+
+    @Param({ "10", "100", "500" })
+    public int series;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private String vectorBody;
+    private String matrixBody;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(BenchmarkData.SEED);
+        vectorBody = responseBody(random, "vector", 1);
+        matrixBody = responseBody(random, "matrix", BenchmarkData.SAMPLES_PER_METRIC);
+    }
+
+    @Benchmark
+    public PrometheusApiResponse<PrometheusQueryData> parseVector() throws Exception {
+        return objectMapper.readValue(vectorBody, RESPONSE_TYPE);
+    }
+
+    @Benchmark
+    public PrometheusApiResponse<PrometheusQueryData> parseMatrix() throws Exception {
+        return objectMapper.readValue(matrixBody, RESPONSE_TYPE);
+    }
+
+    private String responseBody(Random random, String resultType, int points) {
+        StringBuilder body = new StringBuilder("{\"status\":\"success\",\"data\":{\"resultType\":\"")
+                .append(resultType).append("\",\"result\":[");
+        for (int s = 0; s < series; s++) {
+            if (s > 0) {
+                body.append(',');
+            }
+            body.append("{\"metric\":{\"service\":\"").append(BenchmarkData.serviceName(s % 50))
+                    .append("\",\"pod\":\"").append(BenchmarkData.serviceName(s % 50)).append("-7d9f8b6c4-").append(s)
+                    .append("\",\"namespace\":\"default\"},");
+            body.append(points == 1 ? "\"value\":" : "\"values\":[");
+            for (int p = 0; p < points; p++) {
+                if (p > 0) {
+                    body.append(',');
+                }
+                body.append('[').append(1735689600 + p * 15).append(".123,\"")
+                        .append(String.format(Locale.ROOT, "%.6f", random.nextDouble() * 100)).append("\"]");
+            }
+            body.append(points == 1 ? "}" : "]}");
+        }
+        return body.append("]}}").toString();
+    }
+
+}
@@ -0,0 +1,69 @@
+package org.marionette.controlplane.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.marionette.controlplane.domain.entities.ServiceConfig;
+import org.marionette.controlplane.usecases.domain.dto.ServiceConfigData;
+import org.marionette.controlplane.usecases.domain.mappers.ServiceConfigDataMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mapping of the configurations of all the discovered services, as done on every discovery round and for the
+ * configuration endpoints
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 2)
+public class ServiceConfigDataMapperBenchmark {
+
+    @Param({ "10", "100", "500" })
+    public int services;
+
+    private List<ServiceConfigData> configData;
+    private List<ServiceConfig> domainConfigs;
+
+    @Setup
+    public void setUp() {
+        BenchmarkData.silenceConsole();
+        configData = new ArrayList<>(services);
+        domainConfigs = new ArrayList<>(services);
+        for (int service = 0; service < services; service++) {
+            configData.add(BenchmarkData.serviceConfigData(service));
+            domainConfigs.add(ServiceConfigDataMapper.toDomainServiceConfig(configData.get(service)));
+        }
+    }
+
+    @Benchmark
+    public List<ServiceConfig> toDomainServiceConfig() {
+        List<ServiceConfig> mapped = new ArrayList<>(services);
+        for (ServiceConfigData data : configData) {
+            mapped.add(ServiceConfigDataMapper.toDomainServiceConfig(data));
+        }
+        return mapped;
+    }
+
+    @Benchmark
+    public List<ServiceConfigData> fromDomainServiceConfig() {
+        List<ServiceConfigData> mapped = new ArrayList<>(services);
+        for (ServiceConfig config : domainConfigs) {
+            mapped.add(ServiceConfigDataMapper.fromDomainServiceConfig(config));
+        }
+        return mapped;
+    }
+
+}
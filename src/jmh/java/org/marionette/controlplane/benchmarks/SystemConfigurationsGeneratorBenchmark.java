@@ -0,0 +1,50 @@
+package org.marionette.controlplane.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.marionette.controlplane.usecases.inbound.abntest.domain.SystemBehaviourConfiguration;
+import org.marionette.controlplane.usecases.inbound.abntest.domain.VariationPoint;
+import org.marionette.controlplane.usecases.inbound.abntest.engine.SystemConfigurationsGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Enumeration of the system configurations, from 10 to about 10^5 of them. The shapes are variation points x
+ * behaviours per point; 20 points only fit in the range with a single behaviour each, so 17 x 2 is the widest.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 2)
+public class SystemConfigurationsGeneratorBenchmark {
+
+    @Param({ "1x10", "5x4", "10x3", "17x2" })
+    public String shape;
+
+    private final SystemConfigurationsGenerator generator = new SystemConfigurationsGenerator();
+    private List<VariationPoint> variationPoints;
+
+    @Setup
+    public void setUp() {
+        BenchmarkData.silenceConsole();
+        variationPoints = BenchmarkData.variationPoints(shape);
+    }
+
+    @Benchmark
+    public List<SystemBehaviourConfiguration> generateAllSystemConfigurations() {
+        return generator.generateAllSystemConfigurations(variationPoints);
+    }
+
+}
@@ -0,0 +1,51 @@
+package org.marionette.controlplane.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.marionette.controlplane.usecases.inbound.abntest.ranking.AggregatedSystemMetrics;
+import org.marionette.controlplane.usecases.inbound.abntest.ranking.SystemMetricsAggregator;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.MetricsConfiguration;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.SystemMetricsDataPoint;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Aggregation of the per service metrics of one configuration into system metrics, with samples to estimate from
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 2)
+public class SystemMetricsAggregatorBenchmark {
+
+    @Param({ "10", "100", "500" })
+    public int services;
+
+    private final SystemMetricsAggregator aggregator = new SystemMetricsAggregator();
+    private final MetricsConfiguration metricsConfiguration = new MetricsConfiguration(BenchmarkData.METRICS);
+    private SystemMetricsDataPoint systemMetrics;
+
+    @Setup
+    public void setUp() {
+        BenchmarkData.silenceConsole();
+        systemMetrics = BenchmarkData.systemMetrics(services, new Random(BenchmarkData.SEED));
+    }
+
+    @Benchmark
+    public AggregatedSystemMetrics aggregate() {
+        return aggregator.aggregate(systemMetrics, metricsConfiguration);
+    }
+
+}
@@ -0,0 +1,53 @@
+package org.marionette.controlplane.benchmarks.scale;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Latencies of the operations of one phase, kept in full so the tail percentiles are exact
+ */
+final class LatencyRecorder {
+
+    private long[] nanos = new long[1024];
+    private int size;
+
+    synchronized void record(long elapsedNanos) {
+        if (size == nanos.length) {
+            nanos = Arrays.copyOf(nanos, size * 2);
+        }
+        nanos[size++] = elapsedNanos;
+    }
+
+    synchronized int count() {
+        return size;
+    }
+
+    /**
+     * p50, p90, p99, p99.9 and max in milliseconds, nearest rank
+     */
+    synchronized Map<String, Double> percentilesMillis() {
+        long[] sorted = Arrays.copyOf(nanos, size);
+        Arrays.sort(sorted);
+        Map<String, Double> percentiles = new LinkedHashMap<>();
+        percentiles.put("p50", percentile(sorted, 0.50));
+        percentiles.put("p90", percentile(sorted, 0.90));
+        percentiles.put("p99", percentile(sorted, 0.99));
+        percentiles.put("p999", percentile(sorted, 0.999));
+        percentiles.put("max", sorted.length == 0 ? Double.NaN : toMillis(sorted[sorted.length - 1]));
+        return percentiles;
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return Double.NaN;
+        }
+        int rank = (int) Math.ceil(quantile * sorted.length);
+        return toMillis(sorted[Math.max(0, rank - 1)]);
+    }
+
+    private static double toMillis(long nanos) {
+        return Math.round(nanos / 10_000.0) / 100.0;
+    }
+
+}
@@ -0,0 +1,82 @@
+package org.marionette.controlplane.benchmarks.scale;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Follows the threads and the heap of the JVM during a phase: the thread peak comes from the JVM itself, the
+ * heap peak from a sample every few milliseconds (the heap in use includes the garbage not yet collected).
+ */
+final class ResourceSampler implements AutoCloseable {
+
+    private static final long SAMPLING_MILLIS = 10;
+
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private final Thread sampler;
+
+    private volatile long peakHeapBytes;
+    private int threadsAtStart;
+    private long heapAtStart;
+
+    ResourceSampler() {
+        sampler = new Thread(this::sample, "scale-resource-sampler");
+        sampler.setDaemon(true);
+        sampler.start();
+    }
+
+    /**
+     * Starts a new phase, the peaks restart from the current values
+     */
+    void reset() {
+        threads.resetPeakThreadCount();
+        threadsAtStart = threads.getThreadCount();
+        heapAtStart = heapUsed();
+        peakHeapBytes = heapAtStart;
+    }
+
+    /**
+     * Thread counts and heap in MiB of the phase, from its start to now
+     */
+    Map<String, Object> snapshot() {
+        Map<String, Object> resources = new LinkedHashMap<>();
+        resources.put("threadsAtStart", threadsAtStart);
+        resources.put("peakThreads", threads.getPeakThreadCount());
+        resources.put("threadsAtEnd", threads.getThreadCount());
+        resources.put("heapAtStartMiB", toMiB(heapAtStart));
+        resources.put("peakHeapMiB", toMiB(Math.max(peakHeapBytes, heapUsed())));
+        resources.put("heapAtEndMiB", toMiB(heapUsed()));
+        return resources;
+    }
+
+    @Override
+    public void close() {
+        sampler.interrupt();
+    }
+
+    private void sample() {
+        while (!Thread.currentThread().isInterrupted()) {
+            long used = heapUsed();
+            if (used > peakHeapBytes) {
+                peakHeapBytes = used;
+            }
+            try {
+                Thread.sleep(SAMPLING_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private long heapUsed() {
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    private static double toMiB(long bytes) {
+        return Math.round(bytes / 1024.0 / 1024.0 * 10) / 10.0;
+    }
+
+}
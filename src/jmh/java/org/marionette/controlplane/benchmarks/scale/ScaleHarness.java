@@ -0,0 +1,77 @@
+package org.marionette.controlplane.benchmarks.scale;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Scale test of the discovery and of the behaviour changes against a stub cluster, sized by
+ * {@link ScaleHarnessSettings} (1,000 services x 20 pods by default):
+ *
+ *     MARIONETTE_SCALE_SERVICES=1000 mvn -Pbenchmarks test-compile exec:exec@scale-harness
+ *
+ * The stubs run in this JVM, the control plane in a child JVM ({@link ScaleHarnessWorkload}) that resolves the
+ * service names through a generated hosts file. The report of the child is completed with the requests the
+ * stubs received and the failures they injected.
+ */
+public final class ScaleHarness {
+
+    private ScaleHarness() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        ScaleHarnessSettings settings = ScaleHarnessSettings.loadFromEnv();
+        int exitCode;
+
+        try (StubMarionetteCluster cluster = StubMarionetteCluster.start(settings)) {
+            System.out.printf("🧪 Stub cluster: %d services x %d pods, nodes on port %d, Kubernetes API at %s%n",
+                    settings.services(), settings.podsPerService(), cluster.nodePort(), cluster.kubernetesApiUrl());
+
+            Path hostsFile = cluster.writeHostsFile(Files.createTempFile("marionette-scale-hosts", ".txt"));
+            try {
+                List<String> command = new ArrayList<>();
+                command.add(ProcessHandle.current().info().command().orElse("java"));
+                if (!settings.workloadJvmOptions().isEmpty()) {
+                    command.addAll(Arrays.asList(settings.workloadJvmOptions().split("\\s+")));
+                }
+                command.add("-Djdk.net.hosts.file=" + hostsFile);
+                command.add("-cp");
+                command.add(System.getProperty("java.class.path"));
+                command.add(ScaleHarnessWorkload.class.getName());
+
+                ProcessBuilder workload = new ProcessBuilder(command).inheritIO();
+                workload.environment().put("MARIONETTE_K8S_API_URL", cluster.kubernetesApiUrl());
+                exitCode = workload.start().waitFor();
+            } finally {
+                Files.deleteIfExists(hostsFile);
+            }
+
+            System.out.println("📡 Requests received by the stubs:");
+            cluster.counters().forEach((endpoint, counters) -> System.out.printf("   %-16s %8d requests, %6d injected failures%n",
+                    endpoint, counters.requests().sum(), counters.injectedFailures().sum()));
+            if (exitCode == 0) {
+                addStubCounters(settings.reportFile(), cluster.counters());
+            }
+        }
+
+        System.exit(exitCode);
+    }
+
+    private static void addStubCounters(Path reportFile, Map<String, StubMarionetteCluster.EndpointCounters> counters)
+            throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        ObjectNode report = (ObjectNode) objectMapper.readTree(reportFile.toFile());
+        ObjectNode stubs = report.putObject("stubRequests");
+        counters.forEach((endpoint, endpointCounters) -> stubs.putObject(endpoint)
+                .put("requests", endpointCounters.requests().sum())
+                .put("injectedFailures", endpointCounters.injectedFailures().sum()));
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(reportFile.toFile(), report);
+    }
+
+}
@@ -0,0 +1,99 @@
+package org.marionette.controlplane.benchmarks.scale;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Settings of the scale harness, read from the environment:
+ * MARIONETTE_SCALE_SERVICES number of marionette services and MARIONETTE_SCALE_PODS_PER_SERVICE pods behind each,
+ * MARIONETTE_SCALE_NODE_LATENCY_MILLIS and MARIONETTE_SCALE_NODE_JITTER_MILLIS base and extra random latency of
+ * every node response, MARIONETTE_SCALE_NODE_FAILURE_RATE fraction of node requests answered with a 503,
+ * MARIONETTE_SCALE_K8S_LATENCY_MILLIS latency of the fake Kubernetes API, MARIONETTE_SCALE_STUB_THREADS threads
+ * serving the stubs, MARIONETTE_SCALE_DISCOVERY_RUNS full discoveries to run, MARIONETTE_SCALE_SWITCHES
+ * behaviour changes to send with MARIONETTE_SCALE_SWITCH_CONCURRENCY callers, MARIONETTE_SCALE_REPORT_FILE
+ * where the JSON report is written and MARIONETTE_SCALE_WORKLOAD_JVM_OPTS options of the measured JVM.
+ */
+public record ScaleHarnessSettings(
+    int services,
+    int podsPerService,
+    Duration nodeLatency,
+    Duration nodeJitter,
+    double nodeFailureRate,
+    Duration kubernetesLatency,
+    int stubThreads,
+    int discoveryRuns,
+    int switches,
+    int switchConcurrency,
+    Path reportFile,
+    String workloadJvmOptions
+) {
+
+    // Services and pods get their own loopback addresses, 250 per /24 of 127.1.0.0/16 and 127.2.0.0/16
+    static final int MAX_ADDRESSES = 250 * 256;
+
+    public ScaleHarnessSettings {
+        if (services < 1 || services > MAX_ADDRESSES) {
+            throw new IllegalArgumentException("The harness supports from 1 to " + MAX_ADDRESSES + " services");
+        }
+        if (podsPerService < 1 || stubThreads < 1 || switchConcurrency < 1) {
+            throw new IllegalArgumentException("The pods per service, stub threads and switch callers must be at least 1");
+        }
+        if ((long) services * podsPerService > MAX_ADDRESSES) {
+            throw new IllegalArgumentException("The harness supports up to " + MAX_ADDRESSES + " pods in total");
+        }
+        if (nodeFailureRate < 0 || nodeFailureRate >= 1) {
+            throw new IllegalArgumentException("The failure rate of the nodes must be in [0, 1)");
+        }
+    }
+
+    public static ScaleHarnessSettings defaultSettings() {
+        return new ScaleHarnessSettings(1000, 20, Duration.ofMillis(5), Duration.ofMillis(10), 0.01,
+                Duration.ofMillis(2), 256, 3, 2000, 8, Path.of("target", "scale-report.json"), "");
+    }
+
+    public static ScaleHarnessSettings loadFromEnv() {
+        ScaleHarnessSettings defaults = defaultSettings();
+        String reportFile = System.getenv("MARIONETTE_SCALE_REPORT_FILE");
+        String jvmOptions = System.getenv("MARIONETTE_SCALE_WORKLOAD_JVM_OPTS");
+        return new ScaleHarnessSettings(
+            (int) parseLong(System.getenv("MARIONETTE_SCALE_SERVICES"), defaults.services()),
+            (int) parseLong(System.getenv("MARIONETTE_SCALE_PODS_PER_SERVICE"), defaults.podsPerService()),
+            Duration.ofMillis(parseLong(System.getenv("MARIONETTE_SCALE_NODE_LATENCY_MILLIS"), defaults.nodeLatency().toMillis())),
+            Duration.ofMillis(parseLong(System.getenv("MARIONETTE_SCALE_NODE_JITTER_MILLIS"), defaults.nodeJitter().toMillis())),
+            parseDouble(System.getenv("MARIONETTE_SCALE_NODE_FAILURE_RATE"), defaults.nodeFailureRate()),
+            Duration.ofMillis(parseLong(System.getenv("MARIONETTE_SCALE_K8S_LATENCY_MILLIS"), defaults.kubernetesLatency().toMillis())),
+            (int) parseLong(System.getenv("MARIONETTE_SCALE_STUB_THREADS"), defaults.stubThreads()),
+            (int) parseLong(System.getenv("MARIONETTE_SCALE_DISCOVERY_RUNS"), defaults.discoveryRuns()),
+            (int) parseLong(System.getenv("MARIONETTE_SCALE_SWITCHES"), defaults.switches()),
+            (int) parseLong(System.getenv("MARIONETTE_SCALE_SWITCH_CONCURRENCY"), defaults.switchConcurrency()),
+            reportFile == null || reportFile.isBlank() ? defaults.reportFile() : Path.of(reportFile.trim()),
+            jvmOptions == null ? defaults.workloadJvmOptions() : jvmOptions.trim());
+    }
+
+    // Zero is a valid latency, so only negative values fall back to the default
+    private static long parseLong(String value, long defaultValue) {
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            long parsed = Long.parseLong(value.trim());
+            return parsed >= 0 ? parsed : defaultValue;
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid scale harness setting " + value + ", using " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    private static double parseDouble(String value, double defaultValue) {
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid scale harness setting " + value + ", using " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+}
@@ -0,0 +1,295 @@
+package org.marionette.controlplane.benchmarks.scale;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.marionette.controlplane.adapters.outbound.changeconfig.ControlMarionetteServiceBehaviourAdapter;
+import org.marionette.controlplane.adapters.outbound.fetchconfig.HttpFetchMarionetteConfigAdapter;
+import org.marionette.controlplane.adapters.outbound.servicediscovery.HttpValidateMarionetteServiceAdapter;
+import org.marionette.controlplane.adapters.outbound.servicediscovery.KubernetesDiscoveryConfiguration;
+import org.marionette.controlplane.adapters.outbound.servicediscovery.KubernetesFindServicesAdapter;
+import org.marionette.controlplane.adapters.outbound.transport.OutboundHttpTransport;
+import org.marionette.controlplane.adapters.outbound.transport.OutboundHttpTransportSettings;
+import org.marionette.controlplane.domain.entities.ConfigRegistry;
+import org.marionette.controlplane.domain.values.ServiceName;
+import org.marionette.controlplane.exceptions.infrastructure.checked.FetchMarionetteConfigurationException;
+import org.marionette.controlplane.usecases.domain.dto.ClassConfigData;
+import org.marionette.controlplane.usecases.domain.dto.MethodConfigData;
+import org.marionette.controlplane.usecases.domain.dto.ServiceConfigData;
+import org.marionette.controlplane.usecases.domain.mappers.ServiceConfigDataMapper;
+import org.marionette.controlplane.usecases.inbound.fulldiscovery.DiscoveryPipelineSettings;
+import org.marionette.controlplane.usecases.inbound.fulldiscovery.FullMarionetteServiceConfigDiscoveryUseCaseImpl;
+import org.marionette.controlplane.usecases.outbound.fetchconfig.FetchMarionetteConfigurationGateway;
+import org.marionette.controlplane.usecases.outbound.fetchconfig.FetchedMarionetteConfiguration;
+import org.marionette.controlplane.usecases.outbound.servicediscovery.ValidateMarionetteServicePort;
+import org.marionette.controlplane.usecases.outbound.servicemanipulation.ChangeBehaviourData;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.kubernetes.client.openapi.ApiClient;
+
+/**
+ * The measured side of the scale harness, run in its own JVM by {@link ScaleHarness} so that its threads and
+ * heap are only the control plane's. Wires the real discovery use case and adapters against the stub cluster,
+ * runs the full discoveries and then the behaviour changes, and writes the report.
+ */
+public final class ScaleHarnessWorkload {
+
+    private ScaleHarnessWorkload() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        PrintStream console = System.out;
+        ScaleHarnessSettings settings = ScaleHarnessSettings.loadFromEnv();
+        if (!serviceNamesResolveToLoopback()) {
+            console.println("❌ The service host names do not resolve, run the workload through ScaleHarness");
+            System.exit(2);
+        }
+
+        // The adapters log every request: at this scale the console would be measured instead of the control plane
+        PrintStream discarded = new PrintStream(OutputStream.nullOutputStream());
+        System.setOut(discarded);
+        System.setErr(discarded);
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("settings", describe(settings));
+
+        KubernetesDiscoveryConfiguration kubernetesConfiguration = KubernetesDiscoveryConfiguration.loadFromEnv();
+        try (OutboundHttpTransport transport = new OutboundHttpTransport(OutboundHttpTransportSettings.loadFromEnv());
+                ResourceSampler resources = new ResourceSampler()) {
+
+            ApiClient apiClient = KubernetesFindServicesAdapter.defaultApiClient(kubernetesConfiguration);
+            ConfigRegistry registry = new ConfigRegistry();
+            LatencyRecorder validations = new LatencyRecorder();
+            LatencyRecorder fetches = new LatencyRecorder();
+            FullMarionetteServiceConfigDiscoveryUseCaseImpl discovery = new FullMarionetteServiceConfigDiscoveryUseCaseImpl(
+                    new KubernetesFindServicesAdapter(apiClient, kubernetesConfiguration),
+                    timed(new HttpValidateMarionetteServiceAdapter(transport), validations),
+                    timed(new HttpFetchMarionetteConfigAdapter(transport), fetches),
+                    registry,
+                    DiscoveryPipelineSettings.loadFromEnv());
+
+            report.put("discovery", runDiscoveries(console, settings, discovery, registry, resources, validations, fetches));
+
+            ControlMarionetteServiceBehaviourAdapter control = new ControlMarionetteServiceBehaviourAdapter(apiClient, transport);
+            report.put("behaviourChanges", runBehaviourChanges(console, settings, control, registry, resources));
+        }
+
+        Path reportFile = settings.reportFile().toAbsolutePath();
+        Files.createDirectories(reportFile.getParent());
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(reportFile.toFile(), report);
+        console.println("📝 Report written to " + reportFile);
+        System.exit(0);
+    }
+
+    private static Map<String, Object> runDiscoveries(PrintStream console, ScaleHarnessSettings settings,
+            FullMarionetteServiceConfigDiscoveryUseCaseImpl discovery, ConfigRegistry registry,
+            ResourceSampler resources, LatencyRecorder validations, LatencyRecorder fetches) {
+
+        List<Map<String, Object>> runs = new ArrayList<>();
+        LatencyRecorder durations = new LatencyRecorder();
+        for (int run = 1; run <= settings.discoveryRuns(); run++) {
+            System.gc();
+            resources.reset();
+            long start = System.nanoTime();
+            discovery.execute();
+            long elapsed = System.nanoTime() - start;
+            durations.record(elapsed);
+
+            int registered = registry.getAllServiceMetadata().size();
+            double seconds = elapsed / 1e9;
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("run", run);
+            result.put("durationMillis", elapsed / 1_000_000);
+            result.put("registeredServices", registered);
+            result.put("servicesPerSecond", round(settings.services() / seconds));
+            result.put("resources", resources.snapshot());
+            runs.add(result);
+
+            console.printf("🔍 Discovery run %d: %d/%d services registered in %d ms (%.0f services/s), resources %s%n",
+                    run, registered, settings.services(), elapsed / 1_000_000, settings.services() / seconds,
+                    result.get("resources"));
+        }
+        console.println("   validation latency (ms) " + validations.percentilesMillis());
+        console.println("   fetch latency (ms)      " + fetches.percentilesMillis());
+
+        Map<String, Object> phase = new LinkedHashMap<>();
+        phase.put("runs", runs);
+        phase.put("runLatencyMillis", durations.percentilesMillis());
+        phase.put("validations", validations.count());
+        phase.put("validationLatencyMillis", validations.percentilesMillis());
+        phase.put("fetches", fetches.count());
+        phase.put("fetchLatencyMillis", fetches.percentilesMillis());
+        return phase;
+    }
+
+    /**
+     * Sends the changes round robin over the registered services, each one fanned out by the adapter to all the
+     * pods of the service
+     */
+    private static Map<String, Object> runBehaviourChanges(PrintStream console, ScaleHarnessSettings settings,
+            ControlMarionetteServiceBehaviourAdapter control, ConfigRegistry registry, ResourceSampler resources)
+            throws Exception {
+
+        List<SwitchTarget> targets = switchTargets(registry);
+        Map<String, Object> phase = new LinkedHashMap<>();
+        if (targets.isEmpty()) {
+            console.println("⚠️  No service registered, no behaviour change sent");
+            phase.put("switches", 0);
+            return phase;
+        }
+
+        LatencyRecorder latencies = new LatencyRecorder();
+        AtomicInteger callerIds = new AtomicInteger();
+        ExecutorService callers = Executors.newFixedThreadPool(settings.switchConcurrency(), runnable -> {
+            Thread thread = new Thread(runnable, "scale-switch-" + callerIds.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        System.gc();
+        resources.reset();
+        long start = System.nanoTime();
+        List<Future<?>> pending = new ArrayList<>(settings.switches());
+        for (int i = 0; i < settings.switches(); i++) {
+            SwitchTarget target = targets.get(i % targets.size());
+            String behaviour = target.behaviours().get((i / targets.size() + 1) % target.behaviours().size());
+            ChangeBehaviourData change = new ChangeBehaviourData(target.serviceName(), target.className(),
+                    target.methodName(), behaviour);
+            pending.add(callers.submit(() -> {
+                long callStart = System.nanoTime();
+                control.changeMarionetteServiceBehaviour(target.endpoint(), change);
+                latencies.record(System.nanoTime() - callStart);
+            }));
+        }
+        for (Future<?> call : pending) {
+            call.get();
+        }
+        long elapsed = System.nanoTime() - start;
+        Map<String, Object> resourceUse = resources.snapshot();
+        callers.shutdownNow();
+        callers.awaitTermination(10, TimeUnit.SECONDS);
+
+        double seconds = elapsed / 1e9;
+        long podNotifications = (long) settings.switches() * settings.podsPerService();
+        phase.put("switches", settings.switches());
+        phase.put("concurrency", settings.switchConcurrency());
+        phase.put("durationMillis", elapsed / 1_000_000);
+        phase.put("switchesPerSecond", round(settings.switches() / seconds));
+        phase.put("podNotificationsPerSecond", round(podNotifications / seconds));
+        phase.put("switchLatencyMillis", latencies.percentilesMillis());
+        phase.put("resources", resourceUse);
+
+        console.printf("🎛️  Behaviour changes: %d switches (%d pod notifications) in %d ms, %.1f switches/s, %.0f notifications/s%n",
+                settings.switches(), podNotifications, elapsed / 1_000_000, settings.switches() / seconds, podNotifications / seconds);
+        console.println("   switch latency (ms) " + latencies.percentilesMillis());
+        console.println("   resources " + resourceUse);
+        return phase;
+    }
+
+    private record SwitchTarget(String serviceName, String endpoint, String className, String methodName,
+            List<String> behaviours) {}
+
+    /**
+     * The first method of the first class of every registered service, with its available behaviours
+     */
+    private static List<SwitchTarget> switchTargets(ConfigRegistry registry) {
+        List<SwitchTarget> targets = new ArrayList<>();
+        for (ServiceName serviceName : registry.getAllServiceMetadata().keySet()) {
+            ServiceConfigData configuration = ServiceConfigDataMapper.fromDomainServiceConfig(
+                    registry.getRuntimeConfiguration(serviceName));
+            if (configuration.classConfigs().isEmpty() || configuration.classConfigs().get(0).methodConfigData().isEmpty()) {
+                continue;
+            }
+            ClassConfigData classConfig = configuration.classConfigs().get(0);
+            MethodConfigData methodConfig = classConfig.methodConfigData().get(0);
+            targets.add(new SwitchTarget(serviceName.getServiceName(), registry.getEndpointOfService(serviceName).toString(),
+                    classConfig.className(), methodConfig.methodName(), List.copyOf(methodConfig.availableBehaviourIds())));
+        }
+        targets.sort(Comparator.comparing(SwitchTarget::serviceName));
+        return targets;
+    }
+
+    private static ValidateMarionetteServicePort timed(ValidateMarionetteServicePort validator, LatencyRecorder latencies) {
+        return candidate -> {
+            long start = System.nanoTime();
+            try {
+                return validator.validateCandidateNode(candidate);
+            } finally {
+                latencies.record(System.nanoTime() - start);
+            }
+        };
+    }
+
+    private static FetchMarionetteConfigurationGateway timed(FetchMarionetteConfigurationGateway gateway,
+            LatencyRecorder latencies) {
+        return new FetchMarionetteConfigurationGateway() {
+
+            @Override
+            public ServiceConfigData fetchMarionetteConfiguration(String endpoint)
+                    throws FetchMarionetteConfigurationException {
+                long start = System.nanoTime();
+                try {
+                    return gateway.fetchMarionetteConfiguration(endpoint);
+                } finally {
+                    latencies.record(System.nanoTime() - start);
+                }
+            }
+
+            @Override
+            public FetchedMarionetteConfiguration fetchMarionetteConfigurationIfChanged(String endpoint,
+                    String knownContentHash) throws FetchMarionetteConfigurationException {
+                long start = System.nanoTime();
+                try {
+                    return gateway.fetchMarionetteConfigurationIfChanged(endpoint, knownContentHash);
+                } finally {
+                    latencies.record(System.nanoTime() - start);
+                }
+            }
+        };
+    }
+
+    private static boolean serviceNamesResolveToLoopback() {
+        try {
+            return InetAddress.getByName(StubMarionetteCluster.serviceName(0) + "." + StubMarionetteCluster.NAMESPACE
+                    + ".svc.cluster.local").isLoopbackAddress();
+        } catch (UnknownHostException e) {
+            return false;
+        }
+    }
+
+    private static Map<String, Object> describe(ScaleHarnessSettings settings) {
+        Map<String, Object> described = new LinkedHashMap<>();
+        described.put("services", settings.services());
+        described.put("podsPerService", settings.podsPerService());
+        described.put("nodeLatencyMillis", settings.nodeLatency().toMillis());
+        described.put("nodeJitterMillis", settings.nodeJitter().toMillis());
+        described.put("nodeFailureRate", settings.nodeFailureRate());
+        described.put("kubernetesLatencyMillis", settings.kubernetesLatency().toMillis());
+        described.put("discoveryRuns", settings.discoveryRuns());
+        described.put("switches", settings.switches());
+        described.put("switchConcurrency", settings.switchConcurrency());
+        described.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+        described.put("maxHeapMiB", Runtime.getRuntime().maxMemory() / 1024 / 1024);
+        return described;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10) / 10.0;
+    }
+
+}
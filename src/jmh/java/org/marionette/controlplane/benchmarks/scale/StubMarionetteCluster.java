@@ -0,0 +1,365 @@
+package org.marionette.controlplane.benchmarks.scale;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import io.kubernetes.client.openapi.JSON;
+import io.kubernetes.client.openapi.models.V1Container;
+import io.kubernetes.client.openapi.models.V1ContainerPort;
+import io.kubernetes.client.openapi.models.V1ListMeta;
+import io.kubernetes.client.openapi.models.V1ObjectMeta;
+import io.kubernetes.client.openapi.models.V1Pod;
+import io.kubernetes.client.openapi.models.V1PodList;
+import io.kubernetes.client.openapi.models.V1PodSpec;
+import io.kubernetes.client.openapi.models.V1PodStatus;
+import io.kubernetes.client.openapi.models.V1Service;
+import io.kubernetes.client.openapi.models.V1ServiceList;
+import io.kubernetes.client.openapi.models.V1ServicePort;
+import io.kubernetes.client.openapi.models.V1ServiceSpec;
+import io.kubernetes.client.openapi.models.V1Status;
+
+/**
+ * Stand-ins for a cluster of marionette services, served by two embedded HTTP servers:
+ * - one server answers as every marionette node (validation, configuration, behaviour change), with the
+ *   configured latency and failure rate. Each service and each pod has its own loopback address (127.1.x.y for
+ *   services, 127.2.x.y for pods), so the control plane opens connections per destination as in a cluster.
+ *   The service host names are resolved through the hosts file written by {@link #writeHostsFile(Path)}.
+ * - one server answers as the Kubernetes API for the Services and Pods of those marionette services.
+ *
+ * The loopback addresses other than 127.0.0.1 are routed to the local host on Linux, not on every OS.
+ */
+public class StubMarionetteCluster implements AutoCloseable {
+
+    static final String NAMESPACE = "marionette-scale";
+
+    private static final int CLASSES_PER_SERVICE = 4;
+    private static final int METHODS_PER_CLASS = 3;
+    private static final int BEHAVIOURS_PER_METHOD = 3;
+    private static final String VALIDATION_PATH = "/marionette/api/isMarionette";
+    private static final String CONFIGURATION_PATH = "/marionette/api/getConfiguration";
+    private static final String CHANGE_BEHAVIOUR_PATH = "/marionette/api/changeBehaviour";
+
+    private final ScaleHarnessSettings settings;
+    private final HttpServer nodeServer;
+    private final HttpServer kubernetesServer;
+    private final ExecutorService nodeWorkers;
+    private final ExecutorService kubernetesWorkers;
+    private final JSON json = new JSON();
+    private final List<V1Service> services;
+    private final Map<Integer, byte[]> configurations = new ConcurrentHashMap<>();
+    private final Map<String, EndpointCounters> counters = new LinkedHashMap<>();
+
+    /**
+     * Requests received by one endpoint and how many of them were answered with an injected failure
+     */
+    record EndpointCounters(LongAdder requests, LongAdder injectedFailures) {
+
+        EndpointCounters() {
+            this(new LongAdder(), new LongAdder());
+        }
+    }
+
+    private StubMarionetteCluster(ScaleHarnessSettings settings) throws IOException {
+        this.settings = settings;
+        for (String endpoint : List.of("validate", "configuration", "changeBehaviour", "kubernetes")) {
+            counters.put(endpoint, new EndpointCounters());
+        }
+
+        nodeWorkers = Executors.newFixedThreadPool(settings.stubThreads(), namedThreads("stub-node-"));
+        nodeServer = HttpServer.create(new InetSocketAddress(0), 4096);
+        nodeServer.setExecutor(nodeWorkers);
+        nodeServer.createContext("/", this::handleNodeRequest);
+
+        kubernetesWorkers = Executors.newFixedThreadPool(Math.max(4, settings.stubThreads() / 8), namedThreads("stub-k8s-"));
+        kubernetesServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+        kubernetesServer.setExecutor(kubernetesWorkers);
+        kubernetesServer.createContext("/api/v1/", this::handleKubernetesRequest);
+
+        services = new ArrayList<>(settings.services());
+        for (int service = 0; service < settings.services(); service++) {
+            services.add(kubernetesService(service));
+        }
+    }
+
+    public static StubMarionetteCluster start(ScaleHarnessSettings settings) throws IOException {
+        StubMarionetteCluster cluster = new StubMarionetteCluster(settings);
+        cluster.nodeServer.start();
+        cluster.kubernetesServer.start();
+        return cluster;
+    }
+
+    public String kubernetesApiUrl() {
+        return "http://127.0.0.1:" + kubernetesServer.getAddress().getPort();
+    }
+
+    public int nodePort() {
+        return nodeServer.getAddress().getPort();
+    }
+
+    /**
+     * Maps the cluster DNS name of every service to its loopback address, in the format of /etc/hosts
+     */
+    public Path writeHostsFile(Path file) throws IOException {
+        StringBuilder hosts = new StringBuilder("127.0.0.1 localhost\n");
+        for (int service = 0; service < settings.services(); service++) {
+            hosts.append(serviceAddress(service)).append(' ')
+                    .append(serviceName(service)).append('.').append(NAMESPACE).append(".svc.cluster.local\n");
+        }
+        return Files.writeString(file, hosts.toString());
+    }
+
+    public Map<String, EndpointCounters> counters() {
+        return counters;
+    }
+
+    @Override
+    public void close() {
+        nodeServer.stop(0);
+        kubernetesServer.stop(0);
+        nodeWorkers.shutdownNow();
+        kubernetesWorkers.shutdownNow();
+    }
+
+    static String serviceName(int service) {
+        return "scale-svc-" + service;
+    }
+
+    private static String serviceAddress(int service) {
+        return loopbackAddress(1, service);
+    }
+
+    private String podAddress(int service, int pod) {
+        return loopbackAddress(2, service * settings.podsPerService() + pod);
+    }
+
+    private static String loopbackAddress(int block, int index) {
+        return "127." + block + "." + (index / 250) + "." + (index % 250 + 1);
+    }
+
+    private void handleNodeRequest(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String path = exchange.getRequestURI().getPath();
+            String endpoint = switch (path) {
+                case VALIDATION_PATH -> "validate";
+                case CONFIGURATION_PATH -> "configuration";
+                case CHANGE_BEHAVIOUR_PATH -> "changeBehaviour";
+                default -> null;
+            };
+            if (endpoint == null) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            try (InputStream body = exchange.getRequestBody()) {
+                body.readAllBytes();
+            }
+
+            EndpointCounters endpointCounters = counters.get(endpoint);
+            endpointCounters.requests().increment();
+            simulateLatency();
+            if (ThreadLocalRandom.current().nextDouble() < settings.nodeFailureRate()) {
+                endpointCounters.injectedFailures().increment();
+                exchange.sendResponseHeaders(503, -1);
+                return;
+            }
+
+            switch (endpoint) {
+                case "validate" -> send(exchange, 200, "true".getBytes(StandardCharsets.UTF_8));
+                case "configuration" -> sendConfiguration(exchange);
+                default -> send(exchange, 200, "Success".getBytes(StandardCharsets.UTF_8));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * The configuration of a service never changes, so its ETag is constant and repeated fetches get a 304
+     */
+    private void sendConfiguration(HttpExchange exchange) throws IOException {
+        String host = exchange.getRequestHeaders().getFirst("Host");
+        int service = host == null ? -1 : serviceIndex(host.substring(0, Math.max(0, host.indexOf('.'))));
+        if (service < 0) {
+            exchange.sendResponseHeaders(404, -1);
+            return;
+        }
+        String etag = "\"" + serviceName(service) + "-v1\"";
+        exchange.getResponseHeaders().set("ETag", etag);
+        if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            exchange.sendResponseHeaders(304, -1);
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        send(exchange, 200, configurations.computeIfAbsent(service, StubMarionetteCluster::configuration));
+    }
+
+    private static byte[] configuration(int service) {
+        StringBuilder json = new StringBuilder("{\"serviceName\":\"").append(serviceName(service)).append("\",\"classes\":[");
+        for (int c = 0; c < CLASSES_PER_SERVICE; c++) {
+            json.append(c > 0 ? "," : "").append("{\"name\":\"org.example.scale.Component").append(c).append("\",\"methods\":[");
+            for (int m = 0; m < METHODS_PER_CLASS; m++) {
+                json.append(m > 0 ? "," : "").append("{\"name\":\"method").append(m)
+                        .append("\",\"currentBehaviour\":\"behaviour0\",\"availableBehaviours\":[");
+                for (int b = 0; b < BEHAVIOURS_PER_METHOD; b++) {
+                    json.append(b > 0 ? "," : "").append("\"behaviour").append(b).append('"');
+                }
+                json.append("]}");
+            }
+            json.append("]}");
+        }
+        return json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void simulateLatency() throws InterruptedException {
+        long latency = settings.nodeLatency().toMillis();
+        if (settings.nodeJitter().toMillis() > 0) {
+            latency += ThreadLocalRandom.current().nextLong(settings.nodeJitter().toMillis() + 1);
+        }
+        if (latency > 0) {
+            TimeUnit.MILLISECONDS.sleep(latency);
+        }
+    }
+
+    private void handleKubernetesRequest(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            counters.get("kubernetes").requests().increment();
+            if (settings.kubernetesLatency().toMillis() > 0) {
+                TimeUnit.MILLISECONDS.sleep(settings.kubernetesLatency().toMillis());
+            }
+            URI uri = exchange.getRequestURI();
+            Map<String, String> query = queryParameters(uri.getRawQuery());
+            String[] segments = uri.getPath().substring("/api/v1/".length()).split("/");
+
+            if (segments.length == 1 && segments[0].equals("services")) {
+                sendJson(exchange, 200, servicePage(query));
+            } else if (segments.length >= 3 && segments[0].equals("namespaces") && segments[1].equals(NAMESPACE)) {
+                if (segments.length == 3 && segments[2].equals("services")) {
+                    sendJson(exchange, 200, servicePage(query));
+                } else if (segments.length == 4 && segments[2].equals("services") && serviceIndex(segments[3]) >= 0) {
+                    sendJson(exchange, 200, services.get(serviceIndex(segments[3])));
+                } else if (segments.length == 3 && segments[2].equals("pods")) {
+                    sendJson(exchange, 200, pods(query.get("labelSelector")));
+                } else {
+                    sendJson(exchange, 404, notFound(uri.getPath()));
+                }
+            } else if (segments.length >= 3 && segments[0].equals("namespaces") && segments[2].equals("pods")) {
+                sendJson(exchange, 200, new V1PodList().items(List.of()).metadata(new V1ListMeta().resourceVersion("1")));
+            } else {
+                sendJson(exchange, 404, notFound(uri.getPath()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private V1ServiceList servicePage(Map<String, String> query) {
+        int from = query.containsKey("continue") ? Integer.parseInt(query.get("continue")) : 0;
+        int limit = query.containsKey("limit") ? Integer.parseInt(query.get("limit")) : services.size();
+        int to = Math.min(services.size(), from + Math.max(1, limit));
+        return new V1ServiceList()
+                .items(services.subList(from, to))
+                .metadata(new V1ListMeta().resourceVersion("1")._continue(to < services.size() ? String.valueOf(to) : null));
+    }
+
+    private V1PodList pods(String labelSelector) {
+        List<V1Pod> pods = new ArrayList<>();
+        int service = labelSelector != null && labelSelector.startsWith("app=")
+                ? serviceIndex(labelSelector.substring("app=".length()))
+                : -1;
+        if (service >= 0) {
+            for (int pod = 0; pod < settings.podsPerService(); pod++) {
+                pods.add(new V1Pod()
+                        .metadata(new V1ObjectMeta().name(serviceName(service) + "-" + pod).namespace(NAMESPACE)
+                                .labels(Map.of("app", serviceName(service))))
+                        .spec(new V1PodSpec().containers(List.of(new V1Container().name("app")
+                                .ports(List.of(new V1ContainerPort().name("http").containerPort(nodePort()))))))
+                        .status(new V1PodStatus().phase("Running").podIP(podAddress(service, pod))));
+            }
+        }
+        return new V1PodList().items(pods).metadata(new V1ListMeta().resourceVersion("1"));
+    }
+
+    private V1Service kubernetesService(int service) {
+        return new V1Service()
+                .metadata(new V1ObjectMeta().name(serviceName(service)).namespace(NAMESPACE))
+                .spec(new V1ServiceSpec()
+                        .selector(Map.of("app", serviceName(service)))
+                        .ports(List.of(new V1ServicePort().name("http").port(nodePort()))));
+    }
+
+    private int serviceIndex(String name) {
+        if (!name.startsWith("scale-svc-")) {
+            return -1;
+        }
+        try {
+            int service = Integer.parseInt(name.substring("scale-svc-".length()));
+            return service < settings.services() ? service : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static V1Status notFound(String path) {
+        return new V1Status().status("Failure").reason("NotFound").code(404).message(path + " not found");
+    }
+
+    private static Map<String, String> queryParameters(String rawQuery) {
+        Map<String, String> parameters = new HashMap<>();
+        if (rawQuery == null) {
+            return parameters;
+        }
+        for (String parameter : rawQuery.split("&")) {
+            int separator = parameter.indexOf('=');
+            if (separator > 0) {
+                parameters.put(URLDecoder.decode(parameter.substring(0, separator), StandardCharsets.UTF_8),
+                        URLDecoder.decode(parameter.substring(separator + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return parameters;
+    }
+
+    private void sendJson(HttpExchange exchange, int status, Object body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        send(exchange, status, json.serialize(body).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+        }
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger ids = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + ids.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+}
@@ -2,6 +2,9 @@ package org.marionette.controlplane;
 
 import org.marionette.controlplane.usecases.inbound.AbnTestAllSystemConfigurationsUseCase;
 import org.marionette.controlplane.usecases.inbound.FullMarionetteServiceConfigDiscoveryUseCase;
+import org.marionette.controlplane.usecases.inbound.MonitorServiceHealthUseCase;
+import org.marionette.controlplane.usecases.inbound.RestoreRegistryStateUseCase;
+import org.marionette.controlplane.usecases.inbound.TrackCandidateServicesUseCase;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 
@@ -17,14 +20,26 @@ public class AppStartupCode implements CommandLineRunner {
     private final ScheduledExecutorService executor = Executors.newScheduledThreadPool(2);
     private final FullMarionetteServiceConfigDiscoveryUseCase discoveryUseCase;
     private final AbnTestAllSystemConfigurationsUseCase abnTestUseCase;
+    private final RestoreRegistryStateUseCase restoreRegistryUseCase;
+    private final TrackCandidateServicesUseCase trackCandidatesUseCase;
+    private final MonitorServiceHealthUseCase healthUseCase;
 
     public AppStartupCode(FullMarionetteServiceConfigDiscoveryUseCase discoveryUseCase,
-            AbnTestAllSystemConfigurationsUseCase abnTestUseCase) {
+            AbnTestAllSystemConfigurationsUseCase abnTestUseCase,
+            RestoreRegistryStateUseCase restoreRegistryUseCase,
+            TrackCandidateServicesUseCase trackCandidatesUseCase,
+            MonitorServiceHealthUseCase healthUseCase) {
         requireNonNull(discoveryUseCase,
                 "The use case to discover all marionette service configurations cannot be null");
         requireNonNull(abnTestUseCase, "The A/B test use case cannot be null");
+        requireNonNull(restoreRegistryUseCase, "The use case to restore the registry cannot be null");
+        requireNonNull(trackCandidatesUseCase, "The use case to track the candidate services cannot be null");
+        requireNonNull(healthUseCase, "The use case to monitor the health of the services cannot be null");
         this.discoveryUseCase = discoveryUseCase;
         this.abnTestUseCase = abnTestUseCase;
+        this.restoreRegistryUseCase = restoreRegistryUseCase;
+        this.trackCandidatesUseCase = trackCandidatesUseCase;
+        this.healthUseCase = healthUseCase;
     }
 
     @Override
@@ -32,13 +47,46 @@ public class AppStartupCode implements CommandLineRunner {
         System.out.println("🚀 Starting Marionette Control Plane...");
         System.out.println("====================================");
 
+        if (restoreRegistryUseCase.restore()) {
+            // The registry is usable right away, discovery catches up with the cluster in the background
+            System.out.println("🔍 Running service discovery in the background...");
+            executor.submit(() -> {
+                try {
+                    discoveryUseCase.execute();
+                    restoreRegistryUseCase.reconcileWithLiveServices();
+                    System.out.println("✅ Service discovery completed");
+                } catch (Exception e) {
+                    System.err.println("❌ Background service discovery failed: " + e.getMessage());
+                } finally {
+                    followCluster();
+                }
+            });
+            return;
+        }
+
         System.out.println("🔍 Running service discovery...");
-        discoveryUseCase.execute();
-        System.out.println("✅ Service discovery completed");
+        try {
+            discoveryUseCase.execute();
+            System.out.println("✅ Service discovery completed");
+        } catch (Exception e) {
+            // The tracker still registers the services as they become reachable
+            System.err.println("❌ Service discovery failed: " + e.getMessage());
+        } finally {
+            followCluster();
+        }
 
         // // Immediately start A/B testing after successful discovery
         // System.out.println("🧪 Starting A/B tests on system configurations...");
         // abnTestUseCase.execute();
         // System.out.println("✅ A/B testing completed");
     }
+
+    /**
+     * From now on the registry follows the services appearing and disappearing in the cluster. Started whatever
+     * the outcome of the first discovery, which must not leave the registry without tracking and health checks.
+     */
+    private void followCluster() {
+        trackCandidatesUseCase.start();
+        healthUseCase.start();
+    }
 }
\ No newline at end of file
@@ -6,9 +6,17 @@ import org.marionette.controlplane.usecases.inbound.ChangeMarionetteServiceBehav
 import org.marionette.controlplane.usecases.inbound.ReadAllMarionetteConfigsUseCase;
 import org.marionette.controlplane.usecases.inbound.TriggerServiceRediscoveryUseCase;
 import org.marionette.controlplane.usecases.inbound.changebehaviour.ChangeMarionetteServiceBehaviourRequest;
+import org.marionette.controlplane.usecases.inbound.fulldiscovery.IncrementalDiscoveryResponse;
 import org.marionette.controlplane.usecases.inbound.readconfigs.ReadAllMarionetteConfigsResponse;
 import org.marionette.controlplane.adapters.inbound.dto.*;
 import org.marionette.controlplane.adapters.outbound.changeconfig.InboundChangeBehaviourRequestDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -17,41 +25,84 @@ import static java.util.Objects.requireNonNull;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api")
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = { "ETag", "X-Registry-Revision" })
 public class ConfigurationController {
 
     private final ReadAllMarionetteConfigsUseCase readAllConfigsUseCase;
     private final ChangeMarionetteServiceBehaviourUseCase changeBehaviourUseCase;
     private final TriggerServiceRediscoveryUseCase rediscoveryUseCase;
     private final AbnTestAllSystemConfigurationsUseCase abnTestUseCase;
+    private final ObjectWriter listingWriter;
+
+    /**
+     * Serialized listing of the last revision served, rebuilt only when the registry revision moves
+     */
+    private record CachedListing(long revision, String eTag, byte[] body) {}
+
+    private final AtomicReference<CachedListing> cachedListing = new AtomicReference<>();
+    // Revisions restart from 0 with the process, the epoch keeps the ETags of two runs apart
+    private final String eTagEpoch = Long.toHexString(ThreadLocalRandom.current().nextLong());
 
     public ConfigurationController(ReadAllMarionetteConfigsUseCase readAllConfigsUseCase,
             ChangeMarionetteServiceBehaviourUseCase changeBehaviourUseCase,
             TriggerServiceRediscoveryUseCase rediscoveryUseCase,
-            AbnTestAllSystemConfigurationsUseCase abnTestUseCase) {
+            AbnTestAllSystemConfigurationsUseCase abnTestUseCase,
+            ObjectMapper objectMapper) {
         this.readAllConfigsUseCase = readAllConfigsUseCase;
         this.changeBehaviourUseCase = changeBehaviourUseCase;
         this.rediscoveryUseCase = rediscoveryUseCase;
         this.abnTestUseCase = abnTestUseCase;
+        this.listingWriter = objectMapper.writerFor(AllServiceConfigsDTO.class);
     }
 
     /**
      * GET /api/services - Get all services with their current runtime
-     * configurations
+     * configurations. The response carries an ETag and the registry revision (X-Registry-Revision), a request
+     * with a matching If-None-Match gets a 304. Changes after that revision are served by /api/services/changes.
      */
     @GetMapping("/services")
-    public ResponseEntity<AllServiceConfigsDTO> getAllServices() {
+    public ResponseEntity<byte[]> getAllServices(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) throws JsonProcessingException {
 
-        ReadAllMarionetteConfigsResponse allConfigs = readAllConfigsUseCase.execute();
+        CachedListing listing = currentListing();
 
-        AllServiceConfigsDTO response = mapToDTO(allConfigs);
+        if (ifNoneMatch != null && (ifNoneMatch.contains(listing.eTag()) || ifNoneMatch.trim().equals("*"))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(listing.eTag())
+                    .header("X-Registry-Revision", Long.toString(listing.revision()))
+                    .build();
+        }
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(listing.eTag())
+                .header("X-Registry-Revision", Long.toString(listing.revision()))
+                .body(listing.body());
 
-        return ResponseEntity.ok(response);
+    }
+
+    private CachedListing currentListing() throws JsonProcessingException {
+        CachedListing cached = cachedListing.get();
+        if (cached != null && cached.revision() == readAllConfigsUseCase.currentRevision()) {
+            return cached;
+        }
 
+        ReadAllMarionetteConfigsResponse allConfigs = readAllConfigsUseCase.execute();
+        AllServiceConfigsDTO response = mapToDTO(allConfigs);
+        CachedListing rebuilt = new CachedListing(allConfigs.revision(),
+                "\"" + eTagEpoch + "-" + allConfigs.revision() + "\"",
+                listingWriter.writeValueAsBytes(response));
+
+        // Never replace a listing with an older one built by a slower concurrent request
+        cachedListing.accumulateAndGet(rebuilt,
+                (current, candidate) -> current == null || candidate.revision() >= current.revision() ? candidate : current);
+        return rebuilt;
     }
 
 
@@ -77,6 +128,31 @@ public class ConfigurationController {
         return ResponseEntity.ok("success");
     }
 
+    /**
+     * PUT /api/services/changeBehaviours - Apply many behaviour changes at once, each service is updated
+     * atomically and nothing is applied if any change is invalid
+     */
+    @PutMapping("/services/changeBehaviours")
+    public ResponseEntity<String> changeBehaviours(@RequestBody BulkChangeBehaviourRequestDTO bulkRequestDTO) {
+        System.out.println("Received request to apply " + bulkRequestDTO.changes().size() + " behaviour changes");
+
+        List<ChangeMarionetteServiceBehaviourRequest> requests = bulkRequestDTO.changes().stream()
+            .map(change -> new ChangeMarionetteServiceBehaviourRequest(
+                change.serviceName(),
+                change.className(),
+                change.methodName(),
+                change.behaviourId()))
+            .toList();
+
+        try {
+            changeBehaviourUseCase.executeAll(requests);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Invalid behaviour change: " + e.getMessage());
+        }
+
+        return ResponseEntity.ok("success");
+    }
+
 
 
 
@@ -130,8 +206,9 @@ public class ConfigurationController {
     }
 
     /**
-     * POST /api/services/discover - Trigger full service rediscovery
-     * This will flush the current configuration registry and restart the discovery process
+     * POST /api/services/discover - Trigger service rediscovery
+     * With fullRefresh the registry is flushed and the discovery restarts from scratch, otherwise only the
+     * differences with the discovered services are applied and runtime state of unchanged services is kept
      */
     @PostMapping("/services/discover")
     public ResponseEntity<String> triggerServiceDiscovery(@RequestParam(defaultValue = "false") boolean fullRefresh) {
@@ -141,10 +218,11 @@ public class ConfigurationController {
                 rediscoveryUseCase.execute();
                 return ResponseEntity.ok("Full service rediscovery completed successfully");
             } else {
-                // For now, we'll treat non-full refresh the same as full refresh
-                // You could implement incremental discovery here if needed
-                rediscoveryUseCase.execute();
-                return ResponseEntity.ok("Service discovery completed successfully");
+                IncrementalDiscoveryResponse response = rediscoveryUseCase.executeIncremental();
+                return ResponseEntity.ok(String.format(
+                        "Service discovery completed successfully: %d added, %d removed, %d updated, %d unchanged, %d unresolved",
+                        response.added().size(), response.removed().size(), response.updated().size(),
+                        response.unchanged().size(), response.unresolvedEndpoints().size()));
             }
         } catch (Exception e) {
             return ResponseEntity.internalServerError()
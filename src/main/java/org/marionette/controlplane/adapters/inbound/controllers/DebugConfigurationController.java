@@ -2,6 +2,8 @@ package org.marionette.controlplane.adapters.inbound.controllers;
 
 import org.springframework.web.bind.annotation.*;
 import org.marionette.controlplane.adapters.inbound.metrics.MetricsConfiguration;
+import org.marionette.controlplane.adapters.outbound.transport.DestinationStats;
+import org.marionette.controlplane.adapters.outbound.transport.OutboundHttpTransport;
 import org.marionette.controlplane.usecases.outbound.fetchmetrics.FetchMarionetteNodesMetricsGateway;
 import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.AggregateMetric;
 import org.springframework.http.ResponseEntity;
@@ -17,10 +19,21 @@ public class DebugConfigurationController {
 
     private final MetricsConfiguration metricsConfig;
     private final FetchMarionetteNodesMetricsGateway gateway;
+    private final OutboundHttpTransport outboundHttpTransport;
 
-    public DebugConfigurationController(MetricsConfiguration metricsConfig, FetchMarionetteNodesMetricsGateway gateway) {
+    public DebugConfigurationController(MetricsConfiguration metricsConfig, FetchMarionetteNodesMetricsGateway gateway,
+            OutboundHttpTransport outboundHttpTransport) {
         this.gateway = gateway;
         this.metricsConfig = metricsConfig;
+        this.outboundHttpTransport = outboundHttpTransport;
+    }
+
+    /**
+     * Debug endpoint with the requests, status codes and latencies of every outbound destination
+     */
+    @GetMapping("/http-transport")
+    public ResponseEntity<List<DestinationStats>> getHttpTransportStats() {
+        return ResponseEntity.ok(outboundHttpTransport.destinationStats());
     }
 
     /**
@@ -1,31 +1,93 @@
 package org.marionette.controlplane.adapters.inbound.downloadresult;
 
-import org.marionette.controlplane.adapters.inbound.downloadresult.dto.AbnTestResultsDTO;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
+
 import org.marionette.controlplane.usecases.inbound.downloadresult.AbnTestResultsDownloadUseCase;
+import org.marionette.controlplane.usecases.inbound.downloadresult.AbnTestResultsPage;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 @Controller
 @RequestMapping("/api/downloadresult")
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = { HttpHeaders.ETAG })
 public class AbnTestDownloadResultsController {
 
     private final AbnTestResultsDownloadUseCase testResultsDownloadUseCase;
+    private final AbnTestResultsJsonStreamer jsonStreamer;
 
-    public AbnTestDownloadResultsController(AbnTestResultsDownloadUseCase testResultsDownloadUseCase) {
+    public AbnTestDownloadResultsController(AbnTestResultsDownloadUseCase testResultsDownloadUseCase, ObjectMapper objectMapper) {
         this.testResultsDownloadUseCase = testResultsDownloadUseCase;
+        this.jsonStreamer = new AbnTestResultsJsonStreamer(objectMapper);
     }
 
+    /**
+     * GET /api/downloadresult?offset=0&limit=5 - Stream a window of the ranking of the latest results.
+     * The ETag identifies the stored run and the window, a matching If-None-Match gets a 304.
+     */
     @GetMapping("")
-    public ResponseEntity<AbnTestResultsDTO> getAbnTestingResults() {
+    public ResponseEntity<StreamingResponseBody> getAbnTestingResults(
+            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(defaultValue = "5") int limit,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+        if (offset < 0 || limit < 0) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        boolean gzip = acceptsGzip(acceptEncoding);
+
+        // Checked before loading anything, the version is known without reading the results
+        Optional<String> version = testResultsDownloadUseCase.currentVersion();
+        if (version.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        String currentETag = eTagOf(version.get(), offset, limit, gzip);
+        if (matches(ifNoneMatch, currentETag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(currentETag)
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
 
-        AbnTestResultsDTO response = testResultsDownloadUseCase.execute().dto();
+        Optional<AbnTestResultsPage> page = testResultsDownloadUseCase.fetchPage(offset, limit);
+        if (page.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
 
-        return ResponseEntity.ok(response);
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream gzipOut = new GZIPOutputStream(out, 8192);
+                jsonStreamer.write(page.get(), gzipOut);
+                gzipOut.finish();
+            } else {
+                jsonStreamer.write(page.get(), out);
+            }
+        };
 
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(eTagOf(page.get().version(), offset, limit, gzip))
+                .cacheControl(CacheControl.noCache())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
     }
 
     /**
@@ -33,16 +95,31 @@ public class AbnTestDownloadResultsController {
      */
     @GetMapping("/available")
     public ResponseEntity<Boolean> areResultsAvailable() {
-        try {
-            // Check if there are any results stored
-            AbnTestResultsDTO results = testResultsDownloadUseCase.execute().dto();
-            boolean hasResults = results != null && 
-                                results.ranking() != null && 
-                                !results.ranking().isEmpty();
-            return ResponseEntity.ok(hasResults);
-        } catch (Exception e) {
-            // If there's any error (e.g., no results), return false
-            return ResponseEntity.ok(false);
+        return ResponseEntity.ok(testResultsDownloadUseCase.hasResults());
+    }
+
+    // Strong ETag, the gzip representation has its own since its bytes differ
+    private String eTagOf(String version, int offset, int limit, boolean gzip) {
+        return "\"" + version + "." + offset + "." + limit + (gzip ? ".gz" : "") + "\"";
+    }
+
+    private boolean matches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
         }
+        return Arrays.stream(ifNoneMatch.split(","))
+                .map(String::trim)
+                .map(candidate -> candidate.startsWith("W/") ? candidate.substring(2) : candidate)
+                .anyMatch(candidate -> candidate.equals("*") || candidate.equals(eTag));
     }
+
+    private boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        return Arrays.stream(acceptEncoding.split(","))
+                .map(String::trim)
+                .anyMatch(encoding -> encoding.equals("gzip") || encoding.startsWith("gzip;") && !encoding.replace(" ", "").endsWith("q=0"));
+    }
+
 }
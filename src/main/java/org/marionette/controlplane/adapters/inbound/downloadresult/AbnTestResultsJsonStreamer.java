@@ -0,0 +1,54 @@
+package org.marionette.controlplane.adapters.inbound.downloadresult;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.marionette.controlplane.adapters.inbound.downloadresult.dto.MetricConfigurationDTO;
+import org.marionette.controlplane.usecases.inbound.downloadresult.AbnTestResultsDtoMapper;
+import org.marionette.controlplane.usecases.inbound.downloadresult.AbnTestResultsPage;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Writes a page of results with the same layout as AbnTestResultsDTO, plus the pagination fields.
+ * Ranking entries are mapped and written one at a time, the full DTO graph is never built.
+ */
+public class AbnTestResultsJsonStreamer {
+
+    private final ObjectMapper objectMapper;
+    private final AbnTestResultsDtoMapper dtoMapper = new AbnTestResultsDtoMapper();
+
+    public AbnTestResultsJsonStreamer(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public void write(AbnTestResultsPage page, OutputStream out) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            // The caller owns the stream (it may still have to finish a compression trailer)
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartObject();
+
+            generator.writeArrayFieldStart("metricConfigs");
+            for (MetricConfigurationDTO metricConfig : dtoMapper.metricsConfigToDto(page.result().metricsConfiguration())) {
+                objectMapper.writeValue(generator, metricConfig);
+            }
+            generator.writeEndArray();
+
+            generator.writeArrayFieldStart("ranking");
+            for (int i = page.offset(); i < page.end(); i++) {
+                objectMapper.writeValue(generator, dtoMapper.rankToDto(page.result(), i));
+                generator.flush();
+            }
+            generator.writeEndArray();
+
+            generator.writeNumberField("offset", page.offset());
+            generator.writeNumberField("limit", page.limit());
+            generator.writeNumberField("totalConfigurations", page.totalConfigurations());
+
+            generator.writeEndObject();
+        }
+    }
+
+}
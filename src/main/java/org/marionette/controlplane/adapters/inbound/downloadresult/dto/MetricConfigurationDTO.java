@@ -4,5 +4,7 @@ public record MetricConfigurationDTO (
     String metricName,
     int order,
     String unit,
-    String direction
+    String direction,
+    String estimator,
+    double tolerance
 ) {}
@@ -0,0 +1,11 @@
+package org.marionette.controlplane.adapters.inbound.downloadresult.dto;
+
+public record MetricDispersionDTO (
+    String metricName,
+    int sampleCount,
+    double standardDeviation,
+    double medianAbsoluteDeviation,
+    double interquartileRange,
+    double bimodalityCoefficient,
+    boolean likelyBimodal
+) {}
@@ -6,6 +6,7 @@ public record SystemConfigurationRankDTO (
     int position,
     List<ServiceConfigSnapshotDTO> systemConfig,
     List<MetricValueDTO> systemResults,
+    List<MetricDispersionDTO> systemDispersion,
     List<ServiceLevelResultsDTO> serviceResults
 
 ) {}
@@ -0,0 +1,25 @@
+package org.marionette.controlplane.adapters.inbound.dto;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.List;
+
+// DTO for a batch of behaviour changes, possibly across services
+public record BulkChangeBehaviourRequestDTO (List<ServiceBehaviourChangeDTO> changes) {
+
+    public BulkChangeBehaviourRequestDTO {
+        // Required fields from API contract
+        requireNonNull(changes, "The list of behaviour changes in the bulk request was not present");
+        changes = List.copyOf(changes);
+    }
+
+    public record ServiceBehaviourChangeDTO (String serviceName, String className, String methodName, String behaviourId) {
+
+        public ServiceBehaviourChangeDTO {
+            requireNonNull(serviceName, "The service name in the request to modify behaviour was not present");
+            requireNonNull(className, "The class name in the request to modify behaviour was not present");
+            requireNonNull(methodName, "The method name in the request to modify behaviour was not present");
+            requireNonNull(behaviourId, "The new behaviour id in the request to modify behaviour was not present");
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package org.marionette.controlplane.adapters.inbound.health;
+
+import org.marionette.controlplane.adapters.inbound.health.dto.ServiceHealthReportDTO;
+import org.marionette.controlplane.usecases.inbound.MonitorServiceHealthUseCase;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/services/health")
+@CrossOrigin(origins = "*")
+public class ServiceHealthController {
+
+    private final MonitorServiceHealthUseCase healthUseCase;
+
+    public ServiceHealthController(MonitorServiceHealthUseCase healthUseCase) {
+        this.healthUseCase = healthUseCase;
+    }
+
+    /**
+     * GET /api/services/health - Probe results of every registered service (interval, failures, latency,
+     * configurations fetched again) and the totals
+     */
+    @GetMapping("")
+    public ServiceHealthReportDTO getHealth() {
+        return ServiceHealthReportDTO.fromReport(healthUseCase.healthReport());
+    }
+
+}
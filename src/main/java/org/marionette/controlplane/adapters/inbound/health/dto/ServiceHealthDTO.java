@@ -0,0 +1,15 @@
+package org.marionette.controlplane.adapters.inbound.health.dto;
+
+public record ServiceHealthDTO(
+    String serviceName,
+    String endpoint,
+    String status,
+    boolean healthy,
+    int consecutiveFailures,
+    long probeIntervalMillis,
+    String lastProbeAt,
+    long lastLatencyMillis,
+    long probes,
+    long failures,
+    long refetches
+) {}
@@ -0,0 +1,39 @@
+package org.marionette.controlplane.adapters.inbound.health.dto;
+
+import java.util.List;
+
+import org.marionette.controlplane.usecases.inbound.healthmonitoring.ServiceHealthReport;
+
+public record ServiceHealthReportDTO(
+    int healthyServices,
+    int unhealthyServices,
+    long totalProbes,
+    long totalFailures,
+    long totalRefetches,
+    List<ServiceHealthDTO> services
+) {
+
+    public static ServiceHealthReportDTO fromReport(ServiceHealthReport report) {
+        return new ServiceHealthReportDTO(
+            report.healthyServices(),
+            report.unhealthyServices(),
+            report.totalProbes(),
+            report.totalFailures(),
+            report.totalRefetches(),
+            report.services().stream()
+                .map(service -> new ServiceHealthDTO(
+                    service.serviceName(),
+                    service.endpoint(),
+                    service.status(),
+                    service.healthy(),
+                    service.consecutiveFailures(),
+                    service.probeIntervalMillis(),
+                    service.lastProbeAt() != null ? service.lastProbeAt().toString() : null,
+                    service.lastLatencyMillis(),
+                    service.probes(),
+                    service.failures(),
+                    service.refetches()))
+                .toList());
+    }
+
+}
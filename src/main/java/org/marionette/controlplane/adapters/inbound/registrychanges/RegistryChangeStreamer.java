@@ -0,0 +1,187 @@
+package org.marionette.controlplane.adapters.inbound.registrychanges;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.marionette.controlplane.adapters.inbound.registrychanges.dto.RegistryChangeDTO;
+import org.marionette.controlplane.adapters.inbound.registrychanges.dto.RegistryChangesDTO;
+import org.marionette.controlplane.usecases.inbound.WatchRegistryChangesUseCase;
+import org.marionette.controlplane.usecases.inbound.registrychanges.RegistryChangesResponse;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Pushes the registry changes to the SSE subscribers and completes the pending long polls.
+ *
+ * A single dispatcher thread waits on the change feed and, when the revision moves, lets every subscriber
+ * catch up from its own cursor. Subscribers always read their delta from the feed, so a new subscriber and
+ * the dispatcher can never send events out of order or skip one. No thread is held per client.
+ */
+public class RegistryChangeStreamer implements AutoCloseable {
+
+    private static final Duration HEARTBEAT_PERIOD = Duration.ofSeconds(25);
+
+    private final WatchRegistryChangesUseCase watchChangesUseCase;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final List<PendingPoll> pendingPolls = new CopyOnWriteArrayList<>();
+    private Thread dispatcher;
+    private volatile boolean closed = false;
+
+    public RegistryChangeStreamer(WatchRegistryChangesUseCase watchChangesUseCase) {
+        this.watchChangesUseCase = watchChangesUseCase;
+    }
+
+    /**
+     * Streams the changes after the given revision (a reset event first if they are not available anymore)
+     */
+    public SseEmitter subscribe(long sinceRevision, Duration timeout) {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Subscriber subscriber = new Subscriber(emitter, sinceRevision);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(error -> subscribers.remove(subscriber));
+
+        subscribers.add(subscriber);
+        ensureDispatcherStarted();
+        subscriber.catchUp();
+        return emitter;
+    }
+
+    /**
+     * Completes when a change after the given revision is published, or with no changes after the timeout
+     */
+    public DeferredResult<RegistryChangesDTO> poll(long sinceRevision, Duration timeout) {
+        DeferredResult<RegistryChangesDTO> result = new DeferredResult<>(timeout.toMillis());
+        PendingPoll poll = new PendingPoll(result, sinceRevision);
+        result.onTimeout(() -> result.setResult(RegistryChangesDTO.fromResponse(watchChangesUseCase.changesSince(sinceRevision))));
+        result.onCompletion(() -> pendingPolls.remove(poll));
+
+        pendingPolls.add(poll);
+        ensureDispatcherStarted();
+        // A change published before the poll was registered would not wake the dispatcher again
+        poll.completeIfChanged();
+        return result;
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        Thread running;
+        synchronized (this) {
+            running = dispatcher;
+        }
+        if (running != null) {
+            running.interrupt();
+        }
+        subscribers.forEach(subscriber -> subscriber.emitter().complete());
+    }
+
+    private synchronized void ensureDispatcherStarted() {
+        if (dispatcher != null || closed) {
+            return;
+        }
+        dispatcher = new Thread(this::dispatchLoop, "registry-change-streamer");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+        System.out.println("📡 Registry change streamer started");
+    }
+
+    private void dispatchLoop() {
+        long revision = watchChangesUseCase.currentRevision();
+        while (!closed) {
+            try {
+                RegistryChangesResponse changes = watchChangesUseCase.awaitChangesSince(revision, HEARTBEAT_PERIOD);
+                if (changes.currentRevision() == revision) {
+                    subscribers.forEach(Subscriber::heartbeat);
+                    continue;
+                }
+                revision = changes.currentRevision();
+                subscribers.forEach(Subscriber::catchUp);
+                pendingPolls.forEach(PendingPoll::completeIfChanged);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                System.err.println("Registry change streamer error: " + e.getMessage());
+            }
+        }
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private long cursor;
+
+        Subscriber(SseEmitter emitter, long cursor) {
+            this.emitter = emitter;
+            this.cursor = cursor;
+        }
+
+        SseEmitter emitter() {
+            return emitter;
+        }
+
+        synchronized void catchUp() {
+            RegistryChangesResponse changes = watchChangesUseCase.changesSince(cursor);
+            try {
+                if (changes.resetRequired()) {
+                    emitter.send(SseEmitter.event()
+                            .id(Long.toString(changes.currentRevision()))
+                            .name("reset")
+                            .data(RegistryChangesDTO.fromResponse(changes)));
+                } else {
+                    for (RegistryChangeDTO change : RegistryChangesDTO.fromResponse(changes).changes()) {
+                        emitter.send(SseEmitter.event()
+                                .id(Long.toString(change.revision()))
+                                .name(change.type())
+                                .data(change));
+                    }
+                }
+                cursor = changes.currentRevision();
+            } catch (IOException | IllegalStateException e) {
+                drop(e);
+            }
+        }
+
+        synchronized void heartbeat() {
+            try {
+                emitter.send(SseEmitter.event().comment("keep-alive"));
+            } catch (IOException | IllegalStateException e) {
+                drop(e);
+            }
+        }
+
+        private void drop(Exception cause) {
+            subscribers.remove(this);
+            emitter.completeWithError(cause);
+        }
+    }
+
+    private final class PendingPoll {
+
+        private final DeferredResult<RegistryChangesDTO> result;
+        private final long sinceRevision;
+
+        PendingPoll(DeferredResult<RegistryChangesDTO> result, long sinceRevision) {
+            this.result = result;
+            this.sinceRevision = sinceRevision;
+        }
+
+        void completeIfChanged() {
+            if (result.isSetOrExpired()) {
+                return;
+            }
+            RegistryChangesResponse changes = watchChangesUseCase.changesSince(sinceRevision);
+            if (changes.resetRequired() || !changes.changes().isEmpty()) {
+                result.setResult(RegistryChangesDTO.fromResponse(changes));
+            }
+        }
+    }
+
+}
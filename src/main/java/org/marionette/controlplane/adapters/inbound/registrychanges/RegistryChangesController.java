@@ -0,0 +1,85 @@
+package org.marionette.controlplane.adapters.inbound.registrychanges;
+
+import java.time.Duration;
+
+import org.marionette.controlplane.adapters.inbound.registrychanges.dto.RegistryChangesDTO;
+import org.marionette.controlplane.usecases.inbound.WatchRegistryChangesUseCase;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/services/changes")
+@CrossOrigin(origins = "*")
+public class RegistryChangesController {
+
+    private static final int MAX_WAIT_SECONDS = 60;
+    private static final Duration STREAM_TIMEOUT = Duration.ofMinutes(30);
+
+    private final WatchRegistryChangesUseCase watchChangesUseCase;
+    private final RegistryChangeStreamer changeStreamer;
+
+    public RegistryChangesController(WatchRegistryChangesUseCase watchChangesUseCase,
+            RegistryChangeStreamer changeStreamer) {
+        this.watchChangesUseCase = watchChangesUseCase;
+        this.changeStreamer = changeStreamer;
+    }
+
+    /**
+     * GET /api/services/changes?sinceRevision=N - Changes published after revision N (the X-Registry-Revision of
+     * /api/services). With waitSeconds the request is held until a change arrives (long poll, at most 60s).
+     */
+    @GetMapping("")
+    public DeferredResult<RegistryChangesDTO> getChanges(
+            @RequestParam long sinceRevision,
+            @RequestParam(defaultValue = "0") int waitSeconds) {
+
+        if (waitSeconds <= 0) {
+            DeferredResult<RegistryChangesDTO> result = new DeferredResult<>();
+            result.setResult(RegistryChangesDTO.fromResponse(watchChangesUseCase.changesSince(sinceRevision)));
+            return result;
+        }
+        return changeStreamer.poll(sinceRevision, Duration.ofSeconds(Math.min(waitSeconds, MAX_WAIT_SECONDS)));
+    }
+
+    /**
+     * GET /api/services/changes/stream - Server sent events, one per change with the revision as event id so a
+     * reconnecting EventSource resumes from Last-Event-ID. A "reset" event asks to reload /api/services.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(
+            @RequestParam(required = false) Long sinceRevision,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+
+        long from = sinceRevision != null ? sinceRevision : parseRevision(lastEventId);
+        return changeStreamer.subscribe(from, STREAM_TIMEOUT);
+    }
+
+    /**
+     * GET /api/services/changes/revision - Current revision of the registry
+     */
+    @GetMapping("/revision")
+    public ResponseEntity<Long> getRevision() {
+        return ResponseEntity.ok(watchChangesUseCase.currentRevision());
+    }
+
+    // Without a starting point the stream only carries the changes from now on
+    private long parseRevision(String lastEventId) {
+        if (lastEventId != null) {
+            try {
+                return Long.parseLong(lastEventId.trim());
+            } catch (NumberFormatException e) {
+                System.err.println("Ignoring invalid Last-Event-ID " + lastEventId);
+            }
+        }
+        return watchChangesUseCase.currentRevision();
+    }
+
+}
@@ -0,0 +1,15 @@
+package org.marionette.controlplane.adapters.inbound.registrychanges.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record RegistryChangeDTO(
+    long revision,
+    String type,
+    String serviceName,
+    String className,
+    String methodName,
+    String behaviourId,
+    String status,
+    String occurredAt
+) {}
@@ -0,0 +1,26 @@
+package org.marionette.controlplane.adapters.inbound.registrychanges.dto;
+
+import java.util.List;
+
+import org.marionette.controlplane.usecases.inbound.registrychanges.RegistryChangesResponse;
+
+public record RegistryChangesDTO(long currentRevision, boolean resetRequired, List<RegistryChangeDTO> changes) {
+
+    public static RegistryChangesDTO fromResponse(RegistryChangesResponse response) {
+        return new RegistryChangesDTO(
+            response.currentRevision(),
+            response.resetRequired(),
+            response.changes().stream()
+                .map(change -> new RegistryChangeDTO(
+                    change.revision(),
+                    change.type(),
+                    change.serviceName(),
+                    change.className(),
+                    change.methodName(),
+                    change.behaviourId(),
+                    change.status(),
+                    change.occurredAt() != null ? change.occurredAt().toString() : null))
+                .toList());
+    }
+
+}
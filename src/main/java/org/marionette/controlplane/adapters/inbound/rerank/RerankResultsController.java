@@ -0,0 +1,86 @@
+package org.marionette.controlplane.adapters.inbound.rerank;
+
+import java.util.List;
+
+import org.marionette.controlplane.adapters.inbound.downloadresult.AbnTestResultsJsonStreamer;
+import org.marionette.controlplane.adapters.inbound.rerank.dto.RerankMetricDTO;
+import org.marionette.controlplane.adapters.inbound.rerank.dto.RerankRequestDTO;
+import org.marionette.controlplane.usecases.inbound.rerank.RerankAbnTestResultsUseCase;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.MetricEstimator;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.MetricsConfiguration;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.OptimizationDirection;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.OrderedMetricMetadata;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.ServiceAggregator;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@Controller
+@RequestMapping("/api/rerank")
+@CrossOrigin(origins = "*")
+public class RerankResultsController {
+
+    private final RerankAbnTestResultsUseCase rerankUseCase;
+    private final AbnTestResultsJsonStreamer jsonStreamer;
+
+    public RerankResultsController(RerankAbnTestResultsUseCase rerankUseCase, ObjectMapper objectMapper) {
+        this.rerankUseCase = rerankUseCase;
+        this.jsonStreamer = new AbnTestResultsJsonStreamer(objectMapper);
+    }
+
+    /**
+     * POST /api/rerank?offset=0&limit=5 - Rank a stored run again with other metric priorities, directions,
+     * estimators, service aggregators or tolerances.
+     * The response streams a window of the new ranking in the same format as /api/downloadresult.
+     */
+    @PostMapping("")
+    public ResponseEntity<?> rerank(
+            @RequestBody RerankRequestDTO request,
+            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(defaultValue = "5") int limit) {
+        if (offset < 0 || limit < 0) {
+            return ResponseEntity.badRequest().body("Offset and limit cannot be negative");
+        }
+        if (request == null || request.metrics() == null || request.metrics().isEmpty()) {
+            return ResponseEntity.badRequest().body("At least one metric is required to rank the configurations");
+        }
+
+        MetricsConfiguration metricsConfiguration;
+        try {
+            metricsConfiguration = toMetricsConfiguration(request.metrics());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+
+        return rerankUseCase.execute(request.runId(), metricsConfiguration, offset, limit)
+                .<ResponseEntity<?>>map(page -> {
+                    StreamingResponseBody body = out -> jsonStreamer.write(page, out);
+                    return ResponseEntity.ok()
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .body(body);
+                })
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    private MetricsConfiguration toMetricsConfiguration(List<RerankMetricDTO> metrics) {
+        return new MetricsConfiguration(metrics.stream()
+                .map(metric -> new OrderedMetricMetadata(
+                        metric.metricName(),
+                        metric.order(),
+                        OptimizationDirection.fromString(metric.direction()),
+                        null,
+                        metric.estimator() != null ? MetricEstimator.fromString(metric.estimator()) : MetricEstimator.MEAN,
+                        metric.tolerance() != null ? metric.tolerance() : 0.0,
+                        metric.aggregator() != null ? ServiceAggregator.fromString(metric.aggregator()) : null))
+                .toList());
+    }
+
+}
@@ -0,0 +1,10 @@
+package org.marionette.controlplane.adapters.inbound.rerank.dto;
+
+public record RerankMetricDTO (
+    String metricName,
+    int order,
+    String direction,     // "higher" or "lower"
+    String estimator,     // optional, "mean" when absent
+    Double tolerance,     // optional relative tolerance, 0 when absent
+    String aggregator     // optional "sum", "avg", "min" or "max" to reduce the pods of each service again, as collected when absent
+) {}
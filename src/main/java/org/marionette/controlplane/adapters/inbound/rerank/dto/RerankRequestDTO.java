@@ -0,0 +1,8 @@
+package org.marionette.controlplane.adapters.inbound.rerank.dto;
+
+import java.util.List;
+
+public record RerankRequestDTO (
+    String runId,         // optional, the latest run when absent
+    List<RerankMetricDTO> metrics
+) {}
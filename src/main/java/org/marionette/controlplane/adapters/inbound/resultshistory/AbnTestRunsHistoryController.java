@@ -0,0 +1,89 @@
+package org.marionette.controlplane.adapters.inbound.resultshistory;
+
+import java.util.List;
+
+import org.marionette.controlplane.adapters.inbound.downloadresult.AbnTestResultsJsonStreamer;
+import org.marionette.controlplane.adapters.inbound.resultshistory.dto.StoredRunSummaryDTO;
+import org.marionette.controlplane.usecases.inbound.resultshistory.AbnTestRunsHistoryUseCase;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@Controller
+@RequestMapping("/api/runs")
+@CrossOrigin(origins = "*")
+public class AbnTestRunsHistoryController {
+
+    private final AbnTestRunsHistoryUseCase runsHistoryUseCase;
+    private final AbnTestResultsJsonStreamer jsonStreamer;
+
+    public AbnTestRunsHistoryController(AbnTestRunsHistoryUseCase runsHistoryUseCase, ObjectMapper objectMapper) {
+        this.runsHistoryUseCase = runsHistoryUseCase;
+        this.jsonStreamer = new AbnTestResultsJsonStreamer(objectMapper);
+    }
+
+    /**
+     * GET /api/runs - List the stored A/B test runs, optionally only those with the given configuration fingerprint
+     */
+    @GetMapping("")
+    public ResponseEntity<List<StoredRunSummaryDTO>> listRuns(@RequestParam(required = false) String fingerprint) {
+        List<StoredRunSummaryDTO> runs = runsHistoryUseCase.listRuns(fingerprint).stream()
+                .map(summary -> new StoredRunSummaryDTO(
+                        summary.runId(),
+                        summary.completedAt() != null ? summary.completedAt().toString() : null,
+                        summary.fingerprint(),
+                        summary.configurationCount(),
+                        summary.bestConfigurationId()))
+                .toList();
+        return ResponseEntity.ok(runs);
+    }
+
+    /**
+     * GET /api/runs/{runId}?offset=0&limit=5 - Stream a window of the ranking of a stored run,
+     * in the same format as /api/downloadresult
+     */
+    @GetMapping("/{runId}")
+    public ResponseEntity<StreamingResponseBody> getRun(
+            @PathVariable String runId,
+            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(defaultValue = "5") int limit) {
+        if (offset < 0 || limit < 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        return runsHistoryUseCase.downloadRun(runId, offset, limit)
+                .map(page -> {
+                    StreamingResponseBody body = out -> jsonStreamer.write(page, out);
+                    return ResponseEntity.ok()
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .body(body);
+                })
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * GET /api/runs/{runId}/export - Every sample of a stored run as a ZIP of dictionary encoded CSV tables,
+     * {runId} can be "latest"
+     */
+    @GetMapping("/{runId}/export")
+    public ResponseEntity<StreamingResponseBody> exportRun(@PathVariable String runId) {
+        return runsHistoryUseCase.loadRun(runId)
+                .map(result -> {
+                    StreamingResponseBody body = out -> new ColumnarResultsExporter().write(result, out);
+                    return ResponseEntity.ok()
+                            .contentType(MediaType.parseMediaType("application/zip"))
+                            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + runId + ".zip\"")
+                            .body(body);
+                })
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+}
@@ -0,0 +1,203 @@
+package org.marionette.controlplane.adapters.inbound.resultshistory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.marionette.controlplane.domain.entities.abntest.SingleAbnTestResult;
+import org.marionette.controlplane.usecases.domain.configsnapshot.ClassSnapshot;
+import org.marionette.controlplane.usecases.domain.configsnapshot.ServiceSnapshot;
+import org.marionette.controlplane.usecases.domain.configsnapshot.SystemConfigurationSnapshot;
+import org.marionette.controlplane.usecases.inbound.abntest.ranking.SimpleConfigurationRanking;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.AggregateMetric;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.OrderedMetricMetadata;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.ServiceMetricsDataPoint;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.SystemMetricsDataPoint;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.timeseries.SampleIterator;
+
+/**
+ * Writes a run as a ZIP of CSV tables in a dictionary encoded layout: fact tables only hold integer codes
+ * and numbers, names are stored once in the dictionary tables.
+ *
+ * <pre>
+ * samples.csv         configuration,service,metric,sample,value   (sample -1 is the service level value)
+ * system_metrics.csv  configuration,metric,value
+ * configurations.csv  configuration,configuration_id,rank,behaviours   (behaviour codes separated by ';')
+ * behaviours.csv      behaviour,service,class_name,method_name,behaviour_id
+ * services.csv        service,name
+ * metrics.csv         metric,name,unit,order,direction,estimator
+ * </pre>
+ *
+ * Fact tables are written while walking the run, dictionaries are complete (and written) at the end.
+ */
+public class ColumnarResultsExporter {
+
+    private record BehaviourKey(int service, String className, String methodName, String behaviourId) {}
+
+    private final Map<String, Integer> services = new LinkedHashMap<>();
+    private final Map<String, Integer> metrics = new LinkedHashMap<>();
+    private final Map<String, String> metricUnits = new LinkedHashMap<>();
+    private final Map<BehaviourKey, Integer> behaviours = new LinkedHashMap<>();
+
+    /**
+     * Not thread safe, use one exporter per export
+     */
+    public void write(SingleAbnTestResult result, OutputStream out) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(out, StandardCharsets.UTF_8);
+        Writer writer = new OutputStreamWriter(zip, StandardCharsets.UTF_8);
+
+        // Ranked metrics get the first codes, in priority order
+        for (OrderedMetricMetadata metadata : result.metricsConfiguration()) {
+            metricCode(metadata.metricName(), metadata.unit());
+        }
+
+        Map<String, Integer> ranks = new LinkedHashMap<>();
+        for (SimpleConfigurationRanking rank : result.ranking()) {
+            ranks.put(rank.configurationId(), rank.rank());
+        }
+
+        // Configurations are coded in identifier order, the code is the position in this list
+        List<String> configurationIds = new ArrayList<>(new TreeMap<>(result.metricsRegistry().getAllMetrics()).keySet());
+        Map<String, Integer> configurationCodes = new HashMap<>();
+        for (int configuration = 0; configuration < configurationIds.size(); configuration++) {
+            configurationCodes.put(configurationIds.get(configuration), configuration);
+        }
+
+        startEntry(zip, writer, "samples.csv");
+        writer.write("configuration,service,metric,sample,value\n");
+        for (int configuration = 0; configuration < configurationIds.size(); configuration++) {
+            SystemMetricsDataPoint dataPoint = result.metricsRegistry().getSystemDataPoint(configurationIds.get(configuration));
+            for (ServiceMetricsDataPoint service : dataPoint.serviceMetrics()) {
+                int serviceCode = serviceCode(service.serviceConfiguration().serviceName());
+                for (AggregateMetric metric : service.metrics()) {
+                    int metricCode = metricCode(metric.name(), metric.unit());
+                    writeSample(writer, configuration, serviceCode, metricCode, -1, metric.value());
+                    SampleIterator samples = metric.samples().iterator();
+                    for (int i = 0; samples.next(); i++) {
+                        writeSample(writer, configuration, serviceCode, metricCode, i, samples.value());
+                    }
+                }
+            }
+        }
+
+        startEntry(zip, writer, "system_metrics.csv");
+        writer.write("configuration,metric,value\n");
+        for (SimpleConfigurationRanking rank : result.ranking()) {
+            Integer configuration = configurationCodes.get(rank.configurationId());
+            if (configuration == null) {
+                continue;
+            }
+            for (AggregateMetric metric : rank.systemMetrics()) {
+                writer.write(configuration + "," + metricCode(metric.name(), metric.unit()) + "," + number(metric.value()) + "\n");
+            }
+        }
+
+        startEntry(zip, writer, "configurations.csv");
+        writer.write("configuration,configuration_id,rank,behaviours\n");
+        for (int configuration = 0; configuration < configurationIds.size(); configuration++) {
+            String configurationId = configurationIds.get(configuration);
+            Integer rank = ranks.get(configurationId);
+            writer.write(configuration + "," + csv(configurationId) + "," + (rank != null ? rank : "") + ","
+                    + behaviourCodes(result.metricsRegistry().getSystemConfig(configurationId)) + "\n");
+        }
+
+        startEntry(zip, writer, "behaviours.csv");
+        writer.write("behaviour,service,class_name,method_name,behaviour_id\n");
+        for (Map.Entry<BehaviourKey, Integer> entry : behaviours.entrySet()) {
+            BehaviourKey key = entry.getKey();
+            writer.write(entry.getValue() + "," + key.service() + "," + csv(key.className()) + ","
+                    + csv(key.methodName()) + "," + csv(key.behaviourId()) + "\n");
+        }
+
+        startEntry(zip, writer, "services.csv");
+        writer.write("service,name\n");
+        for (Map.Entry<String, Integer> entry : services.entrySet()) {
+            writer.write(entry.getValue() + "," + csv(entry.getKey()) + "\n");
+        }
+
+        startEntry(zip, writer, "metrics.csv");
+        writer.write("metric,name,unit,order,direction,estimator\n");
+        Map<String, OrderedMetricMetadata> ranked = new LinkedHashMap<>();
+        for (OrderedMetricMetadata metadata : result.metricsConfiguration()) {
+            ranked.put(metadata.metricName(), metadata);
+        }
+        for (Map.Entry<String, Integer> entry : metrics.entrySet()) {
+            OrderedMetricMetadata metadata = ranked.get(entry.getKey());
+            writer.write(entry.getValue() + "," + csv(entry.getKey()) + "," + csv(metricUnits.get(entry.getKey())) + ","
+                    + (metadata != null ? metadata.order() : "") + ","
+                    + (metadata != null && metadata.direction() != null ? metadata.direction().getDirection() : "") + ","
+                    + (metadata != null ? metadata.estimator().getName() : "") + "\n");
+        }
+
+        writer.flush();
+        zip.closeEntry();
+        zip.finish();
+    }
+
+    private String behaviourCodes(SystemConfigurationSnapshot snapshot) {
+        if (snapshot == null) {
+            return "";
+        }
+        StringBuilder codes = new StringBuilder();
+        for (Map.Entry<String, ServiceSnapshot> service : new TreeMap<>(snapshot.services()).entrySet()) {
+            int serviceCode = serviceCode(service.getKey());
+            for (Map.Entry<String, ClassSnapshot> clazz : new TreeMap<>(service.getValue().classes()).entrySet()) {
+                for (Map.Entry<String, String> method : new TreeMap<>(clazz.getValue().methodBehaviors()).entrySet()) {
+                    BehaviourKey key = new BehaviourKey(serviceCode, clazz.getKey(), method.getKey(), method.getValue());
+                    int code = behaviours.computeIfAbsent(key, k -> behaviours.size());
+                    if (codes.length() > 0) {
+                        codes.append(';');
+                    }
+                    codes.append(code);
+                }
+            }
+        }
+        return codes.toString();
+    }
+
+    private int serviceCode(String serviceName) {
+        return services.computeIfAbsent(serviceName, k -> services.size());
+    }
+
+    private int metricCode(String metricName, String unit) {
+        metricUnits.putIfAbsent(metricName, unit);
+        return metrics.computeIfAbsent(metricName, k -> metrics.size());
+    }
+
+    private void writeSample(Writer writer, int configuration, int service, int metric, int sample, double value) throws IOException {
+        writer.write(configuration + "," + service + "," + metric + "," + sample + "," + number(value) + "\n");
+    }
+
+    private void startEntry(ZipOutputStream zip, Writer writer, String name) throws IOException {
+        writer.flush();
+        if (!name.equals("samples.csv")) {
+            zip.closeEntry();
+        }
+        zip.putNextEntry(new ZipEntry(name));
+    }
+
+    private String number(double value) {
+        return Double.isFinite(value) ? Double.toString(value) : "";
+    }
+
+    private String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+}
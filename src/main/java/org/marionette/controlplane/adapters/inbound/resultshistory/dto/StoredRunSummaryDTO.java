@@ -0,0 +1,9 @@
+package org.marionette.controlplane.adapters.inbound.resultshistory.dto;
+
+public record StoredRunSummaryDTO (
+    String runId,
+    String completedAt,
+    String fingerprint,
+    int configurationCount,
+    String bestConfigurationId
+) {}
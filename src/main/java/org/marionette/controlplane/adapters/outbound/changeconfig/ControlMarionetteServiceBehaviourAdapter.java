@@ -8,6 +8,7 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.marionette.controlplane.adapters.outbound.changeconfig.KubernetesServiceUrlParser.KubernetesServiceInfo;
+import org.marionette.controlplane.adapters.outbound.transport.OutboundHttpTransport;
 import org.marionette.controlplane.usecases.outbound.servicemanipulation.ChangeBehaviourData;
 import org.marionette.controlplane.usecases.outbound.servicemanipulation.ControlMarionetteServiceBehaviourGateway;
 import org.springframework.http.HttpEntity;
@@ -29,11 +30,25 @@ public class ControlMarionetteServiceBehaviourAdapter implements ControlMarionet
     private final CoreV1Api coreV1Api;
     private final RestTemplate restTemplate;
     private final ControlMarionetteServiceBehaviourConfig config;
+    private final OutboundHttpTransport transport;
 
-    public ControlMarionetteServiceBehaviourAdapter() {
+    public ControlMarionetteServiceBehaviourAdapter(OutboundHttpTransport transport) {
+        this(defaultApiClient(ControlMarionetteServiceBehaviourConfig.defaultConfig()), transport);
+    }
+
+    /**
+     * Uses the given Kubernetes client as it is configured, e.g. one pointing to a stand-in API server
+     */
+    public ControlMarionetteServiceBehaviourAdapter(ApiClient apiClient, OutboundHttpTransport transport) {
+        this.config = ControlMarionetteServiceBehaviourConfig.defaultConfig();
+        this.transport = transport;
+        this.coreV1Api = new CoreV1Api(apiClient);
+        this.restTemplate = transport.restTemplate();
+    }
+
+    private static ApiClient defaultApiClient(ControlMarionetteServiceBehaviourConfig config) {
         try {
 
-            this.config = ControlMarionetteServiceBehaviourConfig.defaultConfig();
             // Try to use in-cluster config first, fall back to default config
             ApiClient client;
             try {
@@ -52,8 +67,7 @@ public class ControlMarionetteServiceBehaviourAdapter implements ControlMarionet
             client.setWriteTimeout(config.writeTimeout());
 
             Configuration.setDefaultApiClient(client);
-            this.coreV1Api = new CoreV1Api(client); // Pass the configured client
-            this.restTemplate = new RestTemplate();
+            return client;
 
         } catch (Exception e) {
             System.err.println("Error building ChangeConfigService: " + e.getMessage());
@@ -152,7 +166,7 @@ public class ControlMarionetteServiceBehaviourAdapter implements ControlMarionet
 
         // Notify all pods in parallel
         List<CompletableFuture<String>> futures = pods.stream()
-                .map(pod -> CompletableFuture.supplyAsync(() -> notifySinglePod(pod, entity)))
+                .map(pod -> CompletableFuture.supplyAsync(() -> notifySinglePod(pod, entity), transport.fanOutExecutor()))
                 .collect(Collectors.toList());
 
         // Wait for all and report results
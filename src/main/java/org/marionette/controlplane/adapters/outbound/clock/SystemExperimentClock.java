@@ -0,0 +1,20 @@
+package org.marionette.controlplane.adapters.outbound.clock;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import org.marionette.controlplane.usecases.outbound.clock.ExperimentClock;
+
+public class SystemExperimentClock implements ExperimentClock {
+
+    @Override
+    public Instant now() {
+        return Instant.now();
+    }
+
+    @Override
+    public void sleep(Duration duration) throws InterruptedException {
+        Thread.sleep(duration.toMillis());
+    }
+
+}
@@ -2,85 +2,115 @@ package org.marionette.controlplane.adapters.outbound.fetchconfig;
 
 import org.marionette.controlplane.adapters.outbound.fetchconfig.parsing.dto.MarionetteServiceConfigDTO;
 import org.marionette.controlplane.adapters.outbound.fetchconfig.parsing.mapping.MarionetteConfigMapper;
+import org.marionette.controlplane.adapters.outbound.transport.OutboundHttpTransport;
 import org.marionette.controlplane.exceptions.infrastructure.checked.FetchMarionetteConfigurationException;
 import org.marionette.controlplane.usecases.domain.dto.ServiceConfigData;
 import org.marionette.controlplane.usecases.outbound.fetchconfig.FetchMarionetteConfigurationGateway;
+import org.marionette.controlplane.usecases.outbound.fetchconfig.FetchedMarionetteConfiguration;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 
 import java.io.IOException;
 import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpClient.Redirect;
-import java.net.http.HttpClient.Version;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
-import java.time.Duration;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static java.util.Objects.requireNonNull;
 
+/**
+ * Fetches the configurations with conditional requests: the ETag returned by a service is sent back as
+ * If-None-Match and a 304 means the caller's copy is still valid. Services without ETags still save the
+ * parsing: the SHA-256 of the body is compared with the hash the caller knows before anything is parsed.
+ */
 public class HttpFetchMarionetteConfigAdapter implements FetchMarionetteConfigurationGateway {
 
-    private final HttpClient httpClient;
+    // Thread safe and pre-built: parsing does not create a mapper per call
+    private static final ObjectReader CONFIG_READER = new ObjectMapper().readerFor(MarionetteServiceConfigDTO.class);
+
+    /**
+     * Last validator seen for an endpoint, the ETag is only valid for the body with that hash
+     */
+    private record Validator(String etag, String contentHash) {}
+
+    private final OutboundHttpTransport transport;
     private final HttpFetchMarionetteConfigAdapterConfig config;
+    private final Map<String, Validator> validators = new ConcurrentHashMap<>();
 
-    public HttpFetchMarionetteConfigAdapter() {
-        this.httpClient = createHttpClient();
-        this.config = HttpFetchMarionetteConfigAdapterConfig.defaultConfig();
+    public HttpFetchMarionetteConfigAdapter(OutboundHttpTransport transport) {
+        this(HttpFetchMarionetteConfigAdapterConfig.defaultConfig(), transport);
     }
 
-    public HttpFetchMarionetteConfigAdapter(HttpFetchMarionetteConfigAdapterConfig config) {
+    public HttpFetchMarionetteConfigAdapter(HttpFetchMarionetteConfigAdapterConfig config, OutboundHttpTransport transport) {
         requireNonNull(config, "The config object for the http fetch marionette config adapter is null");
+        requireNonNull(transport, "The outbound HTTP transport cannot be null");
 
         this.config = config;
-        httpClient = createHttpClient();
+        this.transport = transport;
     }
 
-    private HttpClient createHttpClient() {
-        return HttpClient.newBuilder()
-                .version(Version.HTTP_1_1)
-                .followRedirects(Redirect.NORMAL)
-                .connectTimeout(Duration.ofSeconds(10))
-                .build();
+    @Override
+    public ServiceConfigData fetchMarionetteConfiguration(String marionetteServiceEndpoint) throws FetchMarionetteConfigurationException {
+        return fetchMarionetteConfigurationIfChanged(marionetteServiceEndpoint, null).configuration().orElseThrow();
     }
 
     @Override
-    public ServiceConfigData fetchMarionetteConfiguration(String marionetteServiceEndpoint) throws FetchMarionetteConfigurationException {
-        
+    public FetchedMarionetteConfiguration fetchMarionetteConfigurationIfChanged(String marionetteServiceEndpoint,
+            String knownContentHash) throws FetchMarionetteConfigurationException {
+
         try {
-            URI configFetchUri = buildFetchConfigEndpoint(marionetteServiceEndpoint); 
-            HttpRequest request = buildHttpRequest(configFetchUri);
-            HttpResponse<String> response = sendAndHandleExceptions(request);
+            URI configFetchUri = buildFetchConfigEndpoint(marionetteServiceEndpoint);
+            Validator validator = validators.get(marionetteServiceEndpoint);
+            String etag = validator != null && knownContentHash != null && knownContentHash.equals(validator.contentHash())
+                    ? validator.etag()
+                    : null;
+
+            HttpResponse<byte[]> response = sendAndHandleExceptions(buildHttpRequest(configFetchUri, etag));
+            if (response.statusCode() == 304 && etag != null) {
+                logResponseUnchanged(marionetteServiceEndpoint, "not modified");
+                return FetchedMarionetteConfiguration.unchanged(knownContentHash);
+            }
             if (response.statusCode() == 200) {
-                logResponseSuccessful(marionetteServiceEndpoint, response.body());
+                String contentHash = hash(response.body());
+                validators.put(marionetteServiceEndpoint,
+                        new Validator(response.headers().firstValue("ETag").orElse(null), contentHash));
+
+                if (contentHash.equals(knownContentHash)) {
+                    logResponseUnchanged(marionetteServiceEndpoint, "same content");
+                    return FetchedMarionetteConfiguration.unchanged(contentHash);
+                }
+                logResponseSuccessful(marionetteServiceEndpoint, response.body().length);
 
                 MarionetteServiceConfigDTO dto = mapToDtoAndHandleExceptions(response.body(), configFetchUri.toString());
-                ServiceConfigData serviceConfigData = mapToData(dto);                
-                return serviceConfigData;
+                return FetchedMarionetteConfiguration.changed(mapToData(dto), contentHash);
             } else {
                 throw new FetchMarionetteConfigurationException(
                 "Impossible to retrieve the configuration for the service " + marionetteServiceEndpoint + " because the server returned with code " + response.statusCode(),
                 "Impossible to locate the service at the url "  + marionetteServiceEndpoint);
             }
+        } catch (FetchMarionetteConfigurationException e) {
+            throw e;
         } catch (Exception e) {     // Global guard against external exceptions
-            throw new FetchMarionetteConfigurationException("Unexpected exception when fetching configuration for node " + marionetteServiceEndpoint, 
+            throw new FetchMarionetteConfigurationException("Unexpected exception when fetching configuration for node " + marionetteServiceEndpoint,
             e, "Impossible to find configuration for " + marionetteServiceEndpoint);
         }
-            
-        
+
     }
 
     private ServiceConfigData mapToData(MarionetteServiceConfigDTO dto) {
         return MarionetteConfigMapper.toDomainServiceConfigData(dto);
     }
 
-    private MarionetteServiceConfigDTO mapToDtoAndHandleExceptions(String httpResponseBody, String serviceEndpoint)
+    private MarionetteServiceConfigDTO mapToDtoAndHandleExceptions(byte[] httpResponseBody, String serviceEndpoint)
             throws FetchMarionetteConfigurationException {
         try {
-            ObjectMapper mapper = new ObjectMapper();
-            return (MarionetteServiceConfigDTO) mapper.readValue(httpResponseBody, MarionetteServiceConfigDTO.class);
-        } catch (JsonProcessingException e) {
+            return CONFIG_READER.readValue(httpResponseBody);
+        } catch (IOException e) {
             throw new FetchMarionetteConfigurationException(
                     "Impossible to terminate fetch of marionette config for the node " + serviceEndpoint
                             + " because of a parsing error of the response",
@@ -90,14 +120,17 @@ public class HttpFetchMarionetteConfigAdapter implements FetchMarionetteConfigur
         }
     }
 
-    private HttpResponse<String> sendAndHandleExceptions(HttpRequest request)
+    private HttpResponse<byte[]> sendAndHandleExceptions(HttpRequest request)
             throws FetchMarionetteConfigurationException {
 
         try {
 
-            return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            return transport.send(request, HttpResponse.BodyHandlers.ofByteArray());
 
         } catch (IOException | InterruptedException e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
             throw new FetchMarionetteConfigurationException(
                     "Impossible to retrieve the configuration for the service " + request.uri()
                             + " because of a network error",
@@ -106,22 +139,34 @@ public class HttpFetchMarionetteConfigAdapter implements FetchMarionetteConfigur
         }
     }
 
-    private HttpRequest buildHttpRequest(URI configFetchUri) {
-        return HttpRequest.newBuilder()
+    private HttpRequest buildHttpRequest(URI configFetchUri, String etag) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder()
                 .uri(configFetchUri)
-                .timeout(Duration.ofSeconds(30))
-                .GET()
-                .build();
+                .GET();
+        if (etag != null) {
+            builder.header("If-None-Match", etag);
+        }
+        return builder.build();
     }
 
     private URI buildFetchConfigEndpoint(String marionetteServiceEndpoint) {
         return URI.create(marionetteServiceEndpoint).resolve(URI.create(config.marionetteEndpointPath()));
     }
 
-    private void logResponseSuccessful(String serviceEndpoint, String responseBody) {
-        System.out.println("Obtained config from endpoint " + serviceEndpoint);
-        System.out.println("### PRINTING CONFIG ###");
-        System.out.println(responseBody);
+    private static String hash(byte[] body) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private void logResponseSuccessful(String serviceEndpoint, int bodyLength) {
+        System.out.println("Obtained config from endpoint " + serviceEndpoint + " (" + bodyLength + " bytes)");
+    }
+
+    private void logResponseUnchanged(String serviceEndpoint, String reason) {
+        System.out.println("Config of " + serviceEndpoint + " unchanged (" + reason + ")");
     }
 
 }
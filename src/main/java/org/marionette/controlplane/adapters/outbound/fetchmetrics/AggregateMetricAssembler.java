@@ -0,0 +1,106 @@
+package org.marionette.controlplane.adapters.outbound.fetchmetrics;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.marionette.controlplane.adapters.outbound.fetchmetrics.prometheus.domain.PrometheusMetricConfig;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.AggregateMetric;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.HistogramQuantile;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.InstanceMetric;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.InstanceOutlierDetector;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.ServiceAggregator;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.statistics.BucketHistogram;
+
+/**
+ * Builds the aggregate metrics of a service from the values of its instances or from a merged histogram,
+ * the same way whatever the source of the values
+ */
+public class AggregateMetricAssembler {
+
+    private final InstanceOutlierDetector outlierDetector = new InstanceOutlierDetector();
+
+    /**
+     * Reduces the value of every instance with the service aggregator of the metric. Outliers are flagged for
+     * every aggregator, but only smoothed out for the ones describing the typical pod.
+     */
+    public AggregateMetric fromInstances(PrometheusMetricConfig config, List<String> instanceNames,
+            double[] values, Instant timestamp) {
+
+        // Single series, nothing to reduce and no breakdown to keep
+        if (values.length == 1) {
+            return new AggregateMetric(config.getDisplayName(), values[0], timestamp, config.getUnit());
+        }
+
+        ServiceAggregator serviceAggregator = serviceAggregatorOf(config);
+        boolean[] outliers = outlierDetector.flagOutliers(values);
+        List<InstanceMetric> instances = new ArrayList<>();
+        for (int i = 0; i < values.length; i++) {
+            instances.add(new InstanceMetric(instanceNames.get(i), values[i], outliers[i]));
+        }
+
+        double reducedValue = serviceAggregator.reduce(values, outliers);
+
+        logInstanceReduction(config, serviceAggregator, instances, reducedValue);
+
+        return new AggregateMetric(
+                config.getDisplayName(),
+                reducedValue,
+                timestamp,
+                config.getUnit(),
+                instances);
+    }
+
+    /**
+     * Reduces the values of the instances at a single instant, like {@link #fromInstances} but without keeping
+     * the breakdown: the samples of a metric are one reduced value per step, not one value per pod and step.
+     */
+    public double reduceStep(PrometheusMetricConfig config, double[] values) {
+        if (values.length == 1) {
+            return values[0];
+        }
+        return serviceAggregatorOf(config).reduce(values, outlierDetector.flagOutliers(values));
+    }
+
+    /**
+     * One metric per configured quantile of the histogram. The first quantile keeps the display name of the
+     * metric (it is the one ranked), the others get a suffix.
+     */
+    public List<AggregateMetric> fromHistogram(PrometheusMetricConfig config, BucketHistogram histogram, Instant timestamp) {
+        List<AggregateMetric> quantileMetrics = new ArrayList<>();
+        List<Double> quantiles = config.getQuantiles();
+        for (int i = 0; i < quantiles.size(); i++) {
+            String name = i == 0
+                    ? config.getDisplayName()
+                    : config.getDisplayName() + " " + quantileLabel(quantiles.get(i));
+            quantileMetrics.add(new AggregateMetric(name, timestamp, config.getUnit(),
+                    new HistogramQuantile(histogram, quantiles.get(i))));
+        }
+
+        System.out.println("Derived " + quantileMetrics.size() + " quantiles of " + config.getDisplayName()
+                + " from " + histogram);
+        return quantileMetrics;
+    }
+
+    private ServiceAggregator serviceAggregatorOf(PrometheusMetricConfig config) {
+        return config.getServiceAggregator() != null ? config.getServiceAggregator() : ServiceAggregator.AVERAGE;
+    }
+
+    private String quantileLabel(double quantile) {
+        return "p" + BigDecimal.valueOf(quantile * 100).stripTrailingZeros().toPlainString();
+    }
+
+    private void logInstanceReduction(PrometheusMetricConfig config, ServiceAggregator serviceAggregator,
+            List<InstanceMetric> instances, double reducedValue) {
+        System.out.println("Reducing " + instances.size() + " instances of metric " + config.getDisplayName()
+                + " with " + serviceAggregator + " -> " + reducedValue);
+        for (InstanceMetric instance : instances) {
+            System.out.printf("   %s %s: %.3f%n",
+                    instance.outlier() ? "⚠️ " : "• ",
+                    instance.instance(),
+                    instance.value());
+        }
+    }
+
+}
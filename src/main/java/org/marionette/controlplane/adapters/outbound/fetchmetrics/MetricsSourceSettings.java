@@ -0,0 +1,61 @@
+package org.marionette.controlplane.adapters.outbound.fetchmetrics;
+
+import java.time.Duration;
+
+/**
+ * Where the A/B test metrics come from, read from the environment:
+ * MARIONETTE_METRICS_SOURCE is "prometheus" (default) to query Prometheus or "scrape" to scrape the pods
+ * directly during each slice, MARIONETTE_METRICS_SAMPLING_SECONDS is the sampling period of the estimators
+ * (20s by default with Prometheus, bound by its scrape interval, 5s when scraping directly).
+ */
+public record MetricsSourceSettings(
+    MetricsSource source,
+    Duration samplingPeriod
+) {
+
+    public enum MetricsSource {
+        PROMETHEUS,
+        SCRAPE
+    }
+
+    public static MetricsSourceSettings defaultSettings() {
+        return new MetricsSourceSettings(MetricsSource.PROMETHEUS, defaultSamplingPeriod(MetricsSource.PROMETHEUS));
+    }
+
+    public static MetricsSourceSettings loadFromEnv() {
+        MetricsSource source = parseSource(System.getenv("MARIONETTE_METRICS_SOURCE"));
+        return new MetricsSourceSettings(
+            source,
+            Duration.ofSeconds(parseLong(System.getenv("MARIONETTE_METRICS_SAMPLING_SECONDS"), defaultSamplingPeriod(source).toSeconds())));
+    }
+
+    private static Duration defaultSamplingPeriod(MetricsSource source) {
+        return source == MetricsSource.SCRAPE ? Duration.ofSeconds(5) : Duration.ofSeconds(20);
+    }
+
+    private static MetricsSource parseSource(String value) {
+        if (value == null || value.isBlank()) {
+            return MetricsSource.PROMETHEUS;
+        }
+        try {
+            return MetricsSource.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid metrics source " + value + ", using prometheus");
+            return MetricsSource.PROMETHEUS;
+        }
+    }
+
+    private static long parseLong(String value, long defaultValue) {
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            long parsed = Long.parseLong(value.trim());
+            return parsed > 0 ? parsed : defaultValue;
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid metrics sampling setting " + value + ", using " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+}
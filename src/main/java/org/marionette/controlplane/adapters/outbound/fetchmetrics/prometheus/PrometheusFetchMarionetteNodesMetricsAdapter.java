@@ -1,23 +1,28 @@
 package org.marionette.controlplane.adapters.outbound.fetchmetrics.prometheus;
 
 import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpClient.Redirect;
-import java.net.http.HttpClient.Version;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
 
+import org.marionette.controlplane.adapters.outbound.fetchmetrics.AggregateMetricAssembler;
 import org.marionette.controlplane.adapters.outbound.fetchmetrics.prometheus.configuration.PrometheusConfiguration;
+import org.marionette.controlplane.adapters.outbound.fetchmetrics.prometheus.domain.MetricCollectionMode;
 import org.marionette.controlplane.adapters.outbound.fetchmetrics.prometheus.domain.PrometheusMetricConfig;
 import org.marionette.controlplane.adapters.outbound.fetchmetrics.prometheus.dto.PrometheusApiResponse;
 import org.marionette.controlplane.adapters.outbound.fetchmetrics.prometheus.dto.PrometheusQueryData;
 import org.marionette.controlplane.adapters.outbound.fetchmetrics.prometheus.dto.PrometheusResult;
+import org.marionette.controlplane.adapters.outbound.transport.OutboundHttpTransport;
 import org.marionette.controlplane.usecases.outbound.fetchmetrics.FetchMarionetteNodesMetricsGateway;
 import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.AggregateMetric;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.statistics.BucketHistogram;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.timeseries.SampleSeries;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -25,29 +30,29 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 public class PrometheusFetchMarionetteNodesMetricsAdapter implements FetchMarionetteNodesMetricsGateway {
 
     private final PrometheusConfiguration config;
-    private final HttpClient httpClient;
+    private final OutboundHttpTransport transport;
     private final ObjectMapper objectMapper;
+    private final AggregateMetricAssembler assembler = new AggregateMetricAssembler();
 
-    public PrometheusFetchMarionetteNodesMetricsAdapter(PrometheusConfiguration config) {
-        this.httpClient = createHttpClient();
+    // Labels identifying the instance a series comes from, in order of preference
+    private static final List<String> INSTANCE_LABELS = List.of("pod", "instance", "kubernetes_pod_name");
+
+    public PrometheusFetchMarionetteNodesMetricsAdapter(PrometheusConfiguration config, OutboundHttpTransport transport) {
+        this.transport = transport;
         this.config = config;
         this.objectMapper = new ObjectMapper();
     }
 
-    private HttpClient createHttpClient() {
-        return HttpClient.newBuilder()
-                .version(Version.HTTP_1_1)
-                .followRedirects(Redirect.NORMAL)
-                .connectTimeout(Duration.ofSeconds(10))
-                .build();
-    }
-
     @Override
     public List<AggregateMetric> fetchMetricsForService(String serviceName, Duration timeSpan, Duration samplingPeriod) {
 
         List<AggregateMetric> metrics = new ArrayList<>();
 
         for (PrometheusMetricConfig metricConfig : config.getMetrics()) {
+            if (metricConfig.getMode() == MetricCollectionMode.HISTOGRAM) {
+                metrics.addAll(fetchHistogramMetrics(serviceName, metricConfig, timeSpan, samplingPeriod));
+                continue;
+            }
             try {
                 // Build the API url
                 String query = PrometheusQueryBuilder.buildQuery(
@@ -58,55 +63,23 @@ public class PrometheusFetchMarionetteNodesMetricsAdapter implements FetchMarion
                         timeSpan,
                         samplingPeriod);
 
-                // Fire the query
-                HttpRequest request = HttpRequest.newBuilder()
-                        .uri(URI.create(query))
-                        .timeout(Duration.ofSeconds(20))
-                        .GET()
-                        .build();
-
-                HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-
-                if (response.statusCode() == 200) {
-                    // Parse JSON response with defensive error handling
-                    TypeReference<PrometheusApiResponse<PrometheusQueryData>> typeRef = new TypeReference<PrometheusApiResponse<PrometheusQueryData>>() {
-                    };
-
-                    PrometheusApiResponse<PrometheusQueryData> apiResponse;
-                    try {
-                        apiResponse = objectMapper.readValue(response.body(), typeRef);
-                    } catch (Exception parseException) {
-                        System.err.println("Failed to parse Prometheus JSON response: " + parseException.getMessage());
-                        System.err.println("Raw response body: " + response.body());
-                        continue; // Skip this metric and continue with others
-                    }
-
-                    // Defensive null check for apiResponse
-                    if (apiResponse == null) {
-                        System.err.println("Null API response from Prometheus");
-                        continue;
-                    }
-
-                    logPrometheusResponse(apiResponse);
+                PrometheusQueryData data = executeQuery(query);
+                if (data == null) {
+                    continue; // Skip this metric and continue with others
+                }
 
-                    if ("success".equals(apiResponse.getStatus())) {
-                        // Convert Prometheus data to your domain objects with null safety
-                        try {
-                            AggregateMetric metric = convertToAggregateMetric(
-                                    apiResponse.getData(), metricConfig);
-                            if (metric != null) {
-                                metrics.add(metric);
-                            }
-                        } catch (Exception conversionException) {
-                            System.err.println("Failed to convert Prometheus data to AggregateMetric: " + conversionException.getMessage());
-                            conversionException.printStackTrace();
+                // Convert Prometheus data to your domain objects with null safety
+                try {
+                    AggregateMetric metric = convertToAggregateMetric(data, metricConfig);
+                    if (metric != null) {
+                        if (metricConfig.getEstimator().requiresSamples()) {
+                            metric = metric.withSamples(fetchSamples(serviceName, metricConfig, timeSpan, samplingPeriod));
                         }
-                    } else {
-                        // Handle error response
-                        System.err.println("Prometheus API error: " + apiResponse.getError());
+                        metrics.add(metric);
                     }
-                } else {
-                    System.err.println("HTTP error: " + response.statusCode());
+                } catch (Exception conversionException) {
+                    System.err.println("Failed to convert Prometheus data to AggregateMetric: " + conversionException.getMessage());
+                    conversionException.printStackTrace();
                 }
             } catch (Exception e) {
                 System.out.println("Catching exception when sending request out for service " + serviceName);
@@ -121,10 +94,166 @@ public class PrometheusFetchMarionetteNodesMetricsAdapter implements FetchMarion
 
     }
 
+    /**
+     * Sends a query to Prometheus and returns its data, or null when the request or the response is not usable
+     */
+    private PrometheusQueryData executeQuery(String query) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(query))
+                .timeout(Duration.ofSeconds(20))
+                .GET()
+                .build();
+
+        HttpResponse<String> response = transport.send(request, HttpResponse.BodyHandlers.ofString());
+
+        if (response.statusCode() != 200) {
+            System.err.println("HTTP error: " + response.statusCode());
+            return null;
+        }
+
+        // Parse JSON response with defensive error handling
+        TypeReference<PrometheusApiResponse<PrometheusQueryData>> typeRef = new TypeReference<PrometheusApiResponse<PrometheusQueryData>>() {
+        };
+
+        PrometheusApiResponse<PrometheusQueryData> apiResponse;
+        try {
+            apiResponse = objectMapper.readValue(response.body(), typeRef);
+        } catch (Exception parseException) {
+            System.err.println("Failed to parse Prometheus JSON response: " + parseException.getMessage());
+            System.err.println("Raw response body: " + response.body());
+            return null;
+        }
+
+        // Defensive null check for apiResponse
+        if (apiResponse == null) {
+            System.err.println("Null API response from Prometheus");
+            return null;
+        }
+
+        logPrometheusResponse(apiResponse);
+
+        if (!"success".equals(apiResponse.getStatus())) {
+            // Handle error response
+            System.err.println("Prometheus API error: " + apiResponse.getError());
+            return null;
+        }
+
+        return apiResponse.getData();
+    }
+
+    /**
+     * Fetches the bucket increase of a histogram over the slice with a single query, merges the buckets
+     * of all the instances and derives every configured quantile from the merged counts.
+     * The first quantile keeps the display name of the metric (it is the one ranked), the others get a suffix.
+     */
+    private List<AggregateMetric> fetchHistogramMetrics(String serviceName, PrometheusMetricConfig metricConfig,
+            Duration timeSpan, Duration samplingPeriod) {
+        try {
+            String query = PrometheusQueryBuilder.buildQuery(
+                    config.getPrometheusUrl(),
+                    config.getInternalPath(),
+                    "increase(" + metricConfig.getQuery() + "[{timespan}])",
+                    serviceName,
+                    timeSpan,
+                    samplingPeriod);
+
+            PrometheusQueryData data = executeQuery(query);
+            if (data == null || data.getResult() == null || !"vector".equals(data.getResultType())) {
+                return List.of();
+            }
+
+            BucketHistogram.Builder builder = new BucketHistogram.Builder();
+            Instant latestTimestamp = null;
+            for (PrometheusResult series : data.getResult()) {
+                if (series == null || series.getMetric() == null || series.getValue() == null
+                        || series.getValue().length < 2) {
+                    continue;
+                }
+                String le = series.getMetric().get("le");
+                if (le == null) {
+                    System.err.println("Skipping series without le label for histogram " + metricConfig.getDisplayName());
+                    continue;
+                }
+                SeriesSample sample = toSeriesSample(series.getValue());
+                builder.add(parseBucketBound(le), sample.value());
+                if (latestTimestamp == null || sample.timestamp().isAfter(latestTimestamp)) {
+                    latestTimestamp = sample.timestamp();
+                }
+            }
+
+            BucketHistogram histogram = builder.build();
+            if (histogram.isEmpty()) {
+                System.err.println("No observations in histogram " + metricConfig.getDisplayName() + " for service " + serviceName);
+                return List.of();
+            }
+
+            return assembler.fromHistogram(metricConfig, histogram, latestTimestamp);
+
+        } catch (Exception e) {
+            System.err.println("Failed to collect histogram " + metricConfig.getDisplayName()
+                    + " for service " + serviceName + ": " + e.getMessage());
+            return List.of();
+        }
+    }
+
+    private double parseBucketBound(String le) {
+        return "+Inf".equals(le) ? Double.POSITIVE_INFINITY : Double.parseDouble(le);
+    }
+
+    /**
+     * Collects the samples of a metric through a range query, one per sampling window: the values of the
+     * instances at each step are reduced with the service aggregator, as the instant value is.
+     * Robust estimators work on these samples instead of the single value of the instant query.
+     */
+    private SampleSeries fetchSamples(String serviceName, PrometheusMetricConfig metricConfig,
+            Duration timeSpan, Duration samplingPeriod) {
+        try {
+            String rangeQuery = PrometheusQueryBuilder.buildRangeQuery(
+                    config.getPrometheusUrl(),
+                    config.getInternalRangePath(),
+                    metricConfig.getQuery(),
+                    serviceName,
+                    timeSpan,
+                    samplingPeriod,
+                    Instant.now());
+
+            PrometheusQueryData data = executeQuery(rangeQuery);
+            if (data == null || data.getResult() == null || !"matrix".equals(data.getResultType())) {
+                return SampleSeries.empty();
+            }
+
+            // Prometheus aligns the steps of every series, so the points of the same step share their timestamp
+            SortedMap<Long, List<Double>> valuesByStep = new TreeMap<>();
+            for (PrometheusResult series : data.getResult()) {
+                if (series == null || series.getValues() == null) {
+                    continue;
+                }
+                for (Object[] point : series.getValues()) {
+                    if (point == null || point.length < 2) {
+                        continue;
+                    }
+                    double value = toSeriesSample(point).value();
+                    if (Double.isFinite(value)) {
+                        long timestamp = Math.round(((Number) point[0]).doubleValue() * 1000);
+                        valuesByStep.computeIfAbsent(timestamp, step -> new ArrayList<>()).add(value);
+                    }
+                }
+            }
+
+            SampleSeries.Builder samples = new SampleSeries.Builder();
+            valuesByStep.forEach((timestamp, values) -> samples.append(timestamp,
+                    assembler.reduceStep(metricConfig, values.stream().mapToDouble(Double::doubleValue).toArray())));
+            return samples.build();
+
+        } catch (Exception e) {
+            System.err.println("Failed to collect samples for metric " + metricConfig.getDisplayName()
+                    + " of service " + serviceName + ": " + e.getMessage());
+            return SampleSeries.empty();
+        }
+    }
+
     private AggregateMetric convertToAggregateMetric(PrometheusQueryData data,
             PrometheusMetricConfig config) {
-        // Convert PrometheusQueryData to your AggregateMetric domain object
-        // This will depend on your specific domain model
 
         if (data == null) {
             System.err.println("PrometheusQueryData is null, cannot convert to AggregateMetric");
@@ -136,53 +265,105 @@ public class PrometheusFetchMarionetteNodesMetricsAdapter implements FetchMarion
             return null;
         }
 
-        // Example conversion logic
-        PrometheusResult firstResult = data.getResult().get(0); // Take first instance
-        
-        if (firstResult == null) {
-            System.err.println("First result in Prometheus data is null");
-            return null;
+        // One series per instance (pod), collect a value for each of them
+        List<String> instanceNames = new ArrayList<>();
+        List<Double> instanceValues = new ArrayList<>();
+        Instant latestTimestamp = null;
+
+        for (int i = 0; i < data.getResult().size(); i++) {
+            PrometheusResult series = data.getResult().get(i);
+            if (series == null) {
+                System.err.println("Skipping null series in Prometheus data");
+                continue;
+            }
+
+            SeriesSample sample = extractSeriesSample(data.getResultType(), series);
+            if (sample == null) {
+                continue;
+            }
+
+            instanceNames.add(instanceNameOf(series, i));
+            instanceValues.add(sample.value());
+            if (latestTimestamp == null || sample.timestamp().isAfter(latestTimestamp)) {
+                latestTimestamp = sample.timestamp();
+            }
         }
 
-        // Log if multiple
-        if (data.getResult().size() > 1) {
-            System.err.println("The response from prometheus has multiple values, using first one");
+        if (instanceValues.isEmpty()) {
+            System.err.println("No usable values in Prometheus response of type " + data.getResultType());
+            return null;
         }
 
-        // For instant queries (vector)
-        if ("vector".equals(data.getResultType()) && firstResult.getValue() != null) {
-            Object[] valueArray = firstResult.getValue();
-            if (valueArray != null && valueArray.length >= 2) {
-                try {
-                    double timestamp = ((Number) valueArray[0]).doubleValue();
-                    String value = (String) valueArray[1];
-
-                    // Create your AggregateMetric object
-                    return new AggregateMetric(
-                            config.getDisplayName(),
-                            Double.parseDouble(value),
-                            Instant.ofEpochSecond((long) timestamp),
-                            config.getUnit());
-                } catch (Exception e) {
-                    System.err.println("Error converting Prometheus value array to AggregateMetric: " + e.getMessage());
+        double[] values = instanceValues.stream().mapToDouble(Double::doubleValue).toArray();
+        return assembler.fromInstances(config, instanceNames, values, latestTimestamp);
+    }
+
+    private SeriesSample extractSeriesSample(String resultType, PrometheusResult series) {
+        try {
+            // For instant queries (vector)
+            if ("vector".equals(resultType)) {
+                Object[] valueArray = series.getValue();
+                if (valueArray == null || valueArray.length < 2) {
+                    System.err.println("Invalid or incomplete value array in Prometheus response");
                     return null;
                 }
-            } else {
-                System.err.println("Invalid or incomplete value array in Prometheus response");
-                return null;
+                return toSeriesSample(valueArray);
+            }
+
+            // For range queries (matrix) use the mean of the series over the range
+            if ("matrix".equals(resultType)) {
+                List<Object[]> valuesArray = series.getValues();
+                if (valuesArray == null || valuesArray.isEmpty()) {
+                    return null;
+                }
+                double sum = 0;
+                int count = 0;
+                Instant last = null;
+                for (Object[] point : valuesArray) {
+                    if (point == null || point.length < 2) {
+                        continue;
+                    }
+                    SeriesSample sample = toSeriesSample(point);
+                    sum += sample.value();
+                    count++;
+                    last = sample.timestamp();
+                }
+                return count > 0 ? new SeriesSample(sum / count, last) : null;
             }
-        }
 
-        // For range queries (matrix) with defensive checks
-        List<Object[]> valuesArray = firstResult.getValues();
-        if ("matrix".equals(data.getResultType()) && valuesArray != null && !valuesArray.isEmpty()) {
-            System.err.println("Received a response from Prometheus of type matrix...");
-            // TODO: Implement matrix handling if needed
+            System.err.println("Unsupported Prometheus result type " + resultType);
+            return null;
+
+        } catch (Exception e) {
+            System.err.println("Error converting Prometheus value array to AggregateMetric: " + e.getMessage());
+            return null;
         }
+    }
 
-        return null;
+    private SeriesSample toSeriesSample(Object[] valueArray) {
+        double timestamp = ((Number) valueArray[0]).doubleValue();
+        double value = Double.parseDouble((String) valueArray[1]);
+        return new SeriesSample(value, Instant.ofEpochSecond((long) timestamp));
     }
 
+    private String instanceNameOf(PrometheusResult series, int position) {
+        Map<String, String> labels = series.getMetric();
+        if (labels != null) {
+            for (String label : INSTANCE_LABELS) {
+                String value = labels.get(label);
+                if (value != null && !value.isBlank()) {
+                    return value;
+                }
+            }
+            if (!labels.isEmpty()) {
+                return labels.toString();
+            }
+        }
+        return "series-" + position;
+    }
+
+    private record SeriesSample(double value, Instant timestamp) {}
+
     private void logPrometheusResponse(PrometheusApiResponse<PrometheusQueryData> apiResponse) {
         System.out.println("=== Prometheus API Response ===");
         
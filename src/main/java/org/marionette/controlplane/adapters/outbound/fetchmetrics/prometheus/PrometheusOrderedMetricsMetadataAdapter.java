@@ -21,7 +21,7 @@ public class PrometheusOrderedMetricsMetadataAdapter implements OrderedMetricsMe
         
         List<OrderedMetricMetadata> domainMetricsModel = prometheusConfiguration.getMetrics()
             .stream()
-            .map(el -> new OrderedMetricMetadata(el.getDisplayName(), el.getOrder(), el.getDirection(), el.getUnit()))
+            .map(el -> new OrderedMetricMetadata(el.getDisplayName(), el.getOrder(), el.getDirection(), el.getUnit(), el.getEstimator(), el.getTolerance()))
             .collect(Collectors.toList());
 
         return new MetricsConfiguration(domainMetricsModel);
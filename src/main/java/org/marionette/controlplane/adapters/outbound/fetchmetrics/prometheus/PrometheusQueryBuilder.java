@@ -3,6 +3,7 @@ package org.marionette.controlplane.adapters.outbound.fetchmetrics.prometheus;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.time.Instant;
 import java.util.Objects;
 
 /**
@@ -67,6 +68,47 @@ public class PrometheusQueryBuilder {
         return finalUrl;
     }
 
+    /**
+     * Builds a Prometheus range query URL returning the raw samples of the template over the last timespan.
+     * The template is evaluated once per sampling period, so {timespan} placeholders are replaced with the
+     * sampling period: every sample then covers one sampling window instead of the whole slice.
+     *
+     * @param prometheusUrl  Base Prometheus URL (e.g., "http://prometheus:9090")
+     * @param rangeApiPath   Range API path (e.g., "/api/v1/query_range")
+     * @param queryTemplate  User-provided query with placeholders
+     * @param serviceName    Service name to substitute
+     * @param timespan       Length of the range, ending at the given end instant
+     * @param samplingPeriod Resolution step of the range query
+     * @param end            End of the range
+     * @return Complete encoded Prometheus range query URL
+     */
+    public static String buildRangeQuery(String prometheusUrl, String rangeApiPath,
+            String queryTemplate, String serviceName,
+            Duration timespan, Duration samplingPeriod, Instant end) {
+
+        validateInputs(prometheusUrl, rangeApiPath, queryTemplate, serviceName, timespan, samplingPeriod);
+        Objects.requireNonNull(samplingPeriod, "Sampling period cannot be null for a range query");
+        Objects.requireNonNull(end, "The end of the range cannot be null");
+
+        String processedQuery = substituteServiceName(queryTemplate, serviceName);
+        processedQuery = substituteTimespan(processedQuery, samplingPeriod);
+        processedQuery = substituteSamplingPeriod(processedQuery, samplingPeriod);
+
+        String encodedQuery = URLEncoder.encode(processedQuery, StandardCharsets.UTF_8);
+        long endSeconds = end.getEpochSecond();
+        long startSeconds = end.minus(timespan).getEpochSecond();
+
+        String finalUrl = prometheusUrl + rangeApiPath
+                + "?query=" + encodedQuery
+                + "&start=" + startSeconds
+                + "&end=" + endSeconds
+                + "&step=" + samplingPeriod.getSeconds() + "s";
+
+        logQueryBuilding(queryTemplate, processedQuery, finalUrl);
+
+        return finalUrl;
+    }
+
     /**
      * Substitute service name placeholders in the query template.
      */
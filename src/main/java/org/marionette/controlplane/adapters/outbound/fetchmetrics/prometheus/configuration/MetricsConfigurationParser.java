@@ -5,7 +5,9 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
+import org.marionette.controlplane.adapters.outbound.fetchmetrics.prometheus.domain.MetricCollectionMode;
 import org.marionette.controlplane.adapters.outbound.fetchmetrics.prometheus.domain.PrometheusMetricConfig;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.MetricEstimator;
 import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.OptimizationDirection;
 import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.ServiceAggregator;
 import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.TimeAggregator;
@@ -13,7 +15,7 @@ import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.TimeAgg
 public class MetricsConfigurationParser {
 
     private static final Pattern METRICS_PATTERN = Pattern.compile(
-            "^MARIONETTE_METRICS_CONFIG_([A-Z_]+)_(QUERY|TIMEAGGREGATOR|SERVICEAGGREGATOR|ORDER|DIRECTION|DISPLAYNAME|UNIT|DESCRIPTION)$");
+            "^MARIONETTE_METRICS_CONFIG_([A-Z_]+)_(QUERY|TIMEAGGREGATOR|SERVICEAGGREGATOR|ORDER|DIRECTION|ESTIMATOR|TOLERANCE|MODE|QUANTILES|DISPLAYNAME|UNIT|DESCRIPTION)$");
 
     public List<PrometheusMetricConfig> parseMetricsFromEnvironment() {
         Map<String, PrometheusMetricConfig> metricsMap = new LinkedHashMap<>();
@@ -56,6 +58,18 @@ public class MetricsConfigurationParser {
             case "direction":
                 config.setDirection(OptimizationDirection.fromString(value));
                 break;
+            case "estimator":
+                config.setEstimator(MetricEstimator.fromString(value));
+                break;
+            case "tolerance":
+                config.setTolerance(parseTolerance(value));
+                break;
+            case "mode":
+                config.setMode(MetricCollectionMode.fromString(value));
+                break;
+            case "quantiles":
+                config.setQuantiles(parseQuantiles(value));
+                break;
             case "displayname":
                 config.setDisplayName(value);
                 break;
@@ -71,6 +85,31 @@ public class MetricsConfigurationParser {
         }
     }
 
+    private double parseTolerance(String value) {
+        double tolerance = Double.parseDouble(value.trim());
+        if (tolerance < 0 || Double.isNaN(tolerance)) {
+            throw new IllegalArgumentException("The tolerance must be a non negative number, got " + value);
+        }
+        return tolerance;
+    }
+
+    private List<Double> parseQuantiles(String value) {
+        List<Double> quantiles = Arrays.stream(value.split(","))
+                .map(String::trim)
+                .filter(q -> !q.isEmpty())
+                .map(Double::parseDouble)
+                .toList();
+        for (double q : quantiles) {
+            if (q < 0 || q > 1) {
+                throw new IllegalArgumentException("Quantiles must be in [0, 1], got " + q);
+            }
+        }
+        if (quantiles.isEmpty()) {
+            throw new IllegalArgumentException("At least one quantile is required, got \"" + value + "\"");
+        }
+        return quantiles;
+    }
+
     private int parseIntegerSafely(String value) {
         try {
             return Integer.parseInt(value);
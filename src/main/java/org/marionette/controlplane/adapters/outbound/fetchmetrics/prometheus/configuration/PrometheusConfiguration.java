@@ -9,6 +9,7 @@ public class PrometheusConfiguration {
 
     private final String prometheusUrl;
     private final String internalPath = "/api/v1/query";
+    private final String internalRangePath = "/api/v1/query_range";
     private final List<PrometheusMetricConfig> metrics;
     private final List<String> includedServices;
 
@@ -53,4 +54,8 @@ public class PrometheusConfiguration {
     public String getInternalPath() {
         return internalPath;
     }
+
+    public String getInternalRangePath() {
+        return internalRangePath;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,37 @@
+package org.marionette.controlplane.adapters.outbound.fetchmetrics.prometheus.domain;
+
+/*
+ * How a metric is collected from Prometheus.
+ * QUERY evaluates the configured template as is, HISTOGRAM treats the template as a _bucket series selector,
+ * fetches the bucket increase over the slice once and derives all the configured quantiles locally.
+ */
+public enum MetricCollectionMode {
+
+    QUERY("query"),
+    HISTOGRAM("histogram");
+
+    private final String mode;
+
+    MetricCollectionMode(String mode) {
+        this.mode = mode;
+    }
+
+    public String getMode() {
+        return mode;
+    }
+
+    public static MetricCollectionMode fromString(String mode) {
+        for (MetricCollectionMode m : MetricCollectionMode.values()) {
+            if (m.mode.equalsIgnoreCase(mode)) {
+                return m;
+            }
+        }
+        throw new IllegalArgumentException("There is no collection mode called " + mode);
+    }
+
+    @Override
+    public String toString() {
+        return mode;
+    }
+
+}
@@ -1,15 +1,24 @@
 package org.marionette.controlplane.adapters.outbound.fetchmetrics.prometheus.domain;
 
+import java.util.List;
+
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.MetricEstimator;
 import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.OptimizationDirection;
 import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.ServiceAggregator;
 import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.TimeAggregator;
 
 public class PrometheusMetricConfig {
 
+    private static final List<Double> DEFAULT_QUANTILES = List.of(0.5, 0.9, 0.99, 0.999);
+
     private String query;
     private TimeAggregator timeAggregator;
     private ServiceAggregator serviceAggregator;
     private OptimizationDirection direction;
+    private MetricEstimator estimator = MetricEstimator.MEAN;
+    private double tolerance;   // relative, 0 means exact comparison when ranking
+    private MetricCollectionMode mode = MetricCollectionMode.QUERY;
+    private List<Double> quantiles = DEFAULT_QUANTILES;   // only used in histogram mode, the first one is ranked
     private int order;
 
 
@@ -40,6 +49,10 @@ public class PrometheusMetricConfig {
             "      query: \"%s\"\n" +
             "      timeAggregator: %s\n" +
             "      serviceAggregator: %s\n" +
+            "      estimator: %s\n" +
+            "      tolerance: %s\n" +
+            "      mode: %s\n" +
+            "      quantiles: %s\n" +
             "      unit: %s\n" +
             "      description: \"%s\"\n" +
             "    }",
@@ -47,6 +60,10 @@ public class PrometheusMetricConfig {
             query,
             timeAggregator,
             serviceAggregator,
+            estimator,
+            tolerance,
+            mode,
+            quantiles,
             unit != null ? unit : "none",
             description != null ? description : "No description");
     }
@@ -122,6 +139,46 @@ public class PrometheusMetricConfig {
     }
 
 
+    public MetricEstimator getEstimator() {
+        return estimator;
+    }
+
+
+    public void setEstimator(MetricEstimator estimator) {
+        this.estimator = estimator;
+    }
+
+
+    public double getTolerance() {
+        return tolerance;
+    }
+
+
+    public void setTolerance(double tolerance) {
+        this.tolerance = tolerance;
+    }
+
+
+    public MetricCollectionMode getMode() {
+        return mode;
+    }
+
+
+    public void setMode(MetricCollectionMode mode) {
+        this.mode = mode;
+    }
+
+
+    public List<Double> getQuantiles() {
+        return quantiles;
+    }
+
+
+    public void setQuantiles(List<Double> quantiles) {
+        this.quantiles = List.copyOf(quantiles);
+    }
+
+
     public int getOrder() {
         return order;
     }
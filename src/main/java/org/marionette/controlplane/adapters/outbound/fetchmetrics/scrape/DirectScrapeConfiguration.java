@@ -0,0 +1,52 @@
+package org.marionette.controlplane.adapters.outbound.fetchmetrics.scrape;
+
+import java.time.Duration;
+
+/**
+ * Direct scraping of the pods, read from the environment:
+ * MARIONETTE_SCRAPE_INTERVAL_MILLIS time between two scrapes of a pod, MARIONETTE_SCRAPE_PATH path of the
+ * exposition endpoint, MARIONETTE_SCRAPE_TIMEOUT_MILLIS timeout of one scrape, MARIONETTE_SCRAPE_MAX_SAMPLES
+ * samples kept per series (the oldest are dropped beyond it), MARIONETTE_SCRAPE_TARGET_REFRESH_SECONDS how
+ * often the pods behind the scraped services are looked up again and MARIONETTE_SCRAPE_CONCURRENCY the pods
+ * scraped at the same time.
+ */
+public record DirectScrapeConfiguration(
+    Duration scrapeInterval,
+    String metricsPath,
+    Duration scrapeTimeout,
+    int maxSamplesPerSeries,
+    Duration targetRefresh,
+    int scrapeConcurrency
+) {
+
+    public static DirectScrapeConfiguration defaultConfiguration() {
+        return new DirectScrapeConfiguration(Duration.ofSeconds(1), "/actuator/prometheus", Duration.ofSeconds(2),
+                7200, Duration.ofSeconds(30), 16);
+    }
+
+    public static DirectScrapeConfiguration loadFromEnv() {
+        DirectScrapeConfiguration defaults = defaultConfiguration();
+        String metricsPath = System.getenv("MARIONETTE_SCRAPE_PATH");
+        return new DirectScrapeConfiguration(
+            Duration.ofMillis(parseLong(System.getenv("MARIONETTE_SCRAPE_INTERVAL_MILLIS"), defaults.scrapeInterval().toMillis())),
+            metricsPath != null && !metricsPath.isBlank() ? metricsPath.trim() : defaults.metricsPath(),
+            Duration.ofMillis(parseLong(System.getenv("MARIONETTE_SCRAPE_TIMEOUT_MILLIS"), defaults.scrapeTimeout().toMillis())),
+            (int) parseLong(System.getenv("MARIONETTE_SCRAPE_MAX_SAMPLES"), defaults.maxSamplesPerSeries()),
+            Duration.ofSeconds(parseLong(System.getenv("MARIONETTE_SCRAPE_TARGET_REFRESH_SECONDS"), defaults.targetRefresh().toSeconds())),
+            (int) parseLong(System.getenv("MARIONETTE_SCRAPE_CONCURRENCY"), defaults.scrapeConcurrency()));
+    }
+
+    private static long parseLong(String value, long defaultValue) {
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            long parsed = Long.parseLong(value.trim());
+            return parsed > 0 ? parsed : defaultValue;
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid scrape setting " + value + ", using " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+}
@@ -0,0 +1,391 @@
+package org.marionette.controlplane.adapters.outbound.fetchmetrics.scrape;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.BufferedInputStream;
+import java.io.InputStream;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.marionette.controlplane.adapters.outbound.fetchmetrics.AggregateMetricAssembler;
+import org.marionette.controlplane.adapters.outbound.fetchmetrics.prometheus.configuration.PrometheusConfiguration;
+import org.marionette.controlplane.adapters.outbound.fetchmetrics.prometheus.domain.MetricCollectionMode;
+import org.marionette.controlplane.adapters.outbound.fetchmetrics.prometheus.domain.PrometheusMetricConfig;
+import org.marionette.controlplane.adapters.outbound.transport.OutboundHttpTransport;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.FetchMarionetteNodesMetricsGateway;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.AggregateMetric;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.statistics.BucketHistogram;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.timeseries.SampleSeries;
+
+/**
+ * Collects the metrics of a slice by scraping the exposition endpoint of every pod of the measured services,
+ * without going through Prometheus. Between startCollecting and stopCollecting each pod is scraped every
+ * scrape interval, the samples of the metrics used by the configured queries are kept in memory and the
+ * queries are evaluated locally when the slice is over: counters become rates and increases over the slice,
+ * histogram buckets become bucket deltas merged across pods, and the estimators get one sample per sampling
+ * period and pod.
+ *
+ * Scrapes run on a bounded pool of their own, so a slow round never delays the behaviour changes sent through
+ * the shared transport. stopCollecting drops the scrapes still queued and waits for the ones in flight.
+ *
+ * The metric definitions are the same as in Prometheus mode; queries outside the supported subset of PromQL
+ * (see {@link ScrapeQueryParser}) are reported once and skipped.
+ */
+public class DirectScrapeFetchMarionetteNodesMetricsAdapter implements FetchMarionetteNodesMetricsGateway, AutoCloseable {
+
+    private final PrometheusConfiguration metricsDefinitions;
+    private final DirectScrapeConfiguration config;
+    private final ScrapeTargetResolver targetResolver;
+    private final OutboundHttpTransport transport;
+    private final AggregateMetricAssembler assembler = new AggregateMetricAssembler();
+
+    private final Map<String, Map<String, CompiledMetric>> compiledMetrics = new ConcurrentHashMap<>();
+    private final Map<String, ServiceCollection> collections = new ConcurrentHashMap<>();
+    private ScheduledExecutorService scheduler;
+    private volatile ThreadPoolExecutor scrapers;
+
+    // Scrapes queued per scraping thread, beyond it the pods left are scraped in the next round
+    private static final int QUEUED_SCRAPES_PER_THREAD = 64;
+
+    /**
+     * A metric definition translated for one service, or the reason it cannot be evaluated on scraped samples
+     */
+    private record CompiledMetric(PrometheusMetricConfig definition, ScrapeExpression expression,
+            ScrapeExpression.Selector bucketSelector, String error) {}
+
+    /**
+     * The pods of one service being scraped, and the metrics kept for them
+     */
+    private record ServiceCollection(String serviceName, Set<String> wantedMetrics, Map<String, TargetState> targets) {}
+
+    private static final class TargetState {
+        final ScrapeTarget target;
+        final InstanceSeries series;
+        final ExpositionFormatParser parser = new ExpositionFormatParser();
+        final AtomicBoolean inFlight = new AtomicBoolean();
+        volatile boolean retired;
+        volatile boolean failing;
+
+        TargetState(ScrapeTarget target, InstanceSeries series) {
+            this.target = target;
+            this.series = series;
+        }
+    }
+
+    public DirectScrapeFetchMarionetteNodesMetricsAdapter(PrometheusConfiguration metricsDefinitions,
+            DirectScrapeConfiguration config, ScrapeTargetResolver targetResolver, OutboundHttpTransport transport) {
+        requireNonNull(metricsDefinitions, "The metrics definitions cannot be null");
+        requireNonNull(config, "The direct scrape configuration cannot be null");
+        requireNonNull(targetResolver, "The resolver of the scrape targets cannot be null");
+        requireNonNull(transport, "The outbound HTTP transport cannot be null");
+        this.metricsDefinitions = metricsDefinitions;
+        this.config = config;
+        this.targetResolver = targetResolver;
+        this.transport = transport;
+    }
+
+    @Override
+    public synchronized void startCollecting(Collection<String> serviceNames, Duration samplingPeriod) {
+        stopCollecting();
+        collections.clear();
+
+        int targetCount = 0;
+        for (String serviceName : serviceNames) {
+            Set<String> wantedMetrics = new HashSet<>();
+            compile(serviceName).values().stream()
+                    .filter(metric -> metric.error() == null)
+                    .forEach(metric -> {
+                        if (metric.expression() != null) {
+                            metric.expression().collectMetricNames(wantedMetrics);
+                        } else {
+                            wantedMetrics.add(metric.bucketSelector().metricName());
+                        }
+                    });
+            ServiceCollection collection = new ServiceCollection(serviceName, Set.copyOf(wantedMetrics), new ConcurrentHashMap<>());
+            refreshTargets(collection);
+            collections.put(serviceName, collection);
+            targetCount += collection.targets().size();
+        }
+
+        AtomicInteger scraperIds = new AtomicInteger();
+        scrapers = new ThreadPoolExecutor(config.scrapeConcurrency(), config.scrapeConcurrency(), 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(config.scrapeConcurrency() * QUEUED_SCRAPES_PER_THREAD), runnable -> {
+                    Thread thread = new Thread(runnable, "metrics-scrape-" + scraperIds.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-scrape-ticker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::scrapeRound, 0, config.scrapeInterval().toMillis(), TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::refreshAllTargets, config.targetRefresh().toMillis(),
+                config.targetRefresh().toMillis(), TimeUnit.MILLISECONDS);
+
+        System.out.printf("📡 Scraping %d pods of %d services every %dms (sampling period %ds)%n", targetCount,
+                collections.size(), config.scrapeInterval().toMillis(), samplingPeriod.toSeconds());
+    }
+
+    @Override
+    public synchronized void stopCollecting() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        if (scrapers != null) {
+            // Queued scrapes would only add samples after the slice, the ones in flight are let finish so that
+            // no series is left with a half parsed scrape
+            scrapers.getQueue().clear();
+            scrapers.shutdown();
+            try {
+                if (!scrapers.awaitTermination(config.scrapeTimeout().toMillis() + 1000, TimeUnit.MILLISECONDS)) {
+                    System.err.println("Scrapes still running after their timeout, abandoning them");
+                    scrapers.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                scrapers.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+            scrapers = null;
+        }
+    }
+
+    @Override
+    public void close() {
+        stopCollecting();
+    }
+
+    @Override
+    public List<AggregateMetric> fetchMetricsForService(String serviceName, Duration timeSpan, Duration samplingPeriod) {
+        ServiceCollection collection = collections.get(serviceName);
+        if (collection == null || collection.targets().isEmpty()) {
+            System.err.println("No scraped samples for service " + serviceName + ", it was not collected during the slice");
+            return List.of();
+        }
+
+        long to = System.currentTimeMillis();
+        long from = to - timeSpan.toMillis();
+        Instant timestamp = Instant.ofEpochMilli(to);
+        List<TargetState> targets = new ArrayList<>(collection.targets().values());
+
+        List<AggregateMetric> metrics = new ArrayList<>();
+        for (CompiledMetric metric : compile(serviceName).values()) {
+            if (metric.error() != null) {
+                continue;
+            }
+            PrometheusMetricConfig definition = metric.definition();
+            try {
+                if (definition.getMode() == MetricCollectionMode.HISTOGRAM) {
+                    BucketHistogram.Builder builder = new BucketHistogram.Builder();
+                    for (TargetState target : targets) {
+                        ScrapeExpression.BucketQuantile.addBucketIncreases(target.series, metric.bucketSelector(), from, to, builder);
+                    }
+                    BucketHistogram histogram = builder.build();
+                    if (histogram.isEmpty()) {
+                        System.err.println("No observations in histogram " + definition.getDisplayName() + " for service " + serviceName);
+                        continue;
+                    }
+                    metrics.addAll(assembler.fromHistogram(definition, histogram, timestamp));
+                    continue;
+                }
+
+                List<String> instanceNames = new ArrayList<>();
+                List<Double> instanceValues = new ArrayList<>();
+                for (TargetState target : targets) {
+                    double value = metric.expression().evaluate(target.series, from, to);
+                    if (Double.isFinite(value)) {
+                        instanceNames.add(target.target.instance());
+                        instanceValues.add(value);
+                    }
+                }
+                if (instanceValues.isEmpty()) {
+                    System.err.println("No scraped samples of metric " + definition.getDisplayName() + " for service " + serviceName);
+                    continue;
+                }
+
+                double[] values = instanceValues.stream().mapToDouble(Double::doubleValue).toArray();
+                AggregateMetric aggregate = assembler.fromInstances(definition, instanceNames, values, timestamp);
+                if (definition.getEstimator().requiresSamples()) {
+                    aggregate = aggregate.withSamples(samplesOf(definition, metric.expression(), targets, from, to, samplingPeriod));
+                }
+                metrics.add(aggregate);
+            } catch (RuntimeException e) {
+                System.err.println("Failed to evaluate metric " + definition.getDisplayName() + " for service "
+                        + serviceName + ": " + e.getMessage());
+            }
+        }
+
+        System.out.println("Evaluated " + metrics.size() + " metrics of " + serviceName + " on the samples scraped from "
+                + targets.size() + " pods");
+        return metrics;
+    }
+
+    /**
+     * One value per sampling window, reduced over the pods with the service aggregator. The windows tile the
+     * slice from its start.
+     */
+    private SampleSeries samplesOf(PrometheusMetricConfig definition, ScrapeExpression expression,
+            List<TargetState> targets, long from, long to, Duration samplingPeriod) {
+        long step = Math.max(1, samplingPeriod.toMillis());
+        SampleSeries.Builder samples = new SampleSeries.Builder();
+        double[] values = new double[targets.size()];
+        for (long windowStart = from; windowStart + step <= to; windowStart += step) {
+            int count = 0;
+            for (TargetState target : targets) {
+                double value = expression.evaluate(target.series, windowStart, windowStart + step);
+                if (Double.isFinite(value)) {
+                    values[count++] = value;
+                }
+            }
+            if (count > 0) {
+                samples.append(windowStart + step, assembler.reduceStep(definition, Arrays.copyOf(values, count)));
+            }
+        }
+        return samples.build();
+    }
+
+    private void scrapeRound() {
+        ThreadPoolExecutor currentScrapers = scrapers;
+        if (currentScrapers == null) {
+            return;
+        }
+        try {
+            for (ServiceCollection collection : collections.values()) {
+                for (TargetState target : collection.targets().values()) {
+                    // A pod still answering the previous scrape is skipped rather than queued
+                    if (!target.retired && target.inFlight.compareAndSet(false, true)) {
+                        try {
+                            currentScrapers.execute(() -> scrape(target));
+                        } catch (RejectedExecutionException e) {
+                            // Queue full or collection stopping, the pod is scraped in the next round
+                            target.inFlight.set(false);
+                        }
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            // Never let an exception cancel the periodic task
+            System.err.println("Scrape round failed: " + e.getMessage());
+        }
+    }
+
+    private void scrape(TargetState target) {
+        try {
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(target.target.metricsUri())
+                    .timeout(config.scrapeTimeout())
+                    .header("Accept", "text/plain;version=0.0.4")
+                    .GET()
+                    .build();
+            HttpResponse<InputStream> response = transport.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            try (InputStream body = new BufferedInputStream(response.body(), 16 * 1024)) {
+                if (response.statusCode() != 200) {
+                    throw new IllegalStateException("status " + response.statusCode());
+                }
+                target.series.beginScrape(System.currentTimeMillis());
+                target.parser.parse(body, target.series);
+            }
+            if (target.failing) {
+                target.failing = false;
+                System.out.println("Scraping " + target.target.instance() + " again");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            // Reported once per streak of failures, the scrape runs every interval
+            if (!target.failing) {
+                target.failing = true;
+                System.err.println("Failed to scrape " + target.target.instance() + " at " + target.target.metricsUri()
+                        + ": " + e.getMessage());
+            }
+        } finally {
+            target.inFlight.set(false);
+        }
+    }
+
+    private void refreshAllTargets() {
+        try {
+            collections.values().forEach(this::refreshTargets);
+        } catch (RuntimeException e) {
+            System.err.println("Refresh of the scrape targets failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * New pods start being scraped, pods that are gone stop being scraped but keep the samples collected so far
+     */
+    private void refreshTargets(ServiceCollection collection) {
+        Map<String, ScrapeTarget> current = new LinkedHashMap<>();
+        targetResolver.resolveTargets(collection.serviceName()).forEach(target -> current.put(target.instance(), target));
+        if (current.isEmpty() && collection.targets().isEmpty()) {
+            System.err.println("No pods to scrape for service " + collection.serviceName());
+        }
+
+        current.forEach((instance, target) -> collection.targets().compute(instance, (name, existing) ->
+                existing != null && existing.target.equals(target) && !existing.retired
+                        ? existing
+                        : new TargetState(target, new InstanceSeries(instance, collection.wantedMetrics(), config.maxSamplesPerSeries()))));
+        collection.targets().forEach((instance, state) -> {
+            if (!current.containsKey(instance)) {
+                state.retired = true;
+            }
+        });
+    }
+
+    private Map<String, CompiledMetric> compile(String serviceName) {
+        return compiledMetrics.computeIfAbsent(serviceName, name -> {
+            Map<String, CompiledMetric> compiled = new LinkedHashMap<>();
+            for (PrometheusMetricConfig definition : metricsDefinitions.getMetrics()) {
+                CompiledMetric metric = compile(definition, name);
+                if (metric.error() != null) {
+                    System.err.println("Metric " + definition.getDisplayName() + " skipped in scrape mode: " + metric.error());
+                }
+                compiled.put(definition.getDisplayName(), metric);
+            }
+            return compiled;
+        });
+    }
+
+    private CompiledMetric compile(PrometheusMetricConfig definition, String serviceName) {
+        String query = definition.getQuery()
+                .replace("{service}", serviceName)
+                .replace("<service-name>", serviceName);
+        try {
+            ScrapeExpression expression = ScrapeQueryParser.parse(query);
+            if (definition.getMode() != MetricCollectionMode.HISTOGRAM) {
+                return new CompiledMetric(definition, expression, null, null);
+            }
+            // Histogram mode takes a bucket series selector, possibly already wrapped in rate or increase
+            if (expression instanceof ScrapeExpression.CounterIncrease counter) {
+                return new CompiledMetric(definition, null, counter.selector(), null);
+            }
+            if (expression instanceof ScrapeExpression.GaugeOverTime gauge && gauge.function() == ScrapedSeries.OverTime.LAST) {
+                return new CompiledMetric(definition, null, gauge.selector(), null);
+            }
+            return new CompiledMetric(definition, null, null, "histogram mode needs a bucket series selector");
+        } catch (IllegalArgumentException e) {
+            return new CompiledMetric(definition, null, null, e.getMessage());
+        }
+    }
+
+}
@@ -0,0 +1,184 @@
+package org.marionette.controlplane.adapters.outbound.fetchmetrics.scrape;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Streaming parser of the Prometheus text exposition format. The body is read once from the stream: comments
+ * and the samples of metrics nobody asked for are skipped byte by byte without being buffered, only the wanted
+ * samples produce a series key (the name and the raw label block, stable from one scrape to the next) and a
+ * value. Labels are only parsed by the caller, the first time a series is seen.
+ *
+ * One parser can be reused for every scrape of a target, but not by several threads at once.
+ */
+final class ExpositionFormatParser {
+
+    /**
+     * Receives the samples of the wanted metrics
+     */
+    interface SampleSink {
+
+        boolean wants(CharSequence metricName);
+
+        void accept(String seriesKey, int nameLength, double value);
+    }
+
+    private static final int END_OF_STREAM = -1;
+
+    private final StringBuilder name = new StringBuilder(64);
+    private byte[] line = new byte[256];
+    private int lineLength;
+
+    void parse(InputStream in, SampleSink sink) throws IOException {
+        int b = in.read();
+        while (b != END_OF_STREAM) {
+            if (b == '\n' || b == '\r' || b == ' ' || b == '\t') {
+                b = in.read();
+                continue;
+            }
+            if (b == '#') {
+                b = skipLine(in);
+                continue;
+            }
+
+            // Metric name, compared with the wanted ones before anything else is kept
+            name.setLength(0);
+            while (b != END_OF_STREAM && b != '{' && b != ' ' && b != '\t' && b != '\n') {
+                name.append((char) b);
+                b = in.read();
+            }
+            if (!sink.wants(name)) {
+                b = skipLine(in);
+                continue;
+            }
+
+            lineLength = 0;
+            for (int i = 0; i < name.length(); i++) {
+                append(name.charAt(i));
+            }
+            if (b == '{') {
+                b = readLabelBlock(in);
+            }
+            int keyLength = lineLength;
+
+            while (b == ' ' || b == '\t') {
+                b = in.read();
+            }
+            int valueStart = lineLength;
+            while (b != END_OF_STREAM && b != ' ' && b != '\t' && b != '\n' && b != '\r') {
+                append(b);
+                b = in.read();
+            }
+            // The optional timestamp is ignored, samples are stamped with the time of the scrape
+            if (b != '\n' && b != END_OF_STREAM) {
+                b = skipLine(in);
+            }
+
+            if (lineLength > valueStart) {
+                sink.accept(new String(line, 0, keyLength, StandardCharsets.UTF_8), name.length(),
+                        parseValue(valueStart, lineLength));
+            }
+        }
+    }
+
+    /**
+     * Copies the label block up to the closing brace, braces and commas inside quoted values included
+     */
+    private int readLabelBlock(InputStream in) throws IOException {
+        append('{');
+        boolean quoted = false;
+        int b = in.read();
+        while (b != END_OF_STREAM && b != '\n') {
+            append(b);
+            if (quoted && b == '\\') {
+                b = in.read();
+                if (b == END_OF_STREAM) {
+                    break;
+                }
+                append(b);
+            } else if (b == '"') {
+                quoted = !quoted;
+            } else if (!quoted && b == '}') {
+                return in.read();
+            }
+            b = in.read();
+        }
+        return b;
+    }
+
+    private double parseValue(int start, int end) {
+        int length = end - start;
+        if (length == 3 && line[start] == 'N' && line[start + 1] == 'a' && line[start + 2] == 'N') {
+            return Double.NaN;
+        }
+        if (length == 4 && line[start + 1] == 'I' && line[start + 2] == 'n' && line[start + 3] == 'f') {
+            return line[start] == '-' ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+        }
+        try {
+            return Double.parseDouble(new String(line, start, length, StandardCharsets.ISO_8859_1));
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    private int skipLine(InputStream in) throws IOException {
+        int b = in.read();
+        while (b != END_OF_STREAM && b != '\n') {
+            b = in.read();
+        }
+        return b;
+    }
+
+    private void append(int b) {
+        if (lineLength == line.length) {
+            line = Arrays.copyOf(line, line.length * 2);
+        }
+        line[lineLength++] = (byte) b;
+    }
+
+    /**
+     * Labels of a series key produced by the parser, unescaping the values
+     */
+    static Map<String, String> parseLabels(String seriesKey, int nameLength) {
+        Map<String, String> labels = new LinkedHashMap<>();
+        int i = nameLength;
+        if (i >= seriesKey.length() || seriesKey.charAt(i) != '{') {
+            return labels;
+        }
+        i++;
+        StringBuilder value = new StringBuilder();
+        while (i < seriesKey.length()) {
+            while (i < seriesKey.length() && (seriesKey.charAt(i) == ',' || seriesKey.charAt(i) == ' ')) {
+                i++;
+            }
+            if (i >= seriesKey.length() || seriesKey.charAt(i) == '}') {
+                break;
+            }
+            int equals = seriesKey.indexOf('=', i);
+            if (equals < 0 || equals + 1 >= seriesKey.length() || seriesKey.charAt(equals + 1) != '"') {
+                break;
+            }
+            String label = seriesKey.substring(i, equals).trim();
+            i = equals + 2;
+            value.setLength(0);
+            while (i < seriesKey.length() && seriesKey.charAt(i) != '"') {
+                char c = seriesKey.charAt(i);
+                if (c == '\\' && i + 1 < seriesKey.length()) {
+                    char escaped = seriesKey.charAt(++i);
+                    value.append(escaped == 'n' ? '\n' : escaped);
+                } else {
+                    value.append(c);
+                }
+                i++;
+            }
+            labels.put(label, value.toString());
+            i++;
+        }
+        return labels;
+    }
+
+}
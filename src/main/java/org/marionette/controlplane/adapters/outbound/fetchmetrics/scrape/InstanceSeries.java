@@ -0,0 +1,75 @@
+package org.marionette.controlplane.adapters.outbound.fetchmetrics.scrape;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Every series scraped from one instance, by raw series key and by metric name. Only the metrics in
+ * {@code wantedMetrics} are kept, the parser skips the rest of the exposition.
+ */
+final class InstanceSeries implements ExpositionFormatParser.SampleSink {
+
+    private final String instance;
+    private final Set<String> wantedMetrics;
+    private final int maxSamplesPerSeries;
+    private final Map<String, ScrapedSeries> byKey = new ConcurrentHashMap<>();
+    private final Map<String, List<ScrapedSeries>> byMetricName = new ConcurrentHashMap<>();
+
+    private long scrapeTimestamp;
+
+    InstanceSeries(String instance, Set<String> wantedMetrics, int maxSamplesPerSeries) {
+        this.instance = instance;
+        this.wantedMetrics = Set.copyOf(wantedMetrics);
+        this.maxSamplesPerSeries = maxSamplesPerSeries;
+    }
+
+    String instance() {
+        return instance;
+    }
+
+    /**
+     * Stamp of the samples of the scrape about to be parsed
+     */
+    void beginScrape(long timestampMillis) {
+        this.scrapeTimestamp = timestampMillis;
+    }
+
+    @Override
+    public boolean wants(CharSequence metricName) {
+        for (String wanted : wantedMetrics) {
+            if (wanted.contentEquals(metricName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void accept(String seriesKey, int nameLength, double value) {
+        ScrapedSeries series = byKey.get(seriesKey);
+        if (series == null) {
+            String metricName = seriesKey.substring(0, nameLength);
+            series = new ScrapedSeries(metricName, ExpositionFormatParser.parseLabels(seriesKey, nameLength),
+                    maxSamplesPerSeries);
+            byKey.put(seriesKey, series);
+            byMetricName.computeIfAbsent(metricName, name -> new CopyOnWriteArrayList<>()).add(series);
+        }
+        series.append(scrapeTimestamp, value);
+    }
+
+    List<ScrapedSeries> select(ScrapeExpression.Selector selector) {
+        List<ScrapedSeries> candidates = byMetricName.getOrDefault(selector.metricName(), List.of());
+        List<ScrapedSeries> selected = new ArrayList<>(candidates.size());
+        for (ScrapedSeries series : candidates) {
+            if (selector.matches(series.labels())) {
+                selected.add(series);
+            }
+        }
+        return selected;
+    }
+
+}
@@ -0,0 +1,92 @@
+package org.marionette.controlplane.adapters.outbound.fetchmetrics.scrape;
+
+import static java.util.Objects.requireNonNull;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import io.kubernetes.client.openapi.ApiClient;
+import io.kubernetes.client.openapi.ApiException;
+import io.kubernetes.client.openapi.apis.CoreV1Api;
+import io.kubernetes.client.openapi.models.CoreV1EndpointPort;
+import io.kubernetes.client.openapi.models.V1EndpointAddress;
+import io.kubernetes.client.openapi.models.V1EndpointSubset;
+import io.kubernetes.client.openapi.models.V1Endpoints;
+
+/**
+ * Finds the ready pods of a service through its Endpoints object, in the allowed namespaces (every namespace
+ * when the set is empty). The scraped port is the one named http or web, the first one otherwise.
+ */
+public class KubernetesEndpointsScrapeTargetResolver implements ScrapeTargetResolver {
+
+    private final CoreV1Api coreV1Api;
+    private final Set<String> namespaces;
+    private final String metricsPath;
+
+    public KubernetesEndpointsScrapeTargetResolver(ApiClient apiClient, Set<String> namespaces, String metricsPath) {
+        requireNonNull(apiClient, "The Kubernetes API client cannot be null");
+        requireNonNull(namespaces, "The namespaces of the scrape targets cannot be null");
+        requireNonNull(metricsPath, "The path of the metrics endpoint cannot be null");
+        this.coreV1Api = new CoreV1Api(apiClient);
+        this.namespaces = Set.copyOf(namespaces);
+        this.metricsPath = metricsPath;
+    }
+
+    @Override
+    public List<ScrapeTarget> resolveTargets(String serviceName) {
+        List<ScrapeTarget> targets = new ArrayList<>();
+        try {
+            if (namespaces.isEmpty()) {
+                for (V1Endpoints endpoints : coreV1Api.listEndpointsForAllNamespaces(null, null,
+                        "metadata.name=" + serviceName, null, null, null, null, null, null, false).getItems()) {
+                    addTargets(serviceName, endpoints, targets);
+                }
+            } else {
+                for (String namespace : namespaces) {
+                    try {
+                        addTargets(serviceName, coreV1Api.readNamespacedEndpoints(serviceName, namespace, null), targets);
+                    } catch (ApiException e) {
+                        if (e.getCode() != 404) {
+                            throw e;
+                        }
+                    }
+                }
+            }
+        } catch (ApiException e) {
+            System.err.println("Impossible to find the pods of " + serviceName + " to scrape - Code: " + e.getCode()
+                    + ", Message: " + e.getMessage());
+        }
+        return targets;
+    }
+
+    private void addTargets(String serviceName, V1Endpoints endpoints, List<ScrapeTarget> targets) {
+        if (endpoints.getSubsets() == null) {
+            return;
+        }
+        for (V1EndpointSubset subset : endpoints.getSubsets()) {
+            if (subset.getAddresses() == null || subset.getPorts() == null || subset.getPorts().isEmpty()) {
+                continue;
+            }
+            int port = scrapedPort(subset.getPorts());
+            for (V1EndpointAddress address : subset.getAddresses()) {
+                String instance = address.getTargetRef() != null && address.getTargetRef().getName() != null
+                        ? address.getTargetRef().getName()
+                        : address.getIp();
+                targets.add(new ScrapeTarget(serviceName, instance,
+                        URI.create("http://" + address.getIp() + ":" + port + metricsPath)));
+            }
+        }
+    }
+
+    private int scrapedPort(List<CoreV1EndpointPort> ports) {
+        for (CoreV1EndpointPort port : ports) {
+            if ("http".equals(port.getName()) || "web".equals(port.getName())) {
+                return port.getPort();
+            }
+        }
+        return ports.get(0).getPort();
+    }
+
+}
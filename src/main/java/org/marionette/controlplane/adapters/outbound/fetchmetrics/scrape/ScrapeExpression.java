@@ -0,0 +1,171 @@
+package org.marionette.controlplane.adapters.outbound.fetchmetrics.scrape;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToDoubleFunction;
+import java.util.regex.Pattern;
+
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.statistics.BucketHistogram;
+
+/**
+ * A metric query evaluated locally on the samples scraped from one instance over a window. The series of the
+ * instance matching a selector are summed, so aggregation operators of the query have no further effect and
+ * instances are reduced by the service aggregator of the metric, as with Prometheus.
+ */
+interface ScrapeExpression {
+
+    /**
+     * Value over the window for the instance, NaN when the samples are not enough
+     */
+    double evaluate(InstanceSeries instance, long fromMillis, long toMillis);
+
+    void collectMetricNames(Set<String> names);
+
+    record Matcher(String label, String operator, String value, Pattern pattern) {
+
+        static Matcher of(String label, String operator, String value) {
+            Pattern pattern = operator.endsWith("~") ? Pattern.compile(value) : null;
+            return new Matcher(label, operator, value, pattern);
+        }
+
+        boolean matches(String actual) {
+            String labelValue = actual != null ? actual : "";
+            return switch (operator) {
+                case "=" -> labelValue.equals(value);
+                case "!=" -> !labelValue.equals(value);
+                case "=~" -> pattern.matcher(labelValue).matches();
+                case "!~" -> !pattern.matcher(labelValue).matches();
+                default -> false;
+            };
+        }
+    }
+
+    record Selector(String metricName, List<Matcher> matchers) {
+
+        boolean matches(Map<String, String> labels) {
+            for (Matcher matcher : matchers) {
+                if (!matcher.matches(labels.get(matcher.label()))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    record Constant(double value) implements ScrapeExpression {
+
+        @Override
+        public double evaluate(InstanceSeries instance, long fromMillis, long toMillis) {
+            return value;
+        }
+
+        @Override
+        public void collectMetricNames(Set<String> names) {
+        }
+    }
+
+    record Arithmetic(char operator, ScrapeExpression left, ScrapeExpression right) implements ScrapeExpression {
+
+        @Override
+        public double evaluate(InstanceSeries instance, long fromMillis, long toMillis) {
+            double l = left.evaluate(instance, fromMillis, toMillis);
+            double r = right.evaluate(instance, fromMillis, toMillis);
+            return switch (operator) {
+                case '+' -> l + r;
+                case '-' -> l - r;
+                case '*' -> l * r;
+                // An idle window has no rate to divide by, no value rather than infinity
+                case '/' -> r == 0 ? Double.NaN : l / r;
+                default -> Double.NaN;
+            };
+        }
+
+        @Override
+        public void collectMetricNames(Set<String> names) {
+            left.collectMetricNames(names);
+            right.collectMetricNames(names);
+        }
+    }
+
+    /**
+     * rate and irate (per second) or increase and delta over the window
+     */
+    record CounterIncrease(Selector selector, boolean perSecond) implements ScrapeExpression {
+
+        @Override
+        public double evaluate(InstanceSeries instance, long fromMillis, long toMillis) {
+            return sum(instance.select(selector), series -> perSecond
+                    ? series.rate(fromMillis, toMillis)
+                    : series.increase(fromMillis, toMillis));
+        }
+
+        @Override
+        public void collectMetricNames(Set<String> names) {
+            names.add(selector.metricName());
+        }
+    }
+
+    /**
+     * A bare selector (last value) or one of the *_over_time functions
+     */
+    record GaugeOverTime(Selector selector, ScrapedSeries.OverTime function) implements ScrapeExpression {
+
+        @Override
+        public double evaluate(InstanceSeries instance, long fromMillis, long toMillis) {
+            return sum(instance.select(selector), series -> series.overTime(fromMillis, toMillis, function));
+        }
+
+        @Override
+        public void collectMetricNames(Set<String> names) {
+            names.add(selector.metricName());
+        }
+    }
+
+    /**
+     * histogram_quantile over the bucket increases of the window
+     */
+    record BucketQuantile(double quantile, Selector bucketSelector) implements ScrapeExpression {
+
+        @Override
+        public double evaluate(InstanceSeries instance, long fromMillis, long toMillis) {
+            BucketHistogram.Builder builder = new BucketHistogram.Builder();
+            addBucketIncreases(instance, bucketSelector, fromMillis, toMillis, builder);
+            BucketHistogram histogram = builder.build();
+            return histogram.isEmpty() ? Double.NaN : histogram.quantile(quantile);
+        }
+
+        @Override
+        public void collectMetricNames(Set<String> names) {
+            names.add(bucketSelector.metricName());
+        }
+
+        static void addBucketIncreases(InstanceSeries instance, Selector bucketSelector, long fromMillis,
+                long toMillis, BucketHistogram.Builder builder) {
+            for (ScrapedSeries series : instance.select(bucketSelector)) {
+                String le = series.labels().get("le");
+                if (le == null) {
+                    continue;
+                }
+                double increase = series.increase(fromMillis, toMillis);
+                if (Double.isFinite(increase)) {
+                    builder.add("+Inf".equals(le) ? Double.POSITIVE_INFINITY : Double.parseDouble(le), increase);
+                }
+            }
+        }
+    }
+
+    private static double sum(List<ScrapedSeries> seriesList, ToDoubleFunction<ScrapedSeries> valueOf) {
+        double total = 0;
+        boolean any = false;
+        for (ScrapedSeries series : seriesList) {
+            double value = valueOf.applyAsDouble(series);
+            if (!Double.isNaN(value)) {
+                total += value;
+                any = true;
+            }
+        }
+        return any ? total : Double.NaN;
+    }
+
+}
@@ -0,0 +1,298 @@
+package org.marionette.controlplane.adapters.outbound.fetchmetrics.scrape;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.marionette.controlplane.adapters.outbound.fetchmetrics.scrape.ScrapeExpression.Arithmetic;
+import org.marionette.controlplane.adapters.outbound.fetchmetrics.scrape.ScrapeExpression.BucketQuantile;
+import org.marionette.controlplane.adapters.outbound.fetchmetrics.scrape.ScrapeExpression.Constant;
+import org.marionette.controlplane.adapters.outbound.fetchmetrics.scrape.ScrapeExpression.CounterIncrease;
+import org.marionette.controlplane.adapters.outbound.fetchmetrics.scrape.ScrapeExpression.GaugeOverTime;
+import org.marionette.controlplane.adapters.outbound.fetchmetrics.scrape.ScrapeExpression.Matcher;
+import org.marionette.controlplane.adapters.outbound.fetchmetrics.scrape.ScrapeExpression.Selector;
+
+/**
+ * Translates the PromQL templates of the metrics configuration into expressions evaluated on scraped samples.
+ *
+ * The supported subset covers the usual templates: selectors, rate/irate/increase/delta, the *_over_time
+ * functions, histogram_quantile, sum/avg/min/max with their by/without clauses, numbers and + - * /.
+ * Range durations are ignored, every function covers the evaluated window. Matchers on the labels Prometheus
+ * attaches to a target (service, pod, namespace...) are dropped, the pods do not expose them.
+ * Anything else is rejected with an IllegalArgumentException.
+ */
+final class ScrapeQueryParser {
+
+    private static final Set<String> TARGET_LABELS = Set.of("service", "pod", "namespace", "instance", "job",
+            "container", "endpoint", "kubernetes_pod_name", "kubernetes_namespace", "kubernetes_name");
+    private static final Set<String> AGGREGATIONS = Set.of("sum", "avg", "min", "max");
+
+    private enum TokenType { IDENTIFIER, NUMBER, STRING, RANGE, SYMBOL, END }
+
+    private record Token(TokenType type, String text) {}
+
+    private final String query;
+    private int position;
+    private Token current;
+
+    private ScrapeQueryParser(String query) {
+        this.query = query;
+        this.current = nextToken();
+    }
+
+    static ScrapeExpression parse(String query) {
+        ScrapeQueryParser parser = new ScrapeQueryParser(query);
+        ScrapeExpression expression = parser.additive();
+        if (parser.current.type() != TokenType.END) {
+            throw parser.unsupported("unexpected '" + parser.current.text() + "'");
+        }
+        return expression;
+    }
+
+    private ScrapeExpression additive() {
+        ScrapeExpression left = multiplicative();
+        while (isSymbol("+") || isSymbol("-")) {
+            char operator = advance().text().charAt(0);
+            left = new Arithmetic(operator, left, multiplicative());
+        }
+        return left;
+    }
+
+    private ScrapeExpression multiplicative() {
+        ScrapeExpression left = unary();
+        while (isSymbol("*") || isSymbol("/")) {
+            char operator = advance().text().charAt(0);
+            left = new Arithmetic(operator, left, unary());
+        }
+        return left;
+    }
+
+    private ScrapeExpression unary() {
+        if (isSymbol("-")) {
+            advance();
+            return new Arithmetic('*', new Constant(-1), unary());
+        }
+        return primary();
+    }
+
+    private ScrapeExpression primary() {
+        Token token = advance();
+        switch (token.type()) {
+            case NUMBER:
+                return new Constant(Double.parseDouble(token.text()));
+            case SYMBOL:
+                if (token.text().equals("(")) {
+                    ScrapeExpression inner = additive();
+                    expect(")");
+                    return inner;
+                }
+                throw unsupported("unexpected '" + token.text() + "'");
+            case IDENTIFIER:
+                return identifier(token.text());
+            default:
+                throw unsupported("unexpected " + token.type().name().toLowerCase());
+        }
+    }
+
+    private ScrapeExpression identifier(String name) {
+        if (AGGREGATIONS.contains(name)) {
+            skipGrouping();
+            expect("(");
+            ScrapeExpression inner = additive();
+            expect(")");
+            skipGrouping();
+            return inner;
+        }
+        switch (name) {
+            case "rate":
+            case "irate":
+                return new CounterIncrease(functionSelector(), true);
+            case "increase":
+            case "delta":
+                return new CounterIncrease(functionSelector(), false);
+            case "avg_over_time":
+                return new GaugeOverTime(functionSelector(), ScrapedSeries.OverTime.AVG);
+            case "max_over_time":
+                return new GaugeOverTime(functionSelector(), ScrapedSeries.OverTime.MAX);
+            case "min_over_time":
+                return new GaugeOverTime(functionSelector(), ScrapedSeries.OverTime.MIN);
+            case "last_over_time":
+                return new GaugeOverTime(functionSelector(), ScrapedSeries.OverTime.LAST);
+            case "histogram_quantile":
+                return histogramQuantile();
+            default:
+                if (isSymbol("(")) {
+                    throw unsupported("function " + name);
+                }
+                Selector selector = selector(name);
+                if (current.type() == TokenType.RANGE) {
+                    advance();
+                }
+                return new GaugeOverTime(selector, ScrapedSeries.OverTime.LAST);
+        }
+    }
+
+    private ScrapeExpression histogramQuantile() {
+        expect("(");
+        Token quantile = advance();
+        if (quantile.type() != TokenType.NUMBER) {
+            throw unsupported("histogram_quantile needs a constant quantile");
+        }
+        expect(",");
+        ScrapeExpression buckets = additive();
+        expect(")");
+        if (!(buckets instanceof CounterIncrease counter)) {
+            throw unsupported("histogram_quantile needs the rate or increase of a bucket series");
+        }
+        return new BucketQuantile(Double.parseDouble(quantile.text()), counter.selector());
+    }
+
+    private Selector functionSelector() {
+        expect("(");
+        Token name = advance();
+        if (name.type() != TokenType.IDENTIFIER) {
+            throw unsupported("functions only accept a series selector");
+        }
+        Selector selector = selector(name.text());
+        if (current.type() == TokenType.RANGE) {
+            advance();
+        }
+        expect(")");
+        return selector;
+    }
+
+    private Selector selector(String metricName) {
+        List<Matcher> matchers = new ArrayList<>();
+        if (isSymbol("{")) {
+            advance();
+            while (!isSymbol("}")) {
+                Token label = advance();
+                Token operator = advance();
+                Token value = advance();
+                if (label.type() != TokenType.IDENTIFIER || operator.type() != TokenType.SYMBOL
+                        || value.type() != TokenType.STRING) {
+                    throw unsupported("malformed label matcher");
+                }
+                if (!TARGET_LABELS.contains(label.text())) {
+                    matchers.add(Matcher.of(label.text(), operator.text(), value.text()));
+                }
+                if (isSymbol(",")) {
+                    advance();
+                }
+            }
+            advance();
+        }
+        if (current.type() == TokenType.IDENTIFIER && current.text().equals("offset")) {
+            throw unsupported("offset");
+        }
+        return new Selector(metricName, List.copyOf(matchers));
+    }
+
+    private void skipGrouping() {
+        if (current.type() == TokenType.IDENTIFIER
+                && (current.text().equals("by") || current.text().equals("without"))) {
+            advance();
+            expect("(");
+            while (!isSymbol(")")) {
+                if (current.type() == TokenType.END) {
+                    throw unsupported("unterminated grouping");
+                }
+                advance();
+            }
+            advance();
+        }
+    }
+
+    private boolean isSymbol(String symbol) {
+        return current.type() == TokenType.SYMBOL && current.text().equals(symbol);
+    }
+
+    private void expect(String symbol) {
+        if (!isSymbol(symbol)) {
+            throw unsupported("expected '" + symbol + "' but found '" + current.text() + "'");
+        }
+        advance();
+    }
+
+    private Token advance() {
+        Token token = current;
+        current = nextToken();
+        return token;
+    }
+
+    private Token nextToken() {
+        while (position < query.length() && Character.isWhitespace(query.charAt(position))) {
+            position++;
+        }
+        if (position >= query.length()) {
+            return new Token(TokenType.END, "end of query");
+        }
+        char c = query.charAt(position);
+        int start = position;
+
+        if (Character.isLetter(c) || c == '_' || c == ':') {
+            while (position < query.length() && isIdentifierPart(query.charAt(position))) {
+                position++;
+            }
+            return new Token(TokenType.IDENTIFIER, query.substring(start, position));
+        }
+        if (Character.isDigit(c) || (c == '.' && position + 1 < query.length() && Character.isDigit(query.charAt(position + 1)))) {
+            position++;
+            while (position < query.length() && isNumberPart(query.charAt(position), query.charAt(position - 1))) {
+                position++;
+            }
+            return new Token(TokenType.NUMBER, query.substring(start, position));
+        }
+        if (c == '"' || c == '\'') {
+            return new Token(TokenType.STRING, readString(c));
+        }
+        if (c == '[') {
+            int end = query.indexOf(']', position);
+            if (end < 0) {
+                throw unsupported("unterminated range");
+            }
+            position = end + 1;
+            return new Token(TokenType.RANGE, query.substring(start, position));
+        }
+        if ((c == '!' || c == '=') && position + 1 < query.length()
+                && (query.charAt(position + 1) == '~' || query.charAt(position + 1) == '=')) {
+            position += 2;
+            String operator = query.substring(start, position);
+            return new Token(TokenType.SYMBOL, operator.equals("==") ? "=" : operator);
+        }
+        position++;
+        return new Token(TokenType.SYMBOL, String.valueOf(c));
+    }
+
+    private String readString(char quote) {
+        StringBuilder value = new StringBuilder();
+        position++;
+        while (position < query.length() && query.charAt(position) != quote) {
+            char c = query.charAt(position);
+            if (c == '\\' && position + 1 < query.length()) {
+                c = query.charAt(++position);
+            }
+            value.append(c);
+            position++;
+        }
+        if (position >= query.length()) {
+            throw unsupported("unterminated string");
+        }
+        position++;
+        return value.toString();
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == ':';
+    }
+
+    private static boolean isNumberPart(char c, char previous) {
+        return Character.isDigit(c) || c == '.' || c == 'e' || c == 'E'
+                || ((c == '+' || c == '-') && (previous == 'e' || previous == 'E'));
+    }
+
+    private IllegalArgumentException unsupported(String reason) {
+        return new IllegalArgumentException("Cannot evaluate the query on scraped samples (" + reason + "): " + query);
+    }
+
+}
@@ -0,0 +1,8 @@
+package org.marionette.controlplane.adapters.outbound.fetchmetrics.scrape;
+
+import java.net.URI;
+
+/**
+ * One instance of a service and the URI of its exposition endpoint
+ */
+public record ScrapeTarget(String serviceName, String instance, URI metricsUri) {}
@@ -0,0 +1,12 @@
+package org.marionette.controlplane.adapters.outbound.fetchmetrics.scrape;
+
+import java.util.List;
+
+/**
+ * Finds the instances of a service to scrape
+ */
+public interface ScrapeTargetResolver {
+
+    List<ScrapeTarget> resolveTargets(String serviceName);
+
+}
@@ -0,0 +1,151 @@
+package org.marionette.controlplane.adapters.outbound.fetchmetrics.scrape;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Samples of one series of one instance, in primitive arrays ordered by time. When the arrays are full the
+ * oldest half is dropped, so memory stays bounded however long the collection runs.
+ *
+ * Counters are read as increases that survive resets (a value lower than the previous one restarts from
+ * zero), the increase of a window starts from the last sample before it so consecutive windows add up.
+ */
+final class ScrapedSeries {
+
+    enum OverTime {
+        LAST, AVG, MAX, MIN
+    }
+
+    private final String metricName;
+    private final Map<String, String> labels;
+    private final int maxSamples;
+
+    private long[] timestamps = new long[64];
+    private double[] values = new double[64];
+    private int size;
+
+    ScrapedSeries(String metricName, Map<String, String> labels, int maxSamples) {
+        this.metricName = metricName;
+        this.labels = Map.copyOf(labels);
+        this.maxSamples = Math.max(2, maxSamples);
+    }
+
+    String metricName() {
+        return metricName;
+    }
+
+    Map<String, String> labels() {
+        return labels;
+    }
+
+    synchronized void append(long timestampMillis, double value) {
+        if (size > 0 && timestampMillis < timestamps[size - 1]) {
+            return;
+        }
+        if (size == maxSamples) {
+            int dropped = size / 2;
+            System.arraycopy(timestamps, dropped, timestamps, 0, size - dropped);
+            System.arraycopy(values, dropped, values, 0, size - dropped);
+            size -= dropped;
+        } else if (size == timestamps.length) {
+            int capacity = Math.min(maxSamples, size * 2);
+            timestamps = Arrays.copyOf(timestamps, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        timestamps[size] = timestampMillis;
+        values[size] = value;
+        size++;
+    }
+
+    synchronized void clear() {
+        size = 0;
+    }
+
+    /**
+     * Increase of the counter over the window, NaN without two samples to compare
+     */
+    synchronized double increase(long fromMillis, long toMillis) {
+        int first = baselineIndex(fromMillis);
+        int last = lastIndexAtOrBefore(toMillis);
+        if (first < 0 || last <= first) {
+            return Double.NaN;
+        }
+        return increaseBetween(first, last);
+    }
+
+    /**
+     * Per second increase of the counter over the time actually covered by the samples of the window
+     */
+    synchronized double rate(long fromMillis, long toMillis) {
+        int first = baselineIndex(fromMillis);
+        int last = lastIndexAtOrBefore(toMillis);
+        if (first < 0 || last <= first || timestamps[last] == timestamps[first]) {
+            return Double.NaN;
+        }
+        return increaseBetween(first, last) * 1000.0 / (timestamps[last] - timestamps[first]);
+    }
+
+    synchronized double overTime(long fromMillis, long toMillis, OverTime function) {
+        int last = lastIndexAtOrBefore(toMillis);
+        if (last < 0) {
+            return Double.NaN;
+        }
+        if (function == OverTime.LAST) {
+            return values[last];
+        }
+        int first = firstIndexAtOrAfter(fromMillis);
+        if (first > last) {
+            return Double.NaN;
+        }
+        double result = function == OverTime.AVG ? 0 : values[first];
+        for (int i = first; i <= last; i++) {
+            switch (function) {
+                case AVG -> result += values[i];
+                case MAX -> result = Math.max(result, values[i]);
+                case MIN -> result = Math.min(result, values[i]);
+                default -> { }
+            }
+        }
+        return function == OverTime.AVG ? result / (last - first + 1) : result;
+    }
+
+    private double increaseBetween(int first, int last) {
+        double increase = 0;
+        for (int i = first + 1; i <= last; i++) {
+            double delta = values[i] - values[i - 1];
+            increase += delta >= 0 ? delta : values[i];
+        }
+        return increase;
+    }
+
+    private int baselineIndex(long fromMillis) {
+        int first = firstIndexAtOrAfter(fromMillis);
+        if (first > 0 && (first == size || timestamps[first] > fromMillis)) {
+            return first - 1;
+        }
+        return first < size ? first : -1;
+    }
+
+    private int firstIndexAtOrAfter(long millis) {
+        int position = Arrays.binarySearch(timestamps, 0, size, millis);
+        if (position < 0) {
+            return -position - 1;
+        }
+        while (position > 0 && timestamps[position - 1] == millis) {
+            position--;
+        }
+        return position;
+    }
+
+    private int lastIndexAtOrBefore(long millis) {
+        int position = Arrays.binarySearch(timestamps, 0, size, millis);
+        if (position < 0) {
+            return -position - 2;
+        }
+        while (position < size - 1 && timestamps[position + 1] == millis) {
+            position++;
+        }
+        return position;
+    }
+
+}
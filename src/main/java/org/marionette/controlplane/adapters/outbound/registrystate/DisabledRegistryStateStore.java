@@ -0,0 +1,23 @@
+package org.marionette.controlplane.adapters.outbound.registrystate;
+
+import java.util.Optional;
+
+import org.marionette.controlplane.domain.entities.ConfigRegistry;
+import org.marionette.controlplane.domain.entities.journal.RegistryStateSnapshot;
+import org.marionette.controlplane.usecases.outbound.registrystate.RegistryStateStoreGateway;
+
+/**
+ * Used when no state directory is configured: nothing is restored, nothing is recorded
+ */
+public class DisabledRegistryStateStore implements RegistryStateStoreGateway {
+
+    @Override
+    public Optional<RegistryStateSnapshot> load() {
+        return Optional.empty();
+    }
+
+    @Override
+    public void startRecording(ConfigRegistry registry) {
+    }
+
+}
@@ -0,0 +1,397 @@
+package org.marionette.controlplane.adapters.outbound.registrystate;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import org.marionette.controlplane.domain.entities.ConfigRegistry;
+import org.marionette.controlplane.domain.entities.journal.RegistryJournal;
+import org.marionette.controlplane.domain.entities.journal.RegistryServiceState;
+import org.marionette.controlplane.domain.entities.journal.RegistryStateSnapshot;
+import org.marionette.controlplane.usecases.outbound.registrystate.RegistryStateStoreGateway;
+
+/**
+ * Registry state kept in two files of a local directory:
+ * registry.snapshot, the whole registry at a revision, replaced atomically, and
+ * registry.wal, one record per revision published after it with the new state of the touched services.
+ *
+ * Log records are framed with their length and a CRC32 by the thread publishing the revision and appended by a
+ * single log writer thread, which writes every queued record and forces the log once per batch (group commit).
+ * With sync durability the publishing thread waits for that force, with interval durability it does not and
+ * the log is forced at most once per flush interval. A torn record at the end of the log (crash while
+ * appending) is ignored. After snapshotEvery records a snapshot is
+ * written in the background and the log starts over. On load the log records newer than the snapshot are
+ * applied in revision order, so records appended out of order by concurrent writers replay correctly.
+ */
+public class FileRegistryStateStore implements RegistryStateStoreGateway, RegistryJournal, AutoCloseable {
+
+    private static final int SNAPSHOT_MAGIC = 0x4D525353;   // "MRSS"
+    private static final byte FORMAT_VERSION = 1;
+    private static final String SNAPSHOT_FILE = "registry.snapshot";
+    private static final String LOG_FILE = "registry.wal";
+
+    private final Path directory;
+    private final long snapshotEvery;
+    private final RegistryStateStoreConfiguration.Durability durability;
+    private final long flushIntervalNanos;
+    private final BlockingQueue<PendingRecord> pending = new LinkedBlockingQueue<>();
+    private final Object queueLock = new Object();
+    private Thread logWriter;
+    private boolean closed = false;
+    private final ExecutorService snapshotExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "registry-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private FileChannel log;
+    private long recordsSinceSnapshot = 0;
+    private boolean snapshotScheduled = false;
+    private volatile ConfigRegistry registry;
+
+    private record PendingRecord(long revision, ByteBuffer frame, CompletableFuture<Void> written) {}
+
+    public FileRegistryStateStore(RegistryStateStoreConfiguration configuration) {
+        this.directory = configuration.directory()
+                .orElseThrow(() -> new IllegalArgumentException("A directory is required for the registry state store"));
+        this.snapshotEvery = configuration.snapshotEvery();
+        this.durability = configuration.durability();
+        this.flushIntervalNanos = configuration.flushInterval().toNanos();
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create registry state directory " + directory, e);
+        }
+    }
+
+    @Override
+    public Optional<RegistryStateSnapshot> load() {
+        long start = System.nanoTime();
+        try {
+            Optional<RegistryStateSnapshot> snapshot = readSnapshot();
+            List<LogRecord> records = readLog();
+            if (snapshot.isEmpty() && records.isEmpty()) {
+                return Optional.empty();
+            }
+
+            long revision = snapshot.map(RegistryStateSnapshot::revision).orElse(0L);
+            Map<String, RegistryServiceState> services = new LinkedHashMap<>();
+            snapshot.ifPresent(s -> s.services().forEach(service -> services.put(service.serviceName().getServiceName(), service)));
+
+            int replayed = 0;
+            records.sort(Comparator.comparingLong(LogRecord::revision));
+            for (LogRecord record : records) {
+                if (record.revision() <= revision && snapshot.isPresent()) {
+                    continue;   // already part of the snapshot
+                }
+                for (RegistryServiceState service : record.services()) {
+                    if (service.isRemoved()) {
+                        services.remove(service.serviceName().getServiceName());
+                    } else {
+                        services.put(service.serviceName().getServiceName(), service);
+                    }
+                }
+                revision = Math.max(revision, record.revision());
+                replayed++;
+            }
+
+            System.out.printf("💾 Registry state loaded from %s: %d services at revision %d (%d log records replayed) in %.1f ms%n",
+                    directory, services.size(), revision, replayed, (System.nanoTime() - start) / 1_000_000.0);
+            return Optional.of(new RegistryStateSnapshot(revision, new ArrayList<>(services.values())));
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Could not load the registry state from " + directory + ", starting empty: " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public synchronized void startRecording(ConfigRegistry registry) {
+        this.registry = registry;
+        try {
+            // The restored state becomes the new base, the replayed log is not needed anymore
+            writeSnapshot(registry.exportState());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write the registry snapshot in " + directory, e);
+        }
+        if (logWriter == null) {
+            logWriter = new Thread(this::writeLog, "registry-log-writer");
+            logWriter.setDaemon(true);
+            logWriter.start();
+        }
+        registry.attachJournal(this);
+        System.out.println("💾 Recording registry changes in " + directory + " (" + durability.name().toLowerCase() + " durability)");
+    }
+
+    /**
+     * Called by the thread that published the revision, which only encodes the record. With sync durability it
+     * then waits until the log writer has forced the record to disk.
+     */
+    @Override
+    public void record(long revision, List<RegistryServiceState> changedServices) {
+        PendingRecord record;
+        try {
+            ByteArrayOutputStream payload = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(payload);
+            out.writeLong(revision);
+            RegistryStateCodec.writeServices(out, changedServices);
+            out.flush();
+            byte[] bytes = payload.toByteArray();
+
+            CRC32 crc = new CRC32();
+            crc.update(bytes);
+            ByteBuffer frame = ByteBuffer.allocate(Integer.BYTES + Long.BYTES + bytes.length);
+            frame.putInt(bytes.length).putLong(crc.getValue()).put(bytes).flip();
+            record = new PendingRecord(revision, frame, new CompletableFuture<>());
+        } catch (IOException e) {
+            // The registry already published the change, losing its durability must not fail the caller
+            System.err.println("❌ Failed to log registry revision " + revision + ": " + e.getMessage());
+            return;
+        }
+
+        synchronized (queueLock) {
+            if (closed) {
+                System.err.println("❌ Failed to log registry revision " + revision + ": the registry state store is closed");
+                return;
+            }
+            pending.add(record);
+        }
+
+        if (durability == RegistryStateStoreConfiguration.Durability.SYNC) {
+            // Completed normally even when the write failed, the log writer reports the failure
+            record.written().join();
+        }
+    }
+
+    /**
+     * Loop of the log writer thread: takes every queued record, appends them and forces the log once.
+     * Ends when the store is closed and the queue is empty.
+     */
+    private void writeLog() {
+        List<PendingRecord> batch = new ArrayList<>();
+        long lastForce = 0;
+        while (true) {
+            try {
+                PendingRecord first = pending.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    synchronized (queueLock) {
+                        if (closed && pending.isEmpty()) {
+                            return;
+                        }
+                    }
+                    continue;
+                }
+                if (durability == RegistryStateStoreConfiguration.Durability.INTERVAL) {
+                    // Let the records of the interval pile up, a single force covers all of them
+                    long wait = lastForce + flushIntervalNanos - System.nanoTime();
+                    if (wait > 0 && !isClosing()) {
+                        TimeUnit.NANOSECONDS.sleep(wait);
+                    }
+                }
+                batch.add(first);
+                pending.drainTo(batch);
+                appendBatch(batch);
+                lastForce = System.nanoTime();
+            } catch (InterruptedException e) {
+                // Nobody must stay waiting for a record that will never be written
+                pending.drainTo(batch);
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.forEach(record -> record.written().complete(null));
+                batch.clear();
+            }
+        }
+    }
+
+    private boolean isClosing() {
+        synchronized (queueLock) {
+            return closed;
+        }
+    }
+
+    private synchronized void appendBatch(List<PendingRecord> batch) {
+        try {
+            FileChannel channel = log();
+            for (PendingRecord record : batch) {
+                while (record.frame().hasRemaining()) {
+                    channel.write(record.frame());
+                }
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            // The registry already published the changes, losing their durability must not fail the callers
+            System.err.println("❌ Failed to log registry revisions " + batch.get(0).revision() + " to "
+                    + batch.get(batch.size() - 1).revision() + ": " + e.getMessage());
+            return;
+        }
+
+        recordsSinceSnapshot += batch.size();
+        if (recordsSinceSnapshot >= snapshotEvery && !snapshotScheduled) {
+            snapshotScheduled = true;
+            snapshotExecutor.submit(this::snapshotNow);
+        }
+    }
+
+    /**
+     * Writes a snapshot of the registry and starts a new log
+     */
+    public synchronized void snapshotNow() {
+        snapshotScheduled = false;
+        ConfigRegistry current = registry;
+        if (current == null) {
+            return;
+        }
+        try {
+            // Under the lock no batch can be appended between the export and the truncation of the log,
+            // records of older revisions appended later are skipped on load
+            writeSnapshot(current.exportState());
+        } catch (IOException e) {
+            System.err.println("❌ Failed to snapshot the registry state: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (queueLock) {
+            closed = true;
+        }
+        if (logWriter != null) {
+            try {
+                logWriter.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        snapshotNow();
+        snapshotExecutor.shutdown();
+        synchronized (this) {
+            try {
+                if (log != null) {
+                    log.close();
+                }
+            } catch (IOException e) {
+                System.err.println("Failed to close registry log: " + e.getMessage());
+            }
+        }
+    }
+
+    private void writeSnapshot(RegistryStateSnapshot snapshot) throws IOException {
+        Path target = directory.resolve(SNAPSHOT_FILE);
+        Path temporary = directory.resolve(SNAPSHOT_FILE + ".tmp");
+
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(payload);
+        data.writeLong(snapshot.revision());
+        RegistryStateCodec.writeServices(data, snapshot.services());
+        data.flush();
+        byte[] bytes = payload.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeByte(FORMAT_VERSION);
+            out.writeLong(crc.getValue());
+            out.writeInt(bytes.length);
+            out.write(bytes);
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        // Everything in the log is now part of the snapshot
+        log().truncate(0);
+        log().force(true);
+        recordsSinceSnapshot = 0;
+    }
+
+    private Optional<RegistryStateSnapshot> readSnapshot() throws IOException {
+        Path path = directory.resolve(SNAPSHOT_FILE);
+        if (!Files.exists(path)) {
+            return Optional.empty();
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readByte() != FORMAT_VERSION) {
+                throw new IOException("Not a registry snapshot: " + path);
+            }
+            long expectedCrc = in.readLong();
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            CRC32 crc = new CRC32();
+            crc.update(bytes);
+            if (crc.getValue() != expectedCrc) {
+                throw new IOException("Corrupted registry snapshot: " + path);
+            }
+            DataInputStream data = new DataInputStream(new ByteArrayInputStream(bytes));
+            long revision = data.readLong();
+            return Optional.of(new RegistryStateSnapshot(revision, RegistryStateCodec.readServices(data)));
+        }
+    }
+
+    private record LogRecord(long revision, List<RegistryServiceState> services) {}
+
+    private List<LogRecord> readLog() throws IOException {
+        Path path = directory.resolve(LOG_FILE);
+        List<LogRecord> records = new ArrayList<>();
+        if (!Files.exists(path)) {
+            return records;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        while (buffer.remaining() >= Integer.BYTES + Long.BYTES) {
+            int length = buffer.getInt();
+            long expectedCrc = buffer.getLong();
+            if (length < 0 || length > buffer.remaining()) {
+                System.out.println("Ignoring torn record at the end of the registry log");
+                break;
+            }
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            CRC32 crc = new CRC32();
+            crc.update(bytes);
+            if (crc.getValue() != expectedCrc) {
+                System.out.println("Ignoring corrupted record at the end of the registry log");
+                break;
+            }
+            DataInputStream data = new DataInputStream(new ByteArrayInputStream(bytes));
+            long revision = data.readLong();
+            records.add(new LogRecord(revision, RegistryStateCodec.readServices(data)));
+        }
+        return records;
+    }
+
+    private FileChannel log() throws IOException {
+        if (log == null) {
+            log = FileChannel.open(directory.resolve(LOG_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        }
+        return log;
+    }
+
+}
@@ -0,0 +1,135 @@
+package org.marionette.controlplane.adapters.outbound.registrystate;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.marionette.controlplane.domain.entities.ClassConfig;
+import org.marionette.controlplane.domain.entities.MethodConfig;
+import org.marionette.controlplane.domain.entities.ServiceConfig;
+import org.marionette.controlplane.domain.entities.ServiceMetadata;
+import org.marionette.controlplane.domain.entities.ServiceMetadata.ServiceStatus;
+import org.marionette.controlplane.domain.entities.journal.RegistryServiceState;
+import org.marionette.controlplane.domain.values.BehaviourId;
+import org.marionette.controlplane.domain.values.ClassName;
+import org.marionette.controlplane.domain.values.MethodName;
+import org.marionette.controlplane.domain.values.ServiceName;
+
+/**
+ * Compact binary form of the state of a service, shared by the snapshot and the log.
+ * Names are written as modified UTF-8, a runtime identical to the template is only a flag.
+ */
+final class RegistryStateCodec {
+
+    private static final int HAS_TEMPLATE = 1;
+    private static final int HAS_RUNTIME = 1 << 1;
+    private static final int RUNTIME_IS_TEMPLATE = 1 << 2;
+    private static final int HAS_METADATA = 1 << 3;
+
+    private RegistryStateCodec() {
+    }
+
+    static void writeServices(DataOutput out, List<RegistryServiceState> services) throws IOException {
+        out.writeInt(services.size());
+        for (RegistryServiceState service : services) {
+            writeService(out, service);
+        }
+    }
+
+    static List<RegistryServiceState> readServices(DataInput in) throws IOException {
+        int count = in.readInt();
+        List<RegistryServiceState> services = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            services.add(readService(in));
+        }
+        return services;
+    }
+
+    private static void writeService(DataOutput out, RegistryServiceState service) throws IOException {
+        int flags = 0;
+        if (service.template() != null) {
+            flags |= HAS_TEMPLATE;
+        }
+        if (service.runtime() != null) {
+            flags |= service.runtime() == service.template() ? RUNTIME_IS_TEMPLATE : HAS_RUNTIME;
+        }
+        if (service.metadata() != null) {
+            flags |= HAS_METADATA;
+        }
+        out.writeUTF(service.serviceName().getServiceName());
+        out.writeByte(flags);
+        if ((flags & HAS_TEMPLATE) != 0) {
+            writeConfig(out, service.template());
+        }
+        if ((flags & HAS_RUNTIME) != 0) {
+            writeConfig(out, service.runtime());
+        }
+        if ((flags & HAS_METADATA) != 0) {
+            ServiceMetadata metadata = service.metadata();
+            out.writeUTF(metadata.getEndpoint().toString());
+            out.writeLong(metadata.getLastSeen().toEpochMilli());
+            out.writeUTF(metadata.getStatus().name());
+        }
+    }
+
+    private static RegistryServiceState readService(DataInput in) throws IOException {
+        ServiceName serviceName = ServiceName.of(in.readUTF());
+        int flags = in.readUnsignedByte();
+        ServiceConfig template = (flags & HAS_TEMPLATE) != 0 ? readConfig(in, serviceName) : null;
+        ServiceConfig runtime = (flags & HAS_RUNTIME) != 0 ? readConfig(in, serviceName)
+                : (flags & RUNTIME_IS_TEMPLATE) != 0 ? template : null;
+        ServiceMetadata metadata = null;
+        if ((flags & HAS_METADATA) != 0) {
+            metadata = ServiceMetadata.of(serviceName.getServiceName(), in.readUTF(), Instant.ofEpochMilli(in.readLong()),
+                    ServiceStatus.valueOf(in.readUTF()));
+        }
+        return new RegistryServiceState(serviceName, template, runtime, metadata);
+    }
+
+    private static void writeConfig(DataOutput out, ServiceConfig config) throws IOException {
+        out.writeInt(config.getClassConfigurations().size());
+        for (ClassConfig classConfig : config.getClassConfigurations().values()) {
+            out.writeUTF(classConfig.classNameAsString());
+            out.writeInt(classConfig.getMethodsConfigurations().size());
+            for (MethodConfig methodConfig : classConfig.getMethodsConfigurations().values()) {
+                out.writeUTF(methodConfig.methodNameAsString());
+                out.writeUTF(methodConfig.defaultBehaviourIdAsString());
+                out.writeUTF(methodConfig.currentBehaviourAsString());
+                out.writeInt(methodConfig.getAvailableBehaviourIds().behaviourNumber());
+                for (BehaviourId behaviourId : methodConfig.getAvailableBehaviourIds()) {
+                    out.writeUTF(behaviourId.getBehaviourId());
+                }
+            }
+        }
+    }
+
+    private static ServiceConfig readConfig(DataInput in, ServiceName serviceName) throws IOException {
+        int classCount = in.readInt();
+        Map<ClassName, ClassConfig> classes = new LinkedHashMap<>();
+        for (int c = 0; c < classCount; c++) {
+            ClassName className = ClassName.of(in.readUTF());
+            int methodCount = in.readInt();
+            Map<MethodName, MethodConfig> methods = new LinkedHashMap<>();
+            for (int m = 0; m < methodCount; m++) {
+                String methodName = in.readUTF();
+                String defaultBehaviour = in.readUTF();
+                String currentBehaviour = in.readUTF();
+                int available = in.readInt();
+                List<String> behaviours = new ArrayList<>(available);
+                for (int b = 0; b < available; b++) {
+                    behaviours.add(in.readUTF());
+                }
+                MethodConfig methodConfig = MethodConfig.of(methodName, defaultBehaviour, currentBehaviour, behaviours);
+                methods.put(methodConfig.getMethodName(), methodConfig);
+            }
+            classes.put(className, new ClassConfig(className, methods));
+        }
+        return new ServiceConfig(serviceName, classes);
+    }
+
+}
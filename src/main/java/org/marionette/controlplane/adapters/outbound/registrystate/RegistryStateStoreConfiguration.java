@@ -0,0 +1,69 @@
+package org.marionette.controlplane.adapters.outbound.registrystate;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Settings of the on-disk registry state, read from the environment:
+ * MARIONETTE_REGISTRY_STATE_DIR enables it (the registry starts empty on every restart without it),
+ * MARIONETTE_REGISTRY_SNAPSHOT_EVERY the number of logged revisions after which a snapshot replaces the log,
+ * MARIONETTE_REGISTRY_DURABILITY "sync" (default) or "interval", see {@link Durability}, and
+ * MARIONETTE_REGISTRY_FLUSH_MILLIS the longest time a revision waits before being forced in interval mode.
+ */
+public record RegistryStateStoreConfiguration(Optional<Path> directory, long snapshotEvery, Durability durability,
+        Duration flushInterval) {
+
+    private static final long DEFAULT_SNAPSHOT_EVERY = 1000;
+    private static final long DEFAULT_FLUSH_MILLIS = 50;
+
+    /**
+     * When a logged revision is on disk. In both modes the writes of concurrent revisions are forced together,
+     * one force per batch instead of one per revision.
+     */
+    public enum Durability {
+        /** The writer of a revision waits until its record is forced: nothing acknowledged is lost in a crash */
+        SYNC,
+        /**
+         * The writer returns as soon as the record is queued and the log is forced at most once per flush
+         * interval: writers never wait for the disk, but a crash loses the revisions of the last interval
+         * (the next discovery brings the services back, behaviour changes of that interval are lost)
+         */
+        INTERVAL
+    }
+
+    public static RegistryStateStoreConfiguration loadFromEnv() {
+        String directory = System.getenv("MARIONETTE_REGISTRY_STATE_DIR");
+        return new RegistryStateStoreConfiguration(
+                directory != null && !directory.isBlank() ? Optional.of(Path.of(directory.trim())) : Optional.empty(),
+                parseLong(System.getenv("MARIONETTE_REGISTRY_SNAPSHOT_EVERY"), DEFAULT_SNAPSHOT_EVERY),
+                parseDurability(System.getenv("MARIONETTE_REGISTRY_DURABILITY")),
+                Duration.ofMillis(parseLong(System.getenv("MARIONETTE_REGISTRY_FLUSH_MILLIS"), DEFAULT_FLUSH_MILLIS)));
+    }
+
+    private static Durability parseDurability(String value) {
+        if (value == null || value.isBlank()) {
+            return Durability.SYNC;
+        }
+        try {
+            return Durability.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid registry durability " + value + ", using sync");
+            return Durability.SYNC;
+        }
+    }
+
+    private static long parseLong(String value, long defaultValue) {
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            long parsed = Long.parseLong(value.trim());
+            return parsed > 0 ? parsed : defaultValue;
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid registry state setting " + value + ", using " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+}
@@ -0,0 +1,75 @@
+package org.marionette.controlplane.adapters.outbound.resultsstore;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.marionette.controlplane.adapters.outbound.resultsstore.document.StoredRunDocument;
+import org.marionette.controlplane.domain.entities.abntest.SingleAbnTestResult;
+import org.marionette.controlplane.usecases.outbound.resultsstore.AbnTestResultsStoreGateway;
+import org.marionette.controlplane.usecases.outbound.resultsstore.domain.StoredRunSummary;
+
+/**
+ * Results store used when no directory is configured, runs are lost on restart
+ */
+public class InMemoryAbnTestResultsStore implements AbnTestResultsStoreGateway {
+
+    private final StoredRunMapper mapper = new StoredRunMapper();
+    private final int retainedRuns;
+    private final Map<String, SingleAbnTestResult> results = new LinkedHashMap<>();
+    private final Map<String, StoredRunSummary> summaries = new LinkedHashMap<>();
+
+    public InMemoryAbnTestResultsStore(int retainedRuns) {
+        this.retainedRuns = retainedRuns;
+    }
+
+    @Override
+    public synchronized StoredRunSummary append(SingleAbnTestResult result) {
+        String runId = RunIds.next(summaries.keySet());
+        StoredRunDocument document = mapper.toDocument(runId, Instant.now(), result);
+        StoredRunSummary summary = mapper.toSummary(mapper.headerOf(document));
+
+        results.put(runId, result);
+        summaries.put(runId, summary);
+        while (summaries.size() > retainedRuns) {
+            String oldest = summaries.keySet().iterator().next();
+            summaries.remove(oldest);
+            results.remove(oldest);
+        }
+        return summary;
+    }
+
+    @Override
+    public synchronized List<StoredRunSummary> listRuns() {
+        return List.copyOf(summaries.values());
+    }
+
+    @Override
+    public synchronized List<StoredRunSummary> findRunsByFingerprint(String fingerprint) {
+        List<StoredRunSummary> matching = new ArrayList<>();
+        for (StoredRunSummary summary : summaries.values()) {
+            if (summary.fingerprint().equals(fingerprint)) {
+                matching.add(summary);
+            }
+        }
+        return matching;
+    }
+
+    @Override
+    public synchronized Optional<StoredRunSummary> latestRun() {
+        StoredRunSummary latest = null;
+        for (StoredRunSummary summary : summaries.values()) {
+            latest = summary;
+        }
+        return Optional.ofNullable(latest);
+    }
+
+    @Override
+    public synchronized Optional<SingleAbnTestResult> loadRun(String runId) {
+        return Optional.ofNullable(results.get(runId));
+    }
+
+}
@@ -0,0 +1,38 @@
+package org.marionette.controlplane.adapters.outbound.resultsstore;
+
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Settings of the on-disk results store, read from the environment:
+ * MARIONETTE_RESULTS_STORE_DIR enables the store (results are only kept in memory without it),
+ * MARIONETTE_RESULTS_STORE_SEGMENT_BYTES is the size after which a new segment is started and
+ * MARIONETTE_RESULTS_STORE_RETAINED_RUNS the number of runs kept before the oldest ones are dropped.
+ */
+public record ResultsStoreConfiguration(Optional<Path> directory, long maxSegmentBytes, int retainedRuns) {
+
+    private static final long DEFAULT_SEGMENT_BYTES = 64L * 1024 * 1024;
+    private static final int DEFAULT_RETAINED_RUNS = 200;
+
+    public static ResultsStoreConfiguration loadFromEnv() {
+        String directory = System.getenv("MARIONETTE_RESULTS_STORE_DIR");
+        return new ResultsStoreConfiguration(
+                directory != null && !directory.isBlank() ? Optional.of(Path.of(directory.trim())) : Optional.empty(),
+                parseLong(System.getenv("MARIONETTE_RESULTS_STORE_SEGMENT_BYTES"), DEFAULT_SEGMENT_BYTES),
+                (int) parseLong(System.getenv("MARIONETTE_RESULTS_STORE_RETAINED_RUNS"), DEFAULT_RETAINED_RUNS));
+    }
+
+    private static long parseLong(String value, long defaultValue) {
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            long parsed = Long.parseLong(value.trim());
+            return parsed > 0 ? parsed : defaultValue;
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid results store setting " + value + ", using " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+}
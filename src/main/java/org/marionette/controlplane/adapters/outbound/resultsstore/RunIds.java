@@ -0,0 +1,27 @@
+package org.marionette.controlplane.adapters.outbound.resultsstore;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Set;
+
+/**
+ * Run identifiers are readable UTC timestamps, with a counter suffix for runs completed in the same second
+ */
+final class RunIds {
+
+    private static final DateTimeFormatter FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private RunIds() {
+    }
+
+    static String next(Set<String> existing) {
+        String base = "run-" + ZonedDateTime.now(ZoneOffset.UTC).format(FORMAT);
+        String candidate = base;
+        for (int i = 1; existing.contains(candidate); i++) {
+            candidate = base + "-" + i;
+        }
+        return candidate;
+    }
+
+}
@@ -0,0 +1,398 @@
+package org.marionette.controlplane.adapters.outbound.resultsstore;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.marionette.controlplane.adapters.outbound.resultsstore.document.RunHeaderDocument;
+import org.marionette.controlplane.adapters.outbound.resultsstore.document.StoredRunDocument;
+import org.marionette.controlplane.adapters.outbound.resultsstore.segment.SampleBlockFile;
+import org.marionette.controlplane.adapters.outbound.resultsstore.segment.SegmentFile;
+import org.marionette.controlplane.adapters.outbound.resultsstore.segment.StoreRecord;
+import org.marionette.controlplane.domain.entities.abntest.SingleAbnTestResult;
+import org.marionette.controlplane.usecases.domain.configsnapshot.SystemConfigurationSnapshot;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.timeseries.SampleSeries;
+import org.marionette.controlplane.usecases.outbound.resultsstore.AbnTestResultsStoreGateway;
+import org.marionette.controlplane.usecases.outbound.resultsstore.domain.StoredRunSummary;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.json.JsonReadFeature;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+/**
+ * Append-only results store made of segment files in a directory.
+ * Every run is one record (header + full run document), dropping a run appends a tombstone.
+ * The in-memory index (run id and fingerprint to record position) is rebuilt from the record headers
+ * when the store is opened, payloads are parsed straight from the memory mapped segment when a run is loaded.
+ * When more than half of the bytes on disk belong to dropped runs the segments are compacted into a new one,
+ * recorded in a marker file.
+ * The raw samples of a run are kept out of the JSON document, compressed in a block file of their own
+ * that is written before the run record and deleted with the run.
+ */
+public class SegmentedAbnTestResultsStore implements AbnTestResultsStoreGateway {
+
+    private static final Pattern SEGMENT_NAME = Pattern.compile("^segment-(\\d{12})\\.log$");
+    private static final Pattern BLOCK_NAME = Pattern.compile("^samples-(.+)\\.block$");
+    private static final String COMPACTION_SUFFIX = ".compacting";
+    private static final String COMPACTION_MARKER = "compacted.marker";
+    private static final String BLOCK_WRITE_SUFFIX = ".writing";
+    private static final double COMPACTION_DEAD_RATIO = 0.5;
+
+    private final Path directory;
+    private final long maxSegmentBytes;
+    private final int retainedRuns;
+    private final StoredRunMapper mapper = new StoredRunMapper();
+    private final ObjectMapper objectMapper;
+
+    private final List<SegmentFile> segments = new ArrayList<>();
+    private final Map<String, IndexEntry> runs = new LinkedHashMap<>();   // insertion order is completion order
+    private final Map<String, List<String>> runsByFingerprint = new LinkedHashMap<>();
+    private long deadBytes;
+
+    // Derived getter of the snapshot, not part of its state
+    @JsonIgnoreProperties({ "serviceNamesList" })
+    private abstract static class SnapshotMixIn {}
+
+    private record IndexEntry(StoredRunSummary summary, SegmentFile segment, StoreRecord record) {}
+
+    public SegmentedAbnTestResultsStore(ResultsStoreConfiguration configuration) {
+        this.directory = configuration.directory()
+                .orElseThrow(() -> new IllegalArgumentException("A directory is required for the segmented results store"));
+        this.maxSegmentBytes = configuration.maxSegmentBytes();
+        this.retainedRuns = configuration.retainedRuns();
+        this.objectMapper = JsonMapper.builder()
+                .addModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .enable(JsonReadFeature.ALLOW_NON_NUMERIC_NUMBERS)   // NaN quantiles and +Inf bucket bounds
+                .addMixIn(SystemConfigurationSnapshot.class, SnapshotMixIn.class)
+                .build();
+
+        try {
+            open();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open results store in " + directory, e);
+        }
+    }
+
+    @Override
+    public synchronized StoredRunSummary append(SingleAbnTestResult result) {
+        try {
+            String runId = RunIds.next(runs.keySet());
+            StoredRunDocument document = mapper.toDocument(runId, Instant.now(), result);
+            RunHeaderDocument header = mapper.headerOf(document);
+
+            Map<String, SampleSeries> samples = mapper.samplesOf(result);
+            if (!samples.isEmpty()) {
+                Path block = blockPath(runId);
+                SampleBlockFile.write(block, directory.resolve(block.getFileName() + BLOCK_WRITE_SUFFIX), samples);
+            }
+
+            byte[] headerBytes = objectMapper.writeValueAsBytes(header);
+            byte[] payloadBytes = objectMapper.writeValueAsBytes(document);
+
+            SegmentFile segment = segmentFor(StoreRecord.PREAMBLE_SIZE + headerBytes.length + payloadBytes.length);
+            StoreRecord record = segment.append(StoreRecord.TYPE_RUN, headerBytes, payloadBytes);
+            StoredRunSummary summary = index(header, segment, record);
+
+            System.out.println("💾 Stored run " + runId + " (" + record.size() + " bytes, fingerprint " + summary.fingerprint() + ")");
+
+            enforceRetention();
+            compactIfWorthIt();
+            return summary;
+
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append run to results store", e);
+        }
+    }
+
+    @Override
+    public synchronized List<StoredRunSummary> listRuns() {
+        return runs.values().stream().map(IndexEntry::summary).toList();
+    }
+
+    @Override
+    public synchronized List<StoredRunSummary> findRunsByFingerprint(String fingerprint) {
+        return runsByFingerprint.getOrDefault(fingerprint, List.of()).stream()
+                .map(runId -> runs.get(runId).summary())
+                .toList();
+    }
+
+    @Override
+    public synchronized Optional<StoredRunSummary> latestRun() {
+        IndexEntry latest = null;
+        for (IndexEntry entry : runs.values()) {
+            latest = entry;
+        }
+        return Optional.ofNullable(latest).map(IndexEntry::summary);
+    }
+
+    @Override
+    public synchronized Optional<SingleAbnTestResult> loadRun(String runId) {
+        IndexEntry entry = runs.get(runId);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        try {
+            ByteBuffer payload = entry.segment().payload(entry.record());
+            StoredRunDocument document = objectMapper.readValue(new ByteBufferBackedInputStream(payload), StoredRunDocument.class);
+            Path blockPath = blockPath(runId);
+            if (!Files.exists(blockPath)) {
+                return Optional.of(mapper.toResult(document));
+            }
+            SampleBlockFile block = SampleBlockFile.open(blockPath);
+            return Optional.of(mapper.toResult(document, block::chunk));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read run " + runId + " from results store", e);
+        }
+    }
+
+    private void open() throws IOException {
+        Files.createDirectories(directory);
+
+        // Leftover of a compaction interrupted before its output replaced the old segments
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path leftover : files.filter(p -> p.getFileName().toString().endsWith(COMPACTION_SUFFIX)
+                    || p.getFileName().toString().endsWith(BLOCK_WRITE_SUFFIX)).toList()) {
+                Files.deleteIfExists(leftover);
+            }
+        }
+
+        List<Path> segmentPaths;
+        try (Stream<Path> files = Files.list(directory)) {
+            segmentPaths = files.filter(p -> SEGMENT_NAME.matcher(p.getFileName().toString()).matches())
+                    .sorted()
+                    .toList();
+        }
+
+        // Segments below the newest compacted one are already part of it, they are left over by a compaction
+        // interrupted while deleting them and must not be replayed
+        long compactedId = readCompactionMarker();
+        for (Path path : segmentPaths) {
+            if (segmentIdOf(path) < compactedId) {
+                Files.deleteIfExists(path);
+                continue;
+            }
+            SegmentFile segment = SegmentFile.open(segmentIdOf(path), path);
+            segments.add(segment);
+            replay(segment);
+        }
+
+        if (segments.isEmpty()) {
+            segments.add(SegmentFile.open(0, segmentPath(0)));
+        }
+
+        // Blocks of runs whose record was never appended (crash in between) or whose deletion failed
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path block : files.toList()) {
+                Matcher matcher = BLOCK_NAME.matcher(block.getFileName().toString());
+                if (matcher.matches() && !runs.containsKey(matcher.group(1))) {
+                    Files.deleteIfExists(block);
+                }
+            }
+        }
+
+        System.out.println("💾 Results store in " + directory + ": " + runs.size() + " runs in " + segments.size() + " segments");
+    }
+
+    private void replay(SegmentFile segment) throws IOException {
+        for (StoreRecord record : segment.scan()) {
+            RunHeaderDocument header = objectMapper.readValue(record.header(), RunHeaderDocument.class);
+            if (record.type() == StoreRecord.TYPE_RUN) {
+                index(header, segment, record);
+            } else if (record.type() == StoreRecord.TYPE_TOMBSTONE) {
+                unindex(header.runId());
+                deadBytes += record.size();
+            }
+        }
+    }
+
+    private StoredRunSummary index(RunHeaderDocument header, SegmentFile segment, StoreRecord record) {
+        StoredRunSummary summary = mapper.toSummary(header);
+        IndexEntry previous = runs.put(summary.runId(), new IndexEntry(summary, segment, record));
+        if (previous != null) {
+            // Same run written twice, e.g. by an interrupted compaction
+            deadBytes += previous.record().size();
+            runsByFingerprint.getOrDefault(previous.summary().fingerprint(), new ArrayList<>()).remove(summary.runId());
+        }
+        runsByFingerprint.computeIfAbsent(summary.fingerprint(), k -> new ArrayList<>()).add(summary.runId());
+        return summary;
+    }
+
+    private void unindex(String runId) {
+        IndexEntry removed = runs.remove(runId);
+        if (removed == null) {
+            return;
+        }
+        deadBytes += removed.record().size();
+        try {
+            Files.deleteIfExists(blockPath(runId));
+        } catch (IOException e) {
+            System.err.println("⚠️ Failed to delete the samples of dropped run " + runId + ": " + e.getMessage());
+        }
+        List<String> sameFingerprint = runsByFingerprint.get(removed.summary().fingerprint());
+        if (sameFingerprint != null) {
+            sameFingerprint.remove(runId);
+            if (sameFingerprint.isEmpty()) {
+                runsByFingerprint.remove(removed.summary().fingerprint());
+            }
+        }
+    }
+
+    private void enforceRetention() throws IOException {
+        while (runs.size() > retainedRuns) {
+            String oldest = runs.keySet().iterator().next();
+            IndexEntry entry = runs.get(oldest);
+            byte[] tombstone = objectMapper.writeValueAsBytes(new RunHeaderDocument(
+                    oldest, entry.summary().completedAt(), entry.summary().fingerprint(), 0, null));
+            StoreRecord record = segmentFor(StoreRecord.PREAMBLE_SIZE + tombstone.length)
+                    .append(StoreRecord.TYPE_TOMBSTONE, tombstone, new byte[0]);
+            unindex(oldest);
+            deadBytes += record.size();
+            System.out.println("💾 Dropped run " + oldest + " (retaining " + retainedRuns + " runs)");
+        }
+    }
+
+    private SegmentFile segmentFor(long recordSize) throws IOException {
+        SegmentFile active = segments.get(segments.size() - 1);
+        if (active.size() > 0 && active.size() + recordSize > maxSegmentBytes) {
+            long nextId = active.id() + 1;
+            active = SegmentFile.open(nextId, segmentPath(nextId));
+            segments.add(active);
+        }
+        return active;
+    }
+
+    private long totalBytes() {
+        return segments.stream().mapToLong(SegmentFile::size).sum();
+    }
+
+    /**
+     * Rewrites the live runs of every segment into a single new segment, with an id above every existing one
+     * so replay order is preserved. The output is written aside, forced and moved in place, then the marker is
+     * moved to its id before the older segments are deleted: from then on they are ignored when the store is
+     * opened, so a cleanup interrupted halfway cannot bring back a run whose tombstone was already deleted.
+     */
+    private void compactIfWorthIt() throws IOException {
+        long total = totalBytes();
+        if (total == 0 || (double) deadBytes / total < COMPACTION_DEAD_RATIO) {
+            return;
+        }
+
+        long compactedId = segments.get(segments.size() - 1).id() + 1;
+        Path target = segmentPath(compactedId);
+        Path temporary = directory.resolve(target.getFileName() + COMPACTION_SUFFIX);
+        Files.deleteIfExists(temporary);
+
+        List<IndexEntry> live = new ArrayList<>(runs.values());
+        Map<String, StoreRecord> rewritten = new LinkedHashMap<>();
+        try (SegmentFile output = SegmentFile.open(compactedId, temporary)) {
+            for (IndexEntry entry : live) {
+                ByteBuffer payload = entry.segment().payload(entry.record());
+                byte[] payloadBytes = new byte[payload.remaining()];
+                payload.get(payloadBytes);
+                rewritten.put(entry.summary().runId(),
+                        output.append(StoreRecord.TYPE_RUN, entry.record().header(), payloadBytes));
+            }
+        }
+
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+        forceDirectory();
+        writeCompactionMarker(compactedId);
+
+        for (SegmentFile segment : segments) {
+            segment.close();
+            Files.deleteIfExists(segment.path());
+        }
+
+        long before = total;
+        segments.clear();
+        SegmentFile compacted = SegmentFile.open(compactedId, target);
+        segments.add(compacted);
+        for (IndexEntry entry : live) {
+            runs.put(entry.summary().runId(), new IndexEntry(entry.summary(), compacted, rewritten.get(entry.summary().runId())));
+        }
+        deadBytes = 0;
+
+        System.out.println("💾 Compacted results store from " + before + " to " + compacted.size() + " bytes");
+    }
+
+    /**
+     * Id of the newest compacted segment, every segment below it was already compacted into it
+     */
+    private long readCompactionMarker() throws IOException {
+        Path marker = directory.resolve(COMPACTION_MARKER);
+        if (!Files.exists(marker)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(Files.readString(marker).trim());
+        } catch (NumberFormatException e) {
+            throw new IOException("Corrupted compaction marker " + marker, e);
+        }
+    }
+
+    private void writeCompactionMarker(long compactedId) throws IOException {
+        Path marker = directory.resolve(COMPACTION_MARKER);
+        Path temporary = directory.resolve(COMPACTION_MARKER + COMPACTION_SUFFIX);
+        try (FileChannel channel = FileChannel.open(temporary,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer content = ByteBuffer.wrap(Long.toString(compactedId).getBytes(StandardCharsets.US_ASCII));
+            while (content.hasRemaining()) {
+                channel.write(content);
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, marker, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        forceDirectory();
+    }
+
+    /**
+     * Makes the renames in the directory durable. Not every platform can open a directory, the rename is then
+     * as durable as the file system makes it.
+     */
+    private void forceDirectory() {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Directories cannot be opened on this platform
+        }
+    }
+
+    private Path segmentPath(long id) {
+        return directory.resolve(String.format("segment-%012d.log", id));
+    }
+
+    private Path blockPath(String runId) {
+        return directory.resolve("samples-" + runId + ".block");
+    }
+
+    private long segmentIdOf(Path path) {
+        Matcher matcher = SEGMENT_NAME.matcher(path.getFileName().toString());
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Not a results segment: " + path);
+        }
+        return Long.parseLong(matcher.group(1));
+    }
+
+}
@@ -0,0 +1,246 @@
+package org.marionette.controlplane.adapters.outbound.resultsstore;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+import org.marionette.controlplane.adapters.outbound.resultsstore.document.ConfigurationResultDocument;
+import org.marionette.controlplane.adapters.outbound.resultsstore.document.MetricDocument;
+import org.marionette.controlplane.adapters.outbound.resultsstore.document.MetricMetadataDocument;
+import org.marionette.controlplane.adapters.outbound.resultsstore.document.RankingDocument;
+import org.marionette.controlplane.adapters.outbound.resultsstore.document.RunHeaderDocument;
+import org.marionette.controlplane.adapters.outbound.resultsstore.document.ServiceMetricsDocument;
+import org.marionette.controlplane.adapters.outbound.resultsstore.document.StoredRunDocument;
+import org.marionette.controlplane.domain.entities.abntest.SingleAbnTestResult;
+import org.marionette.controlplane.usecases.domain.configsnapshot.ClassSnapshot;
+import org.marionette.controlplane.usecases.domain.configsnapshot.ServiceSnapshot;
+import org.marionette.controlplane.usecases.domain.configsnapshot.SystemConfigurationSnapshot;
+import org.marionette.controlplane.usecases.inbound.abntest.domain.GlobalMetricsRegistry;
+import org.marionette.controlplane.usecases.inbound.abntest.ranking.SimpleConfigurationRanking;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.AggregateMetric;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.HistogramQuantile;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.MetricEstimator;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.MetricsConfiguration;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.OptimizationDirection;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.OrderedMetricMetadata;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.ServiceMetricsDataPoint;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.SystemMetricsDataPoint;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.statistics.BucketHistogram;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.timeseries.SampleSeries;
+import org.marionette.controlplane.usecases.outbound.resultsstore.domain.StoredRunSummary;
+
+/**
+ * Converts A/B test results to the documents written in the store and back
+ */
+public class StoredRunMapper {
+
+    public StoredRunDocument toDocument(String runId, Instant completedAt, SingleAbnTestResult result) {
+        List<MetricMetadataDocument> metrics = result.metricsConfiguration().getMetricsConfig().stream()
+                .map(metadata -> new MetricMetadataDocument(
+                        metadata.metricName(),
+                        metadata.order(),
+                        metadata.direction() != null ? metadata.direction().getDirection() : null,
+                        metadata.unit(),
+                        metadata.estimator().getName(),
+                        metadata.tolerance()))
+                .toList();
+
+        GlobalMetricsRegistry registry = result.metricsRegistry();
+        List<ConfigurationResultDocument> configurations = new TreeMap<>(registry.getAllMetrics()).entrySet().stream()
+                .map(entry -> new ConfigurationResultDocument(
+                        entry.getKey(),
+                        registry.getSystemConfig(entry.getKey()),
+                        entry.getValue().serviceMetrics().stream()
+                                .map(service -> new ServiceMetricsDocument(
+                                        service.serviceConfiguration(),
+                                        service.metrics().stream().map(this::toDocument).toList()))
+                                .toList()))
+                .toList();
+
+        List<RankingDocument> ranking = result.ranking().stream()
+                .map(rank -> new RankingDocument(
+                        rank.rank(),
+                        rank.configurationId(),
+                        rank.systemMetrics().stream().map(this::toDocument).toList(),
+                        rank.dispersions()))
+                .toList();
+
+        return new StoredRunDocument(runId, completedAt, fingerprintOf(result), metrics, configurations, ranking);
+    }
+
+    /**
+     * The samples of every service metric that has some, keyed as the block of the run expects them
+     */
+    public Map<String, SampleSeries> samplesOf(SingleAbnTestResult result) {
+        Map<String, SampleSeries> samples = new LinkedHashMap<>();
+        GlobalMetricsRegistry registry = result.metricsRegistry();
+        for (Map.Entry<String, SystemMetricsDataPoint> configuration : new TreeMap<>(registry.getAllMetrics()).entrySet()) {
+            for (ServiceMetricsDataPoint service : configuration.getValue().serviceMetrics()) {
+                for (AggregateMetric metric : service.metrics()) {
+                    if (metric.hasSamples()) {
+                        samples.put(sampleKey(configuration.getKey(), service.serviceConfiguration().serviceName(), metric.name()),
+                                metric.samples());
+                    }
+                }
+            }
+        }
+        return samples;
+    }
+
+    public static String sampleKey(String configurationId, String serviceName, String metricName) {
+        return configurationId + '\u0000' + serviceName + '\u0000' + metricName;
+    }
+
+    public RunHeaderDocument headerOf(StoredRunDocument document) {
+        return new RunHeaderDocument(
+                document.runId(),
+                document.completedAt(),
+                document.fingerprint(),
+                document.configurations().size(),
+                document.ranking().isEmpty() ? null : document.ranking().get(0).configurationId());
+    }
+
+    public StoredRunSummary toSummary(RunHeaderDocument header) {
+        return new StoredRunSummary(
+                header.runId(),
+                header.completedAt(),
+                header.fingerprint(),
+                header.configurationCount(),
+                header.bestConfigurationId());
+    }
+
+    public SingleAbnTestResult toResult(StoredRunDocument document) {
+        return toResult(document, key -> SampleSeries.empty());
+    }
+
+    /**
+     * The samples of the service metrics are looked up by sampleKey, e.g. in the block of the run
+     */
+    public SingleAbnTestResult toResult(StoredRunDocument document, Function<String, SampleSeries> samples) {
+        MetricsConfiguration metricsConfiguration = new MetricsConfiguration(document.metricsConfiguration().stream()
+                .map(metadata -> new OrderedMetricMetadata(
+                        metadata.metricName(),
+                        metadata.order(),
+                        metadata.direction() != null ? OptimizationDirection.fromString(metadata.direction()) : null,
+                        metadata.unit(),
+                        metadata.estimator() != null ? MetricEstimator.fromString(metadata.estimator()) : null,
+                        metadata.tolerance() != null ? metadata.tolerance() : 0.0))
+                .toList());
+
+        GlobalMetricsRegistry registry = new GlobalMetricsRegistry();
+        for (ConfigurationResultDocument configuration : document.configurations()) {
+            List<ServiceMetricsDataPoint> services = configuration.services().stream()
+                    .map(service -> new ServiceMetricsDataPoint(
+                            service.serviceConfiguration(),
+                            service.metrics().stream()
+                                    .map(metric -> toMetric(metric, samples.apply(sampleKey(configuration.configurationId(),
+                                            service.serviceConfiguration().serviceName(), metric.name()))))
+                                    .toList()))
+                    .toList();
+            registry.restoreSystemMetrics(configuration.configurationId(), configuration.snapshot(),
+                    new SystemMetricsDataPoint(services));
+        }
+
+        List<SimpleConfigurationRanking> ranking = document.ranking().stream()
+                .map(rank -> new SimpleConfigurationRanking(
+                        rank.rank(),
+                        rank.configurationId(),
+                        rank.systemMetrics().stream().map(metric -> toMetric(metric, SampleSeries.empty())).toList(),
+                        rank.dispersions() != null ? rank.dispersions() : Map.of()))
+                .toList();
+
+        return new SingleAbnTestResult(metricsConfiguration, registry, ranking);
+    }
+
+    private MetricDocument toDocument(AggregateMetric metric) {
+        HistogramQuantile histogram = metric.histogram();
+        return new MetricDocument(
+                metric.name(),
+                metric.value(),
+                metric.timestamp(),
+                metric.unit(),
+                metric.instances(),
+                null,
+                histogram != null ? histogram.histogram().upperBounds() : null,
+                histogram != null ? histogram.histogram().cumulativeCounts() : null,
+                histogram != null ? histogram.quantile() : null);
+    }
+
+    private AggregateMetric toMetric(MetricDocument document, SampleSeries samples) {
+        HistogramQuantile histogram = null;
+        if (document.histogramBounds() != null && document.histogramCounts() != null && document.histogramQuantile() != null) {
+            histogram = new HistogramQuantile(
+                    BucketHistogram.of(document.histogramBounds(), document.histogramCounts()),
+                    document.histogramQuantile());
+        }
+        return new AggregateMetric(
+                document.name(),
+                document.value(),
+                document.timestamp(),
+                document.unit(),
+                document.instances(),
+                document.samples() != null && !document.samples().isEmpty() ? legacySamples(document) : samples,
+                histogram);
+    }
+
+    private SampleSeries legacySamples(MetricDocument document) {
+        long timestamp = document.timestamp() != null ? document.timestamp().toEpochMilli() : 0;
+        return SampleSeries.of(timestamp, document.samples().stream().mapToDouble(Double::doubleValue).toArray());
+    }
+
+    /**
+     * Hash of the metrics configuration and of the set of tested behaviour selections, capture times excluded
+     */
+    private String fingerprintOf(SingleAbnTestResult result) {
+        List<String> parts = new ArrayList<>();
+        for (OrderedMetricMetadata metadata : result.metricsConfiguration()) {
+            parts.add("metric:" + metadata.order() + ":" + metadata.metricName() + ":" + metadata.direction()
+                    + ":" + metadata.estimator());
+        }
+
+        List<String> configurations = new ArrayList<>();
+        for (String configId : result.metricsRegistry().getAllMetrics().keySet()) {
+            SystemConfigurationSnapshot snapshot = result.metricsRegistry().getSystemConfig(configId);
+            if (snapshot != null) {
+                configurations.add(canonicalForm(snapshot));
+            }
+        }
+        configurations.sort(null);
+        parts.addAll(configurations);
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String part : parts) {
+                digest.update(part.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) '\n');
+            }
+            return HexFormat.of().formatHex(digest.digest(), 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private String canonicalForm(SystemConfigurationSnapshot snapshot) {
+        StringBuilder sb = new StringBuilder("config:");
+        for (Map.Entry<String, ServiceSnapshot> service : new TreeMap<>(snapshot.services()).entrySet()) {
+            sb.append(service.getKey()).append('{');
+            for (Map.Entry<String, ClassSnapshot> clazz : new TreeMap<>(service.getValue().classes()).entrySet()) {
+                sb.append(clazz.getKey()).append('{');
+                new TreeMap<>(clazz.getValue().methodBehaviors())
+                        .forEach((method, behaviour) -> sb.append(method).append('=').append(behaviour).append(';'));
+                sb.append('}');
+            }
+            sb.append('}');
+        }
+        return sb.toString();
+    }
+
+}
@@ -0,0 +1,11 @@
+package org.marionette.controlplane.adapters.outbound.resultsstore.document;
+
+import java.util.List;
+
+import org.marionette.controlplane.usecases.domain.configsnapshot.SystemConfigurationSnapshot;
+
+public record ConfigurationResultDocument(
+    String configurationId,
+    SystemConfigurationSnapshot snapshot,
+    List<ServiceMetricsDocument> services
+) {}
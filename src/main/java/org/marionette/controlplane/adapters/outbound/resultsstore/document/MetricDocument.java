@@ -0,0 +1,22 @@
+package org.marionette.controlplane.adapters.outbound.resultsstore.document;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.InstanceMetric;
+
+/*
+ * Histogram fields are null for metrics that were not collected as bucket counts.
+ * Samples are only found in runs stored before the sample blocks, newer runs keep them in the block of the run.
+ */
+public record MetricDocument(
+    String name,
+    double value,
+    Instant timestamp,
+    String unit,
+    List<InstanceMetric> instances,
+    List<Double> samples,
+    double[] histogramBounds,
+    double[] histogramCounts,
+    Double histogramQuantile
+) {}
@@ -0,0 +1,10 @@
+package org.marionette.controlplane.adapters.outbound.resultsstore.document;
+
+public record MetricMetadataDocument(
+    String metricName,
+    int order,
+    String direction,
+    String unit,
+    String estimator,
+    Double tolerance     // absent in runs stored before tolerances existed
+) {}
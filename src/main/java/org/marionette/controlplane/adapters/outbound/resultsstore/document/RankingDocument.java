@@ -0,0 +1,13 @@
+package org.marionette.controlplane.adapters.outbound.resultsstore.document;
+
+import java.util.List;
+import java.util.Map;
+
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.statistics.MetricDispersion;
+
+public record RankingDocument(
+    int rank,
+    String configurationId,
+    List<MetricDocument> systemMetrics,
+    Map<String, MetricDispersion> dispersions
+) {}
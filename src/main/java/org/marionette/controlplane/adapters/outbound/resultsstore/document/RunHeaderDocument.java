@@ -0,0 +1,14 @@
+package org.marionette.controlplane.adapters.outbound.resultsstore.document;
+
+import java.time.Instant;
+
+/*
+ * Small header stored in front of every record, the index is rebuilt from headers only
+ */
+public record RunHeaderDocument(
+    String runId,
+    Instant completedAt,
+    String fingerprint,
+    int configurationCount,
+    String bestConfigurationId
+) {}
@@ -0,0 +1,10 @@
+package org.marionette.controlplane.adapters.outbound.resultsstore.document;
+
+import java.util.List;
+
+import org.marionette.controlplane.usecases.domain.configsnapshot.ServiceSnapshot;
+
+public record ServiceMetricsDocument(
+    ServiceSnapshot serviceConfiguration,
+    List<MetricDocument> metrics
+) {}
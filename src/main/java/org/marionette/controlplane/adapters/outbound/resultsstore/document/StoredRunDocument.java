@@ -0,0 +1,16 @@
+package org.marionette.controlplane.adapters.outbound.resultsstore.document;
+
+import java.time.Instant;
+import java.util.List;
+
+/*
+ * Payload of a stored run: everything needed to rebuild the SingleAbnTestResult of the run
+ */
+public record StoredRunDocument(
+    String runId,
+    Instant completedAt,
+    String fingerprint,
+    List<MetricMetadataDocument> metricsConfiguration,
+    List<ConfigurationResultDocument> configurations,
+    List<RankingDocument> ranking
+) {}
@@ -0,0 +1,127 @@
+package org.marionette.controlplane.adapters.outbound.resultsstore.segment;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.timeseries.SampleSeries;
+
+/**
+ * The compressed samples of one run, one chunk per key. All integers big endian:
+ *
+ * <pre>
+ * magic (4) | chunk count (4) | (key length (4) | key (UTF-8) | chunk length (4))* | chunks in index order
+ * </pre>
+ *
+ * Blocks are written once, aside, and atomically moved in place. Reads go through a read-only memory mapping
+ * and chunks are views of it, nothing is decoded until the samples are iterated.
+ */
+public final class SampleBlockFile {
+
+    public static final int MAGIC = 0x4D534D42;   // "MSMB"
+
+    private final Path path;
+    private final Map<String, ByteBuffer> chunks;
+
+    private SampleBlockFile(Path path, Map<String, ByteBuffer> chunks) {
+        this.path = path;
+        this.chunks = chunks;
+    }
+
+    public static void write(Path path, Path temporary, Map<String, SampleSeries> chunks) throws IOException {
+        List<byte[]> keys = new ArrayList<>();
+        int indexSize = 2 * Integer.BYTES;
+        for (String key : chunks.keySet()) {
+            byte[] encodedKey = key.getBytes(StandardCharsets.UTF_8);
+            keys.add(encodedKey);
+            indexSize += 2 * Integer.BYTES + encodedKey.length;
+        }
+
+        ByteBuffer index = ByteBuffer.allocate(indexSize);
+        index.putInt(MAGIC);
+        index.putInt(keys.size());
+        int position = 0;
+        for (SampleSeries chunk : chunks.values()) {
+            index.putInt(keys.get(position).length);
+            index.put(keys.get(position));
+            index.putInt(chunk.encodedBytes());
+            position++;
+        }
+        index.flip();
+
+        try (FileChannel channel = FileChannel.open(temporary,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            writeFully(channel, index);
+            for (SampleSeries chunk : chunks.values()) {
+                writeFully(channel, chunk.encoded());
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static SampleBlockFile open(Path path) throws IOException {
+        MappedByteBuffer mapping;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (mapping.capacity() < 2 * Integer.BYTES || mapping.getInt(0) != MAGIC) {
+            throw new IOException("Not a sample block: " + path);
+        }
+        int count = mapping.getInt(Integer.BYTES);
+        int position = 2 * Integer.BYTES;
+        Map<String, Integer> lengths = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            int keyLength = mapping.getInt(position);
+            byte[] key = new byte[keyLength];
+            mapping.get(position + Integer.BYTES, key);
+            position += Integer.BYTES + keyLength;
+            lengths.put(new String(key, StandardCharsets.UTF_8), mapping.getInt(position));
+            position += Integer.BYTES;
+        }
+
+        Map<String, ByteBuffer> chunks = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> chunk : lengths.entrySet()) {
+            if (position + chunk.getValue() > mapping.capacity()) {
+                throw new IOException("Truncated sample block: " + path);
+            }
+            chunks.put(chunk.getKey(), mapping.slice(position, chunk.getValue()));
+            position += chunk.getValue();
+        }
+        return new SampleBlockFile(path, chunks);
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    public int chunkCount() {
+        return chunks.size();
+    }
+
+    /**
+     * The samples stored under the key, empty when there are none
+     */
+    public SampleSeries chunk(String key) {
+        ByteBuffer chunk = chunks.get(key);
+        return chunk != null ? SampleSeries.wrap(chunk) : SampleSeries.empty();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+}
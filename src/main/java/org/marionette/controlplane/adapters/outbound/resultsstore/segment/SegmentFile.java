@@ -0,0 +1,130 @@
+package org.marionette.controlplane.adapters.outbound.resultsstore.segment;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A single append-only file of records. Reads go through a read-only memory mapping of the file,
+ * which is refreshed when the file grows. Not thread safe, the store serializes access.
+ */
+public class SegmentFile implements AutoCloseable {
+
+    private final long id;
+    private final Path path;
+    private final FileChannel channel;
+    private long size;
+    private MappedByteBuffer mapping;
+
+    private SegmentFile(long id, Path path, FileChannel channel) throws IOException {
+        this.id = id;
+        this.path = path;
+        this.channel = channel;
+        this.size = channel.size();
+    }
+
+    public static SegmentFile open(long id, Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new SegmentFile(id, path, channel);
+    }
+
+    public long id() {
+        return id;
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Appends a record and forces it to disk, returns the record as it would be read back
+     */
+    public StoreRecord append(byte type, byte[] header, byte[] payload) throws IOException {
+        ByteBuffer encoded = StoreRecord.encode(type, header, payload);
+        long offset = size;
+        while (encoded.hasRemaining()) {
+            channel.write(encoded, offset + encoded.position());
+        }
+        channel.force(false);
+        size += encoded.limit();
+        return new StoreRecord(offset, type, header, payload.length);
+    }
+
+    /**
+     * Reads every valid record of the file. A torn or corrupted tail (e.g. a crash in the middle of an append)
+     * is cut off so that the next append starts from the last valid record.
+     */
+    public List<StoreRecord> scan() throws IOException {
+        List<StoreRecord> records = new ArrayList<>();
+        ByteBuffer buffer = mapped();
+        long offset = 0;
+
+        while (offset + StoreRecord.PREAMBLE_SIZE <= size) {
+            int position = (int) offset;
+            int magic = buffer.getInt(position);
+            byte type = buffer.get(position + 4);
+            int headerLength = buffer.getInt(position + 5);
+            int payloadLength = buffer.getInt(position + 9);
+            int expectedCrc = buffer.getInt(position + 13);
+
+            long end = offset + StoreRecord.PREAMBLE_SIZE + (long) headerLength + payloadLength;
+            if (magic != StoreRecord.MAGIC || headerLength < 0 || payloadLength < 0 || end > size) {
+                break;
+            }
+
+            ByteBuffer header = slice(buffer, offset + StoreRecord.PREAMBLE_SIZE, headerLength);
+            ByteBuffer payload = slice(buffer, offset + StoreRecord.PREAMBLE_SIZE + headerLength, payloadLength);
+            if (StoreRecord.checksum(type, header.duplicate(), payload) != expectedCrc) {
+                break;
+            }
+
+            byte[] headerBytes = new byte[headerLength];
+            header.get(headerBytes);
+            records.add(new StoreRecord(offset, type, headerBytes, payloadLength));
+            offset = end;
+        }
+
+        if (offset < size) {
+            System.err.println("⚠️ Discarding " + (size - offset) + " invalid bytes at the end of results segment " + path);
+            channel.truncate(offset);
+            size = offset;
+            mapping = null;
+        }
+        return records;
+    }
+
+    /**
+     * The payload of a record as a read-only view of the mapping, nothing is copied to the heap
+     */
+    public ByteBuffer payload(StoreRecord record) throws IOException {
+        return slice(mapped(), record.payloadOffset(), record.payloadLength()).asReadOnlyBuffer();
+    }
+
+    private ByteBuffer mapped() throws IOException {
+        if (mapping == null || mapping.capacity() != size) {
+            mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        return mapping;
+    }
+
+    private ByteBuffer slice(ByteBuffer buffer, long offset, int length) {
+        return buffer.slice((int) offset, length);
+    }
+
+    @Override
+    public void close() throws IOException {
+        mapping = null;
+        channel.close();
+    }
+
+}
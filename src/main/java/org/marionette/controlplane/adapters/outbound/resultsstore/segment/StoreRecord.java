@@ -0,0 +1,55 @@
+package org.marionette.controlplane.adapters.outbound.resultsstore.segment;
+
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+
+/**
+ * On-disk layout of a record, all integers big endian:
+ *
+ * <pre>
+ * magic (4) | type (1) | header length (4) | payload length (4) | CRC32 of type, header and payload (4) | header | payload
+ * </pre>
+ *
+ * The header is small and read when the index is rebuilt, the payload is only read when the record is requested.
+ */
+public record StoreRecord(long offset, byte type, byte[] header, int payloadLength) {
+
+    public static final int MAGIC = 0x4D52534C;   // "MRSL"
+    public static final int PREAMBLE_SIZE = 17;
+
+    public static final byte TYPE_RUN = 1;
+    public static final byte TYPE_TOMBSTONE = 2;
+
+    public long size() {
+        return PREAMBLE_SIZE + (long) header.length + payloadLength;
+    }
+
+    public long payloadOffset() {
+        return offset + PREAMBLE_SIZE + header.length;
+    }
+
+    public static ByteBuffer encode(byte type, byte[] header, byte[] payload) {
+        ByteBuffer buffer = ByteBuffer.allocate(PREAMBLE_SIZE + header.length + payload.length);
+        buffer.putInt(MAGIC);
+        buffer.put(type);
+        buffer.putInt(header.length);
+        buffer.putInt(payload.length);
+        buffer.putInt(checksum(type, ByteBuffer.wrap(header), ByteBuffer.wrap(payload)));
+        buffer.put(header);
+        buffer.put(payload);
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Checksum computed directly on the (possibly memory mapped) buffers, without copying them to the heap
+     */
+    static int checksum(byte type, ByteBuffer header, ByteBuffer payload) {
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(header);
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+}
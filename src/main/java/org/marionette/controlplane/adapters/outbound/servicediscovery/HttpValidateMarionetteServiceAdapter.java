@@ -1,40 +1,45 @@
 package org.marionette.controlplane.adapters.outbound.servicediscovery;
 
 import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.time.Duration;
 
+import org.marionette.controlplane.adapters.outbound.transport.OutboundHttpTransport;
 import org.marionette.controlplane.usecases.domain.dto.DiscoveredServiceMetadata;
+import org.marionette.controlplane.usecases.outbound.servicediscovery.CandidateVerdict;
+import org.marionette.controlplane.usecases.outbound.servicediscovery.CheckServiceHealthPort;
 import org.marionette.controlplane.usecases.outbound.servicediscovery.ValidateMarionetteServicePort;
 
 import static java.util.Objects.requireNonNull;
 
-public class HttpValidateMarionetteServiceAdapter implements ValidateMarionetteServicePort {
+public class HttpValidateMarionetteServiceAdapter implements ValidateMarionetteServicePort, CheckServiceHealthPort {
     
-    private final HttpClient httpClient;
+    private final OutboundHttpTransport transport;
     private final HttpValidateMarionetteServiceAdapterConfig config;
     
-    public HttpValidateMarionetteServiceAdapter(HttpValidateMarionetteServiceAdapterConfig config) {
+    public HttpValidateMarionetteServiceAdapter(HttpValidateMarionetteServiceAdapterConfig config, OutboundHttpTransport transport) {
 
         requireNonNull(config, "The configuration for the http validator of marionette nodes is null");
+        requireNonNull(transport, "The outbound HTTP transport cannot be null");
 
         this.config = config;
-        this.httpClient = HttpClient.newBuilder()
-            .connectTimeout(config.connectTimeout())
-            .build();
+        this.transport = transport;
     }
     
-    public HttpValidateMarionetteServiceAdapter() {
-        this(HttpValidateMarionetteServiceAdapterConfig.defaultConfig());
+    public HttpValidateMarionetteServiceAdapter(OutboundHttpTransport transport) {
+        this(HttpValidateMarionetteServiceAdapterConfig.defaultConfig(), transport);
     }
     
     @Override
-    public boolean validateCandidateNode(DiscoveredServiceMetadata candidate) {
-        return isValidMarionetteService(candidate.endpoint());
+    public CandidateVerdict validateCandidateNode(DiscoveredServiceMetadata candidate) {
+        return validateMarionetteService(candidate.endpoint());
     }
     
-    public boolean isValidMarionetteService(String serviceBaseUrl) {
+    /**
+     * Only a 4xx answer rejects the service, a service that never answers successfully is unreachable
+     */
+    public CandidateVerdict validateMarionetteService(String serviceBaseUrl) {
         URI baseEndpoint = URI.create(serviceBaseUrl);
         URI validationEndpoint = baseEndpoint.resolve(config.validationEndpointPath());
         
@@ -48,29 +53,52 @@ public class HttpValidateMarionetteServiceAdapter implements ValidateMarionetteS
                     .GET()
                     .build();
                 
-                HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                HttpResponse<String> response = transport.send(request, HttpResponse.BodyHandlers.ofString());
                 
                 int statusCode = response.statusCode();
                 if (statusCode >= 200 && statusCode < 300) {
                     System.out.println("The service " + baseEndpoint + " responded successfully to the probing");
-                    return true;
+                    return CandidateVerdict.MARIONETTE;
                 }
                 
                 if (statusCode >= 400 && statusCode < 500) {
                     System.out.println("The service " + baseEndpoint + " returned an error code - discarding...");
-                    return false;
+                    return CandidateVerdict.NOT_MARIONETTE;
                 }
                 
                 // In case of 5xx errors -> retry
 
+            } catch (InterruptedException e) {
+                // Discovery deadline reached, give up on this candidate
+                Thread.currentThread().interrupt();
+                System.out.println("Validation of " + baseEndpoint + " interrupted - no verdict");
+                return CandidateVerdict.UNREACHABLE;
             } catch (Exception e) {
                 // Any exception (timeout, connection error, etc.) - continue to retry
                 // Could log here: System.err.println("Attempt " + attempt + " failed: " + e.getMessage());
             }
         }
 
-        System.out.println("The service " + baseEndpoint + " did not respond to any of the attempts - discarding...");
+        System.out.println("The service " + baseEndpoint + " did not respond to any of the attempts - unreachable");
+
+        return CandidateVerdict.UNREACHABLE;
+    }
 
-        return false;
+    @Override
+    public boolean isResponding(URI serviceEndpoint, Duration timeout) {
+        HttpRequest request = HttpRequest.newBuilder()
+            .uri(serviceEndpoint.resolve(config.validationEndpointPath()))
+            .timeout(timeout)
+            .GET()
+            .build();
+        try {
+            int statusCode = transport.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            return statusCode >= 200 && statusCode < 300;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            return false;
+        }
     }
-}
\ No newline at end of file
+}
@@ -2,9 +2,9 @@ package org.marionette.controlplane.adapters.outbound.servicediscovery;
 
 import java.time.Duration;
 
+// The connect timeout is the one of the shared outbound transport
 public record HttpValidateMarionetteServiceAdapterConfig(
     String validationEndpointPath,
-    Duration connectTimeout,
     Duration requestTimeout,
     int maxRetries
 ) {
@@ -12,14 +12,13 @@ public record HttpValidateMarionetteServiceAdapterConfig(
     public static HttpValidateMarionetteServiceAdapterConfig defaultConfig() {
         return new HttpValidateMarionetteServiceAdapterConfig(
             "/marionette/api/isMarionette",
-            Duration.ofSeconds(5),
             Duration.ofSeconds(10),
             3
         );
     }
 
     public static HttpValidateMarionetteServiceAdapterConfig fromExternalConfigs(String validationEndpointPath) {
-        return new HttpValidateMarionetteServiceAdapterConfig(validationEndpointPath, Duration.ofSeconds(5),
+        return new HttpValidateMarionetteServiceAdapterConfig(validationEndpointPath,
             Duration.ofSeconds(10),
             3);
     }
@@ -0,0 +1,75 @@
+package org.marionette.controlplane.adapters.outbound.servicediscovery;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Settings of the Kubernetes service discovery, read from the environment:
+ * MARIONETTE_K8S_NAMESPACES comma separated allow-list of namespaces (all namespaces when empty),
+ * MARIONETTE_K8S_LABEL_SELECTOR label selector the services must match,
+ * MARIONETTE_K8S_PAGE_SIZE number of services per page when listing,
+ * MARIONETTE_K8S_WATCH false to disable the watch and list the services on every discovery,
+ * MARIONETTE_K8S_WATCH_TIMEOUT_SECONDS lifetime asked to the API server for each watch request,
+ * MARIONETTE_K8S_API_URL API server to use instead of the in-cluster or kubeconfig one (e.g. a stand-in).
+ */
+public record KubernetesDiscoveryConfiguration(
+    Set<String> namespaces,
+    Optional<String> labelSelector,
+    int pageSize,
+    boolean watchEnabled,
+    Duration watchTimeout,
+    Optional<String> apiServerUrl
+) {
+
+    private static final int DEFAULT_PAGE_SIZE = 500;
+    private static final long DEFAULT_WATCH_TIMEOUT_SECONDS = 300;
+
+    public KubernetesDiscoveryConfiguration {
+        namespaces = Set.copyOf(namespaces);
+    }
+
+    public static KubernetesDiscoveryConfiguration defaultConfig() {
+        return new KubernetesDiscoveryConfiguration(Set.of(), Optional.empty(), DEFAULT_PAGE_SIZE, true,
+                Duration.ofSeconds(DEFAULT_WATCH_TIMEOUT_SECONDS), Optional.empty());
+    }
+
+    public static KubernetesDiscoveryConfiguration loadFromEnv() {
+        String namespaces = System.getenv("MARIONETTE_K8S_NAMESPACES");
+        String watch = System.getenv("MARIONETTE_K8S_WATCH");
+        return new KubernetesDiscoveryConfiguration(
+                namespaces == null ? Set.of() : Arrays.stream(namespaces.split(","))
+                        .map(String::trim)
+                        .filter(namespace -> !namespace.isEmpty())
+                        .collect(Collectors.toSet()),
+                nonBlank(System.getenv("MARIONETTE_K8S_LABEL_SELECTOR")),
+                (int) parseLong(System.getenv("MARIONETTE_K8S_PAGE_SIZE"), DEFAULT_PAGE_SIZE),
+                watch == null || watch.isBlank() || Boolean.parseBoolean(watch.trim()),
+                Duration.ofSeconds(parseLong(System.getenv("MARIONETTE_K8S_WATCH_TIMEOUT_SECONDS"), DEFAULT_WATCH_TIMEOUT_SECONDS)),
+                nonBlank(System.getenv("MARIONETTE_K8S_API_URL")));
+    }
+
+    public boolean allNamespaces() {
+        return namespaces.isEmpty();
+    }
+
+    private static Optional<String> nonBlank(String value) {
+        return value == null || value.isBlank() ? Optional.empty() : Optional.of(value.trim());
+    }
+
+    private static long parseLong(String value, long defaultValue) {
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            long parsed = Long.parseLong(value.trim());
+            return parsed > 0 ? parsed : defaultValue;
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid Kubernetes discovery setting " + value + ", using " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+}
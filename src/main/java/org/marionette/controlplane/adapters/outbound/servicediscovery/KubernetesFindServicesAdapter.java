@@ -1,108 +1,336 @@
 package org.marionette.controlplane.adapters.outbound.servicediscovery;
 
+import java.io.IOException;
+import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
+import org.marionette.controlplane.exceptions.infrastructure.checked.FindCandidateServicesException;
 import org.marionette.controlplane.usecases.domain.dto.DiscoveredServiceMetadata;
+import org.marionette.controlplane.usecases.outbound.servicediscovery.CandidateServicesListener;
 import org.marionette.controlplane.usecases.outbound.servicediscovery.FindCandidateServicesPort;
+import org.marionette.controlplane.usecases.outbound.servicediscovery.WatchCandidateServicesPort;
+
+import com.google.gson.reflect.TypeToken;
 
 import io.kubernetes.client.openapi.ApiClient;
 import io.kubernetes.client.openapi.ApiException;
-import io.kubernetes.client.openapi.Configuration;
 import io.kubernetes.client.openapi.apis.CoreV1Api;
+import io.kubernetes.client.openapi.models.V1ListMeta;
 import io.kubernetes.client.openapi.models.V1Service;
 import io.kubernetes.client.openapi.models.V1ServiceList;
 import io.kubernetes.client.openapi.models.V1ServicePort;
 import io.kubernetes.client.util.Config;
+import io.kubernetes.client.util.Watch;
+import okhttp3.Call;
+
+import static java.util.Objects.requireNonNull;
 
-public class KubernetesFindServicesAdapter implements FindCandidateServicesPort {
+/**
+ * Finds the candidate services through the Kubernetes API. Services are listed page by page (limit/continue),
+ * only in the allowed namespaces and matching the label selector. When watching, one thread per scope (every
+ * namespace, or each allowed namespace) lists the services once and then follows a watch from the listed
+ * resource version, keeping a local cache up to date: discovery reads the cache instead of listing the cluster
+ * again and the listener gets the services that appear or disappear.
+ *
+ * The ApiClient is injected, so the adapter can be pointed at any API server (including a stand-in).
+ */
+public class KubernetesFindServicesAdapter implements FindCandidateServicesPort, WatchCandidateServicesPort {
 
+    private static final long INITIAL_BACKOFF_MILLIS = 1000;
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+    private static final int HTTP_GONE = 410;
+    private static final Type SERVICE_EVENT_TYPE = new TypeToken<Watch.Response<V1Service>>() {}.getType();
+
+    private final ApiClient apiClient;
     private final CoreV1Api coreV1Api;
+    private final KubernetesDiscoveryConfiguration config;
+    private final KubernetesServiceCache cache;
+    private final Set<Watch<V1Service>> openWatches = ConcurrentHashMap.newKeySet();
+    private final List<Thread> watchThreads = new ArrayList<>();
+    private volatile boolean watching;
+
+    public KubernetesFindServicesAdapter(ApiClient apiClient, KubernetesDiscoveryConfiguration config) {
+        requireNonNull(apiClient, "The Kubernetes API client cannot be null");
+        requireNonNull(config, "The Kubernetes discovery configuration cannot be null");
+        this.apiClient = apiClient;
+        this.coreV1Api = new CoreV1Api(apiClient);
+        this.config = config;
+        this.cache = new KubernetesServiceCache(config.allNamespaces() ? 1 : config.namespaces().size());
+    }
 
     public KubernetesFindServicesAdapter() throws RuntimeException {
+        this(defaultApiClient(KubernetesDiscoveryConfiguration.defaultConfig()), KubernetesDiscoveryConfiguration.defaultConfig());
+    }
+
+    /**
+     * Auto-configures from the cluster (if running inside K8s) or kubeconfig, unless an API server URL is given.
+     * Watches are long running requests, so the client never times out on reads.
+     */
+    public static ApiClient defaultApiClient(KubernetesDiscoveryConfiguration config) {
         try {
-            // Auto-configure from cluster (if running inside K8s) or kubeconfig
-            ApiClient client = Config.defaultClient();
-            Configuration.setDefaultApiClient(client);
-            this.coreV1Api = new CoreV1Api();
-        } catch (Exception e) {
-            throw new RuntimeException("Impossible to create the KubernetesServiceDiscoveryAdapter"); // TODO convert to
-                                                                                                      // domain exc
+            ApiClient client = config.apiServerUrl().isPresent()
+                    ? Config.fromUrl(config.apiServerUrl().get())
+                    : Config.defaultClient();
+            client.setHttpClient(client.getHttpClient().newBuilder()
+                    .readTimeout(0, TimeUnit.MILLISECONDS)
+                    .build());
+            return client;
+        } catch (IOException e) {
+            throw new RuntimeException("Impossible to create the Kubernetes API client for the service discovery", e);
         }
     }
 
+    /**
+     * @throws FindCandidateServicesException when a scope cannot be listed, with the services of the other scopes
+     */
     @Override
-    public List<DiscoveredServiceMetadata> findCandidateServices() {
+    public List<DiscoveredServiceMetadata> findCandidateServices() throws FindCandidateServicesException {
 
         System.out.println("=== Discovering Microservice Endpoints in Kubernetes cluster ===");
 
-        List<DiscoveredServiceMetadata> discoveredServices = new ArrayList<>();
-
-        for (Map.Entry<String, String> serviceWithEndpoint : getMicroserviceEndpoints().entrySet()) {
-            discoveredServices.add(
-                    new DiscoveredServiceMetadata(serviceWithEndpoint.getKey(),
-                            serviceWithEndpoint.getValue()));
+        List<DiscoveredServiceMetadata> discoveredServices;
+        if (watching && cache.isSynced()) {
+            discoveredServices = cache.snapshot();
+            System.out.println("Using the watched services cache (" + discoveredServices.size() + " services)");
+        } else {
+            discoveredServices = new ArrayList<>();
+            List<String> failedScopes = new ArrayList<>();
+            for (String scope : scopes()) {
+                try {
+                    listScope(scope).services().values().forEach(services -> discoveredServices.addAll(services.values()));
+                } catch (ApiException e) {
+                    System.err.println("Exception when getting services" + describeScope(scope) + ": " + e.getResponseBody());
+                    failedScopes.add(describeScope(scope).trim());
+                }
+            }
+            if (!failedScopes.isEmpty()) {
+                throw new FindCandidateServicesException("Kubernetes services could not be listed " + failedScopes,
+                        "The Kubernetes API server could not list every service", discoveredServices);
+            }
         }
 
         logDiscoveredServices(discoveredServices);
-        
+
         return discoveredServices;
 
     }
 
-    public Map<String, String> getMicroserviceEndpoints() {
-        Map<String, String> endpoints = new HashMap<>();
+    @Override
+    public synchronized void startWatching(CandidateServicesListener listener) {
+        requireNonNull(listener, "The listener of the candidate services cannot be null");
+        if (!config.watchEnabled() || watching) {
+            return;
+        }
+        watching = true;
+        for (String scope : scopes()) {
+            Thread thread = new Thread(() -> watchScope(scope, listener), "k8s-watch-" + (scope == null ? "all" : scope));
+            thread.setDaemon(true);
+            thread.start();
+            watchThreads.add(thread);
+        }
+        System.out.println("👀 Watching Kubernetes services" + describeScope(null));
+    }
 
-        try {
-            V1ServiceList serviceList = coreV1Api.listServiceForAllNamespaces(
-                    null, null, null, null, null, null, null, null, null, null);
+    @Override
+    public synchronized void stopWatching() {
+        watching = false;
+        for (Watch<V1Service> watch : openWatches) {
+            try {
+                watch.close();
+            } catch (IOException | RuntimeException e) {
+                // Closing only aborts the pending read
+            }
+        }
+        watchThreads.forEach(Thread::interrupt);
+        watchThreads.clear();
+    }
 
-            for (V1Service service : serviceList.getItems()) {
-                String serviceName = service.getMetadata().getName();
-                String namespace = service.getMetadata().getNamespace();
+    /**
+     * List, then watch from the listed resource version. A dropped watch is resumed from the last version it
+     * returned (replayed events leave the cache unchanged), the scope is listed again only when the server
+     * reports an error such as an expired version (410 Gone).
+     */
+    private void watchScope(String scope, CandidateServicesListener listener) {
+        long backoff = INITIAL_BACKOFF_MILLIS;
+        String resourceVersion = null;
 
-                // Skip system services (optional - you might want to include them)
-                if (isSystemService(serviceName, namespace)) {
+        while (watching) {
+            try {
+                if (resourceVersion == null) {
+                    ScopeListing listing = listScope(scope);
+                    resourceVersion = listing.resourceVersion();
+                    forward(cache.replaceScope(scope, listing.services()), listener);
+                }
+                resourceVersion = watchFrom(scope, resourceVersion, listener);
+                backoff = INITIAL_BACKOFF_MILLIS;
+            } catch (ApiException e) {
+                if (e.getCode() == HTTP_GONE) {
+                    resourceVersion = null;
                     continue;
                 }
+                backoff = pause("Kubernetes API error" + describeScope(scope) + ": " + e.getCode(), backoff);
+            } catch (RuntimeException e) {
+                backoff = pause("Kubernetes watch interrupted" + describeScope(scope) + ": " + e.getMessage(), backoff);
+            }
+        }
+    }
+
+    /**
+     * @return the resource version to resume from, null when it expired and the scope must be listed again
+     */
+    private String watchFrom(String scope, String resourceVersion, CandidateServicesListener listener) throws ApiException {
+        String labelSelector = config.labelSelector().orElse(null);
+        int timeoutSeconds = (int) config.watchTimeout().toSeconds();
+        Call call = scope == null
+                ? coreV1Api.listServiceForAllNamespacesCall(true, null, null, labelSelector, null, null,
+                        resourceVersion, null, timeoutSeconds, true, null)
+                : coreV1Api.listNamespacedServiceCall(scope, null, true, null, null, labelSelector, null,
+                        resourceVersion, null, timeoutSeconds, true, null);
 
-                if (hasPortConfigured(service)) {
-                    V1ServicePort port = service.getSpec().getPorts().get(0);
-                    String endpoint = formatKubernetesURL(serviceName, namespace, port.getPort());
-                    endpoints.put(serviceName, endpoint);
+        Watch<V1Service> watch = Watch.createWatch(apiClient, call, SERVICE_EVENT_TYPE);
+        openWatches.add(watch);
+        try {
+            for (Watch.Response<V1Service> event : watch) {
+                if ("ERROR".equals(event.type)) {
+                    // Usually 410 Gone, the status code is not always available: list again in every case
+                    return null;
+                }
+                V1Service service = event.object;
+                if (service == null || service.getMetadata() == null) {
+                    continue;
                 }
+                resourceVersion = service.getMetadata().getResourceVersion();
+                String namespace = service.getMetadata().getNamespace();
+                String name = service.getMetadata().getName();
+
+                switch (event.type) {
+                    case "ADDED", "MODIFIED" -> {
+                        DiscoveredServiceMetadata candidate = toCandidate(service);
+                        forward(candidate == null ? cache.remove(namespace, name) : cache.put(namespace, name, candidate), listener);
+                    }
+                    case "DELETED" -> forward(cache.remove(namespace, name), listener);
+                    default -> {
+                        // BOOKMARK: only the resource version moves
+                    }
+                }
+            }
+            return resourceVersion;
+        } finally {
+            openWatches.remove(watch);
+            try {
+                watch.close();
+            } catch (IOException e) {
+                // Already closed by the server
             }
-        } catch (ApiException e) {
-            System.err.println("Exception when getting services: " + e.getResponseBody());
         }
-
-        return endpoints;
     }
 
-    // Get microservices in a specific namespace (if you know your namespace)
-    public Map<String, String> getMicroserviceEndpointsInNamespace(CoreV1Api api, String namespace) {
-        Map<String, String> endpoints = new HashMap<>();
+    private record ScopeListing(Map<String, Map<String, DiscoveredServiceMetadata>> services, String resourceVersion) {}
 
-        try {
-            V1ServiceList serviceList = api.listNamespacedService(
-                    namespace, null, null, null, null, null, null, null, null, null, null);
+    /**
+     * Lists a scope page by page, following the continue token
+     */
+    private ScopeListing listScope(String scope) throws ApiException {
+        Map<String, Map<String, DiscoveredServiceMetadata>> services = new HashMap<>();
+        String labelSelector = config.labelSelector().orElse(null);
+        String continueToken = null;
+        String resourceVersion = null;
 
-            for (V1Service service : serviceList.getItems()) {
-                String serviceName = service.getMetadata().getName();
+        do {
+            V1ServiceList page = scope == null
+                    ? coreV1Api.listServiceForAllNamespaces(null, continueToken, null, labelSelector,
+                            config.pageSize(), null, null, null, null, null)
+                    : coreV1Api.listNamespacedService(scope, null, null, continueToken, null, labelSelector,
+                            config.pageSize(), null, null, null, null);
 
-                if (hasPortConfigured(service)) {
-                    V1ServicePort port = service.getSpec().getPorts().get(0);
-                    String endpoint = formatKubernetesURL(serviceName, namespace, port.getPort());
-                    endpoints.put(serviceName, endpoint);
+            for (V1Service service : page.getItems()) {
+                DiscoveredServiceMetadata candidate = toCandidate(service);
+                if (candidate != null) {
+                    services.computeIfAbsent(service.getMetadata().getNamespace(), namespace -> new HashMap<>())
+                            .put(service.getMetadata().getName(), candidate);
                 }
             }
-        } catch (ApiException e) {
-            System.err.println("Exception: " + e.getResponseBody());
+            V1ListMeta listMeta = page.getMetadata();
+            continueToken = listMeta == null ? null : listMeta.getContinue();
+            resourceVersion = listMeta == null ? null : listMeta.getResourceVersion();
+        } while (continueToken != null && !continueToken.isEmpty());
+
+        return new ScopeListing(services, resourceVersion);
+    }
+
+    /**
+     * @return null for services that are not candidates
+     */
+    private DiscoveredServiceMetadata toCandidate(V1Service service) {
+        if (service.getMetadata() == null || service.getSpec() == null) {
+            return null;
         }
+        String serviceName = service.getMetadata().getName();
+        String namespace = service.getMetadata().getNamespace();
 
-        return endpoints;
+        // Skip system services, unless their namespace was explicitly allowed
+        if (!config.namespaces().contains(namespace) && isSystemService(serviceName, namespace)) {
+            return null;
+        }
+        if (!hasPortConfigured(service)) {
+            return null;
+        }
+        V1ServicePort port = service.getSpec().getPorts().get(0);
+        return new DiscoveredServiceMetadata(serviceName, formatKubernetesURL(serviceName, namespace, port.getPort()));
+    }
+
+    private List<String> scopes() {
+        if (config.allNamespaces()) {
+            List<String> allNamespaces = new ArrayList<>();
+            allNamespaces.add(null);
+            return allNamespaces;
+        }
+        return List.copyOf(config.namespaces());
+    }
+
+    private static void forward(KubernetesServiceCache.Diff diff, CandidateServicesListener listener) {
+        if (diff.isEmpty()) {
+            return;
+        }
+        try {
+            if (!diff.removed().isEmpty()) {
+                listener.onCandidatesRemoved(diff.removed());
+            }
+            if (!diff.added().isEmpty()) {
+                listener.onCandidatesAdded(diff.added());
+            }
+        } catch (RuntimeException e) {
+            System.err.println("The listener of the candidate services failed: " + e.getMessage());
+        }
+    }
+
+    private long pause(String reason, long backoff) {
+        if (!watching) {
+            return backoff;
+        }
+        long sleep = backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+        System.err.println(reason + ", retrying in " + sleep + " ms");
+        try {
+            Thread.sleep(sleep);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            watching = false;
+        }
+        return Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+    }
+
+    private String describeScope(String scope) {
+        if (scope != null) {
+            return " in namespace " + scope;
+        }
+        return config.allNamespaces() ? " in all namespaces" : " in namespaces " + config.namespaces();
     }
 
     // Helper method to identify system services you might want to skip
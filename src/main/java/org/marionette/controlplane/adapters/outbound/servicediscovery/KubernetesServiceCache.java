@@ -0,0 +1,118 @@
+package org.marionette.controlplane.adapters.outbound.servicediscovery;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.marionette.controlplane.usecases.domain.dto.DiscoveredServiceMetadata;
+
+/**
+ * Local copy of the candidate services, indexed by namespace and then by service name. It is fed by the list
+ * and watch responses and every update returns the differences it made, so they can be forwarded as events.
+ * A scope is one watched namespace, or every namespace (null scope) when there is no allow-list.
+ */
+class KubernetesServiceCache {
+
+    record Diff(List<DiscoveredServiceMetadata> added, List<DiscoveredServiceMetadata> removed) {
+
+        static final Diff NONE = new Diff(List.of(), List.of());
+
+        boolean isEmpty() {
+            return added.isEmpty() && removed.isEmpty();
+        }
+    }
+
+    private final Map<String, Map<String, DiscoveredServiceMetadata>> byNamespace = new HashMap<>();
+    private final Set<String> syncedScopes = new HashSet<>();
+    private final int scopeCount;
+    private boolean allNamespacesSynced;
+
+    KubernetesServiceCache(int scopeCount) {
+        this.scopeCount = scopeCount;
+    }
+
+    /**
+     * Replaces the content of a scope with a full listing of it
+     *
+     * @param listed namespace -> service name -> candidate
+     */
+    synchronized Diff replaceScope(String scope, Map<String, Map<String, DiscoveredServiceMetadata>> listed) {
+        List<DiscoveredServiceMetadata> added = new ArrayList<>();
+        List<DiscoveredServiceMetadata> removed = new ArrayList<>();
+
+        Set<String> namespaces = new HashSet<>(listed.keySet());
+        if (scope == null) {
+            namespaces.addAll(byNamespace.keySet());
+        } else {
+            namespaces.add(scope);
+        }
+        for (String namespace : namespaces) {
+            Map<String, DiscoveredServiceMetadata> before = byNamespace.getOrDefault(namespace, Map.of());
+            Map<String, DiscoveredServiceMetadata> after = listed.getOrDefault(namespace, Map.of());
+            after.forEach((name, candidate) -> {
+                DiscoveredServiceMetadata previous = before.get(name);
+                if (!candidate.equals(previous)) {
+                    if (previous != null) {
+                        removed.add(previous);
+                    }
+                    added.add(candidate);
+                }
+            });
+            before.forEach((name, candidate) -> {
+                if (!after.containsKey(name)) {
+                    removed.add(candidate);
+                }
+            });
+            if (after.isEmpty()) {
+                byNamespace.remove(namespace);
+            } else {
+                byNamespace.put(namespace, new HashMap<>(after));
+            }
+        }
+
+        if (scope == null) {
+            allNamespacesSynced = true;
+        } else {
+            syncedScopes.add(scope);
+        }
+        return new Diff(added, removed);
+    }
+
+    synchronized Diff put(String namespace, String name, DiscoveredServiceMetadata candidate) {
+        DiscoveredServiceMetadata previous = byNamespace.computeIfAbsent(namespace, key -> new HashMap<>()).put(name, candidate);
+        if (Objects.equals(previous, candidate)) {
+            return Diff.NONE;
+        }
+        return new Diff(List.of(candidate), previous == null ? List.of() : List.of(previous));
+    }
+
+    synchronized Diff remove(String namespace, String name) {
+        Map<String, DiscoveredServiceMetadata> services = byNamespace.get(namespace);
+        DiscoveredServiceMetadata previous = services == null ? null : services.remove(name);
+        if (previous == null) {
+            return Diff.NONE;
+        }
+        if (services.isEmpty()) {
+            byNamespace.remove(namespace);
+        }
+        return new Diff(List.of(), List.of(previous));
+    }
+
+    /**
+     * True once every scope was listed at least once
+     */
+    synchronized boolean isSynced() {
+        return allNamespacesSynced || syncedScopes.size() == scopeCount;
+    }
+
+    synchronized List<DiscoveredServiceMetadata> snapshot() {
+        List<DiscoveredServiceMetadata> candidates = new ArrayList<>();
+        byNamespace.values().forEach(services -> candidates.addAll(services.values()));
+        return candidates;
+    }
+
+}
@@ -0,0 +1,30 @@
+package org.marionette.controlplane.adapters.outbound.simulation;
+
+import static java.util.Objects.requireNonNull;
+
+import org.marionette.controlplane.usecases.outbound.servicemanipulation.ChangeBehaviourData;
+import org.marionette.controlplane.usecases.outbound.servicemanipulation.ControlMarionetteServiceBehaviourGateway;
+
+/**
+ * Switches the behaviour in the simulated cluster, the warm-up of the new behaviour starts at the current
+ * simulated time
+ */
+public class SimulatedBehaviourControlAdapter implements ControlMarionetteServiceBehaviourGateway {
+
+    private final SimulatedCluster cluster;
+
+    public SimulatedBehaviourControlAdapter(SimulatedCluster cluster) {
+        requireNonNull(cluster, "The simulated cluster cannot be null");
+        this.cluster = cluster;
+    }
+
+    @Override
+    public void changeMarionetteServiceBehaviour(String serviceEndpoint, ChangeBehaviourData changeBehaviourData) {
+        cluster.changeBehaviour(
+                changeBehaviourData.serviceName(),
+                changeBehaviourData.className(),
+                changeBehaviourData.methodName(),
+                changeBehaviourData.newBehaviourId());
+    }
+
+}
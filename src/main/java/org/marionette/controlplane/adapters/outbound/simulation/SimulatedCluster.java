@@ -0,0 +1,172 @@
+package org.marionette.controlplane.adapters.outbound.simulation;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.marionette.controlplane.adapters.outbound.simulation.SimulationModel.BehaviourModel;
+import org.marionette.controlplane.adapters.outbound.simulation.SimulationModel.Interaction;
+import org.marionette.controlplane.adapters.outbound.simulation.SimulationModel.MethodModel;
+import org.marionette.controlplane.adapters.outbound.simulation.SimulationModel.MetricModel;
+import org.marionette.controlplane.adapters.outbound.simulation.SimulationModel.ServiceModel;
+import org.marionette.controlplane.usecases.domain.dto.ClassConfigData;
+import org.marionette.controlplane.usecases.domain.dto.MethodConfigData;
+import org.marionette.controlplane.usecases.domain.dto.ServiceConfigData;
+import org.marionette.controlplane.usecases.outbound.clock.ExperimentClock;
+
+/**
+ * The state of the simulated services: the behaviour active on every method, since when, and the performance
+ * model that turns it into metric values at a point of the simulated time. Shared by the simulated adapters.
+ */
+public class SimulatedCluster {
+
+    private final Map<String, ServiceModel> services = new LinkedHashMap<>();
+    private final ExperimentClock clock;
+    private final Instant start;
+    private final Random random;
+    private final Map<String, ActiveBehaviour> activeBehaviours = new ConcurrentHashMap<>();
+
+    // Since is null for the default behaviours, running since before the simulation started
+    private record ActiveBehaviour(BehaviourModel behaviour, Instant since) {}
+
+    public SimulatedCluster(SimulationModel model, ExperimentClock clock, long seed) {
+        requireNonNull(model, "The simulation model cannot be null");
+        requireNonNull(clock, "The clock of the simulation cannot be null");
+        this.clock = clock;
+        this.start = clock.now();
+        this.random = new Random(seed);
+
+        for (ServiceModel service : model.services()) {
+            services.put(service.name(), service);
+            for (MethodModel method : service.methods()) {
+                if (method.behaviours().isEmpty()) {
+                    throw new IllegalArgumentException("Method " + method.className() + "." + method.methodName()
+                            + " of simulated service " + service.name() + " has no behaviour");
+                }
+                activeBehaviours.put(methodKey(service.name(), method.className(), method.methodName()),
+                        new ActiveBehaviour(method.behaviours().get(0), null));
+            }
+        }
+    }
+
+    public List<String> serviceNames() {
+        return List.copyOf(services.keySet());
+    }
+
+    public boolean hasService(String serviceName) {
+        return services.containsKey(serviceName);
+    }
+
+    public String endpointOf(String serviceName) {
+        return "http://" + serviceName + ".simulation:8080";
+    }
+
+    /**
+     * The service behind an endpoint returned by endpointOf
+     */
+    public Optional<String> serviceAt(String endpoint) {
+        return services.keySet().stream().filter(name -> endpointOf(name).equals(endpoint)).findFirst();
+    }
+
+    public ServiceConfigData configurationOf(String serviceName) {
+        ServiceModel service = requireService(serviceName);
+        Map<String, List<MethodConfigData>> methodsByClass = new LinkedHashMap<>();
+        for (MethodModel method : service.methods()) {
+            List<String> available = method.behaviours().stream().map(BehaviourModel::id).toList();
+            String current = activeBehaviours.get(methodKey(serviceName, method.className(), method.methodName()))
+                    .behaviour().id();
+            methodsByClass.computeIfAbsent(method.className(), k -> new ArrayList<>())
+                    .add(new MethodConfigData(method.methodName(), available.get(0), current, available));
+        }
+        List<ClassConfigData> classes = new ArrayList<>();
+        methodsByClass.forEach((className, methods) -> classes.add(new ClassConfigData(className, methods)));
+        return new ServiceConfigData(serviceName, classes);
+    }
+
+    public void changeBehaviour(String serviceName, String className, String methodName, String behaviourId) {
+        MethodModel method = requireService(serviceName).methods().stream()
+                .filter(m -> m.className().equals(className) && m.methodName().equals(methodName))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Simulated service " + serviceName + " has no method "
+                        + className + "." + methodName));
+        BehaviourModel behaviour = method.behaviours().stream()
+                .filter(b -> b.id().equals(behaviourId))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown behaviour " + behaviourId + " for "
+                        + className + "." + methodName));
+
+        String key = methodKey(serviceName, className, methodName);
+        ActiveBehaviour previous = activeBehaviours.get(key);
+        if (previous == null || !previous.behaviour().id().equals(behaviourId)) {
+            activeBehaviours.put(key, new ActiveBehaviour(behaviour, clock.now()));
+        }
+    }
+
+    public int podsOf(String serviceName) {
+        return requireService(serviceName).pods();
+    }
+
+    public boolean hasMetric(String serviceName, String metricName) {
+        ServiceModel service = services.get(serviceName);
+        return service != null && service.metrics().containsKey(metricName);
+    }
+
+    /**
+     * One noisy observation of the metric of the service at the given simulated time, as measured on one pod
+     */
+    public double sample(String serviceName, String metricName, Instant at) {
+        ServiceModel service = requireService(serviceName);
+        MetricModel baseline = service.metrics().get(metricName);
+        if (baseline == null) {
+            throw new IllegalArgumentException("Simulated service " + serviceName + " has no metric " + metricName);
+        }
+
+        double hours = Duration.between(start, at).toMillis() / 3_600_000.0;
+        double mean = baseline.mean() * (1 + baseline.driftPerHour() * hours);
+        double noise = baseline.noise();
+
+        for (MethodModel method : service.methods()) {
+            ActiveBehaviour active = activeBehaviours.get(methodKey(serviceName, method.className(), method.methodName()));
+            BehaviourModel behaviour = active.behaviour();
+            mean *= behaviour.effectOn(metricName) * (1 + behaviour.driftPerHour() * hours);
+            if (behaviour.warmUp() != null && active.since() != null) {
+                mean *= behaviour.warmUp().factorAfter(Math.max(0, Duration.between(active.since(), at).toMillis() / 1000.0));
+            }
+            for (Interaction interaction : behaviour.interactions()) {
+                if (isActive(interaction)) {
+                    mean *= interaction.effects().getOrDefault(metricName, 1.0);
+                }
+            }
+            noise += behaviour.noise();
+        }
+
+        return Math.max(0, mean * (1 + noise * random.nextGaussian()));
+    }
+
+    private boolean isActive(Interaction interaction) {
+        ActiveBehaviour other = activeBehaviours.get(methodKey(interaction.service(), interaction.className(),
+                interaction.methodName()));
+        return other != null && other.behaviour().id().equals(interaction.behaviour());
+    }
+
+    private ServiceModel requireService(String serviceName) {
+        ServiceModel service = services.get(serviceName);
+        if (service == null) {
+            throw new IllegalArgumentException("Unknown simulated service " + serviceName);
+        }
+        return service;
+    }
+
+    private static String methodKey(String serviceName, String className, String methodName) {
+        return serviceName + "/" + className + "/" + methodName;
+    }
+
+}
@@ -0,0 +1,31 @@
+package org.marionette.controlplane.adapters.outbound.simulation;
+
+import static java.util.Objects.requireNonNull;
+
+import org.marionette.controlplane.exceptions.infrastructure.checked.FetchMarionetteConfigurationException;
+import org.marionette.controlplane.usecases.domain.dto.ServiceConfigData;
+import org.marionette.controlplane.usecases.outbound.fetchconfig.FetchMarionetteConfigurationGateway;
+
+/**
+ * Serves the configuration of a simulated service, with the behaviours currently active in the simulation
+ */
+public class SimulatedMarionetteConfigAdapter implements FetchMarionetteConfigurationGateway {
+
+    private final SimulatedCluster cluster;
+
+    public SimulatedMarionetteConfigAdapter(SimulatedCluster cluster) {
+        requireNonNull(cluster, "The simulated cluster cannot be null");
+        this.cluster = cluster;
+    }
+
+    @Override
+    public ServiceConfigData fetchMarionetteConfiguration(String marionetteServiceEndpoint)
+            throws FetchMarionetteConfigurationException {
+        String serviceName = cluster.serviceAt(marionetteServiceEndpoint)
+                .orElseThrow(() -> new FetchMarionetteConfigurationException(
+                        "No simulated service at " + marionetteServiceEndpoint,
+                        "Impossible to locate the service at the url " + marionetteServiceEndpoint));
+        return cluster.configurationOf(serviceName);
+    }
+
+}
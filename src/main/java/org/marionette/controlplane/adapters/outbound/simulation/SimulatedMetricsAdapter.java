@@ -0,0 +1,91 @@
+package org.marionette.controlplane.adapters.outbound.simulation;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.marionette.controlplane.adapters.outbound.fetchmetrics.AggregateMetricAssembler;
+import org.marionette.controlplane.adapters.outbound.fetchmetrics.prometheus.configuration.PrometheusConfiguration;
+import org.marionette.controlplane.adapters.outbound.fetchmetrics.prometheus.domain.PrometheusMetricConfig;
+import org.marionette.controlplane.usecases.outbound.clock.ExperimentClock;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.FetchMarionetteNodesMetricsGateway;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.AggregateMetric;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.timeseries.SampleSeries;
+
+/**
+ * Measures the configured metrics on the simulated cluster: one observation per pod and sampling period over
+ * the slice that just ended in simulated time. Every pod is averaged over the slice and the pods are reduced
+ * with the service aggregator of the metric, the samples are one reduced value per period, the same way as
+ * the values read from Prometheus. Metrics the model does not describe for a service are left out, as
+ * Prometheus would return nothing for them.
+ */
+public class SimulatedMetricsAdapter implements FetchMarionetteNodesMetricsGateway {
+
+    private final SimulatedCluster cluster;
+    private final PrometheusConfiguration config;
+    private final ExperimentClock clock;
+    private final AggregateMetricAssembler assembler = new AggregateMetricAssembler();
+
+    public SimulatedMetricsAdapter(SimulatedCluster cluster, PrometheusConfiguration config, ExperimentClock clock) {
+        requireNonNull(cluster, "The simulated cluster cannot be null");
+        requireNonNull(config, "The metrics configuration cannot be null");
+        requireNonNull(clock, "The clock of the simulation cannot be null");
+        this.cluster = cluster;
+        this.config = config;
+        this.clock = clock;
+    }
+
+    @Override
+    public List<AggregateMetric> fetchMetricsForService(String serviceName, Duration timeSpan, Duration samplingPeriod) {
+        if (!cluster.hasService(serviceName)) {
+            System.err.println("No simulated service " + serviceName + ", no metrics collected");
+            return List.of();
+        }
+
+        Instant end = clock.now();
+        Instant from = end.minus(timeSpan);
+        Duration step = samplingPeriod.isZero() || samplingPeriod.isNegative() ? timeSpan : samplingPeriod;
+
+        List<AggregateMetric> metrics = new ArrayList<>();
+        for (PrometheusMetricConfig definition : config.getMetrics()) {
+            String metricName = definition.getDisplayName();
+            if (!cluster.hasMetric(serviceName, metricName)) {
+                continue;
+            }
+
+            int pods = cluster.podsOf(serviceName);
+            double[] podSums = new double[pods];
+            double[] stepValues = new double[pods];
+            int steps = 0;
+            SampleSeries.Builder samples = new SampleSeries.Builder();
+            for (Instant at = from.plus(step); !at.isAfter(end) || steps == 0; at = at.plus(step)) {
+                // A slice shorter than the sampling period still gets one observation, at its end
+                Instant observedAt = at.isAfter(end) ? end : at;
+                for (int pod = 0; pod < pods; pod++) {
+                    stepValues[pod] = cluster.sample(serviceName, metricName, observedAt);
+                    podSums[pod] += stepValues[pod];
+                }
+                samples.append(observedAt.toEpochMilli(), assembler.reduceStep(definition, stepValues.clone()));
+                steps++;
+            }
+
+            List<String> podNames = new ArrayList<>(pods);
+            double[] podValues = new double[pods];
+            for (int pod = 0; pod < pods; pod++) {
+                podNames.add(serviceName + "-" + pod);
+                podValues[pod] = podSums[pod] / steps;
+            }
+
+            AggregateMetric metric = assembler.fromInstances(definition, podNames, podValues, end);
+            if (definition.getEstimator().requiresSamples()) {
+                metric = metric.withSamples(samples.build());
+            }
+            metrics.add(metric);
+        }
+        return metrics;
+    }
+
+}
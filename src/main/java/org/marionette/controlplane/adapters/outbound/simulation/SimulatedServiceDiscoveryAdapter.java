@@ -0,0 +1,56 @@
+package org.marionette.controlplane.adapters.outbound.simulation;
+
+import static java.util.Objects.requireNonNull;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+
+import org.marionette.controlplane.usecases.domain.dto.DiscoveredServiceMetadata;
+import org.marionette.controlplane.usecases.outbound.servicediscovery.CandidateServicesListener;
+import org.marionette.controlplane.usecases.outbound.servicediscovery.CandidateVerdict;
+import org.marionette.controlplane.usecases.outbound.servicediscovery.CheckServiceHealthPort;
+import org.marionette.controlplane.usecases.outbound.servicediscovery.FindCandidateServicesPort;
+import org.marionette.controlplane.usecases.outbound.servicediscovery.ValidateMarionetteServicePort;
+import org.marionette.controlplane.usecases.outbound.servicediscovery.WatchCandidateServicesPort;
+
+/**
+ * Discovery ports over the simulated services: every service of the model is a valid, always healthy
+ * Marionette service, and services never come and go so there is nothing to watch.
+ */
+public class SimulatedServiceDiscoveryAdapter implements FindCandidateServicesPort, WatchCandidateServicesPort,
+        ValidateMarionetteServicePort, CheckServiceHealthPort {
+
+    private final SimulatedCluster cluster;
+
+    public SimulatedServiceDiscoveryAdapter(SimulatedCluster cluster) {
+        requireNonNull(cluster, "The simulated cluster cannot be null");
+        this.cluster = cluster;
+    }
+
+    @Override
+    public List<DiscoveredServiceMetadata> findCandidateServices() {
+        return cluster.serviceNames().stream()
+                .map(name -> new DiscoveredServiceMetadata(name, cluster.endpointOf(name)))
+                .toList();
+    }
+
+    @Override
+    public void startWatching(CandidateServicesListener listener) {
+    }
+
+    @Override
+    public void stopWatching() {
+    }
+
+    @Override
+    public CandidateVerdict validateCandidateNode(DiscoveredServiceMetadata candidate) {
+        return cluster.hasService(candidate.serviceName()) ? CandidateVerdict.MARIONETTE : CandidateVerdict.NOT_MARIONETTE;
+    }
+
+    @Override
+    public boolean isResponding(URI serviceEndpoint, Duration timeout) {
+        return cluster.serviceAt(serviceEndpoint.toString()).isPresent();
+    }
+
+}
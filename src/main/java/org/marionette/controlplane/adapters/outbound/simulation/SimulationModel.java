@@ -0,0 +1,135 @@
+package org.marionette.controlplane.adapters.outbound.simulation;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+/**
+ * Parametric performance model of the simulated services, usually read from a JSON file.
+ *
+ * Every service has a baseline per metric (keyed by the display name of the configured metric) and methods
+ * whose first behaviour is the default one. The value of a metric at a given time is the baseline mean, scaled
+ * by the effect of every active behaviour of the service, by the interactions of those behaviours with the
+ * behaviours active elsewhere, by the drift accumulated since the start and by the warm-up of behaviours that
+ * were switched on recently. Noise is relative gaussian noise around that value, drawn independently for each
+ * of the pods of the service (one when the model does not say).
+ */
+public record SimulationModel(List<ServiceModel> services) {
+
+    public SimulationModel {
+        services = services != null ? List.copyOf(services) : List.of();
+    }
+
+    public record ServiceModel(String name, Map<String, MetricModel> metrics, List<MethodModel> methods, int pods) {
+
+        public ServiceModel {
+            metrics = metrics != null ? Map.copyOf(metrics) : Map.of();
+            methods = methods != null ? List.copyOf(methods) : List.of();
+            pods = Math.max(1, pods);
+        }
+
+        public ServiceModel(String name, Map<String, MetricModel> metrics, List<MethodModel> methods) {
+            this(name, metrics, methods, 1);
+        }
+    }
+
+    /**
+     * Baseline of a metric: mean value, relative noise (0.05 is a 5% standard deviation) and relative drift per hour
+     */
+    public record MetricModel(double mean, double noise, double driftPerHour) {}
+
+    public record MethodModel(String className, String methodName, List<BehaviourModel> behaviours) {
+
+        public MethodModel {
+            behaviours = behaviours != null ? List.copyOf(behaviours) : List.of();
+        }
+    }
+
+    /**
+     * Effects are multipliers of the metric means (missing metrics are not affected), the noise adds to the
+     * baseline one while the behaviour is active
+     */
+    public record BehaviourModel(String id, Map<String, Double> effects, double noise, double driftPerHour,
+            WarmUp warmUp, List<Interaction> interactions) {
+
+        public BehaviourModel {
+            effects = effects != null ? Map.copyOf(effects) : Map.of();
+            interactions = interactions != null ? List.copyOf(interactions) : List.of();
+        }
+
+        double effectOn(String metric) {
+            return effects.getOrDefault(metric, 1.0);
+        }
+    }
+
+    /**
+     * Right after the behaviour is switched on the metrics are scaled by the initial factor, which decays
+     * exponentially to 1 with the given time constant
+     */
+    public record WarmUp(double initialFactor, double seconds) {
+
+        double factorAfter(double elapsedSeconds) {
+            if (seconds <= 0) {
+                return 1.0;
+            }
+            return 1.0 + (initialFactor - 1.0) * Math.exp(-elapsedSeconds / seconds);
+        }
+    }
+
+    /**
+     * Extra multipliers applied while another behaviour, possibly of another service, is active as well
+     */
+    public record Interaction(String service, String className, String methodName, String behaviour,
+            Map<String, Double> effects) {
+
+        public Interaction {
+            effects = effects != null ? Map.copyOf(effects) : Map.of();
+        }
+    }
+
+    public static SimulationModel load(Path path) throws IOException {
+        return JsonMapper.builder()
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .build()
+                .readValue(path.toFile(), SimulationModel.class);
+    }
+
+    /**
+     * Two services with the metrics of the default deployment: a frontend whose cached search is faster once warm
+     * but costs memory, and a backend whose batched loads only pay off without the frontend cache.
+     */
+    public static SimulationModel builtIn() {
+        String latency = "P95 Response Time";
+        String memory = "JVM Heap Memory";
+        String cpu = "Process CPU Usage";
+
+        ServiceModel frontend = new ServiceModel("frontend",
+                Map.of(latency, new MetricModel(0.180, 0.08, 0.01),
+                        memory, new MetricModel(350e6, 0.03, 0.02),
+                        cpu, new MetricModel(0.35, 0.10, 0.0)),
+                List.of(new MethodModel("org.example.catalog.SearchService", "search", List.of(
+                        new BehaviourModel("default", Map.of(), 0, 0, null, List.of()),
+                        new BehaviourModel("cached", Map.of(latency, 0.6, memory, 1.4), 0.02, 0.0,
+                                new WarmUp(2.0, 120), List.of()),
+                        new BehaviourModel("parallel", Map.of(latency, 0.8, cpu, 1.5), 0.05, 0.0, null, List.of())))),
+                3);
+
+        ServiceModel backend = new ServiceModel("backend",
+                Map.of(latency, new MetricModel(0.090, 0.06, 0.0),
+                        memory, new MetricModel(500e6, 0.02, 0.0),
+                        cpu, new MetricModel(0.50, 0.08, 0.005)),
+                List.of(new MethodModel("org.example.inventory.Repository", "load", List.of(
+                        new BehaviourModel("default", Map.of(), 0, 0, null, List.of()),
+                        new BehaviourModel("batched", Map.of(latency, 0.85, cpu, 0.9), 0.0, 0.0, new WarmUp(1.3, 30),
+                                List.of(new Interaction("frontend", "org.example.catalog.SearchService", "search", "cached",
+                                        Map.of(latency, 1.3))))))),
+                2);
+
+        return new SimulationModel(List.of(frontend, backend));
+    }
+
+}
@@ -0,0 +1,38 @@
+package org.marionette.controlplane.adapters.outbound.simulation;
+
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Settings of the simulation profile, read from the environment:
+ * MARIONETTE_SIMULATION_MODEL is the JSON file of the simulated services (a small built-in model without it)
+ * and MARIONETTE_SIMULATION_SEED the seed of the measurement noise, so that two runs can be compared.
+ */
+public record SimulationSettings(Optional<Path> model, long seed) {
+
+    private static final long DEFAULT_SEED = 42;
+
+    public static SimulationSettings defaultSettings() {
+        return new SimulationSettings(Optional.empty(), DEFAULT_SEED);
+    }
+
+    public static SimulationSettings loadFromEnv() {
+        String model = System.getenv("MARIONETTE_SIMULATION_MODEL");
+        return new SimulationSettings(
+                model != null && !model.isBlank() ? Optional.of(Path.of(model.trim())) : Optional.empty(),
+                parseLong(System.getenv("MARIONETTE_SIMULATION_SEED"), DEFAULT_SEED));
+    }
+
+    private static long parseLong(String value, long defaultValue) {
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid simulation setting " + value + ", using " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+}
@@ -0,0 +1,40 @@
+package org.marionette.controlplane.adapters.outbound.simulation;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.marionette.controlplane.usecases.outbound.clock.ExperimentClock;
+
+/**
+ * Simulated time, starting at the given instant. Sleeping returns immediately after moving the clock
+ * forward, so an experiment of hours runs as fast as the code around the sleeps.
+ */
+public class VirtualClock implements ExperimentClock {
+
+    private final AtomicLong epochMillis;
+
+    public VirtualClock(Instant start) {
+        this.epochMillis = new AtomicLong(start.toEpochMilli());
+    }
+
+    @Override
+    public Instant now() {
+        return Instant.ofEpochMilli(epochMillis.get());
+    }
+
+    @Override
+    public void sleep(Duration duration) throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException("Interrupted while sleeping in virtual time");
+        }
+        advance(duration);
+    }
+
+    public void advance(Duration duration) {
+        if (!duration.isNegative()) {
+            epochMillis.addAndGet(duration.toMillis());
+        }
+    }
+
+}
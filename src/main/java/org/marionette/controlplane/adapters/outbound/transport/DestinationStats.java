@@ -0,0 +1,18 @@
+package org.marionette.controlplane.adapters.outbound.transport;
+
+/**
+ * Requests sent to one host:port since startup. Failures are the calls that got no response (connection error,
+ * timeout), error responses are counted by status class.
+ */
+public record DestinationStats(
+    String destination,
+    long requests,
+    long failures,
+    long responses2xx,
+    long responses3xx,
+    long responses4xx,
+    long responses5xx,
+    int inFlight,
+    long averageLatencyMillis,
+    long maxLatencyMillis
+) {}
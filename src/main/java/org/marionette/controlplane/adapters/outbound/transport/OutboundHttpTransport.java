@@ -0,0 +1,291 @@
+package org.marionette.controlplane.adapters.outbound.transport;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpClient.Redirect;
+import java.net.http.HttpClient.Version;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * The single outbound HTTP stack of the control plane, used by every adapter that talks to services,
+ * Prometheus or pods.
+ *
+ * Two JDK clients share one executor: plain http destinations use HTTP/1.1 (services inside the cluster do
+ * not speak h2c), https destinations negotiate HTTP/2 through ALPN and fall back to HTTP/1.1. The JDK clients
+ * pool and keep alive connections per host:port; on top of that every destination gets a bound on the requests
+ * in flight and its own request, status and latency counters. Calls without a timeout get the default one,
+ * which also bounds the wait for a free slot of the destination.
+ * Calls fanned out by the adapters run on a separate bounded pool, so they never starve the clients.
+ *
+ * RestTemplate users get the same clients, limits and metrics through {@link #restTemplate()}.
+ */
+public class OutboundHttpTransport implements AutoCloseable {
+
+    private final OutboundHttpTransportSettings settings;
+    private final ExecutorService clientExecutor;
+    private final ExecutorService fanOutExecutor;
+    private final HttpClient plainClient;
+    private final HttpClient tlsClient;
+    private final Map<String, Destination> destinations = new ConcurrentHashMap<>();
+
+    /**
+     * Limit and counters of one host:port
+     */
+    private final class Destination {
+        final String name;
+        final Semaphore permits = new Semaphore(settings.maxConcurrentPerDestination());
+        final AtomicLong requests = new AtomicLong();
+        final AtomicLong failures = new AtomicLong();
+        final AtomicLong[] statusClasses = { new AtomicLong(), new AtomicLong(), new AtomicLong(), new AtomicLong() };
+        final AtomicLong totalNanos = new AtomicLong();
+        final AtomicLong maxNanos = new AtomicLong();
+
+        Destination(String name) {
+            this.name = name;
+        }
+
+        void acquire(Duration timeout) throws InterruptedException, HttpTimeoutException {
+            if (!permits.tryAcquire(timeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                throw new HttpTimeoutException("No free connection to " + name + " within " + timeout.toMillis() + " ms, "
+                        + settings.maxConcurrentPerDestination() + " requests already in flight");
+            }
+        }
+
+        void release(long startNanos, int statusCode) {
+            permits.release();
+            long nanos = System.nanoTime() - startNanos;
+            requests.incrementAndGet();
+            totalNanos.addAndGet(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+            if (statusCode < 0) {
+                failures.incrementAndGet();
+            } else if (statusCode >= 200 && statusCode < 600) {
+                statusClasses[statusCode / 100 - 2].incrementAndGet();
+            }
+        }
+
+        DestinationStats stats() {
+            long count = requests.get();
+            return new DestinationStats(name, count, failures.get(),
+                    statusClasses[0].get(), statusClasses[1].get(), statusClasses[2].get(), statusClasses[3].get(),
+                    settings.maxConcurrentPerDestination() - permits.availablePermits(),
+                    count == 0 ? 0 : Duration.ofNanos(totalNanos.get() / count).toMillis(),
+                    Duration.ofNanos(maxNanos.get()).toMillis());
+        }
+    }
+
+    public OutboundHttpTransport(OutboundHttpTransportSettings settings) {
+        requireNonNull(settings, "The settings of the outbound HTTP transport cannot be null");
+        this.settings = settings;
+
+        // Read by the JDK client when its connection pool is first used
+        if (System.getProperty("jdk.httpclient.keepalive.timeout") == null) {
+            System.setProperty("jdk.httpclient.keepalive.timeout", Long.toString(settings.keepAlive().toSeconds()));
+        }
+
+        AtomicInteger ids = new AtomicInteger();
+        this.clientExecutor = Executors.newCachedThreadPool(runnable -> daemon(runnable, "outbound-http-" + ids.incrementAndGet()));
+        ThreadPoolExecutor fanOut = new ThreadPoolExecutor(settings.workerThreads(), settings.workerThreads(),
+                60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                runnable -> daemon(runnable, "outbound-fanout-" + ids.incrementAndGet()));
+        fanOut.allowCoreThreadTimeOut(true);
+        this.fanOutExecutor = fanOut;
+
+        this.plainClient = newClient(Version.HTTP_1_1);
+        this.tlsClient = newClient(Version.HTTP_2);
+    }
+
+    public OutboundHttpTransport() {
+        this(OutboundHttpTransportSettings.defaultSettings());
+    }
+
+    private HttpClient newClient(Version version) {
+        return HttpClient.newBuilder()
+                .version(version)
+                .followRedirects(Redirect.NORMAL)
+                .connectTimeout(settings.connectTimeout())
+                .executor(clientExecutor)
+                .build();
+    }
+
+    /**
+     * Sends the request on the client of its scheme, within the limit of its destination
+     */
+    public <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler)
+            throws IOException, InterruptedException {
+        HttpRequest withTimeout = request.timeout().isPresent()
+                ? request
+                : HttpRequest.newBuilder(request, (name, value) -> true).timeout(settings.requestTimeout()).build();
+
+        Destination destination = destinationOf(withTimeout.uri());
+        destination.acquire(withTimeout.timeout().get());
+        long start = System.nanoTime();
+        int statusCode = -1;
+        try {
+            HttpResponse<T> response = clientFor(withTimeout.uri()).send(withTimeout, bodyHandler);
+            statusCode = response.statusCode();
+            return response;
+        } finally {
+            destination.release(start, statusCode);
+        }
+    }
+
+    /**
+     * RestTemplate on the shared clients, with the destination limits, the metrics and the default timeout
+     */
+    public RestTemplate restTemplate() {
+        RestTemplate restTemplate = new RestTemplate(clientHttpRequestFactory());
+        restTemplate.getInterceptors().add(meteringInterceptor());
+        return restTemplate;
+    }
+
+    public ClientHttpRequestFactory clientHttpRequestFactory() {
+        JdkClientHttpRequestFactory plain = new JdkClientHttpRequestFactory(plainClient, clientExecutor);
+        JdkClientHttpRequestFactory tls = new JdkClientHttpRequestFactory(tlsClient, clientExecutor);
+        plain.setReadTimeout(settings.requestTimeout());
+        tls.setReadTimeout(settings.requestTimeout());
+        return (uri, method) -> ("https".equalsIgnoreCase(uri.getScheme()) ? tls : plain).createRequest(uri, method);
+    }
+
+    private ClientHttpRequestInterceptor meteringInterceptor() {
+        return (request, body, execution) -> {
+            Destination destination = destinationOf(request.getURI());
+            try {
+                destination.acquire(settings.requestTimeout());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for a connection to " + destination.name, e);
+            }
+            long start = System.nanoTime();
+            ClientHttpResponse response;
+            int statusCode;
+            try {
+                response = execution.execute(request, body);
+                statusCode = response.getStatusCode().value();
+            } catch (IOException | RuntimeException e) {
+                destination.release(start, -1);
+                throw e;
+            }
+            // The body is still unread at this point, the slot is given back when the caller closes the response
+            return new ReleasingResponse(response, destination, start, statusCode);
+        };
+    }
+
+    /**
+     * Holds the permit of its destination until it is closed
+     */
+    private static final class ReleasingResponse implements ClientHttpResponse {
+        private final ClientHttpResponse delegate;
+        private final Destination destination;
+        private final long startNanos;
+        private final int statusCode;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        ReleasingResponse(ClientHttpResponse delegate, Destination destination, long startNanos, int statusCode) {
+            this.delegate = delegate;
+            this.destination = destination;
+            this.startNanos = startNanos;
+            this.statusCode = statusCode;
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return delegate.getStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return delegate.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return delegate.getHeaders();
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            return delegate.getBody();
+        }
+
+        @Override
+        public void close() {
+            try {
+                delegate.close();
+            } finally {
+                if (closed.compareAndSet(false, true)) {
+                    destination.release(startNanos, statusCode);
+                }
+            }
+        }
+    }
+
+    /**
+     * Bounded pool for adapters that send several calls in parallel
+     */
+    public ExecutorService fanOutExecutor() {
+        return fanOutExecutor;
+    }
+
+    public Duration defaultRequestTimeout() {
+        return settings.requestTimeout();
+    }
+
+    public List<DestinationStats> destinationStats() {
+        List<DestinationStats> stats = new ArrayList<>();
+        destinations.values().forEach(destination -> stats.add(destination.stats()));
+        stats.sort(Comparator.comparing(DestinationStats::destination));
+        return stats;
+    }
+
+    private HttpClient clientFor(URI uri) {
+        return "https".equalsIgnoreCase(uri.getScheme()) ? tlsClient : plainClient;
+    }
+
+    private Destination destinationOf(URI uri) {
+        int port = uri.getPort() != -1 ? uri.getPort() : "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+        return destinations.computeIfAbsent(uri.getHost() + ":" + port, Destination::new);
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    @Override
+    public void close() {
+        fanOutExecutor.shutdownNow();
+        clientExecutor.shutdownNow();
+    }
+
+}
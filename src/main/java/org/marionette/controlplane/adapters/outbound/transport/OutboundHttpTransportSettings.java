@@ -0,0 +1,48 @@
+package org.marionette.controlplane.adapters.outbound.transport;
+
+import java.time.Duration;
+
+/**
+ * Settings shared by every outbound HTTP call, read from the environment:
+ * MARIONETTE_HTTP_CONNECT_TIMEOUT_SECONDS and MARIONETTE_HTTP_REQUEST_TIMEOUT_SECONDS are the timeouts applied
+ * when a call does not set its own, MARIONETTE_HTTP_MAX_CONCURRENT_PER_DESTINATION bounds the requests in
+ * flight (and so the open connections) towards one host:port, MARIONETTE_HTTP_KEEP_ALIVE_SECONDS is how long
+ * an idle pooled connection is kept and MARIONETTE_HTTP_WORKER_THREADS sizes the pool of the calls fanned out in parallel.
+ */
+public record OutboundHttpTransportSettings(
+    Duration connectTimeout,
+    Duration requestTimeout,
+    int maxConcurrentPerDestination,
+    Duration keepAlive,
+    int workerThreads
+) {
+
+    public static OutboundHttpTransportSettings defaultSettings() {
+        return new OutboundHttpTransportSettings(Duration.ofSeconds(5), Duration.ofSeconds(30), 32,
+                Duration.ofSeconds(60), Math.max(4, Runtime.getRuntime().availableProcessors() * 2));
+    }
+
+    public static OutboundHttpTransportSettings loadFromEnv() {
+        OutboundHttpTransportSettings defaults = defaultSettings();
+        return new OutboundHttpTransportSettings(
+            Duration.ofSeconds(parseLong(System.getenv("MARIONETTE_HTTP_CONNECT_TIMEOUT_SECONDS"), defaults.connectTimeout().toSeconds())),
+            Duration.ofSeconds(parseLong(System.getenv("MARIONETTE_HTTP_REQUEST_TIMEOUT_SECONDS"), defaults.requestTimeout().toSeconds())),
+            (int) parseLong(System.getenv("MARIONETTE_HTTP_MAX_CONCURRENT_PER_DESTINATION"), defaults.maxConcurrentPerDestination()),
+            Duration.ofSeconds(parseLong(System.getenv("MARIONETTE_HTTP_KEEP_ALIVE_SECONDS"), defaults.keepAlive().toSeconds())),
+            (int) parseLong(System.getenv("MARIONETTE_HTTP_WORKER_THREADS"), defaults.workerThreads()));
+    }
+
+    private static long parseLong(String value, long defaultValue) {
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            long parsed = Long.parseLong(value.trim());
+            return parsed > 0 ? parsed : defaultValue;
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid HTTP transport setting " + value + ", using " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+}
@@ -1,10 +1,21 @@
 package org.marionette.controlplane.di;
 
+import org.marionette.controlplane.adapters.outbound.clock.SystemExperimentClock;
+import org.marionette.controlplane.adapters.outbound.fetchmetrics.MetricsSourceSettings;
+import org.marionette.controlplane.adapters.outbound.fetchmetrics.MetricsSourceSettings.MetricsSource;
 import org.marionette.controlplane.adapters.outbound.fetchmetrics.prometheus.PrometheusFetchMarionetteNodesMetricsAdapter;
 import org.marionette.controlplane.adapters.outbound.fetchmetrics.prometheus.PrometheusNonMarionetteNodesTracker;
 import org.marionette.controlplane.adapters.outbound.fetchmetrics.prometheus.PrometheusOrderedMetricsMetadataAdapter;
 import org.marionette.controlplane.adapters.outbound.fetchmetrics.prometheus.configuration.PrometheusConfiguration;
 import org.marionette.controlplane.adapters.outbound.fetchmetrics.prometheus.configuration.PrometheusConfigurationLoader;
+import org.marionette.controlplane.adapters.outbound.fetchmetrics.scrape.DirectScrapeConfiguration;
+import org.marionette.controlplane.adapters.outbound.fetchmetrics.scrape.DirectScrapeFetchMarionetteNodesMetricsAdapter;
+import org.marionette.controlplane.adapters.outbound.fetchmetrics.scrape.KubernetesEndpointsScrapeTargetResolver;
+import org.marionette.controlplane.adapters.outbound.resultsstore.InMemoryAbnTestResultsStore;
+import org.marionette.controlplane.adapters.outbound.resultsstore.ResultsStoreConfiguration;
+import org.marionette.controlplane.adapters.outbound.resultsstore.SegmentedAbnTestResultsStore;
+import org.marionette.controlplane.adapters.outbound.servicediscovery.KubernetesDiscoveryConfiguration;
+import org.marionette.controlplane.adapters.outbound.transport.OutboundHttpTransport;
 import org.marionette.controlplane.domain.entities.ConfigRegistry;
 import org.marionette.controlplane.domain.entities.abntest.AbnTestResultsStorage;
 import org.marionette.controlplane.usecases.inbound.AbnTestAllSystemConfigurationsUseCase;
@@ -18,18 +29,38 @@ import org.marionette.controlplane.usecases.inbound.abntest.ranking.SystemConfig
 import org.marionette.controlplane.usecases.inbound.abntest.ranking.SystemMetricsAggregator;
 import org.marionette.controlplane.usecases.inbound.downloadresult.AbnTestResultsDownloadUseCase;
 import org.marionette.controlplane.usecases.inbound.downloadresult.AbnTestResultsDownloadUseCaseImpl;
+import org.marionette.controlplane.usecases.inbound.rerank.RerankAbnTestResultsUseCase;
+import org.marionette.controlplane.usecases.inbound.rerank.RerankAbnTestResultsUseCaseImpl;
+import org.marionette.controlplane.usecases.inbound.resultshistory.AbnTestRunsHistoryUseCase;
+import org.marionette.controlplane.usecases.inbound.resultshistory.AbnTestRunsHistoryUseCaseImpl;
+import org.marionette.controlplane.usecases.outbound.clock.ExperimentClock;
 import org.marionette.controlplane.usecases.outbound.fetchmetrics.FetchMarionetteNodesMetricsGateway;
+import org.marionette.controlplane.usecases.inbound.abntest.memo.MeasurementMemoConfiguration;
 import org.marionette.controlplane.usecases.outbound.fetchmetrics.OrderedMetricsMetadataProvider;
+import org.marionette.controlplane.usecases.outbound.resultsstore.AbnTestResultsStoreGateway;
 import org.marionette.controlplane.usecases.outbound.servicemanipulation.ControlMarionetteServiceBehaviourGateway;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import io.kubernetes.client.openapi.ApiClient;
 
 @Configuration
 public class ABTestingConfiguration {
 
     @Bean
-    public AbnTestResultsStorage testResultsStorage() {
-        return new AbnTestResultsStorage();
+    public AbnTestResultsStoreGateway resultsStore() {
+        ResultsStoreConfiguration configuration = ResultsStoreConfiguration.loadFromEnv();
+        if (configuration.directory().isPresent()) {
+            return new SegmentedAbnTestResultsStore(configuration);
+        }
+        System.out.println("MARIONETTE_RESULTS_STORE_DIR not set, A/B test results are only kept in memory");
+        return new InMemoryAbnTestResultsStore(configuration.retainedRuns());
+    }
+
+    @Bean
+    public AbnTestResultsStorage testResultsStorage(AbnTestResultsStoreGateway resultsStore) {
+        return new AbnTestResultsStorage(resultsStore);
     }
     
     @Bean
@@ -38,8 +69,33 @@ public class ABTestingConfiguration {
     }
 
     @Bean
-    public FetchMarionetteNodesMetricsGateway fetchMarionetteNodesMetricsAdapter(PrometheusConfiguration config) {
-        return new PrometheusFetchMarionetteNodesMetricsAdapter(config);
+    public MetricsSourceSettings metricsSourceSettings() {
+        return MetricsSourceSettings.loadFromEnv();
+    }
+
+    @Bean
+    @Profile("!simulation")
+    public ExperimentClock experimentClock() {
+        return new SystemExperimentClock();
+    }
+
+    @Bean
+    @Profile("!simulation")
+    public FetchMarionetteNodesMetricsGateway fetchMarionetteNodesMetricsAdapter(PrometheusConfiguration config,
+            MetricsSourceSettings metricsSourceSettings,
+            OutboundHttpTransport outboundHttpTransport,
+            ApiClient kubernetesApiClient,
+            KubernetesDiscoveryConfiguration kubernetesDiscoveryConfiguration) {
+        if (metricsSourceSettings.source() == MetricsSource.SCRAPE) {
+            DirectScrapeConfiguration scrapeConfiguration = DirectScrapeConfiguration.loadFromEnv();
+            System.out.println("MARIONETTE_METRICS_SOURCE=scrape, metrics are scraped from the pods at "
+                    + scrapeConfiguration.metricsPath() + " instead of queried from Prometheus");
+            return new DirectScrapeFetchMarionetteNodesMetricsAdapter(config, scrapeConfiguration,
+                    new KubernetesEndpointsScrapeTargetResolver(kubernetesApiClient,
+                            kubernetesDiscoveryConfiguration.namespaces(), scrapeConfiguration.metricsPath()),
+                    outboundHttpTransport);
+        }
+        return new PrometheusFetchMarionetteNodesMetricsAdapter(config, outboundHttpTransport);
     }
 
     @Bean
@@ -57,8 +113,11 @@ public class ABTestingConfiguration {
         ConfigRegistry globalRegistry, 
         ControlMarionetteServiceBehaviourGateway controlMarionetteGateway,
         FetchMarionetteNodesMetricsGateway fetchMarionetteMetricsGateway,
-        NonMarionetteNodesTracker nonMarionetteNodesTracker) {
-        return new UniformAbnTestExecutor(globalRegistry, controlMarionetteGateway, fetchMarionetteMetricsGateway, nonMarionetteNodesTracker);
+        NonMarionetteNodesTracker nonMarionetteNodesTracker,
+        MetricsSourceSettings metricsSourceSettings,
+        ExperimentClock experimentClock) {
+        return new UniformAbnTestExecutor(globalRegistry, controlMarionetteGateway, fetchMarionetteMetricsGateway,
+                nonMarionetteNodesTracker, metricsSourceSettings.samplingPeriod(), experimentClock);
     }
 
     @Bean
@@ -87,14 +146,29 @@ public class ABTestingConfiguration {
         AbnTestExecutor executor,
         SystemConfigurationsRanker ranker,
         AbnTestResultsStorage resultsStorage,
-        OrderedMetricsMetadataProvider metricsMetadataProvider) {
+        OrderedMetricsMetadataProvider metricsMetadataProvider,
+        AbnTestResultsStoreGateway resultsStore,
+        MeasurementMemoConfiguration memoConfiguration,
+        ExperimentClock experimentClock) {
         return new AbnTestAllSystemConfigurationsUseCaseImpl(
             variationPointsExtractor, 
             systemConfigurationsGenerator, 
             executor,
             ranker,
             resultsStorage,
-            metricsMetadataProvider);
+            metricsMetadataProvider,
+            resultsStore,
+            memoConfiguration,
+            experimentClock);
+    }
+
+    @Bean
+    public MeasurementMemoConfiguration measurementMemoConfiguration() {
+        MeasurementMemoConfiguration configuration = MeasurementMemoConfiguration.loadFromEnv();
+        if (!configuration.isEnabled()) {
+            System.out.println("MARIONETTE_MEMO_MAX_AGE_SECONDS not set, every configuration is measured on each run");
+        }
+        return configuration;
     }
 
 
@@ -102,4 +176,15 @@ public class ABTestingConfiguration {
     public AbnTestResultsDownloadUseCase testResultsDownloadUseCase(AbnTestResultsStorage storage) {
         return new AbnTestResultsDownloadUseCaseImpl(storage);
     }
+
+    @Bean
+    public RerankAbnTestResultsUseCase rerankUseCase(AbnTestResultsStorage storage, AbnTestResultsStoreGateway resultsStore,
+            SystemMetricsAggregator systemMetricsAggregator) {
+        return new RerankAbnTestResultsUseCaseImpl(storage, resultsStore, systemMetricsAggregator);
+    }
+
+    @Bean
+    public AbnTestRunsHistoryUseCase runsHistoryUseCase(AbnTestResultsStoreGateway resultsStore) {
+        return new AbnTestRunsHistoryUseCaseImpl(resultsStore);
+    }
 }
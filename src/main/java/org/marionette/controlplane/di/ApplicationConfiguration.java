@@ -1,27 +1,52 @@
 package org.marionette.controlplane.di;
 
 import org.marionette.controlplane.adapters.inbound.controllers.ConfigurationController;
+import org.marionette.controlplane.adapters.inbound.registrychanges.RegistryChangeStreamer;
 import org.marionette.controlplane.adapters.outbound.changeconfig.ControlMarionetteServiceBehaviourAdapter;
 import org.marionette.controlplane.adapters.outbound.fetchconfig.HttpFetchMarionetteConfigAdapter;
+import org.marionette.controlplane.adapters.outbound.registrystate.DisabledRegistryStateStore;
+import org.marionette.controlplane.adapters.outbound.registrystate.FileRegistryStateStore;
+import org.marionette.controlplane.adapters.outbound.registrystate.RegistryStateStoreConfiguration;
 import org.marionette.controlplane.adapters.outbound.servicediscovery.HttpValidateMarionetteServiceAdapter;
+import org.marionette.controlplane.adapters.outbound.servicediscovery.KubernetesDiscoveryConfiguration;
 import org.marionette.controlplane.adapters.outbound.servicediscovery.KubernetesFindServicesAdapter;
+import org.marionette.controlplane.adapters.outbound.transport.OutboundHttpTransport;
+import org.marionette.controlplane.adapters.outbound.transport.OutboundHttpTransportSettings;
 import org.marionette.controlplane.domain.entities.ConfigRegistry;
 import org.marionette.controlplane.usecases.inbound.AbnTestAllSystemConfigurationsUseCase;
 import org.marionette.controlplane.usecases.inbound.ChangeMarionetteServiceBehaviourUseCase;
 import org.marionette.controlplane.usecases.inbound.FullMarionetteServiceConfigDiscoveryUseCase;
+import org.marionette.controlplane.usecases.inbound.MonitorServiceHealthUseCase;
 import org.marionette.controlplane.usecases.inbound.ReadAllMarionetteConfigsUseCase;
+import org.marionette.controlplane.usecases.inbound.RestoreRegistryStateUseCase;
+import org.marionette.controlplane.usecases.inbound.TrackCandidateServicesUseCase;
 import org.marionette.controlplane.usecases.inbound.TriggerServiceRediscoveryUseCase;
+import org.marionette.controlplane.usecases.inbound.WatchRegistryChangesUseCase;
+import org.marionette.controlplane.usecases.inbound.candidatetracking.TrackCandidateServicesUseCaseImpl;
 import org.marionette.controlplane.usecases.inbound.changebehaviour.ChangeMarionetteServiceBehaviourUseCaseImpl;
+import org.marionette.controlplane.usecases.inbound.fulldiscovery.DiscoveryPipelineSettings;
 import org.marionette.controlplane.usecases.inbound.fulldiscovery.FullMarionetteServiceConfigDiscoveryUseCaseImpl;
+import org.marionette.controlplane.usecases.inbound.healthmonitoring.HealthMonitorSettings;
+import org.marionette.controlplane.usecases.inbound.healthmonitoring.MonitorServiceHealthUseCaseImpl;
 import org.marionette.controlplane.usecases.inbound.readconfigs.ReadAllMarionetteConfigsUseCaseImpl;
+import org.marionette.controlplane.usecases.inbound.registrychanges.WatchRegistryChangesUseCaseImpl;
+import org.marionette.controlplane.usecases.inbound.registrystate.RestoreRegistryStateUseCaseImpl;
 import org.marionette.controlplane.usecases.outbound.fetchconfig.FetchMarionetteConfigurationGateway;
+import org.marionette.controlplane.usecases.outbound.registrystate.RegistryStateStoreGateway;
+import org.marionette.controlplane.usecases.outbound.servicediscovery.CheckServiceHealthPort;
 import org.marionette.controlplane.usecases.outbound.servicediscovery.FindCandidateServicesPort;
 import org.marionette.controlplane.usecases.outbound.servicediscovery.ValidateMarionetteServicePort;
+import org.marionette.controlplane.usecases.outbound.servicediscovery.WatchCandidateServicesPort;
 import org.marionette.controlplane.usecases.outbound.servicemanipulation.ControlMarionetteServiceBehaviourGateway;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import org.springframework.context.annotation.Scope;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.kubernetes.client.openapi.ApiClient;
+
 @Configuration
 public class ApplicationConfiguration {
 
@@ -31,9 +56,39 @@ public class ApplicationConfiguration {
         return new ConfigRegistry();
     }
 
+    // Shared by every outbound adapter that speaks HTTP to services, pods or Prometheus
+    @Bean(destroyMethod = "close")
+    public OutboundHttpTransport outboundHttpTransport() {
+        return new OutboundHttpTransport(OutboundHttpTransportSettings.loadFromEnv());
+    }
+
+    @Bean
+    public KubernetesDiscoveryConfiguration kubernetesDiscoveryConfiguration() {
+        return KubernetesDiscoveryConfiguration.loadFromEnv();
+    }
+
     @Bean
-    public FindCandidateServicesPort createFindServicesPort() {
-        return new KubernetesFindServicesAdapter();
+    @Profile("!simulation")
+    public ApiClient kubernetesApiClient(KubernetesDiscoveryConfiguration kubernetesDiscoveryConfiguration) {
+        return KubernetesFindServicesAdapter.defaultApiClient(kubernetesDiscoveryConfiguration);
+    }
+
+    // Both the port to find the candidate services and the port to watch them
+    @Bean(destroyMethod = "stopWatching")
+    @Profile("!simulation")
+    public KubernetesFindServicesAdapter createFindServicesPort(ApiClient kubernetesApiClient,
+            KubernetesDiscoveryConfiguration kubernetesDiscoveryConfiguration) {
+        return new KubernetesFindServicesAdapter(kubernetesApiClient, kubernetesDiscoveryConfiguration);
+    }
+
+    @Bean(destroyMethod = "stop")
+    public TrackCandidateServicesUseCase trackCandidateServicesUseCase(
+        WatchCandidateServicesPort watchCandidatesPort,
+        ValidateMarionetteServicePort marionetteServiceValidator,
+        FetchMarionetteConfigurationGateway fetchMarionetteConfigurationGateway,
+        ConfigRegistry globalRegistry) {
+        return new TrackCandidateServicesUseCaseImpl(watchCandidatesPort, marionetteServiceValidator,
+                fetchMarionetteConfigurationGateway, globalRegistry);
     }
 
     @Bean 
@@ -41,8 +96,9 @@ public class ApplicationConfiguration {
             ReadAllMarionetteConfigsUseCase readAllMarionetteConfigsUseCase, 
             ChangeMarionetteServiceBehaviourUseCase changeMarionetteServiceBehaviourUseCase,
             TriggerServiceRediscoveryUseCase triggerServiceRediscoveryUseCase,
-            AbnTestAllSystemConfigurationsUseCase abnTestUseCase) {
-        return new ConfigurationController(readAllMarionetteConfigsUseCase, changeMarionetteServiceBehaviourUseCase, triggerServiceRediscoveryUseCase, abnTestUseCase);
+            AbnTestAllSystemConfigurationsUseCase abnTestUseCase,
+            ObjectMapper objectMapper) {
+        return new ConfigurationController(readAllMarionetteConfigsUseCase, changeMarionetteServiceBehaviourUseCase, triggerServiceRediscoveryUseCase, abnTestUseCase, objectMapper);
     }
 
     @Bean
@@ -52,8 +108,37 @@ public class ApplicationConfiguration {
     }
 
     @Bean
-    public FetchMarionetteConfigurationGateway createNodeConfigGateway() {
-        return new HttpFetchMarionetteConfigAdapter();
+    public WatchRegistryChangesUseCase watchRegistryChangesUseCase(ConfigRegistry globalRegistry) {
+        return new WatchRegistryChangesUseCaseImpl(globalRegistry);
+    }
+
+    @Bean(destroyMethod = "close")
+    public RegistryChangeStreamer registryChangeStreamer(WatchRegistryChangesUseCase watchRegistryChangesUseCase) {
+        return new RegistryChangeStreamer(watchRegistryChangesUseCase);
+    }
+
+    @Bean
+    public RegistryStateStoreGateway registryStateStore() {
+        RegistryStateStoreConfiguration configuration = RegistryStateStoreConfiguration.loadFromEnv();
+        if (configuration.directory().isPresent()) {
+            return new FileRegistryStateStore(configuration);
+        }
+        System.out.println("MARIONETTE_REGISTRY_STATE_DIR not set, the registry is rebuilt by discovery on every restart");
+        return new DisabledRegistryStateStore();
+    }
+
+    @Bean
+    public RestoreRegistryStateUseCase restoreRegistryStateUseCase(
+            ConfigRegistry globalRegistry,
+            RegistryStateStoreGateway registryStateStore,
+            ControlMarionetteServiceBehaviourGateway controlMarionetteBehaviourGateway) {
+        return new RestoreRegistryStateUseCaseImpl(globalRegistry, registryStateStore, controlMarionetteBehaviourGateway);
+    }
+
+    @Bean
+    @Profile("!simulation")
+    public FetchMarionetteConfigurationGateway createNodeConfigGateway(OutboundHttpTransport outboundHttpTransport) {
+        return new HttpFetchMarionetteConfigAdapter(outboundHttpTransport);
     }
 
     @Bean
@@ -67,14 +152,26 @@ public class ApplicationConfiguration {
             findServicesPort,
             marionetteServiceValidator,
             fetchMarionetteConfigurationGateway,
-            globalRegistry
+            globalRegistry,
+            DiscoveryPipelineSettings.loadFromEnv()
         );
 
     }
 
+    // Both the port to validate candidates and the port to check the health of registered services
     @Bean
-    public ValidateMarionetteServicePort validateMarionetteServicePort() {
-        return new HttpValidateMarionetteServiceAdapter();
+    @Profile("!simulation")
+    public HttpValidateMarionetteServiceAdapter validateMarionetteServicePort(OutboundHttpTransport outboundHttpTransport) {
+        return new HttpValidateMarionetteServiceAdapter(outboundHttpTransport);
+    }
+
+    @Bean(destroyMethod = "stop")
+    public MonitorServiceHealthUseCase monitorServiceHealthUseCase(
+        ConfigRegistry globalRegistry,
+        CheckServiceHealthPort healthPort,
+        FetchMarionetteConfigurationGateway fetchMarionetteConfigurationGateway) {
+        return new MonitorServiceHealthUseCaseImpl(globalRegistry, healthPort, fetchMarionetteConfigurationGateway,
+                HealthMonitorSettings.loadFromEnv());
     }
 
     @Bean 
@@ -89,8 +186,9 @@ public class ApplicationConfiguration {
     }
 
     @Bean
-    ControlMarionetteServiceBehaviourGateway controlMarionetteServiceBehaviourGateway() {
-        return new ControlMarionetteServiceBehaviourAdapter();
+    @Profile("!simulation")
+    ControlMarionetteServiceBehaviourGateway controlMarionetteServiceBehaviourGateway(OutboundHttpTransport outboundHttpTransport) {
+        return new ControlMarionetteServiceBehaviourAdapter(outboundHttpTransport);
     }
 
 
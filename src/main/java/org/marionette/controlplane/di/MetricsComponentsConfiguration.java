@@ -4,6 +4,7 @@ import org.marionette.controlplane.adapters.inbound.metrics.ConfigurablePromethe
 import org.marionette.controlplane.adapters.inbound.metrics.KubernetesPrometheusDiscovery;
 import org.marionette.controlplane.adapters.inbound.metrics.MetricsConfiguration;
 import org.marionette.controlplane.adapters.inbound.metrics.PrometheusConfigurationResolver;
+import org.marionette.controlplane.adapters.outbound.transport.OutboundHttpTransport;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
@@ -30,11 +31,11 @@ public class MetricsComponentsConfiguration {
     }
 
     /**
-     * RestTemplate configured for Prometheus API calls
+     * RestTemplate configured for Prometheus API calls, on the shared outbound transport
      */
     @Bean
-    public RestTemplate restTemplate() {
-        RestTemplate restTemplate = new RestTemplate();
+    public RestTemplate restTemplate(OutboundHttpTransport outboundHttpTransport) {
+        RestTemplate restTemplate = outboundHttpTransport.restTemplate();
 
         // Configure URI template handling to avoid double encoding
         DefaultUriBuilderFactory factory = new DefaultUriBuilderFactory();
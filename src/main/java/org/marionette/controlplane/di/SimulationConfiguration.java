@@ -0,0 +1,79 @@
+package org.marionette.controlplane.di;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Instant;
+
+import org.marionette.controlplane.adapters.outbound.fetchmetrics.prometheus.configuration.PrometheusConfiguration;
+import org.marionette.controlplane.adapters.outbound.simulation.SimulatedBehaviourControlAdapter;
+import org.marionette.controlplane.adapters.outbound.simulation.SimulatedCluster;
+import org.marionette.controlplane.adapters.outbound.simulation.SimulatedMarionetteConfigAdapter;
+import org.marionette.controlplane.adapters.outbound.simulation.SimulatedMetricsAdapter;
+import org.marionette.controlplane.adapters.outbound.simulation.SimulatedServiceDiscoveryAdapter;
+import org.marionette.controlplane.adapters.outbound.simulation.SimulationModel;
+import org.marionette.controlplane.adapters.outbound.simulation.SimulationSettings;
+import org.marionette.controlplane.adapters.outbound.simulation.VirtualClock;
+import org.marionette.controlplane.usecases.outbound.fetchconfig.FetchMarionetteConfigurationGateway;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.FetchMarionetteNodesMetricsGateway;
+import org.marionette.controlplane.usecases.outbound.servicemanipulation.ControlMarionetteServiceBehaviourGateway;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Replaces the cluster, Prometheus and the wall clock with an in-process simulation (--spring.profiles.active=simulation).
+ * Discovery, behaviour changes and metrics go to a parametric model of the services, the executor waits in
+ * virtual time so a test of hours completes in seconds.
+ */
+@Configuration
+@Profile("simulation")
+public class SimulationConfiguration {
+
+    @Bean
+    public VirtualClock experimentClock() {
+        return new VirtualClock(Instant.now());
+    }
+
+    @Bean
+    public SimulatedCluster simulatedCluster(VirtualClock experimentClock) {
+        SimulationSettings settings = SimulationSettings.loadFromEnv();
+        SimulationModel model;
+        if (settings.model().isPresent()) {
+            Path path = settings.model().get();
+            try {
+                model = SimulationModel.load(path);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read the simulation model " + path, e);
+            }
+            System.out.println("🧪 Simulating " + model.services().size() + " services from " + path);
+        } else {
+            model = SimulationModel.builtIn();
+            System.out.println("🧪 MARIONETTE_SIMULATION_MODEL not set, simulating the built-in model");
+        }
+        return new SimulatedCluster(model, experimentClock, settings.seed());
+    }
+
+    // Every discovery port: find, watch, validate and health check
+    @Bean
+    public SimulatedServiceDiscoveryAdapter createFindServicesPort(SimulatedCluster simulatedCluster) {
+        return new SimulatedServiceDiscoveryAdapter(simulatedCluster);
+    }
+
+    @Bean
+    public FetchMarionetteConfigurationGateway createNodeConfigGateway(SimulatedCluster simulatedCluster) {
+        return new SimulatedMarionetteConfigAdapter(simulatedCluster);
+    }
+
+    @Bean
+    public ControlMarionetteServiceBehaviourGateway controlMarionetteServiceBehaviourGateway(SimulatedCluster simulatedCluster) {
+        return new SimulatedBehaviourControlAdapter(simulatedCluster);
+    }
+
+    @Bean
+    public FetchMarionetteNodesMetricsGateway fetchMarionetteNodesMetricsAdapter(SimulatedCluster simulatedCluster,
+            PrometheusConfiguration config, VirtualClock experimentClock) {
+        return new SimulatedMetricsAdapter(simulatedCluster, config, experimentClock);
+    }
+
+}
@@ -4,10 +4,9 @@ import java.util.Map;
 
 import static java.util.Objects.requireNonNull;
 
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 
+import org.marionette.controlplane.domain.collections.PersistentHashMap;
 import org.marionette.controlplane.domain.values.BehaviourId;
 import org.marionette.controlplane.domain.values.ClassName;
 import org.marionette.controlplane.domain.values.MethodName;
@@ -19,50 +18,44 @@ import org.marionette.controlplane.domain.values.MethodName;
 public class ClassConfig {
 
     private final ClassName className;
-    private final Map<MethodName, MethodConfig> methodConfigs;
+    private final PersistentHashMap<MethodName, MethodConfig> methodConfigs;     // Shared with older versions
 
     public ClassConfig(ClassName className) {
-        this.className = className;
-        methodConfigs = new HashMap<>();
+        this(className, PersistentHashMap.empty());
     }
 
     public ClassConfig(ClassName className, Map<MethodName, MethodConfig> methodConfigs) {
-        this.className = className;
-
         // Defensive copy, content unmodifiable
-        this.methodConfigs = new HashMap<>(methodConfigs);
+        this(className, PersistentHashMap.copyOf(methodConfigs));
+    }
+
+    private ClassConfig(ClassName className, PersistentHashMap<MethodName, MethodConfig> methodConfigs) {
+        this.className = className;
+        this.methodConfigs = methodConfigs;
     }
     
     public static ClassConfig copyOf(ClassConfig other) {
         requireNonNull(other, "Trying to copy a ClassConfig object which is null");
 
-        ClassConfig copy = new ClassConfig(other.getClassName());
-        copy.methodConfigs.putAll(other.getMethodsConfigurations());
-        return copy;
+        return new ClassConfig(other.getClassName(), other.methodConfigs);
     }
 
     public ClassConfig withAddedMethodConfig(MethodName methodName, MethodConfig methodConfig) {
         requireNonNull(methodConfigs, "Trying to add a null MethodConfig object inside a ClassConfig");
         requireNonNull(methodName, "Trying to add a method configuration with a null name to the ClassConfig object");
         
-        ClassConfig copy = initialiseCopy();
-        copy.methodConfigs.put(methodName, methodConfig);
-        return copy;
+        return new ClassConfig(className, methodConfigs.plus(methodName, methodConfig));
     }
 
     public ClassConfig withAddedAll(Map<MethodName, MethodConfig> configurations) {
         requireNonNull(configurations, "Trying to add configurations to a ClassConfig object with a null map");
         
-        ClassConfig copy = initialiseCopy();
-        copy.methodConfigs.putAll(configurations);
-        return copy;
+        return new ClassConfig(className, methodConfigs.plusAll(configurations));
     }
 
     public ClassConfig withRemovedMethodConfig(MethodName methodName) {
         requireNonNull(methodName, "Trying to remove a MethodConfig object inside a ClassConfig with a null MethodName reference");
-        ClassConfig copy = initialiseCopy();
-        copy.methodConfigs.remove(methodName);
-        return copy;
+        return new ClassConfig(className, methodConfigs.minus(methodName));
     }
 
     public ClassConfig withNewBehaviourForMethod(MethodName method, BehaviourId newBehaviour) {
@@ -72,10 +65,8 @@ public class ClassConfig {
             throw new IllegalArgumentException("The method with name " + method.getMethodName() + " does not exist in the current class configuration");
         }
 
-        ClassConfig copy = initialiseCopy();
-        MethodConfig newMethodConfig = copy.methodConfigs.get(method).withCurrentBehaviourId(newBehaviour);
-        copy.methodConfigs.put(method, newMethodConfig);
-        return copy;
+        MethodConfig newMethodConfig = methodConfigs.get(method).withCurrentBehaviourId(newBehaviour);
+        return new ClassConfig(className, methodConfigs.plus(method, newMethodConfig));
     }
 
     public ClassName getClassName() {
@@ -90,8 +81,8 @@ public class ClassConfig {
         return methodConfigs.get(methodName);
     }
 
-    public Map<MethodName, MethodConfig> getMethodsConfigurations() {
-        return Collections.unmodifiableMap(methodConfigs);       // Immutable view of the map, content of the map immutable by design
+    public PersistentHashMap<MethodName, MethodConfig> getMethodsConfigurations() {
+        return methodConfigs;       // Read only persistent map, content of the map immutable by design
     }
 
     public List<MethodConfig> getMethodConfigsList() {
@@ -102,12 +93,6 @@ public class ClassConfig {
         return methodConfigs.get(methodName).getCurrentBehaviourId();
     }
 
-    private ClassConfig initialiseCopy() {
-        ClassConfig copy = new ClassConfig(getClassName());
-        copy.methodConfigs.putAll(getMethodsConfigurations());
-        return copy;
-    }
-
     @Override
     public String toString() {
         if (methodConfigs.isEmpty()) {
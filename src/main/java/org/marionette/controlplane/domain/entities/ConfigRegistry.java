@@ -1,6 +1,14 @@
 package org.marionette.controlplane.domain.entities;
 
+import org.marionette.controlplane.domain.collections.PersistentHashMap;
 import org.marionette.controlplane.domain.entities.ServiceMetadata.ServiceStatus;
+import org.marionette.controlplane.domain.entities.changefeed.RegistryChangeEvent;
+import org.marionette.controlplane.domain.entities.changefeed.RegistryChangeFeed;
+import org.marionette.controlplane.domain.entities.journal.RegistryJournal;
+import org.marionette.controlplane.domain.entities.journal.RegistryServiceState;
+import org.marionette.controlplane.domain.entities.journal.RegistryStateSnapshot;
+import org.marionette.controlplane.domain.entities.reconcile.DiscoveredService;
+import org.marionette.controlplane.domain.entities.reconcile.ReconcileSummary;
 import org.marionette.controlplane.domain.values.BehaviourId;
 import org.marionette.controlplane.domain.values.ClassName;
 import org.marionette.controlplane.domain.values.MethodName;
@@ -10,65 +18,146 @@ import static java.util.Objects.requireNonNull;
 
 import java.net.URI;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
 import java.util.Set;
 
+/**
+ * All the state lives in one immutable {@link State} behind an atomic reference. Writers compute the next
+ * state from the current one and publish it with a CAS (retrying on contention), so no update is lost and
+ * template, runtime and metadata always change together. Readers never lock: they read the current state.
+ * Every published change increments the registry revision and its events (service added, removed, behaviour
+ * or status changed...) go to a bounded change feed, so clients can follow the registry through deltas.
+ */
 public class ConfigRegistry {
 
-    private final Map<ServiceName, ServiceConfig> templateConfigurations = new ConcurrentHashMap<>(); // First config
-    private final Map<ServiceName, ServiceConfig> runtimeConfigurations = new ConcurrentHashMap<>();
-    private final Map<ServiceName, ServiceMetadata> serviceMetadata = new ConcurrentHashMap<>();
+    /**
+     * Immutable registry content, the maps are persistent and share all untouched services between versions
+     */
+    private record State(
+        PersistentHashMap<ServiceName, ServiceConfig> templates,     // First config
+        PersistentHashMap<ServiceName, ServiceConfig> runtime,
+        PersistentHashMap<ServiceName, ServiceMetadata> metadata,
+        long revision
+    ) {
+        static final State EMPTY = new State(PersistentHashMap.empty(), PersistentHashMap.empty(), PersistentHashMap.empty(), 0);
+
+        State withTemplates(PersistentHashMap<ServiceName, ServiceConfig> templates) {
+            return templates == this.templates ? this : new State(templates, runtime, metadata, revision);
+        }
+
+        State withRuntime(PersistentHashMap<ServiceName, ServiceConfig> runtime) {
+            return runtime == this.runtime ? this : new State(templates, runtime, metadata, revision);
+        }
+
+        State withMetadata(PersistentHashMap<ServiceName, ServiceMetadata> metadata) {
+            return metadata == this.metadata ? this : new State(templates, runtime, metadata, revision);
+        }
+
+        State withStatus(ServiceName serviceName, ServiceStatus status) {
+            ServiceMetadata current = metadata.get(serviceName);
+            if (current == null) {
+                return this;
+            }
+            return withMetadata(metadata.plus(serviceName, current.withStatus(status).withLastSeen(Instant.now())));
+        }
+    }
+
+    private static final int DEFAULT_CHANGE_FEED_CAPACITY = 4096;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.EMPTY);
+    private final RegistryChangeFeed changeFeed;
+    private volatile RegistryJournal journal = RegistryJournal.NONE;
     private volatile Instant lastDiscovery = Instant.now();
 
-    public synchronized void addDiscoveredService(ServiceName serviceName, ServiceConfig templateConfig,
+    public ConfigRegistry() {
+        this(DEFAULT_CHANGE_FEED_CAPACITY);
+    }
+
+    public ConfigRegistry(int changeFeedCapacity) {
+        this.changeFeed = new RegistryChangeFeed(changeFeedCapacity);
+    }
+
+    public void addDiscoveredService(ServiceName serviceName, ServiceConfig templateConfig,
             URI endpoint) {
 
         requireNonNull(serviceName, "The service name cannot be null");
         requireNonNull(templateConfig, "The service configuration cannot be null");
         requireNonNull(endpoint, "The endpoint to contact the service cannot be null");
 
-        templateConfigurations.put(serviceName, templateConfig);
-        // If this is the first time we see this service, use template as runtime
-        if (!runtimeConfigurations.containsKey(serviceName)) {
-            runtimeConfigurations.put(serviceName, ServiceConfig.copyOf(templateConfig));
-        }
-        serviceMetadata.put(serviceName, ServiceMetadata.discoveredNew(serviceName, endpoint));
+        update(current -> current
+                .withTemplates(current.templates().plus(serviceName, templateConfig))
+                // If this is the first time we see this service, use template as runtime
+                .withRuntime(current.runtime().containsKey(serviceName)
+                        ? current.runtime()
+                        : current.runtime().plus(serviceName, ServiceConfig.copyOf(templateConfig)))
+                .withMetadata(current.metadata().plus(serviceName, ServiceMetadata.discoveredNew(serviceName, endpoint))));
         System.out.println("Added service: " + serviceName + " (template stored, runtime preserved)");
     }
 
-    public synchronized void updateRuntimeConfiguration(ServiceName serviceName, ServiceConfig newRuntimeConfig) {
+    public void updateRuntimeConfiguration(ServiceName serviceName, ServiceConfig newRuntimeConfig) {
 
         requireNonNull(serviceName, "The service name cannot be null");
         requireNonNull(newRuntimeConfig, "The runtime configuration for the service cannot be null");
 
-        if (!templateConfigurations.containsKey(serviceName)) {
-            throw new IllegalArgumentException("Cannot update runtime config for unknown service: " + serviceName);
-        }
-
-        runtimeConfigurations.put(serviceName, newRuntimeConfig);
-        updateServiceStatus(serviceName, ServiceStatus.MODIFIED);
+        update(current -> {
+            if (!current.templates().containsKey(serviceName)) {
+                throw new IllegalArgumentException("Cannot update runtime config for unknown service: " + serviceName);
+            }
+            return current
+                    .withRuntime(current.runtime().plus(serviceName, newRuntimeConfig))
+                    .withStatus(serviceName, ServiceStatus.MODIFIED);
+        });
     }
 
-    public synchronized void resetToTemplate(ServiceName serviceName) {
+    public void resetToTemplate(ServiceName serviceName) {
         requireNonNull(serviceName, "The service name cannot be null when resetting it to template");
-        ServiceConfig template = templateConfigurations.get(serviceName);
-        if (template != null) {
-            runtimeConfigurations.put(serviceName, ServiceConfig.copyOf(template));
-            updateServiceStatus(serviceName, ServiceStatus.RESET_TO_TEMPLATE);
-        }
+        update(current -> {
+            ServiceConfig template = current.templates().get(serviceName);
+            if (template == null) {
+                return current;
+            }
+            return current
+                    .withRuntime(current.runtime().plus(serviceName, ServiceConfig.copyOf(template)))
+                    .withStatus(serviceName, ServiceStatus.RESET_TO_TEMPLATE);
+        });
     }
 
-    public synchronized void markServiceUnavailable(ServiceName serviceName) {
+    public void markServiceUnavailable(ServiceName serviceName) {
         requireNonNull(serviceName, "The service name cannot be null when marking it unavailable");
-        updateServiceStatus(serviceName, ServiceStatus.UNAVAILABLE);
+        update(current -> current.withStatus(serviceName, ServiceStatus.UNAVAILABLE));
     }
 
-    public synchronized void removeService(ServiceName serviceName) {
-        templateConfigurations.remove(serviceName);
-        runtimeConfigurations.remove(serviceName);
-        serviceMetadata.remove(serviceName);
+    /**
+     * A health check reached the service: refreshes lastSeen and brings an unavailable service back
+     */
+    public void markServiceSeen(ServiceName serviceName) {
+        requireNonNull(serviceName, "The service name cannot be null when marking it seen");
+        update(current -> {
+            ServiceMetadata metadata = current.metadata().get(serviceName);
+            if (metadata == null) {
+                return current;
+            }
+            ServiceMetadata seen = metadata.withLastSeen(Instant.now());
+            if (metadata.getStatus() == ServiceStatus.UNAVAILABLE) {
+                seen = seen.withStatus(ServiceStatus.AVAILABLE);
+            }
+            return current.withMetadata(current.metadata().plus(serviceName, seen));
+        });
+    }
+
+    public void removeService(ServiceName serviceName) {
+        update(current -> current
+                .withTemplates(current.templates().minus(serviceName))
+                .withRuntime(current.runtime().minus(serviceName))
+                .withMetadata(current.metadata().minus(serviceName)));
     }
 
     public void modifyCurrentBehaviourForMethod(ServiceName serviceName, ClassName className, MethodName methodName,
@@ -83,55 +172,195 @@ public class ConfigRegistry {
         requireNonNull(newBehaviourId,
                 "The new behaviour id cannot be null when trying to modify the current behaviour of a method in the global configuration");
 
-        if (!runtimeConfigurations.containsKey(serviceName)) {
-            throw new IllegalArgumentException("The service " + serviceName + " does not exist in the ConfigRegistry");
-        }
+        applyBehaviourChanges(serviceName, builder -> builder.withNewBehaviourForMethod(className, methodName, newBehaviourId));
+    }
+
+    /**
+     * Applies any number of behaviour changes to one service and publishes the result once, atomically.
+     * The changes are collected on a transient ServiceConfig.Builder, so only the touched paths are copied.
+     * Under contention the consumer can run more than once: it must only act on the builder it receives.
+     *
+     * @return the runtime configuration of the service after the changes
+     */
+    public ServiceConfig applyBehaviourChanges(ServiceName serviceName, Consumer<ServiceConfig.Builder> changes) {
+        requireNonNull(serviceName, "Service name cannot be null when applying behaviour changes in the global configuration");
+        requireNonNull(changes, "The behaviour changes cannot be null");
+
+        return update(current -> {
+            ServiceConfig serviceConfig = current.runtime().get(serviceName);
+            if (serviceConfig == null) {
+                throw new IllegalArgumentException("The service " + serviceName + " does not exist in the ConfigRegistry");
+            }
+            ServiceConfig.Builder builder = serviceConfig.toBuilder();
+            changes.accept(builder);
+            ServiceConfig updated = builder.build();
+            return updated == serviceConfig ? current : current.withRuntime(current.runtime().plus(serviceName, updated));
+        }).runtime().get(serviceName);
+    }
+
+    /**
+     * Brings the registry in line with the result of a discovery run in one atomic update, instead of
+     * flushing it and registering everything again. New services are added, services with a different
+     * template get the new one (their runtime keeps the behaviours that still exist), unchanged services keep
+     * their runtime state and are only marked as seen. Services that were not discovered are removed, unless
+     * their endpoint is in the keep set (e.g. the run could not reach a verdict on them).
+     */
+    public ReconcileSummary reconcileDiscoveredServices(Collection<DiscoveredService> discovered, Set<URI> keepEndpoints) {
+        requireNonNull(discovered, "The discovered services cannot be null when reconciling the registry");
+        requireNonNull(keepEndpoints, "The endpoints to keep cannot be null when reconciling the registry");
+
+        // Captured by the attempt that gets published
+        ReconcileSummary[] summary = new ReconcileSummary[1];
+        update(current -> {
+            List<ServiceName> added = new ArrayList<>();
+            List<ServiceName> removed = new ArrayList<>();
+            List<ServiceName> templateChanged = new ArrayList<>();
+            List<ServiceName> unchanged = new ArrayList<>();
+
+            PersistentHashMap<ServiceName, ServiceConfig> templates = current.templates();
+            PersistentHashMap<ServiceName, ServiceConfig> runtime = current.runtime();
+            PersistentHashMap<ServiceName, ServiceMetadata> metadata = current.metadata();
+            Set<ServiceName> seen = new HashSet<>();
+            Instant now = Instant.now();
+
+            for (DiscoveredService service : discovered) {
+                ServiceName serviceName = service.serviceName();
+                seen.add(serviceName);
+                ServiceConfig previousTemplate = templates.get(serviceName);
+                ServiceMetadata previousMetadata = metadata.get(serviceName);
+
+                if (previousTemplate == null || previousMetadata == null) {
+                    added.add(serviceName);
+                    templates = templates.plus(serviceName, service.template());
+                    runtime = runtime.plus(serviceName, ServiceConfig.copyOf(service.template()));
+                    metadata = metadata.plus(serviceName, ServiceMetadata.discoveredNew(serviceName, service.endpoint()));
+                    continue;
+                }
+
+                if (previousTemplate.hasSameContentAs(service.template())) {
+                    unchanged.add(serviceName);
+                } else {
+                    templateChanged.add(serviceName);
+                    templates = templates.plus(serviceName, service.template());
+                    ServiceConfig previousRuntime = runtime.get(serviceName);
+                    runtime = runtime.plus(serviceName, previousRuntime == null
+                            ? ServiceConfig.copyOf(service.template())
+                            : service.template().withBehavioursOf(previousRuntime));
+                }
+                ServiceStatus status = previousMetadata.getStatus() == ServiceStatus.UNAVAILABLE
+                        ? ServiceStatus.DISCOVERED
+                        : previousMetadata.getStatus();
+                metadata = metadata.plus(serviceName, ServiceMetadata.of(serviceName, service.endpoint(), now, status));
+            }
 
-        ServiceConfig modifiedServiceConfig = runtimeConfigurations.get(serviceName).withNewBehaviourForMethod(
-                className,
-                methodName, newBehaviourId);
-        runtimeConfigurations.put(serviceName, modifiedServiceConfig);
+            for (Map.Entry<ServiceName, ServiceMetadata> entry : current.metadata().entrySet()) {
+                ServiceName serviceName = entry.getKey();
+                if (!seen.contains(serviceName) && !keepEndpoints.contains(entry.getValue().getEndpoint())) {
+                    removed.add(serviceName);
+                    templates = templates.minus(serviceName);
+                    runtime = runtime.minus(serviceName);
+                    metadata = metadata.minus(serviceName);
+                }
+            }
+
+            summary[0] = new ReconcileSummary(added, removed, templateChanged, unchanged);
+            return current.withTemplates(templates).withRuntime(runtime).withMetadata(metadata);
+        });
+        updateLastDiscovery();
+        return summary[0];
     }
 
     public ServiceConfig getRuntimeConfiguration(ServiceName serviceName) {
-        return runtimeConfigurations.get(serviceName);
+        return state.get().runtime().get(serviceName);
     }
 
     public ServiceConfig getTemplateConfiguration(ServiceName serviceName) {
-        return templateConfigurations.get(serviceName);
+        return state.get().templates().get(serviceName);
     }
 
-    public Map<ServiceName, ServiceConfig> getAllRuntimeConfigurations() {
-        return Map.copyOf(runtimeConfigurations);
+    /**
+     * Immutable snapshot of the runtime configurations, O(1): it is the current root of the persistent tree
+     */
+    public PersistentHashMap<ServiceName, ServiceConfig> getAllRuntimeConfigurations() {
+        return state.get().runtime();
     }
 
     public Map<ServiceName, ServiceMetadata> getAllServiceMetadata() {
-        return Map.copyOf(serviceMetadata);
+        return state.get().metadata();
+    }
+
+    /**
+     * Monotonically increasing, incremented by every change published in the registry (flushAll included)
+     */
+    public long getRevision() {
+        return state.get().revision();
+    }
+
+    public RegistryChangeFeed getChangeFeed() {
+        return changeFeed;
+    }
+
+    /**
+     * From now on every published revision is also recorded in the journal
+     */
+    public void attachJournal(RegistryJournal journal) {
+        this.journal = requireNonNull(journal, "The registry journal cannot be null");
+    }
+
+    /**
+     * Consistent copy of the whole registry at the current revision, O(services): the configurations are shared
+     */
+    public RegistryStateSnapshot exportState() {
+        State current = state.get();
+        List<RegistryServiceState> services = new ArrayList<>(current.templates().size());
+        current.templates().forEach((serviceName, template) -> services.add(new RegistryServiceState(serviceName,
+                template, current.runtime().get(serviceName), current.metadata().get(serviceName))));
+        return new RegistryStateSnapshot(current.revision(), services);
+    }
+
+    /**
+     * Replaces the content of the registry with a previously exported one and continues from its revision.
+     * Meant for startup: the change feed restarts at that revision and clients following it reload.
+     */
+    public void restore(RegistryStateSnapshot snapshot) {
+        requireNonNull(snapshot, "The registry snapshot to restore cannot be null");
+        PersistentHashMap<ServiceName, ServiceConfig> templates = PersistentHashMap.empty();
+        PersistentHashMap<ServiceName, ServiceConfig> runtime = PersistentHashMap.empty();
+        PersistentHashMap<ServiceName, ServiceMetadata> metadata = PersistentHashMap.empty();
+        for (RegistryServiceState service : snapshot.services()) {
+            if (service.isRemoved()) {
+                continue;
+            }
+            templates = templates.plus(service.serviceName(), service.template());
+            runtime = runtime.plus(service.serviceName(), service.runtime() != null ? service.runtime() : service.template());
+            if (service.metadata() != null) {
+                metadata = metadata.plus(service.serviceName(), service.metadata());
+            }
+        }
+        state.set(new State(templates, runtime, metadata, snapshot.revision()));
+        changeFeed.restartAt(snapshot.revision());
     }
 
     public ServiceMetadata getMetadataOfService(ServiceName serviceName) {
         requireNonNull(serviceName, "The service name cannot be null");
-        if(!serviceMetadata.containsKey(serviceName)) {
+        ServiceMetadata metadata = state.get().metadata().get(serviceName);
+        if(metadata == null) {
             System.out.println("Could not find metadata for the service " + serviceName);
         }
 
-        return serviceMetadata.get(serviceName);
+        return metadata;
 
     }
 
     public URI getEndpointOfService(ServiceName serviceName) {
-        requireNonNull(serviceName, "The service name cannot be null");
-        if(!serviceMetadata.containsKey(serviceName)) {
-            System.out.println("Could not find metadata for the service " + serviceName);
-        }
-
-        return serviceMetadata.get(serviceName).getEndpoint();
+        return getMetadataOfService(serviceName).getEndpoint();
 
     }
 
     public boolean isServiceModified(ServiceName serviceName) {
-        ServiceConfig template = templateConfigurations.get(serviceName);
-        ServiceConfig runtime = runtimeConfigurations.get(serviceName);
+        State current = state.get();
+        ServiceConfig template = current.templates().get(serviceName);
+        ServiceConfig runtime = current.runtime().get(serviceName);
 
         if (template == null || runtime == null)
             return false;
@@ -140,7 +369,7 @@ public class ConfigRegistry {
     }
 
     public Set<ServiceName> getServicesNeedingDiscovery() {
-        return serviceMetadata.entrySet().stream()
+        return state.get().metadata().entrySet().stream()
                 .filter(entry -> entry.getValue().getStatus() == ServiceStatus.UNAVAILABLE ||
                         entry.getValue().getLastSeen().isBefore(Instant.now().minusSeconds(300))) // 5 minutes old
                 .map(Map.Entry::getKey)
@@ -160,10 +389,12 @@ public class ConfigRegistry {
         StringBuilder sb = new StringBuilder();
         sb.append("\n=== ConfigRegistry State ===\n");
         sb.append("Last discovery: ").append(lastDiscovery).append("\n");
-        sb.append("Total services: ").append(runtimeConfigurations.size()).append("\n\n");
+        State current = state.get();
+        sb.append("Revision: ").append(current.revision()).append("\n");
+        sb.append("Total services: ").append(current.runtime().size()).append("\n\n");
 
-        runtimeConfigurations.forEach((serviceName, config) -> {
-            ServiceMetadata metadata = serviceMetadata.get(serviceName);
+        current.runtime().forEach((serviceName, config) -> {
+            ServiceMetadata metadata = current.metadata().get(serviceName);
             boolean modified = isServiceModified(serviceName);
 
             sb.append("Service: ").append(serviceName.getServiceName()).append("\n");
@@ -181,39 +412,163 @@ public class ConfigRegistry {
         return sb.toString();
     }
 
-    private void updateServiceStatus(ServiceName serviceName, ServiceStatus status) {
-        ServiceMetadata current = serviceMetadata.get(serviceName);
-        if (current != null) {
-            serviceMetadata.put(serviceName, current.withStatus(status).withLastSeen(Instant.now()));
+    /**
+     * Publishes the state computed from the current one, retrying on contention. The function can run more
+     * than once and must not have side effects. The revision moves only when the state actually changes,
+     * the events of the revision are then computed from the two states and sent to the change feed.
+     */
+    private State update(UnaryOperator<State> change) {
+        while (true) {
+            State current = state.get();
+            State next = change.apply(current);
+            if (next == current) {
+                return current;
+            }
+            State published = new State(next.templates(), next.runtime(), next.metadata(), current.revision() + 1);
+            if (state.compareAndSet(current, published)) {
+                changeFeed.publish(published.revision(), changesBetween(current, published));
+                RegistryJournal currentJournal = journal;
+                if (currentJournal != RegistryJournal.NONE) {
+                    currentJournal.record(published.revision(), touchedServices(current, published));
+                }
+                return published;
+            }
+        }
+    }
+
+    private static List<RegistryServiceState> touchedServices(State before, State after) {
+        LinkedHashSet<ServiceName> touched = new LinkedHashSet<>();
+        collectTouched(touched, before.templates(), after.templates());
+        collectTouched(touched, before.runtime(), after.runtime());
+        collectTouched(touched, before.metadata(), after.metadata());
+
+        List<RegistryServiceState> services = new ArrayList<>(touched.size());
+        for (ServiceName serviceName : touched) {
+            ServiceConfig template = after.templates().get(serviceName);
+            services.add(template == null
+                    ? RegistryServiceState.removed(serviceName)
+                    : new RegistryServiceState(serviceName, template, after.runtime().get(serviceName),
+                            after.metadata().get(serviceName)));
+        }
+        return services;
+    }
+
+    private static <V> void collectTouched(LinkedHashSet<ServiceName> touched, PersistentHashMap<ServiceName, V> before,
+            PersistentHashMap<ServiceName, V> after) {
+        if (before == after) {
+            return;
+        }
+        after.forEach((serviceName, value) -> {
+            if (before.get(serviceName) != value) {
+                touched.add(serviceName);
+            }
+        });
+        before.keySet().stream().filter(serviceName -> !after.containsKey(serviceName)).forEach(touched::add);
+    }
+
+    /**
+     * Untouched services are shared between the two states, so comparing references skips them
+     */
+    private static List<RegistryChangeEvent> changesBetween(State before, State after) {
+        List<RegistryChangeEvent> events = new ArrayList<>();
+        long revision = after.revision();
+        Instant now = Instant.now();
+
+        if (before.runtime() != after.runtime() || before.templates() != after.templates()) {
+            after.runtime().forEach((serviceName, runtime) -> {
+                ServiceConfig previous = before.runtime().get(serviceName);
+                if (previous == null) {
+                    events.add(RegistryChangeEvent.serviceAdded(revision, serviceName, now));
+                } else if (!sameStructure(previous, runtime)
+                        || !sameTemplate(before.templates().get(serviceName), after.templates().get(serviceName))) {
+                    events.add(RegistryChangeEvent.serviceUpdated(revision, serviceName, now));
+                } else if (previous != runtime) {
+                    addBehaviourChanges(events, revision, serviceName, previous, runtime, now);
+                }
+            });
+            before.runtime().keySet().stream()
+                    .filter(serviceName -> !after.runtime().containsKey(serviceName))
+                    .forEach(serviceName -> events.add(RegistryChangeEvent.serviceRemoved(revision, serviceName, now)));
+        }
+
+        if (before.metadata() != after.metadata()) {
+            after.metadata().forEach((serviceName, metadata) -> {
+                ServiceMetadata previous = before.metadata().get(serviceName);
+                if (previous != null && previous.getStatus() != metadata.getStatus()) {
+                    events.add(RegistryChangeEvent.statusChanged(revision, serviceName, metadata.getStatus(), now));
+                }
+            });
+        }
+        return events;
+    }
+
+    private static boolean sameStructure(ServiceConfig before, ServiceConfig after) {
+        if (before == after) {
+            return true;
+        }
+        if (before.getClassConfigurations().size() != after.getClassConfigurations().size()) {
+            return false;
+        }
+        for (Map.Entry<ClassName, ClassConfig> classEntry : after.getClassConfigurations().entrySet()) {
+            ClassConfig previous = before.getClassConfigurations().get(classEntry.getKey());
+            if (previous == null
+                    || !previous.getMethodsConfigurations().keySet().equals(classEntry.getValue().getMethodsConfigurations().keySet())) {
+                return false;
+            }
         }
+        return true;
+    }
+
+    // Rediscovery stores a new template object for every service, only a different content is a change
+    private static boolean sameTemplate(ServiceConfig before, ServiceConfig after) {
+        return before == after || (before != null && before.hasSameContentAs(after));
+    }
+
+    private static void addBehaviourChanges(List<RegistryChangeEvent> events, long revision, ServiceName serviceName,
+            ServiceConfig before, ServiceConfig after, Instant now) {
+        after.getClassConfigurations().forEach((className, classConfig) -> {
+            ClassConfig previousClass = before.getClassConfigurations().get(className);
+            if (previousClass == classConfig) {
+                return;
+            }
+            classConfig.getMethodsConfigurations().forEach((methodName, methodConfig) -> {
+                MethodConfig previousMethod = previousClass.getMethodsConfigurations().get(methodName);
+                if (previousMethod != methodConfig
+                        && !previousMethod.getCurrentBehaviourId().equals(methodConfig.getCurrentBehaviourId())) {
+                    events.add(RegistryChangeEvent.behaviourChanged(revision, serviceName, className, methodName,
+                            methodConfig.getCurrentBehaviourId(), now));
+                }
+            });
+        });
     }
 
 
     public List<ServiceConfig> getAllServiceConfigs() {
-        return runtimeConfigurations.values().stream().toList();
+        return state.get().runtime().values().stream().toList();
     }
 
     public List<ClassConfig> getClassConfigsForService(ServiceName serviceName) {
-        return runtimeConfigurations.get(serviceName).getClassConfigsList();
+        return state.get().runtime().get(serviceName).getClassConfigsList();
     }
 
     public List<MethodConfig> getMethodConfigsForServiceAndClass(ServiceName serviceName, ClassName className) {
-        return runtimeConfigurations.get(serviceName).getMethodConfigsForClass(className);
+        return state.get().runtime().get(serviceName).getMethodConfigsForClass(className);
     }
 
     public BehaviourId getCurrentBehaviourIdForMethod(ServiceName serviceName, ClassName className, MethodName methodName) {
-        return runtimeConfigurations.get(serviceName).getCurrentBehaviourIdForMethod(className, methodName);
+        return state.get().runtime().get(serviceName).getCurrentBehaviourIdForMethod(className, methodName);
     }
 
     /**
      * Flushes all configurations and metadata from the registry.
      * This method is useful when you want to restart discovery from scratch.
      */
-    public synchronized void flushAll() {
+    public void flushAll() {
         System.out.println("🧹 Flushing ConfigRegistry - clearing all configurations and metadata...");
-        templateConfigurations.clear();
-        runtimeConfigurations.clear();
-        serviceMetadata.clear();
+        update(current -> current
+                .withTemplates(PersistentHashMap.empty())
+                .withRuntime(PersistentHashMap.empty())
+                .withMetadata(PersistentHashMap.empty()));
         lastDiscovery = Instant.now();
         System.out.println("✅ ConfigRegistry flushed successfully");
     }
@@ -46,9 +46,9 @@ public class MethodConfig {
     public static MethodConfig of(String methodName, String defaultBehaviourId, String currentBehaviourId,
             Collection<String> availableBehaviourIds) {
 
-        MethodName methodN = new MethodName(methodName);
-        BehaviourId defaultBehaviour = new BehaviourId(defaultBehaviourId);
-        BehaviourId currentBehaviour = new BehaviourId(currentBehaviourId);
+        MethodName methodN = MethodName.of(methodName);
+        BehaviourId defaultBehaviour = BehaviourId.of(defaultBehaviourId);
+        BehaviourId currentBehaviour = BehaviourId.of(currentBehaviourId);
         BehaviourIdSet availableBehaviours = BehaviourIdSet.fromStringCollection(availableBehaviourIds);
 
         return new MethodConfig(methodN, defaultBehaviour, currentBehaviour, availableBehaviours);
@@ -2,6 +2,7 @@ package org.marionette.controlplane.domain.entities;
 
 import java.util.Map;
 
+import org.marionette.controlplane.domain.collections.PersistentHashMap;
 import org.marionette.controlplane.domain.values.BehaviourId;
 import org.marionette.controlplane.domain.values.ClassName;
 import org.marionette.controlplane.domain.values.MethodName;
@@ -9,49 +10,49 @@ import org.marionette.controlplane.domain.values.ServiceName;
 
 import static java.util.Objects.requireNonNull;
 
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 
 public class ServiceConfig {
 
     private final ServiceName serviceName;
-    private final Map<ClassName, ClassConfig> classConfigs;
+    private final PersistentHashMap<ClassName, ClassConfig> classConfigs;     // Shared with older versions
+    private int contentHash;                                                  // Lazily computed, 0 until then
 
     public ServiceConfig(ServiceName serviceName) {
-        this.serviceName = serviceName;
-        this.classConfigs = new HashMap<>();
+        this(serviceName, PersistentHashMap.empty());
     }
 
     public ServiceConfig(ServiceName serviceName, Map<ClassName, ClassConfig> initialConfigs) {
+        this(serviceName, PersistentHashMap.copyOf(initialConfigs));   // Immutable contents
+    }
+
+    private ServiceConfig(ServiceName serviceName, PersistentHashMap<ClassName, ClassConfig> classConfigs) {
         this.serviceName = serviceName;
-        this.classConfigs = new HashMap<>(initialConfigs);   // Immutable contents
+        this.classConfigs = classConfigs;
     }
 
 
+    /**
+     * The configuration is immutable, the copy shares the whole class tree with the original
+     */
     public static ServiceConfig copyOf(ServiceConfig other) {
         requireNonNull(other, "The ServiceConfig other reference cannot be null when trying to copy the content");
-        ServiceConfig copy = new ServiceConfig(other.getServiceName());
-        copy.classConfigs.putAll(other.getClassConfigurations());
-        return copy;
+        return new ServiceConfig(other.getServiceName(), other.classConfigs);
     }
 
     public ServiceConfig withAddedClassConfiguration(ClassName className, ClassConfig classConfig) {
         requireNonNull(className, "The class name cannot be null");
         requireNonNull(classConfig, "The class configuration cannot be null");
 
-        ServiceConfig copy = initialiseCopy();
-        copy.classConfigs.put(className, classConfig);
-        return copy;
+        return new ServiceConfig(serviceName, classConfigs.plus(className, classConfig));
 
     }
 
     public ServiceConfig withAddedAll(Map<ClassName, ClassConfig> classConfigs) {
         requireNonNull(classConfigs, "Trying to add a null map to the service configuration");
         
-        ServiceConfig copy = initialiseCopy();
-        copy.classConfigs.putAll(classConfigs);
-        return copy;
+        return new ServiceConfig(serviceName, this.classConfigs.plusAll(classConfigs));
 
     }
 
@@ -60,9 +61,7 @@ public class ServiceConfig {
 
         ensureMapContainsKey(className);
 
-        ServiceConfig copy = initialiseCopy();
-        copy.classConfigs.remove(className);
-        return copy;
+        return new ServiceConfig(serviceName, classConfigs.minus(className));
     }
 
     public ServiceConfig withNewBehaviourForMethod(ClassName className, MethodName methodName,
@@ -73,11 +72,16 @@ public class ServiceConfig {
 
         ensureMapContainsKey(className);
 
-        ServiceConfig copy = initialiseCopy();
-        ClassConfig modifiedClassConfig = copy.classConfigs.get(className).withNewBehaviourForMethod(methodName, newBehaviourId);
-        copy.classConfigs.put(className, modifiedClassConfig);
-        return copy;
+        ClassConfig modifiedClassConfig = classConfigs.get(className).withNewBehaviourForMethod(methodName, newBehaviourId);
+        return new ServiceConfig(serviceName, classConfigs.plus(className, modifiedClassConfig));
+
+    }
 
+    /**
+     * Transient builder to apply many behaviour changes at once, see {@link Builder}
+     */
+    public Builder toBuilder() {
+        return new Builder(this);
     }
 
     public ServiceName getServiceName() {
@@ -88,8 +92,8 @@ public class ServiceConfig {
         return serviceName.toString();
     }
 
-    public Map<ClassName, ClassConfig> getClassConfigurations() {
-        return Collections.unmodifiableMap(classConfigs);
+    public PersistentHashMap<ClassName, ClassConfig> getClassConfigurations() {
+        return classConfigs;      // Read only, never changes
     }
 
     public List<ClassConfig> getClassConfigsList() {
@@ -106,6 +110,69 @@ public class ServiceConfig {
 
 
 
+    /**
+     * Hash of the classes and methods (behaviours included), independent of the iteration order.
+     * Cached: the configuration never changes.
+     */
+    public int contentHash() {
+        int hash = contentHash;
+        if (hash == 0) {
+            for (Map.Entry<ClassName, ClassConfig> classEntry : classConfigs.entrySet()) {
+                int classHash = classEntry.getKey().hashCode();
+                for (MethodConfig methodConfig : classEntry.getValue().getMethodsConfigurations().values()) {
+                    hash += 31 * classHash + methodConfig.hashCode();
+                }
+                hash += classHash;
+            }
+            hash = hash == 0 ? 1 : hash;
+            contentHash = hash;
+        }
+        return hash;
+    }
+
+    /**
+     * Same classes and methods with the same behaviours, whatever the instances
+     */
+    public boolean hasSameContentAs(ServiceConfig other) {
+        if (this == other) {
+            return true;
+        }
+        if (other == null || contentHash() != other.contentHash() || classConfigs.size() != other.classConfigs.size()) {
+            return false;
+        }
+        for (Map.Entry<ClassName, ClassConfig> classEntry : classConfigs.entrySet()) {
+            ClassConfig otherClass = other.classConfigs.get(classEntry.getKey());
+            if (otherClass == null || !classEntry.getValue().getMethodsConfigurations().equals(otherClass.getMethodsConfigurations())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * This configuration (a new template) with the behaviours currently selected in the given runtime
+     * configuration, for the methods that still exist and still offer that behaviour
+     */
+    public ServiceConfig withBehavioursOf(ServiceConfig runtime) {
+        Builder builder = toBuilder();
+        for (Map.Entry<ClassName, ClassConfig> classEntry : classConfigs.entrySet()) {
+            ClassConfig runtimeClass = runtime.classConfigs.get(classEntry.getKey());
+            if (runtimeClass == null) {
+                continue;
+            }
+            for (MethodConfig methodConfig : classEntry.getValue().getMethodsConfigurations().values()) {
+                MethodConfig runtimeMethod = runtimeClass.getMethodConfigByName(methodConfig.getMethodName());
+                if (runtimeMethod != null
+                        && !runtimeMethod.getCurrentBehaviourId().equals(methodConfig.getCurrentBehaviourId())
+                        && methodConfig.getAvailableBehaviourIds().contains(runtimeMethod.getCurrentBehaviourId())) {
+                    builder.withNewBehaviourForMethod(classEntry.getKey(), methodConfig.getMethodName(),
+                            runtimeMethod.getCurrentBehaviourId());
+                }
+            }
+        }
+        return builder.build();
+    }
+
     private void ensureMapContainsKey(ClassName className) {
         if (!classConfigs.containsKey(className)) {
             throw new IllegalArgumentException(
@@ -113,12 +180,6 @@ public class ServiceConfig {
         }
     }
 
-    private ServiceConfig initialiseCopy() {
-        ServiceConfig copy = new ServiceConfig(getServiceName());
-        copy.classConfigs.putAll(getClassConfigurations());
-        return copy;
-    }
-
     @Override
     public String toString() {
         if (classConfigs.isEmpty()) {
@@ -138,4 +199,55 @@ public class ServiceConfig {
         return sb.toString();
     }
 
+    /**
+     * Collects behaviour changes on top of a ServiceConfig without creating intermediate configurations:
+     * each change path copies only the method map of its class, build() creates one ClassConfig per touched
+     * class and one ServiceConfig. Not thread safe, meant to live inside a single update.
+     */
+    public static final class Builder {
+
+        private final ServiceConfig base;
+        private final Map<ClassName, PersistentHashMap<MethodName, MethodConfig>> changedClasses = new HashMap<>();
+
+        private Builder(ServiceConfig base) {
+            this.base = base;
+        }
+
+        public Builder withNewBehaviourForMethod(ClassName className, MethodName methodName, BehaviourId newBehaviourId) {
+            requireNonNull(className, "The class name cannot be null");
+            requireNonNull(methodName, "The method name cannot be null");
+            requireNonNull(newBehaviourId, "The behaviour id cannot be null");
+
+            base.ensureMapContainsKey(className);
+
+            PersistentHashMap<MethodName, MethodConfig> methods = changedClasses.getOrDefault(className,
+                    base.classConfigs.get(className).getMethodsConfigurations());
+            MethodConfig methodConfig = methods.get(methodName);
+            if (methodConfig == null) {
+                throw new IllegalArgumentException("The method with name " + methodName.getMethodName() + " does not exist in the current class configuration");
+            }
+
+            changedClasses.put(className, methods.plus(methodName, methodConfig.withCurrentBehaviourId(newBehaviourId)));
+            return this;
+        }
+
+        public boolean hasChanges() {
+            return !changedClasses.isEmpty();
+        }
+
+        /**
+         * @return the base configuration itself when nothing changed
+         */
+        public ServiceConfig build() {
+            if (changedClasses.isEmpty()) {
+                return base;
+            }
+            PersistentHashMap<ClassName, ClassConfig> classes = base.classConfigs;
+            for (Map.Entry<ClassName, PersistentHashMap<MethodName, MethodConfig>> entry : changedClasses.entrySet()) {
+                classes = classes.plus(entry.getKey(), new ClassConfig(entry.getKey(), entry.getValue()));
+            }
+            return new ServiceConfig(base.serviceName, classes);
+        }
+    }
+
 }
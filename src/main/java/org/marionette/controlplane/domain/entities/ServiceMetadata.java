@@ -32,7 +32,7 @@ public class ServiceMetadata {
         // No need for null checks, code crashes immediately with constructor
 
         return new ServiceMetadata(
-                new ServiceName(serviceName),
+                ServiceName.of(serviceName),
                 URI.create(endpointUri),
                 lastSeen,
                 status);
@@ -1,23 +1,55 @@
 package org.marionette.controlplane.domain.entities.abntest;
 
-public class AbnTestResultsStorage {    // Single result storage -> for every new test, remove preceding one!
+import org.marionette.controlplane.usecases.outbound.resultsstore.AbnTestResultsStoreGateway;
 
-    private SingleAbnTestResult testResults;
+public class AbnTestResultsStorage {    // Latest result kept in memory, every run is also appended to the results store
 
-    public AbnTestResultsStorage() {
+    private final AbnTestResultsStoreGateway resultsStore;
+    private volatile SingleAbnTestResult testResults;
+    private volatile String latestRunId;
 
+    public AbnTestResultsStorage(AbnTestResultsStoreGateway resultsStore) {
+        this.resultsStore = resultsStore;
+        // Only the id of the latest stored run is read here, the run itself is loaded on first use
+        this.latestRunId = resultsStore.latestRun().map(summary -> summary.runId()).orElse(null);
     }
 
-    public AbnTestResultsStorage(SingleAbnTestResult testResults) {
-        this.testResults = testResults;
+    /**
+     * Constant time, does not load anything
+     */
+    public boolean hasResults() {
+        return latestRunId != null;
     }
 
+    /**
+     * After a restart the latest run is loaded back from the store the first time it is requested
+     */
     public SingleAbnTestResult getResults() {
-        return testResults;
+        SingleAbnTestResult current = testResults;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (testResults == null && latestRunId != null) {
+                testResults = resultsStore.loadRun(latestRunId).orElse(null);
+                if (testResults == null) {
+                    latestRunId = null;
+                }
+            }
+            return testResults;
+        }
     }
 
-    public void putResults(SingleAbnTestResult result) {
-        this.testResults = result;     
+    public synchronized void putResults(SingleAbnTestResult result) {
+        this.testResults = result;
+        this.latestRunId = resultsStore.append(result).runId();
+    }
+
+    /**
+     * Identifier of the run returned by getResults, null when there are no results. Does not load the run.
+     */
+    public String getLatestRunId() {
+        return latestRunId;
     }
 
 }
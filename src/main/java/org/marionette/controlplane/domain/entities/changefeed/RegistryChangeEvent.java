@@ -0,0 +1,57 @@
+package org.marionette.controlplane.domain.entities.changefeed;
+
+import java.time.Instant;
+
+import org.marionette.controlplane.domain.entities.ServiceMetadata.ServiceStatus;
+import org.marionette.controlplane.domain.values.BehaviourId;
+import org.marionette.controlplane.domain.values.ClassName;
+import org.marionette.controlplane.domain.values.MethodName;
+import org.marionette.controlplane.domain.values.ServiceName;
+
+/**
+ * One change published by the ConfigRegistry at the given revision. Only the fields relevant to the type are
+ * set: class, method and behaviour for BEHAVIOUR_CHANGED, status for STATUS_CHANGED, the others are null.
+ */
+public record RegistryChangeEvent(
+    long revision,
+    Type type,
+    ServiceName serviceName,
+    ClassName className,
+    MethodName methodName,
+    BehaviourId behaviourId,
+    ServiceStatus status,
+    Instant occurredAt
+) {
+
+    public enum Type {
+        SERVICE_ADDED,
+        SERVICE_REMOVED,
+        SERVICE_UPDATED,    // the template or the structure (classes, methods) of the service changed
+        BEHAVIOUR_CHANGED,
+        STATUS_CHANGED
+    }
+
+    public static RegistryChangeEvent serviceAdded(long revision, ServiceName serviceName, Instant occurredAt) {
+        return new RegistryChangeEvent(revision, Type.SERVICE_ADDED, serviceName, null, null, null, null, occurredAt);
+    }
+
+    public static RegistryChangeEvent serviceRemoved(long revision, ServiceName serviceName, Instant occurredAt) {
+        return new RegistryChangeEvent(revision, Type.SERVICE_REMOVED, serviceName, null, null, null, null, occurredAt);
+    }
+
+    public static RegistryChangeEvent serviceUpdated(long revision, ServiceName serviceName, Instant occurredAt) {
+        return new RegistryChangeEvent(revision, Type.SERVICE_UPDATED, serviceName, null, null, null, null, occurredAt);
+    }
+
+    public static RegistryChangeEvent behaviourChanged(long revision, ServiceName serviceName, ClassName className,
+            MethodName methodName, BehaviourId behaviourId, Instant occurredAt) {
+        return new RegistryChangeEvent(revision, Type.BEHAVIOUR_CHANGED, serviceName, className, methodName, behaviourId,
+                null, occurredAt);
+    }
+
+    public static RegistryChangeEvent statusChanged(long revision, ServiceName serviceName, ServiceStatus status,
+            Instant occurredAt) {
+        return new RegistryChangeEvent(revision, Type.STATUS_CHANGED, serviceName, null, null, null, status, occurredAt);
+    }
+
+}
@@ -0,0 +1,113 @@
+package org.marionette.controlplane.domain.entities.changefeed;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Bounded ring buffer of the last registry change events, in revision order.
+ *
+ * Writers publish the events of each revision right after their CAS succeeded, so two revisions can arrive
+ * out of order: a revision is only made visible once all the previous ones are, readers never see gaps.
+ * When the buffer is full the oldest events are dropped and clients behind them are asked to reload.
+ */
+public class RegistryChangeFeed {
+
+    private final RegistryChangeEvent[] ring;
+    private long appended = 0;                  // events ever appended, the next one goes at appended % capacity
+    private long publishedRevision = 0;         // every revision up to this one is in the ring (or dropped)
+    private long droppedUpToRevision = 0;       // highest revision of an event overwritten in the ring
+    private final TreeMap<Long, List<RegistryChangeEvent>> pending = new TreeMap<>();
+
+    public RegistryChangeFeed(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The capacity of the change feed must be positive, got " + capacity);
+        }
+        this.ring = new RegistryChangeEvent[capacity];
+    }
+
+    /**
+     * @param events the events of the revision, possibly none (a revision that only refreshed timestamps)
+     */
+    public synchronized void publish(long revision, List<RegistryChangeEvent> events) {
+        if (revision <= publishedRevision) {
+            return;
+        }
+        pending.put(revision, events);
+        boolean advanced = false;
+        while (!pending.isEmpty() && pending.firstKey() == publishedRevision + 1) {
+            for (RegistryChangeEvent event : pending.pollFirstEntry().getValue()) {
+                int slot = (int) (appended % ring.length);
+                if (ring[slot] != null) {
+                    droppedUpToRevision = ring[slot].revision();
+                }
+                ring[slot] = event;
+                appended++;
+            }
+            publishedRevision++;
+            advanced = true;
+        }
+        if (advanced) {
+            notifyAll();
+        }
+    }
+
+    /**
+     * Forgets the retained events and continues at the given revision, older revisions require a reset
+     */
+    public synchronized void restartAt(long revision) {
+        Arrays.fill(ring, null);
+        appended = 0;
+        pending.headMap(revision, true).clear();
+        publishedRevision = revision;
+        droppedUpToRevision = revision;
+        notifyAll();
+    }
+
+    public synchronized long currentRevision() {
+        return publishedRevision;
+    }
+
+    /**
+     * Events with a revision greater than the given one
+     */
+    public synchronized RegistryChanges changesSince(long revision) {
+        if (revision > publishedRevision || revision < droppedUpToRevision) {
+            return new RegistryChanges(publishedRevision, true, List.of());
+        }
+        // Events are sorted by revision, binary search the first one after the given revision
+        long low = Math.max(0, appended - ring.length);
+        long high = appended;
+        while (low < high) {
+            long middle = (low + high) >>> 1;
+            if (ring[(int) (middle % ring.length)].revision() <= revision) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        List<RegistryChangeEvent> events = new ArrayList<>((int) (appended - low));
+        for (long i = low; i < appended; i++) {
+            events.add(ring[(int) (i % ring.length)]);
+        }
+        return new RegistryChanges(publishedRevision, false, events);
+    }
+
+    /**
+     * Same as changesSince, but waits up to the timeout for a revision after the given one to be published
+     */
+    public synchronized RegistryChanges awaitChangesSince(long revision, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (publishedRevision <= revision) {
+            long remainingMillis = (deadline - System.nanoTime()) / 1_000_000;
+            if (remainingMillis <= 0) {
+                break;
+            }
+            wait(remainingMillis);
+        }
+        return changesSince(revision);
+    }
+
+}
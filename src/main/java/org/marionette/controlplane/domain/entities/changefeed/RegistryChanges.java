@@ -0,0 +1,15 @@
+package org.marionette.controlplane.domain.entities.changefeed;
+
+import java.util.List;
+
+/**
+ * Changes published after a revision. When resetRequired is set some of them are no longer retained (or the
+ * revision is unknown to this registry) and the client has to reload the full configuration.
+ */
+public record RegistryChanges(long currentRevision, boolean resetRequired, List<RegistryChangeEvent> events) {
+
+    public RegistryChanges {
+        events = events != null ? List.copyOf(events) : List.of();
+    }
+
+}
@@ -0,0 +1,16 @@
+package org.marionette.controlplane.domain.entities.journal;
+
+import java.util.List;
+
+/**
+ * Receives the new state of the services touched by each revision published by the ConfigRegistry, in the
+ * thread that published it. Two revisions can be recorded out of order by concurrent writers, the revision
+ * tells which state of a service is the latest.
+ */
+public interface RegistryJournal {
+
+    public static final RegistryJournal NONE = (revision, changedServices) -> {};
+
+    public void record(long revision, List<RegistryServiceState> changedServices);
+
+}
@@ -0,0 +1,25 @@
+package org.marionette.controlplane.domain.entities.journal;
+
+import org.marionette.controlplane.domain.entities.ServiceConfig;
+import org.marionette.controlplane.domain.entities.ServiceMetadata;
+import org.marionette.controlplane.domain.values.ServiceName;
+
+/**
+ * Everything the registry knows about one service. A state without template means the service was removed.
+ */
+public record RegistryServiceState(
+    ServiceName serviceName,
+    ServiceConfig template,
+    ServiceConfig runtime,
+    ServiceMetadata metadata
+) {
+
+    public static RegistryServiceState removed(ServiceName serviceName) {
+        return new RegistryServiceState(serviceName, null, null, null);
+    }
+
+    public boolean isRemoved() {
+        return template == null;
+    }
+
+}
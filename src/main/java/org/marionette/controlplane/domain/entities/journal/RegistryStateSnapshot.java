@@ -0,0 +1,14 @@
+package org.marionette.controlplane.domain.entities.journal;
+
+import java.util.List;
+
+/**
+ * Content of the registry at a revision, removed services are not listed
+ */
+public record RegistryStateSnapshot(long revision, List<RegistryServiceState> services) {
+
+    public RegistryStateSnapshot {
+        services = services != null ? List.copyOf(services) : List.of();
+    }
+
+}
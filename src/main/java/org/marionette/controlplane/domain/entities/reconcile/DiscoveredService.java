@@ -0,0 +1,21 @@
+package org.marionette.controlplane.domain.entities.reconcile;
+
+import static java.util.Objects.requireNonNull;
+
+import java.net.URI;
+
+import org.marionette.controlplane.domain.entities.ServiceConfig;
+import org.marionette.controlplane.domain.values.ServiceName;
+
+/**
+ * A service found by a discovery run: its name, the template configuration it exposes and where to reach it
+ */
+public record DiscoveredService(ServiceName serviceName, ServiceConfig template, URI endpoint) {
+
+    public DiscoveredService {
+        requireNonNull(serviceName, "The service name of a discovered service cannot be null");
+        requireNonNull(template, "The template configuration of a discovered service cannot be null");
+        requireNonNull(endpoint, "The endpoint of a discovered service cannot be null");
+    }
+
+}
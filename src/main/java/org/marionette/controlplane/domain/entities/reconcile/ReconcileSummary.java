@@ -0,0 +1,28 @@
+package org.marionette.controlplane.domain.entities.reconcile;
+
+import java.util.List;
+
+import org.marionette.controlplane.domain.values.ServiceName;
+
+/**
+ * What a reconcile did to the registry, service by service
+ */
+public record ReconcileSummary(
+    List<ServiceName> added,
+    List<ServiceName> removed,
+    List<ServiceName> templateChanged,
+    List<ServiceName> unchanged
+) {
+
+    public ReconcileSummary {
+        added = List.copyOf(added);
+        removed = List.copyOf(removed);
+        templateChanged = List.copyOf(templateChanged);
+        unchanged = List.copyOf(unchanged);
+    }
+
+    public boolean changedRegistry() {
+        return !added.isEmpty() || !removed.isEmpty() || !templateChanged.isEmpty();
+    }
+
+}
@@ -4,32 +4,41 @@ import java.util.Objects;
 
 public class BehaviourId {
 
-    private String behaviourId;
+    private static final Interner<BehaviourId> INTERNER = new Interner<>(BehaviourId::new);
+
+    private final String behaviourId;
+    private final int hash;     // Immutable, computed once
 
     public BehaviourId(String behaviourId) {
+        Objects.requireNonNull(behaviourId, "Trying to create a behaviourId object passing a null value");
         if(behaviourId.isBlank()) {
             throw new IllegalArgumentException("Trying to create a behaviourId object with an empty string");
         }
-        this.behaviourId = Objects.requireNonNull(behaviourId, "Trying to create a behaviourId object passing a null value");
+        this.behaviourId = behaviourId;
+        this.hash = 31 + behaviourId.hashCode();
     }
 
-    public String getBehaviourId() {
-        return this.behaviourId;
+    /**
+     * Canonical instance for the id, prefer it to the constructor on hot paths
+     */
+    public static BehaviourId of(String behaviourId) {
+        return INTERNER.intern(behaviourId);
     }
 
-    public void setBehaviourId(String behaviourId) {
-        if(behaviourId.isBlank()) {
-            throw new IllegalArgumentException("Trying to set a behaviourId with an empty string");
-        }
-        this.behaviourId = Objects.requireNonNull(behaviourId, "Trying to set a behaviourId passing a null value");
+    /**
+     * For the ids received from clients: the canonical instance if the id is known, without interning unknown ones
+     */
+    public static BehaviourId lookup(String behaviourId) {
+        return INTERNER.lookup(behaviourId);
+    }
+
+    public String getBehaviourId() {
+        return this.behaviourId;
     }
 
     @Override
     public int hashCode() {
-        final int prime = 31;
-        int result = 1;
-        result = prime * result + ((behaviourId == null) ? 0 : behaviourId.hashCode());
-        return result;
+        return hash;
     }
 
     @Override
@@ -41,6 +50,8 @@ public class BehaviourId {
         if (getClass() != obj.getClass())
             return false;
         BehaviourId other = (BehaviourId) obj;
+        if (hash != other.hash)
+            return false;
         if (behaviourId == null) {
             if (other.behaviourId != null)
                 return false;
@@ -1,19 +1,32 @@
 package org.marionette.controlplane.domain.values;
 
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+/**
+ * Immutable set of behaviour ids. Behaviours are also kept in a fixed order (by id), which gives each of
+ * them a dense ordinal 0..n-1 that does not depend on discovery or insertion order.
+ */
 public class BehaviourIdSet implements Iterable<BehaviourId>{
 
+    private static final Comparator<BehaviourId> ORDINAL_ORDER = Comparator.comparing(BehaviourId::getBehaviourId);
+
     private final Set<BehaviourId> behaviours;
+    private final List<BehaviourId> ordered;    // Ordinal -> behaviour
 
     
     private BehaviourIdSet(Set<BehaviourId> ids) {
         this.behaviours = Set.copyOf(ids);
+        BehaviourId[] sorted = behaviours.toArray(new BehaviourId[0]);
+        Arrays.sort(sorted, ORDINAL_ORDER);
+        this.ordered = List.of(sorted);
     }
     
     public static BehaviourIdSet of(Collection<BehaviourId> behaviours) {
@@ -23,13 +36,29 @@ public class BehaviourIdSet implements Iterable<BehaviourId>{
 
     public static BehaviourIdSet fromStringCollection(Collection<String> strings) {
         Objects.requireNonNull(strings, "Trying to build a BehaviourIdSet from null collection of strings");
-        return of(strings.stream().map(BehaviourId::new).toList());
+        return of(strings.stream().map(BehaviourId::of).toList());
     }
     
     public boolean contains(BehaviourId behaviour) {
         return behaviours.contains(behaviour);
     }
 
+    /**
+     * @return the ordinal of the behaviour, -1 if it is not in the set
+     */
+    public int ordinalOf(BehaviourId behaviour) {
+        for (int i = 0; i < ordered.size(); i++) {
+            if (ordered.get(i).equals(behaviour)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public BehaviourId behaviourAt(int ordinal) {
+        return ordered.get(ordinal);
+    }
+
     public boolean isEmpty() {
         return behaviours.isEmpty();
     }
@@ -53,7 +82,7 @@ public class BehaviourIdSet implements Iterable<BehaviourId>{
     }
 
     public Set<BehaviourId> getBehaviours() {
-        return Set.copyOf(behaviours);
+        return behaviours;      // Already immutable
     }
 
     @Override
@@ -83,14 +112,17 @@ public class BehaviourIdSet implements Iterable<BehaviourId>{
 
     @Override
     public String toString() {
-        return "[ " + getBehaviours().stream()
+        return "[ " + ordered.stream()
             .map(id -> id.getBehaviourId())
             .collect(Collectors.joining(", ")) + " ]";
     }
 
+    /**
+     * Iterates in ordinal order
+     */
     @Override
     public Iterator<BehaviourId> iterator() {
-        return behaviours.iterator();
+        return ordered.iterator();
     }
 
     
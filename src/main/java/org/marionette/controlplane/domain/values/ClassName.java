@@ -4,10 +4,28 @@ import org.marionette.controlplane.domain.helpers.StringValidator;
 
 public class ClassName {
 
+    private static final Interner<ClassName> INTERNER = new Interner<>(ClassName::new);
+
     private final String className;
+    private final int hash;     // Immutable, computed once
 
     public ClassName(String className) {
         this.className = StringValidator.validateStringAndTrim(className);
+        this.hash = 31 + this.className.hashCode();
+    }
+
+    /**
+     * Canonical instance for the name, prefer it to the constructor on hot paths
+     */
+    public static ClassName of(String className) {
+        return INTERNER.intern(className);
+    }
+
+    /**
+     * For the names received from clients: the canonical instance if the name is known, without interning unknown ones
+     */
+    public static ClassName lookup(String className) {
+        return INTERNER.lookup(className);
     }
 
     public String getClassName() {
@@ -16,10 +34,7 @@ public class ClassName {
 
     @Override
     public int hashCode() {
-        final int prime = 31;
-        int result = 1;
-        result = prime * result + ((className == null) ? 0 : className.hashCode());
-        return result;
+        return hash;
     }
 
     @Override
@@ -31,6 +46,8 @@ public class ClassName {
         if (getClass() != obj.getClass())
             return false;
         ClassName other = (ClassName) obj;
+        if (hash != other.hash)
+            return false;
         if (className == null) {
             if (other.className != null)
                 return false;
@@ -0,0 +1,36 @@
+package org.marionette.controlplane.domain.values;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Canonical instances of the value objects, keyed by the raw string they are built from. Only the names and ids
+ * the services expose are interned, a bounded set, so the table is never pruned. Strings coming from clients
+ * go through {@link #lookup}, which never adds to the table.
+ */
+final class Interner<T> {
+
+    private final ConcurrentHashMap<String, T> canonical = new ConcurrentHashMap<>();
+    private final Function<String, T> factory;
+
+    Interner(Function<String, T> factory) {
+        this.factory = factory;
+    }
+
+    T intern(String raw) {
+        if (raw == null) {
+            return factory.apply(null);     // Let the constructor report the invalid value
+        }
+        T value = canonical.get(raw);
+        return value != null ? value : canonical.computeIfAbsent(raw, factory);
+    }
+
+    /**
+     * Canonical instance when the raw string is already known, a new instance that is not kept otherwise
+     */
+    T lookup(String raw) {
+        T value = raw == null ? null : canonical.get(raw);
+        return value != null ? value : factory.apply(raw);
+    }
+
+}
@@ -5,10 +5,28 @@ import org.marionette.controlplane.domain.helpers.StringValidator;
 
 public class MethodName {
 
+    private static final Interner<MethodName> INTERNER = new Interner<>(MethodName::new);
+
     private final String methodName;
+    private final int hash;     // Immutable, computed once
 
     public MethodName(String methodName) {
         this.methodName = StringValidator.validateStringAndTrim(methodName);
+        this.hash = 31 + this.methodName.hashCode();
+    }
+
+    /**
+     * Canonical instance for the name, prefer it to the constructor on hot paths
+     */
+    public static MethodName of(String methodName) {
+        return INTERNER.intern(methodName);
+    }
+
+    /**
+     * For the names received from clients: the canonical instance if the name is known, without interning unknown ones
+     */
+    public static MethodName lookup(String methodName) {
+        return INTERNER.lookup(methodName);
     }
 
     public String getMethodName() {
@@ -17,10 +35,7 @@ public class MethodName {
 
     @Override
     public int hashCode() {
-        final int prime = 31;
-        int result = 1;
-        result = prime * result + ((methodName == null) ? 0 : methodName.hashCode());
-        return result;
+        return hash;
     }
 
     @Override
@@ -32,6 +47,8 @@ public class MethodName {
         if (getClass() != obj.getClass())
             return false;
         MethodName other = (MethodName) obj;
+        if (hash != other.hash)
+            return false;
         if (methodName == null) {
             if (other.methodName != null)
                 return false;
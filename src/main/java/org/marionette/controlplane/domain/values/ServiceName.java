@@ -4,14 +4,32 @@ import static java.util.Objects.requireNonNull;
 
 public class ServiceName {
 
+    private static final Interner<ServiceName> INTERNER = new Interner<>(ServiceName::new);
+
     private final String serviceName;
+    private final int hash;     // Immutable, computed once
 
     public ServiceName(String serviceName) {
 
         requireNonNull(serviceName, "The service name cannot be null");
 
         this.serviceName = serviceName;
+        this.hash = 31 + serviceName.hashCode();
+
+    }
 
+    /**
+     * Canonical instance for the name, prefer it to the constructor on hot paths
+     */
+    public static ServiceName of(String serviceName) {
+        return INTERNER.intern(serviceName);
+    }
+
+    /**
+     * For the names received from clients: the canonical instance if the name is known, without interning unknown ones
+     */
+    public static ServiceName lookup(String serviceName) {
+        return INTERNER.lookup(serviceName);
     }
 
     public String getServiceName() {
@@ -25,10 +43,7 @@ public class ServiceName {
 
     @Override
     public int hashCode() {
-        final int prime = 31;
-        int result = 1;
-        result = prime * result + ((serviceName == null) ? 0 : serviceName.hashCode());
-        return result;
+        return hash;
     }
 
     @Override
@@ -40,6 +55,8 @@ public class ServiceName {
         if (getClass() != obj.getClass())
             return false;
         ServiceName other = (ServiceName) obj;
+        if (hash != other.hash)
+            return false;
         if (serviceName == null) {
             if (other.serviceName != null)
                 return false;
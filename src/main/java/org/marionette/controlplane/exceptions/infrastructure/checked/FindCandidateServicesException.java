@@ -0,0 +1,24 @@
+package org.marionette.controlplane.exceptions.infrastructure.checked;
+
+import java.util.List;
+
+import org.marionette.controlplane.usecases.domain.dto.DiscoveredServiceMetadata;
+
+/**
+ * The candidate services could only be listed in part: the candidates that were listed are carried along, the
+ * services of the scopes that failed are unknown (not gone)
+ */
+public class FindCandidateServicesException extends InfrastructureException {
+
+    private final List<DiscoveredServiceMetadata> listedCandidates;
+
+    public FindCandidateServicesException(String message, String userMessage, List<DiscoveredServiceMetadata> listedCandidates) {
+        super(message, userMessage);
+        this.listedCandidates = List.copyOf(listedCandidates);
+    }
+
+    public List<DiscoveredServiceMetadata> getListedCandidates() {
+        return listedCandidates;
+    }
+
+}
@@ -1,26 +1,29 @@
 package org.marionette.controlplane.usecases.domain.configsnapshot;
 
 import java.util.Map;
-import java.util.stream.Collectors;
 
 import org.marionette.controlplane.domain.entities.ClassConfig;
+import org.marionette.controlplane.domain.entities.MethodConfig;
+import org.marionette.controlplane.domain.values.MethodName;
 
 public record ClassSnapshot(
     String className,
     Map<String, String> methodBehaviors  // methodName -> currentBehavior (ONLY current state)
 ) {
     public ClassSnapshot {
-        methodBehaviors = Map.copyOf(methodBehaviors);
+        methodBehaviors = RegistryMapView.immutable(methodBehaviors);
     }
     
+    /**
+     * View over the (immutable) class configuration, nothing is copied
+     */
     public static ClassSnapshot fromClassConfig(ClassConfig classConfig) {
-        Map<String, String> methodBehaviors = classConfig.getMethodsConfigurations()
-            .entrySet()
-            .stream()
-            .collect(Collectors.toMap(
-                entry -> entry.getKey().getMethodName(),
-                entry -> entry.getValue().currentBehaviourAsString()
-            ));
+        Map<String, String> methodBehaviors = new RegistryMapView<>(
+            classConfig.getMethodsConfigurations(),
+            MethodName::getMethodName,
+            MethodName::new,
+            MethodConfig::currentBehaviourAsString
+        );
             
         return new ClassSnapshot(classConfig.classNameAsString(), methodBehaviors);
     }
@@ -0,0 +1,74 @@
+package org.marionette.controlplane.usecases.domain.configsnapshot;
+
+import java.util.Map;
+
+/**
+ * Stable 128 bit identity of a system configuration: the same behaviours selected for the same
+ * service/class/method triples always give the same fingerprint, whatever the map iteration order and
+ * across restarts (only the characters of the names are hashed).
+ *
+ * Each (service, class, method, behaviour) tuple is hashed on its own and the tuple hashes are summed per
+ * 64 bit lane, which makes the result independent of the order of the tuples.
+ */
+public record ConfigurationFingerprint(long high, long low) {
+
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final long HIGH_OFFSET = 0xcbf29ce484222325L;
+    private static final long LOW_OFFSET = 0x84222325cbf29ce4L;
+
+    public static ConfigurationFingerprint of(SystemConfigurationSnapshot snapshot) {
+        long high = 0;
+        long low = 0;
+        long tuples = 0;
+        for (Map.Entry<String, ServiceSnapshot> service : snapshot.services().entrySet()) {
+            for (Map.Entry<String, ClassSnapshot> clazz : service.getValue().classes().entrySet()) {
+                for (Map.Entry<String, String> method : clazz.getValue().methodBehaviors().entrySet()) {
+                    high += mix(hash(HIGH_OFFSET, service.getKey(), clazz.getKey(), method.getKey(), method.getValue()));
+                    low += mix(hash(LOW_OFFSET, service.getKey(), clazz.getKey(), method.getKey(), method.getValue()));
+                    tuples++;
+                }
+            }
+        }
+        return new ConfigurationFingerprint(mix(high ^ tuples), mix(low + tuples));
+    }
+
+    public static ConfigurationFingerprint fromHex(String hex) {
+        if (hex == null || hex.length() != 32) {
+            throw new IllegalArgumentException("A configuration fingerprint is 32 hex characters, got " + hex);
+        }
+        return new ConfigurationFingerprint(Long.parseUnsignedLong(hex.substring(0, 16), 16),
+                Long.parseUnsignedLong(hex.substring(16), 16));
+    }
+
+    public String toHex() {
+        return String.format("%016x%016x", high, low);
+    }
+
+    @Override
+    public String toString() {
+        return toHex();
+    }
+
+    // FNV-1a over the characters, with a separator so that ("ab", "c") and ("a", "bc") differ
+    private static long hash(long offset, String... parts) {
+        long hash = offset;
+        for (String part : parts) {
+            for (int i = 0; i < part.length(); i++) {
+                hash = (hash ^ part.charAt(i)) * FNV_PRIME;
+            }
+            hash = (hash ^ 0xFFFF) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    // Final avalanche of MurmurHash3
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+}
@@ -0,0 +1,87 @@
+package org.marionette.controlplane.usecases.domain.configsnapshot;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Read only, string keyed view over an immutable map of the ConfigRegistry tree. Nothing is copied: keys and
+ * values are translated when accessed, so a snapshot only holds a reference to the registry version it was
+ * taken from and shares every node with it.
+ */
+final class RegistryMapView<K, V, R> extends AbstractMap<String, R> {
+
+    private final Map<K, V> source;
+    private final Function<K, String> keyName;
+    private final Function<String, K> keyOf;
+    private final Function<V, R> valueView;
+
+    RegistryMapView(Map<K, V> source, Function<K, String> keyName, Function<String, K> keyOf, Function<V, R> valueView) {
+        this.source = source;
+        this.keyName = keyName;
+        this.keyOf = keyOf;
+        this.valueView = valueView;
+    }
+
+    @Override
+    public R get(Object key) {
+        if (!(key instanceof String name)) {
+            return null;
+        }
+        V value;
+        try {
+            value = source.get(keyOf.apply(name));
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return null;    // Not a valid name, cannot be in the registry
+        }
+        return value != null ? valueView.apply(value) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public int size() {
+        return source.size();
+    }
+
+    @Override
+    public Set<Map.Entry<String, R>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Map.Entry<String, R>> iterator() {
+                Iterator<Map.Entry<K, V>> entries = source.entrySet().iterator();
+                return new Iterator<>() {
+                    @Override
+                    public boolean hasNext() {
+                        return entries.hasNext();
+                    }
+
+                    @Override
+                    public Map.Entry<String, R> next() {
+                        Map.Entry<K, V> entry = entries.next();
+                        return new AbstractMap.SimpleImmutableEntry<>(keyName.apply(entry.getKey()), valueView.apply(entry.getValue()));
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return source.size();
+            }
+        };
+    }
+
+    /**
+     * Views are already immutable, anything else gets the usual defensive copy
+     */
+    static <T> Map<String, T> immutable(Map<String, T> map) {
+        return map instanceof RegistryMapView<?, ?, ?> ? map : Map.copyOf(map);
+    }
+
+}
@@ -1,26 +1,28 @@
 package org.marionette.controlplane.usecases.domain.configsnapshot;
 
 import java.util.Map;
-import java.util.stream.Collectors;
 
 import org.marionette.controlplane.domain.entities.ServiceConfig;
+import org.marionette.controlplane.domain.values.ClassName;
 
 public record ServiceSnapshot(
     String serviceName,
     Map<String, ClassSnapshot> classes
 ) {
     public ServiceSnapshot {
-        classes = Map.copyOf(classes);
+        classes = RegistryMapView.immutable(classes);
     }
     
+    /**
+     * View over the (immutable) service configuration, nothing is copied
+     */
     public static ServiceSnapshot fromServiceConfig(ServiceConfig serviceConfig) {
-        Map<String, ClassSnapshot> classes = serviceConfig.getClassConfigurations()
-            .entrySet()
-            .stream()
-            .collect(Collectors.toMap(
-                entry -> entry.getKey().getClassName(),
-                entry -> ClassSnapshot.fromClassConfig(entry.getValue())
-            ));
+        Map<String, ClassSnapshot> classes = new RegistryMapView<>(
+            serviceConfig.getClassConfigurations(),
+            ClassName::getClassName,
+            ClassName::new,
+            ClassSnapshot::fromClassConfig
+        );
             
         return new ServiceSnapshot(serviceConfig.serviceNameAsString(), classes);
     }
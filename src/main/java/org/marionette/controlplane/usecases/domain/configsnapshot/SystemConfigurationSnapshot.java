@@ -3,31 +3,46 @@ package org.marionette.controlplane.usecases.domain.configsnapshot;
 import java.time.Instant;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 import org.marionette.controlplane.domain.entities.ConfigRegistry;
+import org.marionette.controlplane.domain.entities.ServiceConfig;
+import org.marionette.controlplane.domain.values.ServiceName;
 
 public record SystemConfigurationSnapshot(
     Map<String, ServiceSnapshot> services,  // service name to service snapshot
     Instant capturedAt
 ) {
     public SystemConfigurationSnapshot {
-        services = Map.copyOf(services);
+        services = RegistryMapView.immutable(services);
     }
     
+    /**
+     * O(1): captures the current root of the registry runtime tree and exposes it through read only views,
+     * all unchanged services, classes and methods are shared with the registry and with other snapshots
+     */
     public static SystemConfigurationSnapshot fromConfigRegistry(ConfigRegistry configRegistry) {
-        Map<String, ServiceSnapshot> services = configRegistry
-            .getAllRuntimeConfigurations()
-            .entrySet()
-            .stream()
-            .collect(Collectors.toMap(
-                entry -> entry.getKey().getServiceName(),
-                entry -> ServiceSnapshot.fromServiceConfig(entry.getValue())
-            ));
+        return fromRuntimeConfigurations(configRegistry.getAllRuntimeConfigurations());
+    }
+
+    /**
+     * Same as fromConfigRegistry, for runtime configurations that are not (yet) published in the registry.
+     * The map must not change afterwards.
+     */
+    public static SystemConfigurationSnapshot fromRuntimeConfigurations(Map<ServiceName, ServiceConfig> runtimeConfigurations) {
+        Map<String, ServiceSnapshot> services = new RegistryMapView<ServiceName, ServiceConfig, ServiceSnapshot>(
+            runtimeConfigurations,
+            ServiceName::getServiceName,
+            ServiceName::new,
+            ServiceSnapshot::fromServiceConfig
+        );
             
         return new SystemConfigurationSnapshot(services, Instant.now());
     }
 
+    public ConfigurationFingerprint fingerprint() {
+        return ConfigurationFingerprint.of(this);
+    }
+
     public Set<String> getServiceNamesList() {
         return Set.copyOf(services.keySet());
     }
@@ -31,7 +31,7 @@ public class ServiceConfigDataMapper {
 
         System.out.println("DEBUG: Converting ServiceConfigData - serviceName: " + serviceConfigData.serviceName() + ", classConfigs size: " + serviceConfigData.classConfigs().size());
 
-        ServiceConfig resultingServiceConfig = new ServiceConfig(new ServiceName(serviceConfigData.serviceName()));
+        ServiceConfig resultingServiceConfig = new ServiceConfig(ServiceName.of(serviceConfigData.serviceName()));
 
         for(ClassConfigData rawClassConfig : serviceConfigData.classConfigs()) {
             if (rawClassConfig == null) {
@@ -58,7 +58,7 @@ public class ServiceConfigDataMapper {
 
         System.out.println("DEBUG: Converting ClassConfigData - className: " + rawClassConfig.className() + ", methodConfigs size: " + rawClassConfig.methodConfigData().size());
 
-        ClassConfig resultingClassConfig = new ClassConfig(new ClassName(rawClassConfig.className()));
+        ClassConfig resultingClassConfig = new ClassConfig(ClassName.of(rawClassConfig.className()));
 
         for(MethodConfigData rawMethodConfig : rawClassConfig.methodConfigData()) {
             if (rawMethodConfig == null) {
@@ -1,9 +1,17 @@
 package org.marionette.controlplane.usecases.inbound;
 
+import java.util.List;
+
 import org.marionette.controlplane.usecases.inbound.changebehaviour.ChangeMarionetteServiceBehaviourRequest;
 
 public interface ChangeMarionetteServiceBehaviourUseCase {
 
     public void execute(ChangeMarionetteServiceBehaviourRequest request);
+
+    /**
+     * Applies all the changes, each service is updated once and atomically in the registry.
+     * If any change is invalid nothing is applied.
+     */
+    public void executeAll(List<ChangeMarionetteServiceBehaviourRequest> requests);
     
 }
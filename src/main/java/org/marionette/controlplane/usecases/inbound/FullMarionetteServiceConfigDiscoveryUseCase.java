@@ -1,7 +1,14 @@
 package org.marionette.controlplane.usecases.inbound;
 
+import org.marionette.controlplane.usecases.inbound.fulldiscovery.IncrementalDiscoveryResponse;
+
 public interface FullMarionetteServiceConfigDiscoveryUseCase {
 
     public void execute();
+
+    /**
+     * Discovers the services and applies only the differences to the registry, atomically
+     */
+    public IncrementalDiscoveryResponse executeIncremental();
     
 }
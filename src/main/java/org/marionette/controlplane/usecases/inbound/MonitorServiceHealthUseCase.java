@@ -0,0 +1,16 @@
+package org.marionette.controlplane.usecases.inbound;
+
+import org.marionette.controlplane.usecases.inbound.healthmonitoring.ServiceHealthReport;
+
+public interface MonitorServiceHealthUseCase {
+
+    /**
+     * Starts probing the registered services in the background
+     */
+    public void start();
+
+    public void stop();
+
+    public ServiceHealthReport healthReport();
+
+}
@@ -5,5 +5,10 @@ import org.marionette.controlplane.usecases.inbound.readconfigs.ReadAllMarionett
 public interface ReadAllMarionetteConfigsUseCase {
 
     public ReadAllMarionetteConfigsResponse execute();
+
+    /**
+     * Revision of the registry, the configurations returned by execute only change when it moves
+     */
+    public long currentRevision();
     
 }
@@ -0,0 +1,18 @@
+package org.marionette.controlplane.usecases.inbound;
+
+public interface RestoreRegistryStateUseCase {
+
+    /**
+     * Loads the last recorded registry state, if any, and records every change from now on
+     *
+     * @return true if a previous state was restored
+     */
+    public boolean restore();
+
+    /**
+     * To run after a discovery that followed a restore: the behaviours restored in the registry are pushed
+     * again to the services that lost them, services that were not found again are marked unavailable
+     */
+    public void reconcileWithLiveServices();
+
+}
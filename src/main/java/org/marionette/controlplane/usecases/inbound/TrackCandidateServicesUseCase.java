@@ -0,0 +1,13 @@
+package org.marionette.controlplane.usecases.inbound;
+
+public interface TrackCandidateServicesUseCase {
+
+    /**
+     * Starts following the candidate services: new Marionette services are registered as they appear and
+     * services that disappear are removed from the registry, without waiting for the next discovery
+     */
+    public void start();
+
+    public void stop();
+
+}
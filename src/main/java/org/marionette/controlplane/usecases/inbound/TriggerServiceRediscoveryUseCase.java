@@ -1,5 +1,7 @@
 package org.marionette.controlplane.usecases.inbound;
 
+import org.marionette.controlplane.usecases.inbound.fulldiscovery.IncrementalDiscoveryResponse;
+
 public interface TriggerServiceRediscoveryUseCase {
 
     /**
@@ -9,5 +11,11 @@ public interface TriggerServiceRediscoveryUseCase {
      * 3. Repopulates the registry with fresh data
      */
     void execute();
+
+    /**
+     * Triggers an incremental rediscovery: the registry stays populated during the run and only the
+     * added, removed and changed services are applied at the end, runtime state of the others is kept
+     */
+    IncrementalDiscoveryResponse executeIncremental();
     
 }
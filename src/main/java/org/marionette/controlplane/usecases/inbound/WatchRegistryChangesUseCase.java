@@ -0,0 +1,18 @@
+package org.marionette.controlplane.usecases.inbound;
+
+import java.time.Duration;
+
+import org.marionette.controlplane.usecases.inbound.registrychanges.RegistryChangesResponse;
+
+public interface WatchRegistryChangesUseCase {
+
+    public long currentRevision();
+
+    public RegistryChangesResponse changesSince(long revision);
+
+    /**
+     * Waits up to the timeout for a change after the given revision, returns immediately if there already is one
+     */
+    public RegistryChangesResponse awaitChangesSince(long revision, Duration timeout) throws InterruptedException;
+
+}
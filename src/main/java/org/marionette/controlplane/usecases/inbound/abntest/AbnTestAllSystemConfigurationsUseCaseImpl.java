@@ -13,10 +13,14 @@ import org.marionette.controlplane.usecases.inbound.abntest.domain.VariationPoin
 import org.marionette.controlplane.usecases.inbound.abntest.engine.AbnTestExecutor;
 import org.marionette.controlplane.usecases.inbound.abntest.engine.SystemConfigurationsGenerator;
 import org.marionette.controlplane.usecases.inbound.abntest.engine.VariationPointsExtractor;
+import org.marionette.controlplane.usecases.inbound.abntest.memo.MeasurementMemo;
+import org.marionette.controlplane.usecases.inbound.abntest.memo.MeasurementMemoConfiguration;
 import org.marionette.controlplane.usecases.inbound.abntest.ranking.SimpleConfigurationRanking;
 import org.marionette.controlplane.usecases.inbound.abntest.ranking.SystemConfigurationsRanker;
+import org.marionette.controlplane.usecases.outbound.clock.ExperimentClock;
 import org.marionette.controlplane.usecases.outbound.fetchmetrics.OrderedMetricsMetadataProvider;
 import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.MetricsConfiguration;
+import org.marionette.controlplane.usecases.outbound.resultsstore.AbnTestResultsStoreGateway;
 
 public class AbnTestAllSystemConfigurationsUseCaseImpl implements AbnTestAllSystemConfigurationsUseCase {
 
@@ -26,6 +30,9 @@ public class AbnTestAllSystemConfigurationsUseCaseImpl implements AbnTestAllSyst
     private final SystemConfigurationsRanker ranker;
     private final AbnTestResultsStorage resultsStorage;
     private final OrderedMetricsMetadataProvider metricsMetadataProvider;
+    private final AbnTestResultsStoreGateway resultsStore;
+    private final MeasurementMemoConfiguration memoConfiguration;
+    private final ExperimentClock clock;
 
     public AbnTestAllSystemConfigurationsUseCaseImpl(
         VariationPointsExtractor variationPointsExtractor, 
@@ -33,13 +40,19 @@ public class AbnTestAllSystemConfigurationsUseCaseImpl implements AbnTestAllSyst
         AbnTestExecutor executor,
         SystemConfigurationsRanker ranker,
         AbnTestResultsStorage resultsStorage,
-        OrderedMetricsMetadataProvider metricsMetadataProvider) {
+        OrderedMetricsMetadataProvider metricsMetadataProvider,
+        AbnTestResultsStoreGateway resultsStore,
+        MeasurementMemoConfiguration memoConfiguration,
+        ExperimentClock clock) {
         this.variationPointsExtractor = variationPointsExtractor;
         this.systemConfigurationsGenerator = systemConfigurationsGenerator;
         this.executor = executor;
         this.ranker = ranker;
         this.resultsStorage = resultsStorage;
         this.metricsMetadataProvider = metricsMetadataProvider;
+        this.resultsStore = resultsStore;
+        this.memoConfiguration = memoConfiguration;
+        this.clock = clock;
     }
 
     @Override
@@ -57,7 +70,10 @@ public class AbnTestAllSystemConfigurationsUseCaseImpl implements AbnTestAllSyst
 
         MetricsConfiguration metricsConfiguration = metricsMetadataProvider.loadMetrics();
         
-        GlobalMetricsRegistry globalMetricsRegistry = executor.executeAbnTest(systemConfigs, totalDuration);
+        // Same clock as the executor, so memo ages are measured in simulated time under simulation
+        MeasurementMemo memo = MeasurementMemo.load(resultsStore, memoConfiguration, clock.now());
+
+        GlobalMetricsRegistry globalMetricsRegistry = executor.executeAbnTest(systemConfigs, totalDuration, memo);
         
         List<SimpleConfigurationRanking> systemConfigRanking = ranker.rankConfigurations(globalMetricsRegistry.getAllMetrics(), metricsConfiguration);
 
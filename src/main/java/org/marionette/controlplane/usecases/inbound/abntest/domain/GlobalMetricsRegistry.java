@@ -1,9 +1,11 @@
 package org.marionette.controlplane.usecases.inbound.abntest.domain;
 
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import org.marionette.controlplane.usecases.domain.configsnapshot.ConfigurationFingerprint;
 import org.marionette.controlplane.usecases.domain.configsnapshot.SystemConfigurationSnapshot;
 import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.SystemMetricsDataPoint;
 
@@ -13,14 +15,39 @@ public class GlobalMetricsRegistry {
     private final String keyPattern = "conf-";
     private final Map<String, SystemConfigurationSnapshot> globalConfigs = new ConcurrentHashMap<>();
     private final Map<String, SystemMetricsDataPoint> globalMetrics = new ConcurrentHashMap<>();
+    private final Map<String, ConfigurationFingerprint> fingerprints = new ConcurrentHashMap<>();
+    private final Map<ConfigurationFingerprint, String> configIdsByFingerprint = new ConcurrentHashMap<>();
 
     private final AtomicInteger globalConfigCounter = new AtomicInteger(0);
 
-    public synchronized void putSystemMetrics(SystemConfigurationSnapshot systemConfigSnapshot,
+    /**
+     * @return the identifier assigned to the configuration
+     */
+    public synchronized String putSystemMetrics(SystemConfigurationSnapshot systemConfigSnapshot,
             SystemMetricsDataPoint dataPoint) {
         String identifier = keyPattern + globalConfigCounter.getAndIncrement();
         globalConfigs.put(identifier, systemConfigSnapshot);
         globalMetrics.put(identifier, dataPoint);
+        indexFingerprint(identifier, systemConfigSnapshot);
+        return identifier;
+    }
+
+    /**
+     * Puts back a configuration measured by a previous run under its original identifier
+     */
+    public synchronized void restoreSystemMetrics(String configId, SystemConfigurationSnapshot systemConfigSnapshot,
+            SystemMetricsDataPoint dataPoint) {
+        globalConfigs.put(configId, systemConfigSnapshot);
+        globalMetrics.put(configId, dataPoint);
+        indexFingerprint(configId, systemConfigSnapshot);
+        if (configId.startsWith(keyPattern)) {
+            try {
+                int index = Integer.parseInt(configId.substring(keyPattern.length()));
+                globalConfigCounter.accumulateAndGet(index + 1, Math::max);
+            } catch (NumberFormatException e) {
+                // Not generated by this registry, the counter is left untouched
+            }
+        }
     }
 
     public SystemMetricsDataPoint getSystemDataPoint(int index) {
@@ -39,8 +66,25 @@ public class GlobalMetricsRegistry {
         return globalConfigs.get(configId);
     }
 
+    public ConfigurationFingerprint getFingerprint(String configId) {
+        return fingerprints.get(configId);
+    }
+
+    /**
+     * Identifier of the configuration with the given fingerprint, the first one stored if it was measured twice
+     */
+    public Optional<String> findConfigIdByFingerprint(ConfigurationFingerprint fingerprint) {
+        return Optional.ofNullable(configIdsByFingerprint.get(fingerprint));
+    }
+
     public Map<String, SystemMetricsDataPoint> getAllMetrics() {
         return globalMetrics;
     }
 
+    private void indexFingerprint(String configId, SystemConfigurationSnapshot systemConfigSnapshot) {
+        ConfigurationFingerprint fingerprint = systemConfigSnapshot.fingerprint();
+        fingerprints.put(configId, fingerprint);
+        configIdsByFingerprint.putIfAbsent(fingerprint, configId);
+    }
+
 }
@@ -1,68 +1,174 @@
 package org.marionette.controlplane.usecases.inbound.abntest.domain;
 
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.marionette.controlplane.domain.values.BehaviourId;
 
 /**
- * Represents the selection of behaviours for VarianionPoints
+ * Represents the selection of behaviours for VarianionPoints.
+ * Stored as one behaviour ordinal per position of the shared VariationPointIndex (-1 when there is no
+ * selection), so copies, equality and hashing work on a plain int array.
  */
 public class SystemBehaviourConfiguration implements Iterable<SingleBehaviourSelection> {
 
-    private final Map<VariationPoint, BehaviourId> behaviourSelections = new HashMap<>();
+    private static final int NOT_SELECTED = -1;
+
+    private final VariationPointIndex variationPoints;
+    private final int[] ordinals;
+
+    public SystemBehaviourConfiguration(VariationPointIndex variationPoints) {
+        this(variationPoints, new int[variationPoints.size()]);
+        Arrays.fill(ordinals, NOT_SELECTED);
+    }
+
+    private SystemBehaviourConfiguration(VariationPointIndex variationPoints, int[] ordinals) {
+        this.variationPoints = variationPoints;
+        this.ordinals = ordinals;
+    }
+
+    /**
+     * @param ordinals one behaviour ordinal per variation point of the index, copied
+     */
+    public static SystemBehaviourConfiguration ofOrdinals(VariationPointIndex variationPoints, int[] ordinals) {
+        if (ordinals.length != variationPoints.size()) {
+            throw new IllegalArgumentException("Expected " + variationPoints.size() + " behaviour ordinals, got " + ordinals.length);
+        }
+        for (int i = 0; i < ordinals.length; i++) {
+            if (ordinals[i] < NOT_SELECTED || ordinals[i] >= variationPoints.get(i).behaviours().behaviourNumber()) {
+                throw new IllegalArgumentException("Invalid behaviour ordinal " + ordinals[i] + " for " + variationPoints.get(i));
+            }
+        }
+        return new SystemBehaviourConfiguration(variationPoints, ordinals.clone());
+    }
 
     public Map<VariationPoint, BehaviourId> getBehaviourSelections() {
-        return Map.copyOf(behaviourSelections);
+        Map<VariationPoint, BehaviourId> selections = new LinkedHashMap<>();
+        for (SingleBehaviourSelection selection : this) {
+            selections.put(selection.variationPoint(), selection.selectedBehaviour());
+        }
+        return Collections.unmodifiableMap(selections);
+    }
+
+    public int selectionCount() {
+        return (int) Arrays.stream(ordinals).filter(ordinal -> ordinal != NOT_SELECTED).count();
+    }
+
+    public VariationPointIndex getVariationPointIndex() {
+        return variationPoints;
+    }
+
+    /**
+     * @return the ordinal of the selected behaviour at the position, -1 when nothing is selected
+     */
+    public int ordinalAt(int position) {
+        return ordinals[position];
     }
 
     public void selectBehaviour(VariationPoint variation, BehaviourId selection) {
-        behaviourSelections.put(variation, selection);
+        int position = requirePosition(variation);
+        int ordinal = variation.behaviours().ordinalOf(selection);
+        if (ordinal == NOT_SELECTED) {
+            throw new IllegalArgumentException("The behaviour " + selection + " is not available for " + variation);
+        }
+        ordinals[position] = ordinal;
     }
 
     public BehaviourId getBehaviourSelection(VariationPoint variation) {
-        return behaviourSelections.get(variation);
+        int position = variationPoints.positionOf(variation);
+        if (position < 0 || ordinals[position] == NOT_SELECTED) {
+            return null;
+        }
+        return variation.behaviours().behaviourAt(ordinals[position]);
     }
 
     public void removeSelection(VariationPoint variation) {
-        behaviourSelections.remove(variation);
+        ordinals[requirePosition(variation)] = NOT_SELECTED;
     }
 
     public static SystemBehaviourConfiguration copyOf(SystemBehaviourConfiguration source) {
-        SystemBehaviourConfiguration copy =  new SystemBehaviourConfiguration();
-        for(Map.Entry<VariationPoint, BehaviourId> entry : source.behaviourSelections.entrySet()) {
-            copy.selectBehaviour(entry.getKey(), entry.getValue());
+        return new SystemBehaviourConfiguration(source.variationPoints, source.ordinals.clone());
+    }
+
+    private int requirePosition(VariationPoint variation) {
+        int position = variationPoints.positionOf(variation);
+        if (position < 0) {
+            throw new IllegalArgumentException("The variation point " + variation + " is not part of this configuration");
         }
-        return copy;
+        return position;
     }
 
     @Override
     public Iterator<SingleBehaviourSelection> iterator() {
         // Return unmodifiable iterator to preserve encapsulation
-        return behaviourSelections.entrySet().stream().map(
-            entry -> new SingleBehaviourSelection(entry.getKey(), entry.getValue())
-        ).iterator();
+        return new Iterator<>() {
+            private int position = nextSelected(0);
+
+            @Override
+            public boolean hasNext() {
+                return position < ordinals.length;
+            }
+
+            @Override
+            public SingleBehaviourSelection next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                VariationPoint variationPoint = variationPoints.get(position);
+                SingleBehaviourSelection selection = new SingleBehaviourSelection(variationPoint,
+                        variationPoint.behaviours().behaviourAt(ordinals[position]));
+                position = nextSelected(position + 1);
+                return selection;
+            }
+
+            private int nextSelected(int from) {
+                int i = from;
+                while (i < ordinals.length && ordinals[i] == NOT_SELECTED) {
+                    i++;
+                }
+                return i;
+            }
+        };
     }
 
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(ordinals);
+    }
 
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null || getClass() != obj.getClass())
+            return false;
+        SystemBehaviourConfiguration other = (SystemBehaviourConfiguration) obj;
+        return Arrays.equals(ordinals, other.ordinals)
+                && (variationPoints == other.variationPoints
+                        || variationPoints.getVariationPoints().equals(other.variationPoints.getVariationPoints()));
+    }
 
     @Override
     public String toString() {
-        if (behaviourSelections.isEmpty()) {
+        if (selectionCount() == 0) {
             return "VariationSelector [no selections]";
         }
 
-        String selectionsStr = behaviourSelections.entrySet().stream()
-                .map(entry -> {
-                    VariationPoint vp = entry.getKey();
-                    BehaviourId behaviour = entry.getValue();
+        String selectionsStr = IntStream.range(0, ordinals.length)
+                .filter(position -> ordinals[position] != NOT_SELECTED)
+                .mapToObj(position -> {
+                    VariationPoint vp = variationPoints.get(position);
                     return String.format("    %s.%s.%s -> %s",
                             vp.serviceName(),
                             vp.className(),
                             vp.methodName(),
-                            behaviour.getBehaviourId());
+                            vp.behaviours().behaviourAt(ordinals[position]).getBehaviourId());
                 })
                 .collect(Collectors.joining("\n"));
 
@@ -0,0 +1,45 @@
+package org.marionette.controlplane.usecases.inbound.abntest.domain;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fixed positions of the variation points of a test, shared by all its SystemBehaviourConfigurations
+ */
+public final class VariationPointIndex {
+
+    private final List<VariationPoint> variationPoints;
+    private final Map<VariationPoint, Integer> positions;
+
+    public VariationPointIndex(List<VariationPoint> variationPoints) {
+        this.variationPoints = List.copyOf(variationPoints);
+        this.positions = new HashMap<>();
+        for (int i = 0; i < this.variationPoints.size(); i++) {
+            if (positions.put(this.variationPoints.get(i), i) != null) {
+                throw new IllegalArgumentException("Duplicate variation point " + this.variationPoints.get(i));
+            }
+        }
+    }
+
+    public int size() {
+        return variationPoints.size();
+    }
+
+    public VariationPoint get(int position) {
+        return variationPoints.get(position);
+    }
+
+    /**
+     * @return the position of the variation point, -1 if it is not part of the index
+     */
+    public int positionOf(VariationPoint variationPoint) {
+        Integer position = positions.get(variationPoint);
+        return position != null ? position : -1;
+    }
+
+    public List<VariationPoint> getVariationPoints() {
+        return variationPoints;
+    }
+
+}
@@ -5,9 +5,18 @@ import java.util.List;
 
 import org.marionette.controlplane.usecases.inbound.abntest.domain.GlobalMetricsRegistry;
 import org.marionette.controlplane.usecases.inbound.abntest.domain.SystemBehaviourConfiguration;
+import org.marionette.controlplane.usecases.inbound.abntest.memo.MeasurementMemo;
 
 public interface AbnTestExecutor {
 
-    public GlobalMetricsRegistry executeAbnTest(List<SystemBehaviourConfiguration> systemConfigurations, Duration totalTime);
+    public default GlobalMetricsRegistry executeAbnTest(List<SystemBehaviourConfiguration> systemConfigurations, Duration totalTime) {
+        return executeAbnTest(systemConfigurations, totalTime, MeasurementMemo.empty());
+    }
+
+    /**
+     * Configurations with a reusable measurement in the memo are not applied nor measured again
+     */
+    public GlobalMetricsRegistry executeAbnTest(List<SystemBehaviourConfiguration> systemConfigurations, Duration totalTime,
+            MeasurementMemo memo);
     
 }
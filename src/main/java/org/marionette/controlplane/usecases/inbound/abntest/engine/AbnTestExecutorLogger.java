@@ -183,7 +183,7 @@ public class AbnTestExecutorLogger {
         // Group configurations by number of selections
         Map<Integer, Long> selectionCounts = configurations.stream()
             .collect(Collectors.groupingBy(
-                config -> config.getBehaviourSelections().size(),
+                config -> config.selectionCount(),
                 Collectors.counting()
             ));
         
@@ -1,60 +1,54 @@
 package org.marionette.controlplane.usecases.inbound.abntest.engine;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
-import org.marionette.controlplane.domain.values.BehaviourId;
 import org.marionette.controlplane.usecases.inbound.abntest.domain.SystemBehaviourConfiguration;
 import org.marionette.controlplane.usecases.inbound.abntest.domain.VariationPoint;
+import org.marionette.controlplane.usecases.inbound.abntest.domain.VariationPointIndex;
 
 public class SystemConfigurationsGenerator {
 
 
+    /**
+     * Enumerates the cartesian product of the behaviours of all variation points, like an odometer over the
+     * behaviour ordinals: the last variation point changes fastest.
+     */
     public List<SystemBehaviourConfiguration> generateAllSystemConfigurations(List<VariationPoint> variationPoints) {
 
         SystemConfigurationsGeneratorLogger.logGenerationStart(variationPoints);
 
-        List<SystemBehaviourConfiguration> allBehaviourConfigurations = new LinkedList<>();
+        VariationPointIndex index = new VariationPointIndex(variationPoints);
+        int[] radix = new int[index.size()];
+        int total = 1;
+        for (int i = 0; i < radix.length; i++) {
+            radix[i] = index.get(i).behaviours().behaviourNumber();
+            try {
+                total = Math.multiplyExact(total, radix[i]);
+            } catch (ArithmeticException e) {
+                throw new IllegalStateException("Too many system configurations to enumerate for " + variationPoints.size() + " variation points");
+            }
+        }
+
+        List<SystemBehaviourConfiguration> allBehaviourConfigurations = new ArrayList<>(total);
+        int[] ordinals = new int[radix.length];
 
-        SystemBehaviourConfiguration currentlyExploredConfiguration = new SystemBehaviourConfiguration();
+        for (int generated = 0; generated < total; generated++) {
+            allBehaviourConfigurations.add(SystemBehaviourConfiguration.ofOrdinals(index, ordinals));
 
-        generateAllCombinations(
-            allBehaviourConfigurations,
-            0,
-            currentlyExploredConfiguration,
-            variationPoints
-        );
+            // Advance to the next combination
+            for (int i = ordinals.length - 1; i >= 0; i--) {
+                if (++ordinals[i] < radix[i]) {
+                    break;
+                }
+                ordinals[i] = 0;
+            }
+        }
 
         SystemConfigurationsGeneratorLogger.logGenerationResults(variationPoints, allBehaviourConfigurations);
 
         return allBehaviourConfigurations;
         
     }
-
-    private void generateAllCombinations(List<SystemBehaviourConfiguration> allBehaviourConfigurations, int i,
-            SystemBehaviourConfiguration currentlyExploredConfiguration,
-            List<VariationPoint> variationPoints) {
-        
-        // Base case - All variation points have a selection
-        if(i == variationPoints.size()) {
-            allBehaviourConfigurations.add(SystemBehaviourConfiguration.copyOf(currentlyExploredConfiguration));
-            return;
-        }
-
-        for(BehaviourId behaviourId : variationPoints.get(i).behaviours()) {
-            currentlyExploredConfiguration.selectBehaviour(
-                variationPoints.get(i),
-                behaviourId
-            );
-
-            // Recursive call to allow the next variation point to make its choice
-            generateAllCombinations(allBehaviourConfigurations, i + 1, currentlyExploredConfiguration, variationPoints);
-
-            // Returning up, cleanup the currentlyExploredConfiguration data structure
-            currentlyExploredConfiguration.removeSelection(variationPoints.get(i));
-        }
-
-
-    } 
     
 }
@@ -171,7 +171,7 @@ public class SystemConfigurationsGeneratorLogger {
 
         // Completeness check
         long completeConfigurations = configurations.stream()
-                .mapToLong(config -> config.getBehaviourSelections().size())
+                .mapToLong(config -> config.selectionCount())
                 .filter(size -> size == variationPoints.size())
                 .count();
 
@@ -191,12 +191,10 @@ public class SystemConfigurationsGeneratorLogger {
             return 0;
 
         // Very rough estimation:
-        // - Each configuration object: ~100 bytes
-        // - Each selection entry: ~200 bytes (objects + strings)
-        long avgSelectionsPerConfig = configurations.stream()
-                .mapToLong(config -> config.getBehaviourSelections().size())
-                .sum() / configurations.size();
+        // - Each configuration object with its ordinal array header: ~40 bytes
+        // - Each variation point: 4 bytes (one int ordinal, variation points are shared)
+        long variationPointsPerConfig = configurations.get(0).getVariationPointIndex().size();
 
-        return (100 + avgSelectionsPerConfig * 200) * configurations.size() / 1024;
+        return (40 + variationPointsPerConfig * 4) * configurations.size() / 1024;
     }
 }
\ No newline at end of file
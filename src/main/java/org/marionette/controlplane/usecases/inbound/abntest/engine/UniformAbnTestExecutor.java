@@ -3,20 +3,30 @@ package org.marionette.controlplane.usecases.inbound.abntest.engine;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.Set;
 
+import org.marionette.controlplane.domain.collections.PersistentHashMap;
 import org.marionette.controlplane.domain.entities.ConfigRegistry;
+import org.marionette.controlplane.domain.entities.ServiceConfig;
 import org.marionette.controlplane.domain.values.BehaviourId;
 import org.marionette.controlplane.domain.values.ClassName;
 import org.marionette.controlplane.domain.values.MethodName;
 import org.marionette.controlplane.domain.values.ServiceName;
+import org.marionette.controlplane.usecases.domain.configsnapshot.ConfigurationFingerprint;
 import org.marionette.controlplane.usecases.domain.configsnapshot.ServiceSnapshot;
 import org.marionette.controlplane.usecases.domain.configsnapshot.SystemConfigurationSnapshot;
 import org.marionette.controlplane.usecases.inbound.abntest.domain.GlobalMetricsRegistry;
 import org.marionette.controlplane.usecases.inbound.abntest.domain.SingleBehaviourSelection;
 import org.marionette.controlplane.usecases.inbound.abntest.domain.SystemBehaviourConfiguration;
+import org.marionette.controlplane.usecases.inbound.abntest.memo.MeasurementMemo;
+import org.marionette.controlplane.usecases.inbound.abntest.memo.MemoizedMeasurement;
+import org.marionette.controlplane.usecases.outbound.clock.ExperimentClock;
 import org.marionette.controlplane.usecases.outbound.fetchmetrics.FetchMarionetteNodesMetricsGateway;
 import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.AggregateMetric;
 import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.ServiceMetricsDataPoint;
@@ -26,27 +36,35 @@ import org.marionette.controlplane.usecases.outbound.servicemanipulation.Control
 
 public class UniformAbnTestExecutor implements AbnTestExecutor {
 
+    private static final Duration STABILISATION_TIME = Duration.ofSeconds(6);
+
     private final ConfigRegistry globalRegistry;
     private final ControlMarionetteServiceBehaviourGateway controlMarionetteGateway;
     private final FetchMarionetteNodesMetricsGateway fetchMarionetteMetricsGateway;
     private final AbnTestExecutorLogger logger = new AbnTestExecutorLogger();
     private final NonMarionetteNodesTracker nonMarionetteNodesTracker;
+    private final Duration samplingPeriod;
+    private final ExperimentClock clock;
 
     public UniformAbnTestExecutor(ConfigRegistry globalRegistry,
             ControlMarionetteServiceBehaviourGateway controlMarionetteGateway,
             FetchMarionetteNodesMetricsGateway fetchMarionetteMetricsGateway,
-            NonMarionetteNodesTracker nonMarionetteNodesTracker) {
+            NonMarionetteNodesTracker nonMarionetteNodesTracker,
+            Duration samplingPeriod,
+            ExperimentClock clock) {
         this.globalRegistry = globalRegistry;
         this.controlMarionetteGateway = controlMarionetteGateway;
         this.fetchMarionetteMetricsGateway = fetchMarionetteMetricsGateway;
         this.nonMarionetteNodesTracker = nonMarionetteNodesTracker;
+        this.samplingPeriod = samplingPeriod;
+        this.clock = clock;
     }
 
     @Override
     public GlobalMetricsRegistry executeAbnTest(List<SystemBehaviourConfiguration> systemConfigurations,
-            Duration totalTime) {
+            Duration totalTime, MeasurementMemo memo) {
 
-        Instant testStart = Instant.now();
+        Instant testStart = clock.now();
 
         // Log test start
         logger.logTestExecutionStart(systemConfigurations, totalTime);
@@ -55,47 +73,74 @@ public class UniformAbnTestExecutor implements AbnTestExecutor {
         // Compute time slice for each configuration
         Duration timeSlice = computeTimeSlice(totalTime, systemConfigurations.size());
 
-        Duration samplingPeriod = Duration.ofSeconds(20);
-
         // Capture original state
         SystemConfigurationSnapshot originalState = SystemConfigurationSnapshot.fromConfigRegistry(globalRegistry);
 
+        // Load of the last configuration measured in this run, to tell whether a memoized measurement is comparable
+        OptionalDouble currentLoad = OptionalDouble.empty();
+        int reusedCount = 0;
+
         // MAIN LOOP
         try {
             for (int i = 0; i < systemConfigurations.size(); i++) {
                 SystemBehaviourConfiguration config = systemConfigurations.get(i);
                 int configIndex = i + 1;
-                Instant configStart = Instant.now();
+                Instant configStart = clock.now();
 
                 try {
                     // Log configuration start
                     logger.logConfigurationStart(configIndex, systemConfigurations.size(), config, timeSlice);
 
+                    // Reuse a recent measurement of the same configuration instead of measuring it again
+                    if (!memo.isEmpty()) {
+                        SystemConfigurationSnapshot projectedSnapshot = projectConfiguration(config);
+                        ConfigurationFingerprint fingerprint = projectedSnapshot.fingerprint();
+                        Optional<MemoizedMeasurement> memoized = memo.lookup(fingerprint, currentLoad, clock.now());
+                        if (memoized.isPresent()) {
+                            globalMetricsRegistry.putSystemMetrics(projectedSnapshot, memoized.get().dataPoint());
+                            System.out.printf("♻️  Configuration %d (%s) reused from run %s (%s), measured at %s%n",
+                                    configIndex, fingerprint, memoized.get().runId(), memoized.get().configId(),
+                                    memoized.get().measuredAt());
+                            reusedCount++;
+                            continue;
+                        }
+                    }
+
                     // Apply configuration
                     SystemConfigurationSnapshot appliedSnapshot = applyConfigurationToSystem(config);
                     logger.logConfigurationApplied(configIndex, appliedSnapshot);
 
                     System.out.println("Spleeping 6s to let configuration stabilise");
-                    Thread.sleep(6_000);
+                    clock.sleep(STABILISATION_TIME);
 
                     System.out.println("Now sleeping for " + timeSlice.toSeconds() + " seconds to gather metrics");;
                     // Wait for time slice
-                    Thread.sleep(timeSlice.toMillis());
-
-                    // Collect metrics
-                    SystemMetricsDataPoint metrics = collectMetrics(appliedSnapshot, timeSlice, samplingPeriod);
+                    SystemMetricsDataPoint metrics;
+                    fetchMarionetteMetricsGateway.startCollecting(measuredServices(appliedSnapshot), samplingPeriod);
+                    try {
+                        clock.sleep(timeSlice);
+
+                        // Collect metrics
+                        metrics = collectMetrics(appliedSnapshot, timeSlice, samplingPeriod);
+                    } finally {
+                        fetchMarionetteMetricsGateway.stopCollecting();
+                    }
                     logger.logMetricsCollection(configIndex, metrics);
+                    OptionalDouble measuredLoad = memo.loadOf(metrics);
+                    if (measuredLoad.isPresent()) {
+                        currentLoad = measuredLoad;
+                    }
 
                     // Store results
                     globalMetricsRegistry.putSystemMetrics(appliedSnapshot, metrics);
 
                     // Log completion
-                    Duration actualDuration = Duration.between(configStart, Instant.now());
+                    Duration actualDuration = Duration.between(configStart, clock.now());
                     logger.logConfigurationComplete(configIndex, actualDuration, true);
 
                     System.out.println("=".repeat(30));
                     System.out.println("Sleeping 6s before applying new configuration");
-                    Thread.sleep(6_000);
+                    clock.sleep(STABILISATION_TIME);
 
                 } catch (Exception e) {
                     logger.logConfigurationFailure(configIndex, config, e);
@@ -106,9 +151,23 @@ public class UniformAbnTestExecutor implements AbnTestExecutor {
             System.out.println("Restoring original state...");
         }
 
+        if (reusedCount > 0) {
+            System.out.printf("♻️  %d of %d configurations reused from previous runs%n", reusedCount,
+                    systemConfigurations.size());
+        }
+
         return globalMetricsRegistry;
     }
 
+    /**
+     * The marionette services of the snapshot and the tracked non marionette ones
+     */
+    private Set<String> measuredServices(SystemConfigurationSnapshot appliedSnapshot) {
+        Set<String> services = new LinkedHashSet<>(appliedSnapshot.getServiceNamesList());
+        services.addAll(nonMarionetteNodesTracker.retrieveNonMarionetteNodeNames());
+        return services;
+    }
+
     private SystemMetricsDataPoint collectMetrics(SystemConfigurationSnapshot appliedSnapshot, Duration timeSlice,
             Duration samplingPeriod) {
 
@@ -149,7 +208,7 @@ public class UniformAbnTestExecutor implements AbnTestExecutor {
         // Count total selections and group by service for summary
         Map<String, List<SingleBehaviourSelection>> selectionsByService = groupSelectionsByService(
                 systemBehaviourConfiguration);
-        int totalSelections = systemBehaviourConfiguration.getBehaviourSelections().size();
+        int totalSelections = systemBehaviourConfiguration.selectionCount();
 
         System.out.printf("📊 Configuration Summary:%n");
         System.out.printf("   • Total behavior changes: %d%n", totalSelections);
@@ -165,20 +224,23 @@ public class UniformAbnTestExecutor implements AbnTestExecutor {
         int skippedCount = 0;
         List<String> errors = new ArrayList<>();
 
-        // Apply each selection
-        for (SingleBehaviourSelection behaviourSelection : systemBehaviourConfiguration) {
-            try {
-                boolean wasApplied = applySingleBehaviourSelection(behaviourSelection);
-                if (wasApplied) {
-                    appliedCount++;
-                } else {
-                    skippedCount++;
+        // Apply the selections of each service as one batch, published once in the registry
+        for (List<SingleBehaviourSelection> serviceSelections : selectionsByService.values()) {
+            List<SingleBehaviourSelection> toApply = new ArrayList<>();
+            for (SingleBehaviourSelection behaviourSelection : serviceSelections) {
+                try {
+                    if (isBehaviourAlreadyApplied(globalRegistry, behaviourSelection)) {
+                        System.out.printf("   ⏭️  %s -> %s (already applied)%n", behaviourSelection.getFullMethodPath(),
+                                behaviourSelection.selectedBehaviour().getBehaviourId());
+                        skippedCount++;
+                    } else {
+                        toApply.add(behaviourSelection);
+                    }
+                } catch (Exception e) {
+                    errors.add(String.format("%s: %s", behaviourSelection.getFullMethodPath(), e.getMessage()));
                 }
-            } catch (Exception e) {
-                errors.add(String.format("%s: %s",
-                        behaviourSelection.getFullMethodPath(),
-                        e.getMessage()));
             }
+            appliedCount += applyServiceSelections(toApply, errors);
         }
 
         // Summary
@@ -196,50 +258,108 @@ public class UniformAbnTestExecutor implements AbnTestExecutor {
         return SystemConfigurationSnapshot.fromConfigRegistry(globalRegistry);
     }
 
-    private boolean applySingleBehaviourSelection(SingleBehaviourSelection behaviourSelection) {
-        ServiceName serviceName = behaviourSelection.getServiceName();
-        ClassName className = behaviourSelection.getClassName();
-        MethodName methodName = behaviourSelection.getMethodName();
-        BehaviourId selectedBehaviour = behaviourSelection.selectedBehaviour();
-
-        String methodPath = behaviourSelection.getFullMethodPath();
-        String behaviourId = selectedBehaviour.getBehaviourId();
-
-        // Check if already applied
-        if (isBehaviourAlreadyApplied(globalRegistry, behaviourSelection)) {
-            System.out.printf("   ⏭️  %s -> %s (already applied)%n", methodPath, behaviourId);
-            return false;
+    /**
+     * Applies the selections of one service to the registry in a single update, then notifies the service
+     * of each change. Invalid selections are reported and left out, the others are still applied.
+     *
+     * @return the number of applied selections
+     */
+    private int applyServiceSelections(List<SingleBehaviourSelection> selections, List<String> errors) {
+        if (selections.isEmpty()) {
+            return 0;
         }
+        ServiceName serviceName = selections.get(0).getServiceName();
 
+        List<SingleBehaviourSelection> applied = new ArrayList<>();
+        Map<SingleBehaviourSelection, String> rejected = new LinkedHashMap<>();
         try {
-            System.out.printf("   🔄 %s -> %s", methodPath, behaviourId);
-
-            // Apply to registry
-            globalRegistry.modifyCurrentBehaviourForMethod(serviceName, className, methodName, selectedBehaviour);
-
-            // Notify service via HTTP
-            String serviceEndpoint = globalRegistry.getEndpointOfService(serviceName).toString();
-            controlMarionetteGateway.changeMarionetteServiceBehaviour(
-                    serviceEndpoint,
-                    new ChangeBehaviourData(
-                            serviceName.getServiceName(),
-                            className.getClassName(),
-                            methodName.getMethodName(),
-                            selectedBehaviour.getBehaviourId()));
+            globalRegistry.applyBehaviourChanges(serviceName, builder -> {
+                // May run again under contention, start from a clean state each time
+                applied.clear();
+                rejected.clear();
+                for (SingleBehaviourSelection selection : selections) {
+                    try {
+                        builder.withNewBehaviourForMethod(selection.getClassName(), selection.getMethodName(),
+                                selection.selectedBehaviour());
+                        applied.add(selection);
+                    } catch (IllegalArgumentException e) {
+                        rejected.put(selection, e.getMessage());
+                    }
+                }
+            });
+        } catch (Exception e) {
+            selections.forEach(selection -> {
+                System.out.printf("   ❌ %s -> %s (%s)%n", selection.getFullMethodPath(),
+                        selection.selectedBehaviour().getBehaviourId(), e.getMessage());
+                errors.add(String.format("%s: %s", selection.getFullMethodPath(), e.getMessage()));
+            });
+            return 0;
+        }
 
-            System.out.println(" ✅");
-            return true;
+        rejected.forEach((selection, message) -> {
+            System.out.printf("   ❌ %s -> %s (%s)%n", selection.getFullMethodPath(),
+                    selection.selectedBehaviour().getBehaviourId(), message);
+            errors.add(String.format("%s: %s", selection.getFullMethodPath(), message));
+        });
+
+        int notified = 0;
+        String serviceEndpoint = globalRegistry.getEndpointOfService(serviceName).toString();
+        for (SingleBehaviourSelection selection : applied) {
+            String methodPath = selection.getFullMethodPath();
+            String behaviourId = selection.selectedBehaviour().getBehaviourId();
+            try {
+                System.out.printf("   🔄 %s -> %s", methodPath, behaviourId);
+
+                // Notify service via HTTP
+                controlMarionetteGateway.changeMarionetteServiceBehaviour(
+                        serviceEndpoint,
+                        new ChangeBehaviourData(
+                                serviceName.getServiceName(),
+                                selection.getClassName().getClassName(),
+                                selection.getMethodName().getMethodName(),
+                                behaviourId));
+
+                System.out.println(" ✅");
+                notified++;
+            } catch (Exception e) {
+                System.out.printf(" ❌ (%s)%n", e.getMessage());
+                errors.add(String.format("%s: %s", methodPath, e.getMessage()));
+            }
+        }
+        return notified;
+    }
 
-        } catch (Exception e) {
-            System.out.printf(" ❌ (%s)%n", e.getMessage());
-            throw e; // Re-throw to be handled by caller
+    /**
+     * Snapshot of the system as it would be once the configuration is applied, computed on the persistent
+     * runtime map without touching the registry nor the services. Invalid selections are left out, as
+     * applyConfigurationToSystem does.
+     */
+    private SystemConfigurationSnapshot projectConfiguration(SystemBehaviourConfiguration systemBehaviourConfiguration) {
+        PersistentHashMap<ServiceName, ServiceConfig> projected = globalRegistry.getAllRuntimeConfigurations();
+        for (List<SingleBehaviourSelection> serviceSelections : groupSelectionsByService(systemBehaviourConfiguration).values()) {
+            ServiceName serviceName = serviceSelections.get(0).getServiceName();
+            ServiceConfig serviceConfig = projected.get(serviceName);
+            if (serviceConfig == null) {
+                continue;
+            }
+            ServiceConfig.Builder builder = serviceConfig.toBuilder();
+            for (SingleBehaviourSelection selection : serviceSelections) {
+                try {
+                    builder.withNewBehaviourForMethod(selection.getClassName(), selection.getMethodName(),
+                            selection.selectedBehaviour());
+                } catch (IllegalArgumentException e) {
+                    // Rejected when applied as well
+                }
+            }
+            projected = projected.plus(serviceName, builder.build());
         }
+        return SystemConfigurationSnapshot.fromRuntimeConfigurations(projected);
     }
 
     private Map<String, List<SingleBehaviourSelection>> groupSelectionsByService(
             SystemBehaviourConfiguration systemBehaviourConfiguration) {
 
-        Map<String, List<SingleBehaviourSelection>> grouped = new HashMap<>();
+        Map<String, List<SingleBehaviourSelection>> grouped = new LinkedHashMap<>();
 
         for (SingleBehaviourSelection selection : systemBehaviourConfiguration) {
             String serviceName = selection.getServiceName().getServiceName();
@@ -0,0 +1,154 @@
+package org.marionette.controlplane.usecases.inbound.abntest.memo;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalDouble;
+
+import org.marionette.controlplane.domain.entities.abntest.SingleAbnTestResult;
+import org.marionette.controlplane.usecases.domain.configsnapshot.ConfigurationFingerprint;
+import org.marionette.controlplane.usecases.inbound.abntest.domain.GlobalMetricsRegistry;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.AggregateMetric;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.ServiceMetricsDataPoint;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.SystemMetricsDataPoint;
+import org.marionette.controlplane.usecases.outbound.resultsstore.AbnTestResultsStoreGateway;
+import org.marionette.controlplane.usecases.outbound.resultsstore.domain.StoredRunSummary;
+
+/**
+ * Most recent measurement of each configuration fingerprint found in the stored runs that are still young
+ * enough to be reused. A measurement is reused only if it is younger than the configured age and, when a
+ * load metric is configured, was taken under a load comparable with the current one.
+ */
+public class MeasurementMemo {
+
+    private static final MeasurementMemo EMPTY = new MeasurementMemo(MeasurementMemoConfiguration.disabled(), Map.of());
+
+    private final MeasurementMemoConfiguration configuration;
+    private final Map<ConfigurationFingerprint, MemoizedMeasurement> measurements;
+
+    private MeasurementMemo(MeasurementMemoConfiguration configuration,
+            Map<ConfigurationFingerprint, MemoizedMeasurement> measurements) {
+        this.configuration = configuration;
+        this.measurements = measurements;
+    }
+
+    public static MeasurementMemo empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Loads the runs completed within the maximum age, a run older than that cannot hold a reusable measurement
+     */
+    public static MeasurementMemo load(AbnTestResultsStoreGateway resultsStore, MeasurementMemoConfiguration configuration,
+            Instant now) {
+        if (!configuration.isEnabled()) {
+            return EMPTY;
+        }
+
+        Instant oldestUsable = now.minus(configuration.maxAge());
+        Map<ConfigurationFingerprint, MemoizedMeasurement> measurements = new HashMap<>();
+        int loadedRuns = 0;
+
+        for (StoredRunSummary summary : resultsStore.listRuns()) {
+            if (summary.completedAt().isBefore(oldestUsable)) {
+                continue;
+            }
+            Optional<SingleAbnTestResult> run = resultsStore.loadRun(summary.runId());
+            if (run.isEmpty()) {
+                continue;
+            }
+            loadedRuns++;
+            GlobalMetricsRegistry registry = run.get().metricsRegistry();
+            registry.getAllMetrics().forEach((configId, dataPoint) -> {
+                ConfigurationFingerprint fingerprint = registry.getFingerprint(configId);
+                if (fingerprint == null) {
+                    return;
+                }
+                MemoizedMeasurement measurement = new MemoizedMeasurement(fingerprint, summary.runId(), configId,
+                        dataPoint, measuredAt(dataPoint, summary.completedAt()), loadOf(dataPoint, configuration));
+                measurements.merge(fingerprint, measurement,
+                        (current, candidate) -> candidate.measuredAt().isAfter(current.measuredAt()) ? candidate : current);
+            });
+        }
+
+        System.out.printf("♻️  Measurement memo: %d configurations from %d runs of the last %ds%n",
+                measurements.size(), loadedRuns, configuration.maxAge().toSeconds());
+        return new MeasurementMemo(configuration, measurements);
+    }
+
+    /**
+     * @param currentLoad load of the most recent measurement of the current run, empty if nothing was measured yet
+     */
+    public Optional<MemoizedMeasurement> lookup(ConfigurationFingerprint fingerprint, OptionalDouble currentLoad, Instant now) {
+        MemoizedMeasurement measurement = measurements.get(fingerprint);
+        if (measurement == null) {
+            return Optional.empty();
+        }
+        if (Duration.between(measurement.measuredAt(), now).compareTo(configuration.maxAge()) > 0) {
+            return Optional.empty();
+        }
+        if (configuration.loadMetric().isPresent() && !isComparableLoad(measurement.load(), currentLoad)) {
+            return Optional.empty();
+        }
+        return Optional.of(measurement);
+    }
+
+    /**
+     * Sum over the services of the load metric, empty when no load metric is configured or none was collected
+     */
+    public OptionalDouble loadOf(SystemMetricsDataPoint dataPoint) {
+        return loadOf(dataPoint, configuration);
+    }
+
+    public boolean isEmpty() {
+        return measurements.isEmpty();
+    }
+
+    public int size() {
+        return measurements.size();
+    }
+
+    private boolean isComparableLoad(OptionalDouble measuredLoad, OptionalDouble currentLoad) {
+        if (measuredLoad.isEmpty() || currentLoad.isEmpty()) {
+            return false;
+        }
+        double measured = measuredLoad.getAsDouble();
+        double current = currentLoad.getAsDouble();
+        double scale = Math.max(Math.abs(measured), Math.abs(current));
+        return scale == 0 || Math.abs(measured - current) <= configuration.loadTolerance() * scale;
+    }
+
+    private static OptionalDouble loadOf(SystemMetricsDataPoint dataPoint, MeasurementMemoConfiguration configuration) {
+        if (configuration.loadMetric().isEmpty()) {
+            return OptionalDouble.empty();
+        }
+        String loadMetric = configuration.loadMetric().get();
+        double total = 0;
+        boolean found = false;
+        for (ServiceMetricsDataPoint serviceMetrics : dataPoint.serviceMetrics()) {
+            for (AggregateMetric metric : serviceMetrics.metrics()) {
+                if (metric.name().equals(loadMetric) && Double.isFinite(metric.value())) {
+                    total += metric.value();
+                    found = true;
+                }
+            }
+        }
+        return found ? OptionalDouble.of(total) : OptionalDouble.empty();
+    }
+
+    // Time of the latest metric of the measurement, the completion of the run when it has none
+    private static Instant measuredAt(SystemMetricsDataPoint dataPoint, Instant fallback) {
+        Instant latest = null;
+        for (ServiceMetricsDataPoint serviceMetrics : dataPoint.serviceMetrics()) {
+            for (AggregateMetric metric : serviceMetrics.metrics()) {
+                if (metric.timestamp() != null && (latest == null || metric.timestamp().isAfter(latest))) {
+                    latest = metric.timestamp();
+                }
+            }
+        }
+        return latest != null ? latest : fallback;
+    }
+
+}
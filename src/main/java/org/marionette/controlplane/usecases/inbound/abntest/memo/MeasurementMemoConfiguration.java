@@ -0,0 +1,59 @@
+package org.marionette.controlplane.usecases.inbound.abntest.memo;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Settings of the reuse of measurements across runs, read from the environment:
+ * MARIONETTE_MEMO_MAX_AGE_SECONDS is the age after which a stored measurement is measured again (reuse is
+ * disabled when it is not set), MARIONETTE_MEMO_LOAD_METRIC the metric summed over the services to compare
+ * the load of two measurements (only the age is checked without it) and MARIONETTE_MEMO_LOAD_TOLERANCE the
+ * relative difference of load still considered comparable.
+ */
+public record MeasurementMemoConfiguration(Duration maxAge, Optional<String> loadMetric, double loadTolerance) {
+
+    private static final double DEFAULT_LOAD_TOLERANCE = 0.2;
+
+    public static MeasurementMemoConfiguration disabled() {
+        return new MeasurementMemoConfiguration(Duration.ZERO, Optional.empty(), DEFAULT_LOAD_TOLERANCE);
+    }
+
+    public static MeasurementMemoConfiguration loadFromEnv() {
+        String loadMetric = System.getenv("MARIONETTE_MEMO_LOAD_METRIC");
+        return new MeasurementMemoConfiguration(
+                Duration.ofSeconds(parseLong(System.getenv("MARIONETTE_MEMO_MAX_AGE_SECONDS"), 0)),
+                loadMetric != null && !loadMetric.isBlank() ? Optional.of(loadMetric.trim()) : Optional.empty(),
+                parseDouble(System.getenv("MARIONETTE_MEMO_LOAD_TOLERANCE"), DEFAULT_LOAD_TOLERANCE));
+    }
+
+    public boolean isEnabled() {
+        return !maxAge.isZero() && !maxAge.isNegative();
+    }
+
+    private static long parseLong(String value, long defaultValue) {
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            long parsed = Long.parseLong(value.trim());
+            return parsed > 0 ? parsed : defaultValue;
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid measurement memo setting " + value + ", using " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    private static double parseDouble(String value, double defaultValue) {
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            double parsed = Double.parseDouble(value.trim());
+            return parsed >= 0 && Double.isFinite(parsed) ? parsed : defaultValue;
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid measurement memo setting " + value + ", using " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+}
@@ -0,0 +1,19 @@
+package org.marionette.controlplane.usecases.inbound.abntest.memo;
+
+import java.time.Instant;
+import java.util.OptionalDouble;
+
+import org.marionette.controlplane.usecases.domain.configsnapshot.ConfigurationFingerprint;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.SystemMetricsDataPoint;
+
+/*
+ * A configuration measured by a previous run, with the load the system was under at the time
+ */
+public record MemoizedMeasurement(
+    ConfigurationFingerprint fingerprint,
+    String runId,
+    String configId,
+    SystemMetricsDataPoint dataPoint,
+    Instant measuredAt,
+    OptionalDouble load
+) {}
@@ -0,0 +1,22 @@
+package org.marionette.controlplane.usecases.inbound.abntest.ranking;
+
+import java.util.List;
+import java.util.Map;
+
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.AggregateMetric;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.statistics.MetricDispersion;
+
+/*
+ * System level metrics of a configuration together with the spread of the values each one was estimated from
+ */
+public record AggregatedSystemMetrics(
+    List<AggregateMetric> metrics,
+    Map<String, MetricDispersion> dispersions
+) {
+
+    public AggregatedSystemMetrics {
+        metrics = List.copyOf(metrics);
+        dispersions = Map.copyOf(dispersions);
+    }
+
+}
@@ -0,0 +1,86 @@
+package org.marionette.controlplane.usecases.inbound.abntest.ranking;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.OptimizationDirection;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.OrderedMetricMetadata;
+
+/**
+ * Lexicographic ordering of configurations over metrics in priority order, with per-metric tolerance.
+ * Items are sorted on the first metric and split into tie groups: a group starts at its best value and
+ * takes every following item within tolerance of it. Each group is then ordered on the next metric.
+ * Grouping against the first value of the group keeps the order well defined even though "within tolerance"
+ * is not transitive. Missing values (NaN) always come last.
+ */
+public final class LexicographicOrder {
+
+    @FunctionalInterface
+    public interface MetricValues {
+        /** Value of the metric at the given priority level for an item, NaN when missing */
+        double valueOf(int item, int level);
+    }
+
+    private LexicographicOrder() {
+    }
+
+    /**
+     * @return the item indices from best to worst
+     */
+    public static int[] sort(int itemCount, List<OrderedMetricMetadata> levels, MetricValues values) {
+        Integer[] items = new Integer[itemCount];
+        for (int i = 0; i < itemCount; i++) {
+            items[i] = i;
+        }
+
+        orderGroup(items, 0, itemCount, 0, levels, values);
+
+        return Arrays.stream(items).mapToInt(Integer::intValue).toArray();
+    }
+
+    private static void orderGroup(Integer[] items, int from, int to, int level,
+            List<OrderedMetricMetadata> levels, MetricValues values) {
+        if (to - from < 2 || level >= levels.size()) {
+            return;
+        }
+
+        OrderedMetricMetadata metric = levels.get(level);
+        boolean higherIsBetter = metric.direction() == OptimizationDirection.HIGHER_IS_BETTER;
+
+        // Stable sort, so complete ties keep the order they were given in
+        Comparator<Integer> byValue = (a, b) -> {
+            double va = values.valueOf(a, level);
+            double vb = values.valueOf(b, level);
+            boolean missingA = Double.isNaN(va);
+            boolean missingB = Double.isNaN(vb);
+            if (missingA || missingB) {
+                return Boolean.compare(missingA, missingB);
+            }
+            return higherIsBetter ? Double.compare(vb, va) : Double.compare(va, vb);
+        };
+        Arrays.sort(items, from, to, byValue);
+
+        int groupStart = from;
+        while (groupStart < to) {
+            double anchor = values.valueOf(items[groupStart], level);
+            int groupEnd = groupStart + 1;
+            while (groupEnd < to && tied(anchor, values.valueOf(items[groupEnd], level), metric.tolerance())) {
+                groupEnd++;
+            }
+            orderGroup(items, groupStart, groupEnd, level + 1, levels, values);
+            groupStart = groupEnd;
+        }
+    }
+
+    private static boolean tied(double anchor, double value, double tolerance) {
+        if (Double.isNaN(anchor) || Double.isNaN(value)) {
+            return Double.isNaN(anchor) && Double.isNaN(value);
+        }
+        if (tolerance == 0) {
+            return Double.compare(anchor, value) == 0;
+        }
+        return Math.abs(value - anchor) <= tolerance * Math.max(Math.abs(anchor), Math.abs(value));
+    }
+
+}
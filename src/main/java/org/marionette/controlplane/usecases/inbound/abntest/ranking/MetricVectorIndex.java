@@ -0,0 +1,86 @@
+package org.marionette.controlplane.usecases.inbound.abntest.ranking;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.marionette.controlplane.usecases.inbound.abntest.domain.GlobalMetricsRegistry;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.AggregateMetric;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.MetricEstimator;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.ServiceAggregator;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.SystemMetricsDataPoint;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.statistics.MetricDispersion;
+
+/**
+ * System level values of every configuration of a run, stored column-wise: one vector per (metric, estimator,
+ * service aggregator) * with a slot per configuration. Columns are aggregated from the service metrics the first time they are needed,
+ * after that ranking with any priority, direction or tolerance only reads primitive arrays.
+ */
+public class MetricVectorIndex {
+
+    private final List<String> configurationIds;
+    private final List<SystemMetricsDataPoint> dataPoints;
+    private final SystemMetricsAggregator aggregator;
+    private final Map<ColumnKey, MetricColumn> columns = new ConcurrentHashMap<>();
+
+    private record ColumnKey(String metricName, MetricEstimator estimator, ServiceAggregator serviceAggregator) {}
+
+    /**
+     * Values are NaN and dispersions null for configurations that did not report the metric
+     */
+    public record MetricColumn(String metricName, String unit, double[] values, MetricDispersion[] dispersions) {}
+
+    private MetricVectorIndex(List<String> configurationIds, List<SystemMetricsDataPoint> dataPoints,
+            SystemMetricsAggregator aggregator) {
+        this.configurationIds = configurationIds;
+        this.dataPoints = dataPoints;
+        this.aggregator = aggregator;
+    }
+
+    public static MetricVectorIndex of(GlobalMetricsRegistry registry, SystemMetricsAggregator aggregator) {
+        Map<String, SystemMetricsDataPoint> sorted = new TreeMap<>(registry.getAllMetrics());
+        return new MetricVectorIndex(List.copyOf(sorted.keySet()), List.copyOf(sorted.values()), aggregator);
+    }
+
+    public int size() {
+        return configurationIds.size();
+    }
+
+    public String configurationId(int index) {
+        return configurationIds.get(index);
+    }
+
+    public MetricColumn column(String metricName, MetricEstimator estimator) {
+        return column(metricName, estimator, null);
+    }
+
+    /**
+     * A null service aggregator keeps the service values reduced at collection
+     */
+    public MetricColumn column(String metricName, MetricEstimator estimator, ServiceAggregator serviceAggregator) {
+        return columns.computeIfAbsent(new ColumnKey(metricName, estimator, serviceAggregator),
+                key -> buildColumn(metricName, estimator, serviceAggregator));
+    }
+
+    private MetricColumn buildColumn(String metricName, MetricEstimator estimator, ServiceAggregator serviceAggregator) {
+        double[] values = new double[dataPoints.size()];
+        MetricDispersion[] dispersions = new MetricDispersion[dataPoints.size()];
+        String unit = null;
+
+        for (int i = 0; i < dataPoints.size(); i++) {
+            AggregatedSystemMetrics aggregated = aggregator.aggregateMetric(dataPoints.get(i), metricName, estimator, serviceAggregator);
+            if (aggregated.metrics().isEmpty()) {
+                values[i] = Double.NaN;
+                continue;
+            }
+            AggregateMetric metric = aggregated.metrics().get(0);
+            values[i] = metric.value();
+            dispersions[i] = aggregated.dispersions().get(metricName);
+            unit = unit != null ? unit : metric.unit();
+        }
+
+        return new MetricColumn(metricName, unit, values, dispersions);
+    }
+
+}
@@ -1,11 +1,20 @@
 package org.marionette.controlplane.usecases.inbound.abntest.ranking;
 
 import java.util.List;
+import java.util.Map;
 
 import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.AggregateMetric;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.statistics.MetricDispersion;
 
 public record SimpleConfigurationRanking(
     int rank,                    // 1 = best
     String configurationId,
-    List<AggregateMetric> systemMetrics
-) {}
+    List<AggregateMetric> systemMetrics,
+    Map<String, MetricDispersion> dispersions   // by metric name, may be missing for some metrics
+) {
+
+    public SimpleConfigurationRanking(int rank, String configurationId, List<AggregateMetric> systemMetrics) {
+        this(rank, configurationId, systemMetrics, Map.of());
+    }
+
+}
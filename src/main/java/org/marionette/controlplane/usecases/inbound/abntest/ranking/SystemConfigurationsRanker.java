@@ -1,7 +1,7 @@
 package org.marionette.controlplane.usecases.inbound.abntest.ranking;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -11,6 +11,7 @@ import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.Aggrega
 import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.MetricsConfiguration;
 import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.OrderedMetricMetadata;
 import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.SystemMetricsDataPoint;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.statistics.MetricDispersion;
 
 public class SystemConfigurationsRanker {
 
@@ -31,30 +32,41 @@ public class SystemConfigurationsRanker {
         System.out.println("Ranking " + configurations.size() + " configurations lexicographically...");
 
         // Step 1: Aggregate all configurations to system level
+        Map<String, Map<String, MetricDispersion>> dispersionsByConfig = new HashMap<>();
         List<ComparableSystemConfiguration> comparableConfigs = configurations.entrySet().stream()
                 .map(entry -> {
                     String configId = entry.getKey();
                     SystemMetricsDataPoint systemData = entry.getValue();
 
                     // Aggregate to system level
-                    List<AggregateMetric> aggregated = systemMetricsAggregator.aggregateByAverage(systemData);
+                    AggregatedSystemMetrics aggregated = systemMetricsAggregator.aggregate(systemData, metricsConfiguration);
+                    dispersionsByConfig.put(configId, aggregated.dispersions());
 
-                    return new ComparableSystemConfiguration(configId, aggregated, metricsConfiguration.getMetricsConfig());
+                    return new ComparableSystemConfiguration(configId, aggregated.metrics(), metricsConfiguration.getMetricsConfig());
                 })
                 .collect(Collectors.toList());
 
-        // Step 2: Sort using lexicographic comparison (natural ordering)
-        Collections.sort(comparableConfigs);
+        // Step 2: Sort lexicographically in metric priority order, values within tolerance fall through to the next metric
+        List<OrderedMetricMetadata> metricOrder = metricsConfiguration.getMetricsConfig();
+        double[][] values = new double[metricOrder.size()][comparableConfigs.size()];
+        for (int level = 0; level < metricOrder.size(); level++) {
+            String metricName = metricOrder.get(level).metricName();
+            for (int i = 0; i < comparableConfigs.size(); i++) {
+                values[level][i] = comparableConfigs.get(i).getMetricValue(metricName).orElse(Double.NaN);
+            }
+        }
+        int[] order = LexicographicOrder.sort(comparableConfigs.size(), metricOrder, (item, level) -> values[level][item]);
 
         // Step 3: Create ranking results
         List<SimpleConfigurationRanking> rankings = new ArrayList<>();
-        for (int i = 0; i < comparableConfigs.size(); i++) {
-            ComparableSystemConfiguration config = comparableConfigs.get(i);
+        for (int i = 0; i < order.length; i++) {
+            ComparableSystemConfiguration config = comparableConfigs.get(order[i]);
 
             rankings.add(new SimpleConfigurationRanking(
                     i, // rank (0-based, 0 = best)
                     config.getConfigurationId(),
-                    config.getSystemMetrics()));
+                    config.getSystemMetrics(),
+                    dispersionsByConfig.getOrDefault(config.getConfigurationId(), Map.of())));
         }
 
         // Log the ranking results
@@ -79,11 +91,14 @@ public class SystemConfigurationsRanker {
                         .findFirst();
 
                 if (metric.isPresent()) {
-                    System.out.println(String.format("   %s (%s): %.3f %s",
+                    MetricDispersion dispersion = ranking.dispersions().get(metricName);
+                    System.out.println(String.format("   %s (%s, %s): %.3f %s%s",
                             metricName,
                             metricMeta.direction(),
+                            metricMeta.estimator(),
                             metric.get().value(),
-                            metric.get().unit()));
+                            metric.get().unit(),
+                            formatDispersion(dispersion)));
                 } else {
                     System.out.println(String.format("   %s: MISSING", metricName));
                 }
@@ -92,4 +107,16 @@ public class SystemConfigurationsRanker {
         }
     }
 
+    private String formatDispersion(MetricDispersion dispersion) {
+        if (dispersion == null || dispersion.sampleCount() < 2) {
+            return "";
+        }
+        return String.format(" [n=%d, sd=%.3f, mad=%.3f, iqr=%.3f]%s",
+                dispersion.sampleCount(),
+                dispersion.standardDeviation(),
+                dispersion.medianAbsoluteDeviation(),
+                dispersion.interquartileRange(),
+                dispersion.isLikelyBimodal() ? " ⚠️ BIMODAL" : "");
+    }
+
 }
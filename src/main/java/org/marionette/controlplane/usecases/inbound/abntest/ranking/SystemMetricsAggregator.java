@@ -2,16 +2,173 @@ package org.marionette.controlplane.usecases.inbound.abntest.ranking;
 
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Collectors;
 
 import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.AggregateMetric;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.HistogramQuantile;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.MetricEstimator;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.MetricsConfiguration;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.OrderedMetricMetadata;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.ServiceAggregator;
 import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.SystemMetricsDataPoint;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.statistics.MetricDispersion;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.timeseries.SampleIterator;
 
 public class SystemMetricsAggregator {
 
+    /**
+     * Aggregates service metrics to system level with the estimator configured for each metric.
+     * The raw samples of all services are pooled when they are available, otherwise the estimator
+     * is applied to the per-service values. Metrics without configuration use the mean.
+     */
+    public AggregatedSystemMetrics aggregate(SystemMetricsDataPoint systemData, MetricsConfiguration metricsConfiguration) {
+        if (systemData.serviceMetrics().isEmpty()) {
+            return new AggregatedSystemMetrics(List.of(), Map.of());
+        }
+
+        Map<String, MetricEstimator> estimators = new HashMap<>();
+        for (OrderedMetricMetadata metadata : metricsConfiguration) {
+            estimators.put(metadata.metricName(), metadata.estimator());
+        }
+
+        Map<String, List<AggregateMetric>> metricsByName = systemData.serviceMetrics().stream()
+            .flatMap(service -> service.metrics().stream())
+            .collect(Collectors.groupingBy(AggregateMetric::name));
+
+        List<AggregateMetric> aggregatedMetrics = new ArrayList<>();
+        Map<String, MetricDispersion> dispersions = new HashMap<>();
+
+        for (Map.Entry<String, List<AggregateMetric>> entry : metricsByName.entrySet()) {
+            String metricName = entry.getKey();
+            MetricEstimator estimator = estimators.getOrDefault(metricName, MetricEstimator.MEAN);
+            aggregateGroup(metricName, entry.getValue(), estimator, aggregatedMetrics, dispersions, true);
+        }
+
+        return new AggregatedSystemMetrics(aggregatedMetrics, dispersions);
+    }
+
+    /**
+     * Quantiles cannot be averaged: when every service reported its bucket counts the histograms
+     * are merged and the quantile is computed again on the result. Returns null otherwise.
+     */
+    private AggregateMetric mergeHistograms(String metricName, List<AggregateMetric> metrics) {
+        if (!metrics.stream().allMatch(AggregateMetric::hasHistogram)) {
+            return null;
+        }
+
+        HistogramQuantile merged = metrics.get(0).histogram();
+        for (int i = 1; i < metrics.size(); i++) {
+            merged = merged.merge(metrics.get(i).histogram());
+        }
+
+        Instant latestTimestamp = metrics.stream()
+            .map(AggregateMetric::timestamp)
+            .filter(Objects::nonNull)
+            .max(Instant::compareTo)
+            .orElse(Instant.now());
+
+        return new AggregateMetric(metricName, latestTimestamp, metrics.get(0).unit(), merged);
+    }
+
+    /**
+     * Aggregates a single metric to system level with the given estimator, the result is empty when
+     * no service reported the metric. Meant to be called many times, so nothing is logged.
+     */
+    public AggregatedSystemMetrics aggregateMetric(SystemMetricsDataPoint systemData, String metricName, MetricEstimator estimator) {
+        return aggregateMetric(systemData, metricName, estimator, null);
+    }
+
+    /**
+     * Same as above, but the service values are first reduced again from the values of their pods with the
+     * given service aggregator (null keeps the values reduced at collection). The samples were reduced with the
+     * aggregator of the collection, so they are not used then: the estimator works on the service values.
+     */
+    public AggregatedSystemMetrics aggregateMetric(SystemMetricsDataPoint systemData, String metricName, MetricEstimator estimator,
+            ServiceAggregator serviceAggregator) {
+        List<AggregateMetric> metricsForName = systemData.serviceMetrics().stream()
+            .flatMap(service -> service.metrics().stream())
+            .filter(metric -> metric.name().equals(metricName))
+            .map(metric -> serviceAggregator != null ? reduceInstances(metric, serviceAggregator) : metric)
+            .toList();
+
+        List<AggregateMetric> aggregatedMetrics = new ArrayList<>();
+        Map<String, MetricDispersion> dispersions = new HashMap<>();
+        if (!metricsForName.isEmpty()) {
+            aggregateGroup(metricName, metricsForName, estimator, aggregatedMetrics, dispersions, false);
+        }
+        return new AggregatedSystemMetrics(aggregatedMetrics, dispersions);
+    }
+
+    private void aggregateGroup(String metricName, List<AggregateMetric> metricsForName, MetricEstimator estimator,
+            List<AggregateMetric> aggregatedMetrics, Map<String, MetricDispersion> dispersions, boolean verbose) {
+
+        AggregateMetric mergedHistogram = mergeHistograms(metricName, metricsForName);
+        if (mergedHistogram != null) {
+            aggregatedMetrics.add(mergedHistogram);
+            if (verbose) System.out.println("  " + metricName + ": merged histograms of " + metricsForName.size()
+                    + " services, result = " + mergedHistogram.value());
+            return;
+        }
+
+        double[] observations = observationsOf(metricsForName);
+        double value = estimator.estimate(observations);
+        MetricDispersion dispersion = MetricDispersion.of(observations);
+
+        Instant latestTimestamp = metricsForName.stream()
+            .map(AggregateMetric::timestamp)
+            .filter(Objects::nonNull)
+            .max(Instant::compareTo)
+            .orElse(Instant.now());
+
+        aggregatedMetrics.add(new AggregateMetric(metricName, value, latestTimestamp, metricsForName.get(0).unit()));
+        dispersions.put(metricName, dispersion);
+
+        if (verbose) System.out.println("  " + metricName + ": " + estimator + " of " + observations.length
+                + " observations, result = " + value);
+    }
+
+    /**
+     * Histograms and metrics without a breakdown per pod are kept as they are
+     */
+    private AggregateMetric reduceInstances(AggregateMetric metric, ServiceAggregator serviceAggregator) {
+        if (metric.hasHistogram() || metric.instances().isEmpty()) {
+            return metric;
+        }
+        double[] values = new double[metric.instances().size()];
+        boolean[] outliers = new boolean[values.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = metric.instances().get(i).value();
+            outliers[i] = metric.instances().get(i).outlier();
+        }
+        return new AggregateMetric(metric.name(), serviceAggregator.reduce(values, outliers), metric.timestamp(),
+                metric.unit(), metric.instances());
+    }
+
+    /**
+     * Raw samples of every service when all of them collected some, the per-service values otherwise
+     */
+    private double[] observationsOf(List<AggregateMetric> metrics) {
+        boolean allSampled = metrics.stream().allMatch(AggregateMetric::hasSamples);
+        if (allSampled) {
+            double[] observations = new double[metrics.stream().mapToInt(metric -> metric.samples().size()).sum()];
+            int position = 0;
+            for (AggregateMetric metric : metrics) {
+                SampleIterator samples = metric.samples().iterator();
+                while (samples.next()) {
+                    observations[position++] = samples.value();
+                }
+            }
+            return observations;
+        }
+        return metrics.stream()
+            .mapToDouble(AggregateMetric::value)
+            .toArray();
+    }
+
     /**
      * Aggregates service metrics to system level using average
      */
@@ -57,6 +214,11 @@ public class SystemMetricsAggregator {
         if (metrics.size() == 1) {
             return metrics.get(0); // No aggregation needed
         }
+
+        AggregateMetric mergedHistogram = mergeHistograms(metricName, metrics);
+        if (mergedHistogram != null) {
+            return mergedHistogram;
+        }
         
         // Calculate average value
         double averageValue = metrics.stream()
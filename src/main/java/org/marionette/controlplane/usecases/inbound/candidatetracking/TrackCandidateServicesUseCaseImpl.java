@@ -0,0 +1,177 @@
+package org.marionette.controlplane.usecases.inbound.candidatetracking;
+
+import static java.util.Objects.requireNonNull;
+
+import java.net.URI;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.marionette.controlplane.domain.entities.ConfigRegistry;
+import org.marionette.controlplane.domain.entities.ServiceConfig;
+import org.marionette.controlplane.domain.entities.ServiceMetadata;
+import org.marionette.controlplane.domain.values.ServiceName;
+import org.marionette.controlplane.exceptions.infrastructure.checked.FetchMarionetteConfigurationException;
+import org.marionette.controlplane.usecases.domain.dto.DiscoveredServiceMetadata;
+import org.marionette.controlplane.usecases.domain.dto.ServiceConfigData;
+import org.marionette.controlplane.usecases.domain.mappers.ServiceConfigDataMapper;
+import org.marionette.controlplane.usecases.inbound.TrackCandidateServicesUseCase;
+import org.marionette.controlplane.usecases.outbound.fetchconfig.FetchMarionetteConfigurationGateway;
+import org.marionette.controlplane.usecases.outbound.servicediscovery.CandidateServicesListener;
+import org.marionette.controlplane.usecases.outbound.servicediscovery.CandidateVerdict;
+import org.marionette.controlplane.usecases.outbound.servicediscovery.ValidateMarionetteServicePort;
+import org.marionette.controlplane.usecases.outbound.servicediscovery.WatchCandidateServicesPort;
+
+/**
+ * Turns the candidate services events into registry changes. Candidates whose endpoint is already registered
+ * are skipped (the first listing of a watch reports every service), the others are validated and fetched on a
+ * small pool so the watching threads are never blocked by a slow service.
+ *
+ * A Service usually exists before its pods are ready, so the validation run on its ADDED event finds nobody
+ * answering, and the later events of the Service carry nothing new. Candidates that could not be reached, or
+ * whose configuration could not be fetched, are retried with an exponential backoff until they register,
+ * answer as non Marionette services, disappear from the cluster or run out of attempts.
+ */
+public class TrackCandidateServicesUseCaseImpl implements TrackCandidateServicesUseCase, CandidateServicesListener {
+
+    private static final int WORKERS = 4;
+    private static final long INITIAL_RETRY_MILLIS = 1000;
+    private static final long MAX_RETRY_MILLIS = 60_000;
+    private static final int MAX_ATTEMPTS = 20;
+
+    private final WatchCandidateServicesPort watchCandidatesPort;
+    private final ValidateMarionetteServicePort marionetteServiceValidator;
+    private final FetchMarionetteConfigurationGateway fetchMarionetteConfigurationGateway;
+    private final ConfigRegistry globalRegistry;
+    private final ScheduledExecutorService workers;
+    private final Map<String, ScheduledFuture<?>> retries = new ConcurrentHashMap<>();
+
+    public TrackCandidateServicesUseCaseImpl(WatchCandidateServicesPort watchCandidatesPort,
+            ValidateMarionetteServicePort marionetteServiceValidator,
+            FetchMarionetteConfigurationGateway fetchMarionetteConfigurationGateway, ConfigRegistry globalRegistry) {
+        requireNonNull(watchCandidatesPort, "The outbound port to watch candidate services cannot be null");
+        requireNonNull(marionetteServiceValidator, "The outbound port to verify marionette services cannot be null");
+        requireNonNull(fetchMarionetteConfigurationGateway,
+                "The outbound port to fetch a marionette configuration cannot be null");
+        requireNonNull(globalRegistry, "The global registry cannot be null");
+        this.watchCandidatesPort = watchCandidatesPort;
+        this.marionetteServiceValidator = marionetteServiceValidator;
+        this.fetchMarionetteConfigurationGateway = fetchMarionetteConfigurationGateway;
+        this.globalRegistry = globalRegistry;
+
+        AtomicInteger ids = new AtomicInteger();
+        this.workers = Executors.newScheduledThreadPool(WORKERS, runnable -> {
+            Thread thread = new Thread(runnable, "candidate-tracking-" + ids.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void start() {
+        watchCandidatesPort.startWatching(this);
+    }
+
+    @Override
+    public void stop() {
+        watchCandidatesPort.stopWatching();
+        workers.shutdownNow();
+    }
+
+    @Override
+    public void onCandidatesAdded(List<DiscoveredServiceMetadata> candidates) {
+        Set<URI> registered = registeredEndpoints();
+        for (DiscoveredServiceMetadata candidate : candidates) {
+            if (!registered.contains(URI.create(candidate.endpoint()))) {
+                // A new event is a reason to try again right away
+                cancelRetry(candidate.endpoint());
+                workers.execute(() -> register(candidate, 1));
+            }
+        }
+    }
+
+    @Override
+    public void onCandidatesRemoved(List<DiscoveredServiceMetadata> candidates) {
+        Set<URI> removedEndpoints = new HashSet<>();
+        candidates.forEach(candidate -> {
+            removedEndpoints.add(URI.create(candidate.endpoint()));
+            cancelRetry(candidate.endpoint());
+        });
+
+        for (Map.Entry<ServiceName, ServiceMetadata> entry : globalRegistry.getAllServiceMetadata().entrySet()) {
+            if (removedEndpoints.contains(entry.getValue().getEndpoint())) {
+                globalRegistry.removeService(entry.getKey());
+                System.out.println("➖ Service " + entry.getKey() + " removed from the cluster, dropped from the registry");
+            }
+        }
+    }
+
+    private void register(DiscoveredServiceMetadata candidate, int attempt) {
+        try {
+            if (attempt > 1 && registeredEndpoints().contains(URI.create(candidate.endpoint()))) {
+                // Registered in the meantime by a rediscovery
+                retries.remove(candidate.endpoint());
+                return;
+            }
+            CandidateVerdict verdict = marionetteServiceValidator.validateCandidateNode(candidate);
+            if (verdict == CandidateVerdict.UNREACHABLE) {
+                retryLater(candidate, attempt);
+                return;
+            }
+            if (verdict != CandidateVerdict.MARIONETTE) {
+                retries.remove(candidate.endpoint());
+                return;
+            }
+            ServiceConfigData serviceConfigData = fetchMarionetteConfigurationGateway.fetchMarionetteConfiguration(candidate.endpoint());
+            ServiceName serviceName = ServiceName.of(serviceConfigData.serviceName());
+            ServiceConfig serviceConfig = ServiceConfigDataMapper.toDomainServiceConfig(serviceConfigData);
+            globalRegistry.addDiscoveredService(serviceName, serviceConfig, URI.create(candidate.endpoint()));
+            retries.remove(candidate.endpoint());
+            System.out.println("➕ New marionette service " + serviceName + " registered from the cluster events");
+
+        } catch (FetchMarionetteConfigurationException e) {
+            System.out.println("There was a problem fetching the configuration for the marionette node " + candidate.endpoint());
+            retryLater(candidate, attempt);
+        } catch (RuntimeException e) {
+            System.out.println("Unexpected error registering the marionette node " + candidate.endpoint() + ": " + e.getMessage());
+        }
+    }
+
+    private void retryLater(DiscoveredServiceMetadata candidate, int attempt) {
+        if (attempt >= MAX_ATTEMPTS) {
+            retries.remove(candidate.endpoint());
+            System.out.println("Giving up on the candidate " + candidate.endpoint() + " after " + attempt
+                    + " attempts, the next rediscovery will try it again");
+            return;
+        }
+        long delay = Math.min(MAX_RETRY_MILLIS, INITIAL_RETRY_MILLIS << Math.min(attempt - 1, 16));
+        try {
+            retries.put(candidate.endpoint(),
+                    workers.schedule(() -> register(candidate, attempt + 1), delay, TimeUnit.MILLISECONDS));
+        } catch (RejectedExecutionException e) {
+            // Tracking stopped
+        }
+    }
+
+    private void cancelRetry(String endpoint) {
+        ScheduledFuture<?> retry = retries.remove(endpoint);
+        if (retry != null) {
+            retry.cancel(false);
+        }
+    }
+
+    private Set<URI> registeredEndpoints() {
+        Set<URI> endpoints = new HashSet<>();
+        globalRegistry.getAllServiceMetadata().values().forEach(metadata -> endpoints.add(metadata.getEndpoint()));
+        return endpoints;
+    }
+
+}
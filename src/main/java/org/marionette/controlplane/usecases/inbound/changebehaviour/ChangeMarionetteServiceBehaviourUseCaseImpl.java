@@ -1,6 +1,7 @@
 package org.marionette.controlplane.usecases.inbound.changebehaviour;
 
 import org.marionette.controlplane.domain.entities.ConfigRegistry;
+import org.marionette.controlplane.domain.entities.ServiceConfig;
 import org.marionette.controlplane.domain.values.BehaviourId;
 import org.marionette.controlplane.domain.values.ClassName;
 import org.marionette.controlplane.domain.values.MethodName;
@@ -12,6 +13,10 @@ import org.marionette.controlplane.usecases.outbound.servicemanipulation.Control
 import static java.util.Objects.requireNonNull;
 
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 public class ChangeMarionetteServiceBehaviourUseCaseImpl implements ChangeMarionetteServiceBehaviourUseCase {
 
@@ -32,10 +37,10 @@ public class ChangeMarionetteServiceBehaviourUseCaseImpl implements ChangeMarion
 
         requireNonNull(request, "The request object is null for this use case");
 
-        ServiceName serviceName = new ServiceName(request.serviceName());
-        ClassName className = new ClassName(request.className());
-        MethodName methodName = new MethodName(request.methodName());
-        BehaviourId newBehaviourId = new BehaviourId(request.newBehaviourId());
+        ServiceName serviceName = ServiceName.lookup(request.serviceName());
+        ClassName className = ClassName.lookup(request.className());
+        MethodName methodName = MethodName.lookup(request.methodName());
+        BehaviourId newBehaviourId = BehaviourId.lookup(request.newBehaviourId());
         
         // TODO: modify validation practice, validate before asking entity to change
         
@@ -60,5 +65,58 @@ public class ChangeMarionetteServiceBehaviourUseCaseImpl implements ChangeMarion
         ));
 
     }
+
+    @Override
+    public void executeAll(List<ChangeMarionetteServiceBehaviourRequest> requests) {
+
+        requireNonNull(requests, "The list of requests is null for this use case");
+
+        Map<ServiceName, List<ChangeMarionetteServiceBehaviourRequest>> requestsByService = new LinkedHashMap<>();
+        for (ChangeMarionetteServiceBehaviourRequest request : requests) {
+            requireNonNull(request, "The list of requests contains a null request");
+            requestsByService.computeIfAbsent(ServiceName.lookup(request.serviceName()), k -> new ArrayList<>()).add(request);
+        }
+
+        // Validate every change before touching the registry, so an invalid change does not leave a partial update
+        requestsByService.forEach((serviceName, serviceRequests) -> {
+            ServiceConfig current = globalRegistry.getRuntimeConfiguration(serviceName);
+            if (current == null) {
+                throw new IllegalArgumentException("The service " + serviceName + " does not exist in the ConfigRegistry");
+            }
+            applyTo(current.toBuilder(), serviceRequests);
+        });
+
+        requestsByService.forEach((serviceName, serviceRequests) -> {
+            globalRegistry.applyBehaviourChanges(serviceName, builder -> applyTo(builder, serviceRequests));
+
+            System.out.println("Updated the global configuration registry with " + serviceRequests.size()
+                + " behaviour changes for service " + serviceName);
+
+            URI serviceEndpoint = globalRegistry.getEndpointOfService(serviceName);
+
+            System.out.println("Sending " + serviceRequests.size() + " requests out to service at " + serviceEndpoint);
+
+            for (ChangeMarionetteServiceBehaviourRequest request : serviceRequests) {
+                controlMarionetteBehaviourGateway.changeMarionetteServiceBehaviour(
+                    serviceEndpoint.toString(),
+                    new ChangeBehaviourData(
+                        request.serviceName(),
+                        request.className(),
+                        request.methodName(),
+                        request.newBehaviourId()
+                ));
+            }
+        });
+
+    }
+
+    private void applyTo(ServiceConfig.Builder builder, List<ChangeMarionetteServiceBehaviourRequest> serviceRequests) {
+        for (ChangeMarionetteServiceBehaviourRequest request : serviceRequests) {
+            builder.withNewBehaviourForMethod(
+                ClassName.lookup(request.className()),
+                MethodName.lookup(request.methodName()),
+                BehaviourId.lookup(request.newBehaviourId()));
+        }
+    }
     
 }
@@ -1,9 +1,16 @@
 package org.marionette.controlplane.usecases.inbound.downloadresult;
 
-import org.marionette.controlplane.usecases.inbound.AbnTestDownloadResult;
+import java.util.Optional;
 
 public interface AbnTestResultsDownloadUseCase {
 
-    public AbnTestDownloadResult execute();
+    public boolean hasResults();
+
+    /**
+     * Version of the current result, changes with every new run. Empty when there are no results.
+     */
+    public Optional<String> currentVersion();
+
+    public Optional<AbnTestResultsPage> fetchPage(int offset, int limit);
     
 }
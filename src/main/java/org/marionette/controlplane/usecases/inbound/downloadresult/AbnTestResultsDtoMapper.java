@@ -0,0 +1,170 @@
+package org.marionette.controlplane.usecases.inbound.downloadresult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.marionette.controlplane.adapters.inbound.downloadresult.dto.AbnTestResultsDTO;
+import org.marionette.controlplane.adapters.inbound.downloadresult.dto.BehaviourSelectionSnapshotDTO;
+import org.marionette.controlplane.adapters.inbound.downloadresult.dto.ClassConfigSnapshotDTO;
+import org.marionette.controlplane.adapters.inbound.downloadresult.dto.MetricConfigurationDTO;
+import org.marionette.controlplane.adapters.inbound.downloadresult.dto.MetricDispersionDTO;
+import org.marionette.controlplane.adapters.inbound.downloadresult.dto.MetricValueDTO;
+import org.marionette.controlplane.adapters.inbound.downloadresult.dto.ServiceConfigSnapshotDTO;
+import org.marionette.controlplane.adapters.inbound.downloadresult.dto.ServiceLevelResultsDTO;
+import org.marionette.controlplane.adapters.inbound.downloadresult.dto.SystemConfigurationRankDTO;
+import org.marionette.controlplane.domain.entities.abntest.SingleAbnTestResult;
+import org.marionette.controlplane.usecases.domain.configsnapshot.SystemConfigurationSnapshot;
+import org.marionette.controlplane.usecases.inbound.abntest.ranking.SimpleConfigurationRanking;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.AggregateMetric;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.MetricsConfiguration;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.SystemMetricsDataPoint;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.statistics.MetricDispersion;
+
+/**
+ * Maps a stored A/B test result to the DTO returned for download
+ */
+public class AbnTestResultsDtoMapper {
+
+    public AbnTestResultsDTO toDto(SingleAbnTestResult testResult, int maxResults) {
+
+        List<MetricConfigurationDTO> metricConfigurationDTOs = metricsConfigToDto(testResult.metricsConfiguration());
+
+        // Extract the first positions in the ranking
+        List<SystemConfigurationRankDTO> rankingDTO = new ArrayList<>();
+
+        int resultsCount = Math.min(maxResults, testResult.ranking().size());
+        for(int i = 0; i < resultsCount; i++) {
+            rankingDTO.add(rankToDto(testResult, i));
+        }
+
+        AbnTestResultsDTO resultDTO = new AbnTestResultsDTO(
+            metricConfigurationDTOs,
+            rankingDTO
+        );
+
+        return resultDTO;
+
+    }
+    
+
+    /**
+     * Maps a single position of the ranking (0 based), so the ranking can be written one entry at a time
+     */
+    public SystemConfigurationRankDTO rankToDto(SingleAbnTestResult testResult, int index) {
+
+        // Get the rank data
+        SimpleConfigurationRanking rank = testResult.ranking().get(index);
+        int positionInRankFromOne = index + 1;
+        List<MetricValueDTO> systemLevelResults = systemMetricsToDto(rank.systemMetrics());
+        List<MetricDispersionDTO> systemLevelDispersion = dispersionsToDto(rank.dispersions());
+
+        // Mapping ot system snapshot
+        SystemConfigurationSnapshot systemSnapshot = testResult.metricsRegistry().getSystemConfig(rank.configurationId());
+
+        List<ServiceConfigSnapshotDTO> serviceConfigSnapshotDTOs = serviceConfigsToDto(systemSnapshot);
+
+        List<ServiceLevelResultsDTO> serviceLevelResultsDTOs = serviceResultsToDto(testResult.metricsRegistry().getSystemDataPoint(rank.configurationId()));
+
+        return new SystemConfigurationRankDTO(
+            positionInRankFromOne,
+            serviceConfigSnapshotDTOs,
+            systemLevelResults,
+            systemLevelDispersion,
+            serviceLevelResultsDTOs
+        );
+    }
+
+    private List<ServiceLevelResultsDTO> serviceResultsToDto(SystemMetricsDataPoint systemDataPoint) {
+        
+        return systemDataPoint.serviceMetrics().stream()
+            .map(
+                serviceMetricsDataPoint -> new ServiceLevelResultsDTO(
+                    serviceMetricsDataPoint.serviceConfiguration().serviceName(),
+                    serviceMetricsDataPoint.metrics().stream().map(
+                        aggregateMetric -> new MetricValueDTO(
+                            aggregateMetric.name(),
+                            aggregateMetric.value(),
+                            aggregateMetric.unit()
+                        )
+                    )
+                    .toList()
+                )   
+            )
+            .toList();
+
+    }
+
+    private List<ServiceConfigSnapshotDTO> serviceConfigsToDto(SystemConfigurationSnapshot systemSnapshot) {
+       
+        return systemSnapshot.services().entrySet().stream()
+            .map(
+                entry1-> new ServiceConfigSnapshotDTO(
+                    entry1.getKey(),
+                    entry1.getValue().classes().entrySet().stream()
+                        .map(
+                            entry2 -> new ClassConfigSnapshotDTO(
+                                entry2.getKey(),
+                                entry2.getValue().methodBehaviors().entrySet().stream()
+                                    .map(
+                                        entry3 -> new BehaviourSelectionSnapshotDTO(
+                                            entry3.getKey(),
+                                            entry3.getValue()
+                                        )
+                                    )
+                                    .toList()
+                            )
+                        )
+                        .toList()
+                )
+            )
+            .toList();
+
+
+    }
+
+    private List<MetricValueDTO> systemMetricsToDto(List<AggregateMetric> systemMetrics) {
+        return systemMetrics.stream().map(
+            el -> new MetricValueDTO(
+                el.name(),
+                el.value(),
+                el.unit()
+            )
+        )
+        .toList();
+    }
+
+    private List<MetricDispersionDTO> dispersionsToDto(Map<String, MetricDispersion> dispersions) {
+        return dispersions.entrySet().stream().map(
+            entry -> new MetricDispersionDTO(
+                entry.getKey(),
+                entry.getValue().sampleCount(),
+                entry.getValue().standardDeviation(),
+                entry.getValue().medianAbsoluteDeviation(),
+                entry.getValue().interquartileRange(),
+                entry.getValue().bimodalityCoefficient(),
+                entry.getValue().isLikelyBimodal()
+            )
+        )
+        .toList();
+    }
+
+    public List<MetricConfigurationDTO> metricsConfigToDto(MetricsConfiguration metricsConfiguration) {
+
+        return metricsConfiguration.getMetricsConfig().stream().map(
+            el -> new MetricConfigurationDTO(
+                el.metricName(),
+                el.order(),
+                el.unit(),
+                el.direction().getDirection(),
+                el.estimator().getName(),
+                el.tolerance()
+            )
+        )
+        .toList();
+    }
+
+
+
+
+}
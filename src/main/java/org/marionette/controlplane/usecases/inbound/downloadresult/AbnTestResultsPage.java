@@ -0,0 +1,19 @@
+package org.marionette.controlplane.usecases.inbound.downloadresult;
+
+import org.marionette.controlplane.domain.entities.abntest.SingleAbnTestResult;
+
+/*
+ * A window [offset, offset + limit) over the ranking of a result. The version changes whenever
+ * a new result is stored, so it can be used to validate cached copies.
+ */
+public record AbnTestResultsPage(String version, SingleAbnTestResult result, int offset, int limit) {
+
+    public int totalConfigurations() {
+        return result.ranking().size();
+    }
+
+    public int end() {
+        return (int) Math.min((long) offset + limit, totalConfigurations());
+    }
+
+}
@@ -0,0 +1,47 @@
+package org.marionette.controlplane.usecases.inbound.fulldiscovery;
+
+import java.time.Duration;
+
+/**
+ * Limits of the discovery pipeline, read from the environment:
+ * MARIONETTE_DISCOVERY_VALIDATION_CONCURRENCY and MARIONETTE_DISCOVERY_FETCH_CONCURRENCY are the candidates
+ * probed and the configurations fetched at the same time, MARIONETTE_DISCOVERY_VALIDATION_TIMEOUT_SECONDS and
+ * MARIONETTE_DISCOVERY_FETCH_TIMEOUT_SECONDS the deadline of one candidate in each stage and
+ * MARIONETTE_DISCOVERY_DEADLINE_SECONDS the deadline of the whole discovery.
+ */
+public record DiscoveryPipelineSettings(
+    int validationConcurrency,
+    int fetchConcurrency,
+    Duration validationTimeout,
+    Duration fetchTimeout,
+    Duration globalDeadline
+) {
+
+    public static DiscoveryPipelineSettings defaultSettings() {
+        return new DiscoveryPipelineSettings(32, 8, Duration.ofSeconds(20), Duration.ofSeconds(30), Duration.ofSeconds(120));
+    }
+
+    public static DiscoveryPipelineSettings loadFromEnv() {
+        DiscoveryPipelineSettings defaults = defaultSettings();
+        return new DiscoveryPipelineSettings(
+            (int) parseLong(System.getenv("MARIONETTE_DISCOVERY_VALIDATION_CONCURRENCY"), defaults.validationConcurrency()),
+            (int) parseLong(System.getenv("MARIONETTE_DISCOVERY_FETCH_CONCURRENCY"), defaults.fetchConcurrency()),
+            Duration.ofSeconds(parseLong(System.getenv("MARIONETTE_DISCOVERY_VALIDATION_TIMEOUT_SECONDS"), defaults.validationTimeout().toSeconds())),
+            Duration.ofSeconds(parseLong(System.getenv("MARIONETTE_DISCOVERY_FETCH_TIMEOUT_SECONDS"), defaults.fetchTimeout().toSeconds())),
+            Duration.ofSeconds(parseLong(System.getenv("MARIONETTE_DISCOVERY_DEADLINE_SECONDS"), defaults.globalDeadline().toSeconds())));
+    }
+
+    private static long parseLong(String value, long defaultValue) {
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            long parsed = Long.parseLong(value.trim());
+            return parsed > 0 ? parsed : defaultValue;
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid discovery setting " + value + ", using " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+}
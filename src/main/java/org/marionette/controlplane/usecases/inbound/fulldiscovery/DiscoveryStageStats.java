@@ -0,0 +1,47 @@
+package org.marionette.controlplane.usecases.inbound.fulldiscovery;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Outcome counters and timings of one stage of a discovery run, updated concurrently by the stage workers
+ */
+class DiscoveryStageStats {
+
+    private final String name;
+    private final AtomicInteger succeeded = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicInteger timedOut = new AtomicInteger();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    DiscoveryStageStats(String name) {
+        this.name = name;
+    }
+
+    void record(boolean success, boolean deadlineHit, long nanos) {
+        if (deadlineHit) {
+            timedOut.incrementAndGet();
+        } else if (success) {
+            succeeded.incrementAndGet();
+        } else {
+            failed.incrementAndGet();
+        }
+        totalNanos.addAndGet(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    int completed() {
+        return succeeded.get() + failed.get() + timedOut.get();
+    }
+
+    String summary() {
+        int count = completed();
+        return String.format("%-10s ok %4d | failed %4d | deadline %4d | avg %6d ms | max %6d ms",
+                name, succeeded.get(), failed.get(), timedOut.get(),
+                count == 0 ? 0 : Duration.ofNanos(totalNanos.get() / count).toMillis(),
+                Duration.ofNanos(maxNanos.get()).toMillis());
+    }
+
+}
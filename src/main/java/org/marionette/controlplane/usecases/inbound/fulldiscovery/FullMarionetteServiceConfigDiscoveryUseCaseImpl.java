@@ -2,79 +2,371 @@ package org.marionette.controlplane.usecases.inbound.fulldiscovery;
 
 import org.marionette.controlplane.domain.entities.ConfigRegistry;
 import org.marionette.controlplane.domain.entities.ServiceConfig;
+import org.marionette.controlplane.domain.entities.reconcile.DiscoveredService;
+import org.marionette.controlplane.domain.entities.reconcile.ReconcileSummary;
 import org.marionette.controlplane.domain.values.ServiceName;
 import org.marionette.controlplane.exceptions.infrastructure.checked.FetchMarionetteConfigurationException;
+import org.marionette.controlplane.exceptions.infrastructure.checked.FindCandidateServicesException;
 import org.marionette.controlplane.usecases.domain.dto.DiscoveredServiceMetadata;
 import org.marionette.controlplane.usecases.domain.dto.ServiceConfigData;
 import org.marionette.controlplane.usecases.domain.mappers.ServiceConfigDataMapper;
 import org.marionette.controlplane.usecases.inbound.FullMarionetteServiceConfigDiscoveryUseCase;
 import org.marionette.controlplane.usecases.outbound.fetchconfig.FetchMarionetteConfigurationGateway;
+import org.marionette.controlplane.usecases.outbound.fetchconfig.FetchedMarionetteConfiguration;
+import org.marionette.controlplane.usecases.outbound.servicediscovery.CandidateVerdict;
 import org.marionette.controlplane.usecases.outbound.servicediscovery.FindCandidateServicesPort;
 import org.marionette.controlplane.usecases.outbound.servicediscovery.ValidateMarionetteServicePort;
 
 import static java.util.Objects.requireNonNull;
 
 import java.net.URI;
+import java.time.Duration;
+import java.util.HashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 
+/**
+ * Discovery runs as a two stage pipeline: candidates are validated by a bounded pool of workers and each
+ * validated service goes straight to a second bounded pool that fetches its configuration and registers it,
+ * so services show up in the registry one by one instead of after the whole namespace was probed.
+ *
+ * Every task has a deadline in its stage (the worker is interrupted when it expires) and the whole run has a
+ * global deadline after which the tasks still queued or running are abandoned.
+ *
+ * Configurations are fetched conditionally: when a service still serves the content it served last time, the
+ * template built from it then is reused as is (same object, so the registry sees no change).
+ */
 public class FullMarionetteServiceConfigDiscoveryUseCaseImpl implements FullMarionetteServiceConfigDiscoveryUseCase {
 
     private final FindCandidateServicesPort findServicesPort;
     private final ValidateMarionetteServicePort marionetteServiceValidator;
     private final FetchMarionetteConfigurationGateway fetchMarionetteConfigurationGateway;
     private final ConfigRegistry globalRegistry;
+    private final DiscoveryPipelineSettings settings;
+    private final Map<String, KnownTemplate> knownTemplates = new ConcurrentHashMap<>();
+
+    /**
+     * Template built from the configuration last fetched from an endpoint, with the hash of that content
+     */
+    private record KnownTemplate(String contentHash, ServiceName serviceName, ServiceConfig template) {}
 
     public FullMarionetteServiceConfigDiscoveryUseCaseImpl(FindCandidateServicesPort findServicesPort,
             ValidateMarionetteServicePort marionetteServiceValidator,
             FetchMarionetteConfigurationGateway fetchMarionetteConfigurationGateway, ConfigRegistry globalRegistry) {
+        this(findServicesPort, marionetteServiceValidator, fetchMarionetteConfigurationGateway, globalRegistry,
+                DiscoveryPipelineSettings.defaultSettings());
+    }
+
+    public FullMarionetteServiceConfigDiscoveryUseCaseImpl(FindCandidateServicesPort findServicesPort,
+            ValidateMarionetteServicePort marionetteServiceValidator,
+            FetchMarionetteConfigurationGateway fetchMarionetteConfigurationGateway, ConfigRegistry globalRegistry,
+            DiscoveryPipelineSettings settings) {
 
         requireNonNull(findServicesPort, "The outbound port to find candidate services cannot be null");
         requireNonNull(marionetteServiceValidator, "The outbound port to verify marionette services cannot be null");
         requireNonNull(fetchMarionetteConfigurationGateway,
                 "The outbound port to fetch a marionette configuration cannot be null");
         requireNonNull(globalRegistry, "The global registry cannot be null");
+        requireNonNull(settings, "The discovery pipeline settings cannot be null");
 
         this.findServicesPort = findServicesPort;
         this.marionetteServiceValidator = marionetteServiceValidator;
         this.fetchMarionetteConfigurationGateway = fetchMarionetteConfigurationGateway;
         this.globalRegistry = globalRegistry;
+        this.settings = settings;
     }
 
     @Override
     public void execute() {
+        // Each service is registered as soon as its configuration is fetched
+        runPipeline(service -> globalRegistry.addDiscoveredService(service.serviceName(), service.template(), service.endpoint()));
+    }
 
-        List<DiscoveredServiceMetadata> candidateServices = findServicesPort.findCandidateServices();
-        List<DiscoveredServiceMetadata> validatedServices = candidateServices.stream()
-            .filter(marionetteServiceValidator::validateCandidateNode)
-            .collect(Collectors.toList());
+    /**
+     * Runs the same pipeline without touching the registry, then reconciles the registry with what was found in
+     * a single atomic update. Services the run could not reach a verdict on (deadline, unreachable service, fetch
+     * failure, listing that failed) keep their current state; services that are no longer listed or that answer
+     * the validation as non Marionette services are removed.
+     */
+    @Override
+    public IncrementalDiscoveryResponse executeIncremental() {
+        Map<ServiceName, DiscoveredService> discovered = new ConcurrentHashMap<>();
+        PipelineOutcome outcome = runPipeline(service -> discovered.put(service.serviceName(), service));
 
-        logValidatedServices(validatedServices);
+        Set<URI> keepEndpoints = new HashSet<>();
+        outcome.unresolved().forEach(endpoint -> keepEndpoints.add(URI.create(endpoint)));
 
-        for(DiscoveredServiceMetadata serviceMetadata : validatedServices) {
-            try {
-                ServiceConfigData serviceConfigData = fetchMarionetteConfigurationGateway.fetchMarionetteConfiguration(serviceMetadata.endpoint());
+        ReconcileSummary summary = globalRegistry.reconcileDiscoveredServices(discovered.values(), keepEndpoints);
+        System.out.printf("🔁 Incremental discovery: %d added, %d removed, %d updated, %d unchanged, %d unresolved%n",
+                summary.added().size(), summary.removed().size(), summary.templateChanged().size(),
+                summary.unchanged().size(), outcome.unresolved().size());
+
+        return new IncrementalDiscoveryResponse(
+                names(summary.added()),
+                names(summary.removed()),
+                names(summary.templateChanged()),
+                names(summary.unchanged()),
+                List.copyOf(outcome.unresolved()));
+    }
+
+    /**
+     * Endpoints the validation rejected for good and endpoints without a verdict, every other candidate was delivered
+     */
+    private record PipelineOutcome(Set<String> rejected, Set<String> unresolved) {}
+
+    private PipelineOutcome runPipeline(Consumer<DiscoveredService> sink) {
+
+        long start = System.nanoTime();
+        List<DiscoveredServiceMetadata> candidateServices;
+        boolean listingComplete = true;
+        try {
+            candidateServices = findServicesPort.findCandidateServices();
+        } catch (FindCandidateServicesException e) {
+            // Go on with what was listed, the services that could not be listed are not gone
+            System.out.println("⚠️  " + e.getMessage() + ", going on with the " + e.getListedCandidates().size()
+                    + " candidates listed");
+            candidateServices = e.getListedCandidates();
+            listingComplete = false;
+        }
+        long listingNanos = System.nanoTime() - start;
+
+        DiscoveryStageStats validation = new DiscoveryStageStats("validate");
+        DiscoveryStageStats fetch = new DiscoveryStageStats("fetch");
+        Set<String> registered = ConcurrentHashMap.newKeySet();
+        Set<String> rejected = ConcurrentHashMap.newKeySet();
+        AtomicInteger unchanged = new AtomicInteger();
+        AtomicInteger workerIds = new AtomicInteger();
+
+        ExecutorService validators = Executors.newFixedThreadPool(
+                Math.max(1, Math.min(settings.validationConcurrency(), candidateServices.size())),
+                daemonThreads("discovery-validate-", workerIds));
+        ExecutorService fetchers = Executors.newFixedThreadPool(settings.fetchConcurrency(),
+                daemonThreads("discovery-fetch-", workerIds));
+        ScheduledExecutorService deadlines = Executors.newSingleThreadScheduledExecutor(
+                daemonThreads("discovery-deadline-", workerIds));
+
+        // One count per candidate, released when its validation does not succeed or when its fetch ends.
+        // A latch has no limit on the number of candidates, a Phaser stops at 65,535 parties.
+        CountDownLatch candidatesInFlight = new CountDownLatch(candidateServices.size());
+        AtomicInteger fetchesInFlight = new AtomicInteger();
+
+        try {
+            for (DiscoveredServiceMetadata candidate : candidateServices) {
+                validators.execute(() -> {
+                    boolean handedToFetch = false;
+                    CandidateVerdict[] verdict = { CandidateVerdict.UNREACHABLE };
+                    try {
+                        TaskOutcome valid = runWithDeadline(deadlines, settings.validationTimeout(), validation,
+                                () -> (verdict[0] = validate(candidate)) == CandidateVerdict.MARIONETTE);
+                        if (valid == TaskOutcome.SUCCEEDED) {
+                            fetchesInFlight.incrementAndGet();
+                            try {
+                                fetchers.execute(() -> {
+                                    try {
+                                        runWithDeadline(deadlines, settings.fetchTimeout(), fetch,
+                                                () -> fetchAndDeliver(candidate, sink, registered, unchanged));
+                                    } finally {
+                                        fetchesInFlight.decrementAndGet();
+                                        candidatesInFlight.countDown();
+                                    }
+                                });
+                                handedToFetch = true;
+                            } finally {
+                                if (!handedToFetch) {
+                                    fetchesInFlight.decrementAndGet();
+                                }
+                            }
+                        } else if (valid == TaskOutcome.FAILED && verdict[0] == CandidateVerdict.NOT_MARIONETTE) {
+                            // An unreachable service is left unresolved, not rejected
+                            rejected.add(candidate.endpoint());
+                        }
+                    } finally {
+                        if (!handedToFetch) {
+                            candidatesInFlight.countDown();
+                        }
+                    }
+                });
+            }
+
+            Duration remaining = settings.globalDeadline().minusNanos(System.nanoTime() - start);
+            if (!candidatesInFlight.await(Math.max(0, remaining.toMillis()), TimeUnit.MILLISECONDS)) {
+                System.out.println("⏱️  Discovery deadline of " + settings.globalDeadline().toSeconds()
+                        + "s reached, abandoning the " + candidatesInFlight.getCount() + " services still in progress ("
+                        + fetchesInFlight.get() + " fetching their configuration)");
+            }
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.out.println("Discovery interrupted, abandoning the services still in progress");
+        } finally {
+            validators.shutdownNow();
+            fetchers.shutdownNow();
+            deadlines.shutdownNow();
+        }
+
+        logDiscoveryReport(candidateServices.size(), registered, listingNanos, validation, fetch, System.nanoTime() - start);
+        if (unchanged.get() > 0) {
+            System.out.printf("   ♻️  %d configurations unchanged since the previous discovery%n", unchanged.get());
+        }
+
+        Set<String> candidateEndpoints = new HashSet<>();
+        candidateServices.forEach(candidate -> candidateEndpoints.add(candidate.endpoint()));
+        if (listingComplete) {
+            // Forget the templates of endpoints that are gone
+            knownTemplates.keySet().retainAll(candidateEndpoints);
+        }
+
+        // Snapshot the sets: abandoned workers may still be finishing
+        Set<String> rejectedSnapshot = Set.copyOf(rejected);
+        Set<String> registeredSnapshot = Set.copyOf(registered);
+        Set<String> unresolved = new HashSet<>();
+        for (DiscoveredServiceMetadata candidate : candidateServices) {
+            if (!rejectedSnapshot.contains(candidate.endpoint()) && !registeredSnapshot.contains(candidate.endpoint())) {
+                unresolved.add(candidate.endpoint());
+            }
+        }
+        if (!listingComplete) {
+            // A registered service missing from a partial listing may belong to the part that failed
+            globalRegistry.getAllServiceMetadata().values().forEach(metadata -> {
+                String endpoint = metadata.getEndpoint().toString();
+                if (!candidateEndpoints.contains(endpoint)) {
+                    unresolved.add(endpoint);
+                }
+            });
+        }
+        return new PipelineOutcome(rejectedSnapshot, unresolved);
+    }
+
+    private boolean fetchAndDeliver(DiscoveredServiceMetadata serviceMetadata, Consumer<DiscoveredService> sink,
+            Set<String> registered, AtomicInteger unchanged) {
+        try {
+            String endpoint = serviceMetadata.endpoint();
+            KnownTemplate known = knownTemplates.get(endpoint);
+            FetchedMarionetteConfiguration fetched = fetchMarionetteConfigurationGateway
+                    .fetchMarionetteConfigurationIfChanged(endpoint, known != null ? known.contentHash() : null);
+
+            DiscoveredService service;
+            if (fetched.isUnchanged() && known != null) {
+                // Same content as last time: the template built from it is reused, nothing is parsed or mapped
+                service = new DiscoveredService(known.serviceName(), known.template(), URI.create(endpoint));
+                unchanged.incrementAndGet();
+            } else {
+                ServiceConfigData serviceConfigData = fetched.configuration().isPresent()
+                        ? fetched.configuration().get()
+                        : fetchMarionetteConfigurationGateway.fetchMarionetteConfiguration(endpoint);
 
                 // Map to domain object
-                ServiceName serviceName = new ServiceName(serviceConfigData.serviceName());
+                ServiceName serviceName = ServiceName.of(serviceConfigData.serviceName());
                 ServiceConfig serviceConfig = ServiceConfigDataMapper.toDomainServiceConfig(serviceConfigData);
-                URI serviceEndpoint = URI.create(serviceMetadata.endpoint());
+                service = new DiscoveredService(serviceName, serviceConfig, URI.create(endpoint));
+                if (fetched.contentHash() != null) {
+                    knownTemplates.put(endpoint, new KnownTemplate(fetched.contentHash(), serviceName, serviceConfig));
+                }
+            }
+
+            sink.accept(service);
+            registered.add(endpoint);
+            return true;
+
+        } catch (FetchMarionetteConfigurationException e) {
+            // Log it and go to next service
+            System.out.println("There was a problem fetching the configuration for the marionette node " + serviceMetadata.endpoint());
+            return false;
+        } catch (RuntimeException e) {
+            System.out.println("Unexpected error registering the marionette node " + serviceMetadata.endpoint() + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static List<String> names(List<ServiceName> serviceNames) {
+        return serviceNames.stream().map(ServiceName::getServiceName).toList();
+    }
+
+    private CandidateVerdict validate(DiscoveredServiceMetadata candidate) {
+        try {
+            return marionetteServiceValidator.validateCandidateNode(candidate);
+        } catch (RuntimeException e) {
+            System.out.println("Unexpected error validating the candidate " + candidate.endpoint() + ": " + e.getMessage());
+            return CandidateVerdict.UNREACHABLE;
+        }
+    }
 
-                // Add it to the registry
-                globalRegistry.addDiscoveredService(serviceName, serviceConfig, serviceEndpoint);
+    /**
+     * Runs the task in the calling worker and interrupts it if it is still running after the timeout.
+     * The interrupt can only hit this task: it is never delivered once the task is done.
+     */
+    private static TaskOutcome runWithDeadline(ScheduledExecutorService deadlines, Duration timeout, DiscoveryStageStats stats,
+            BooleanSupplier task) {
+        Thread worker = Thread.currentThread();
+        Object guard = new Object();
+        boolean[] state = new boolean[2];      // [done, interrupted by the deadline]
+        ScheduledFuture<?> deadline = deadlines.schedule(() -> {
+            synchronized (guard) {
+                if (!state[0]) {
+                    state[1] = true;
+                    worker.interrupt();
+                }
+            }
+        }, timeout.toMillis(), TimeUnit.MILLISECONDS);
 
-            } catch (FetchMarionetteConfigurationException e) {
-                // Log it and go to next service
-                System.out.println("There was a problem fetching the configuration for the marionette node " + serviceMetadata.endpoint());
+        long start = System.nanoTime();
+        boolean result = false;
+        try {
+            result = task.getAsBoolean();
+        } finally {
+            deadline.cancel(false);
+            boolean deadlineHit;
+            synchronized (guard) {
+                state[0] = true;
+                deadlineHit = state[1];
+            }
+            if (deadlineHit) {
+                Thread.interrupted();   // the worker goes on with the next task
             }
+            stats.record(result, deadlineHit, System.nanoTime() - start);
+        }
+        if (state[1]) {     // no longer written once the task is done
+            return TaskOutcome.TIMED_OUT;
         }
+        return result ? TaskOutcome.SUCCEEDED : TaskOutcome.FAILED;
+    }
+
+    private enum TaskOutcome {
+        SUCCEEDED, FAILED, TIMED_OUT
+    }
 
+    private static ThreadFactory daemonThreads(String prefix, AtomicInteger ids) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + ids.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
     }
 
-    private void logValidatedServices(List<DiscoveredServiceMetadata> validatedServices) {
+    private void logDiscoveryReport(int candidates, Set<String> registered, long listingNanos,
+            DiscoveryStageStats validation, DiscoveryStageStats fetch, long totalNanos) {
         System.out.println("\n== MARIONETTE DISCOVERED SERVICES ==");
-        for(DiscoveredServiceMetadata serviceMetadata : validatedServices) {
-            System.out.println(serviceMetadata.endpoint());
+        registered.forEach(System.out::println);
+        System.out.printf("📊 Discovery: %d candidates, %d services registered in %d ms%n",
+                candidates, registered.size(), Duration.ofNanos(totalNanos).toMillis());
+        System.out.printf("   %-10s %d ms%n", "list", Duration.ofNanos(listingNanos).toMillis());
+        System.out.println("   " + validation.summary());
+        System.out.println("   " + fetch.summary());
+        int abandoned = candidates - validation.completed();
+        if (abandoned > 0) {
+            System.out.printf("   ⚠️  %d candidates not validated before the deadline%n", abandoned);
         }
     }
 
@@ -0,0 +1,15 @@
+package org.marionette.controlplane.usecases.inbound.fulldiscovery;
+
+import java.util.List;
+
+/**
+ * Services touched by an incremental discovery, by name, and the endpoints the run could not reach a verdict on
+ * (left untouched in the registry)
+ */
+public record IncrementalDiscoveryResponse(
+    List<String> added,
+    List<String> removed,
+    List<String> updated,
+    List<String> unchanged,
+    List<String> unresolvedEndpoints
+) {}
@@ -0,0 +1,50 @@
+package org.marionette.controlplane.usecases.inbound.healthmonitoring;
+
+import java.time.Duration;
+
+/**
+ * Health checks of the registered services, read from the environment:
+ * MARIONETTE_HEALTH_BASE_INTERVAL_SECONDS interval between probes of a new or failing service, doubled after
+ * every successful probe up to MARIONETTE_HEALTH_MAX_INTERVAL_SECONDS (keep it under the 5 minutes after which
+ * the registry considers a service stale), MARIONETTE_HEALTH_PROBE_TIMEOUT_SECONDS timeout of one probe,
+ * MARIONETTE_HEALTH_CONCURRENCY probes running at the same time and MARIONETTE_HEALTH_FAILURE_THRESHOLD
+ * consecutive failures after which a service is marked unavailable.
+ */
+public record HealthMonitorSettings(
+    Duration baseInterval,
+    Duration maxInterval,
+    Duration probeTimeout,
+    int concurrency,
+    int failureThreshold
+) {
+
+    public static HealthMonitorSettings defaultSettings() {
+        return new HealthMonitorSettings(Duration.ofSeconds(15), Duration.ofSeconds(120), Duration.ofSeconds(3), 8, 2);
+    }
+
+    public static HealthMonitorSettings loadFromEnv() {
+        HealthMonitorSettings defaults = defaultSettings();
+        Duration baseInterval = Duration.ofSeconds(parseLong(System.getenv("MARIONETTE_HEALTH_BASE_INTERVAL_SECONDS"), defaults.baseInterval().toSeconds()));
+        Duration maxInterval = Duration.ofSeconds(parseLong(System.getenv("MARIONETTE_HEALTH_MAX_INTERVAL_SECONDS"), defaults.maxInterval().toSeconds()));
+        return new HealthMonitorSettings(
+            baseInterval,
+            maxInterval.compareTo(baseInterval) < 0 ? baseInterval : maxInterval,
+            Duration.ofSeconds(parseLong(System.getenv("MARIONETTE_HEALTH_PROBE_TIMEOUT_SECONDS"), defaults.probeTimeout().toSeconds())),
+            (int) parseLong(System.getenv("MARIONETTE_HEALTH_CONCURRENCY"), defaults.concurrency()),
+            (int) parseLong(System.getenv("MARIONETTE_HEALTH_FAILURE_THRESHOLD"), defaults.failureThreshold()));
+    }
+
+    private static long parseLong(String value, long defaultValue) {
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            long parsed = Long.parseLong(value.trim());
+            return parsed > 0 ? parsed : defaultValue;
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid health check setting " + value + ", using " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+}
@@ -0,0 +1,261 @@
+package org.marionette.controlplane.usecases.inbound.healthmonitoring;
+
+import static java.util.Objects.requireNonNull;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.marionette.controlplane.domain.entities.ConfigRegistry;
+import org.marionette.controlplane.domain.entities.ServiceConfig;
+import org.marionette.controlplane.domain.entities.ServiceMetadata;
+import org.marionette.controlplane.domain.entities.ServiceMetadata.ServiceStatus;
+import org.marionette.controlplane.domain.values.ServiceName;
+import org.marionette.controlplane.exceptions.infrastructure.checked.FetchMarionetteConfigurationException;
+import org.marionette.controlplane.usecases.domain.dto.ServiceConfigData;
+import org.marionette.controlplane.usecases.domain.mappers.ServiceConfigDataMapper;
+import org.marionette.controlplane.usecases.inbound.MonitorServiceHealthUseCase;
+import org.marionette.controlplane.usecases.outbound.fetchconfig.FetchMarionetteConfigurationGateway;
+import org.marionette.controlplane.usecases.outbound.servicediscovery.CheckServiceHealthPort;
+
+/**
+ * Probes every registered service on its own schedule. A ticker looks for the services that are due every
+ * second and hands them to a bounded pool, so at most {@code concurrency} probes run at once and a service is
+ * never probed twice at the same time. Each successful probe doubles the interval of the service (up to the
+ * maximum), a failure brings it back to the base interval; every interval gets a random jitter so the probes
+ * of services registered together drift apart.
+ *
+ * After {@code failureThreshold} consecutive failures the service is marked unavailable. The configuration is
+ * fetched again only for the services the registry reports as needing discovery (unavailable or stale) once
+ * they respond again, the others only get their lastSeen refreshed.
+ */
+public class MonitorServiceHealthUseCaseImpl implements MonitorServiceHealthUseCase {
+
+    private static final long TICK_MILLIS = 1000;
+    private static final double JITTER_RATIO = 0.2;
+
+    private final ConfigRegistry globalRegistry;
+    private final CheckServiceHealthPort healthPort;
+    private final FetchMarionetteConfigurationGateway fetchMarionetteConfigurationGateway;
+    private final HealthMonitorSettings settings;
+    private final Map<ServiceName, ProbeState> probeStates = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService ticker;
+    private ExecutorService probers;
+
+    /**
+     * Schedule and counters of one service, guarded by its own monitor
+     */
+    private static final class ProbeState {
+        long nextDueNanos;
+        long intervalMillis;
+        boolean inFlight;
+        int consecutiveFailures;
+        Instant lastProbeAt;
+        long lastLatencyMillis;
+        long probes;
+        long failures;
+        long refetches;
+
+        ProbeState(long nextDueNanos, long intervalMillis) {
+            this.nextDueNanos = nextDueNanos;
+            this.intervalMillis = intervalMillis;
+        }
+    }
+
+    public MonitorServiceHealthUseCaseImpl(ConfigRegistry globalRegistry, CheckServiceHealthPort healthPort,
+            FetchMarionetteConfigurationGateway fetchMarionetteConfigurationGateway, HealthMonitorSettings settings) {
+        requireNonNull(globalRegistry, "The global registry cannot be null");
+        requireNonNull(healthPort, "The outbound port to check the health of the services cannot be null");
+        requireNonNull(fetchMarionetteConfigurationGateway,
+                "The outbound port to fetch a marionette configuration cannot be null");
+        requireNonNull(settings, "The health check settings cannot be null");
+        this.globalRegistry = globalRegistry;
+        this.healthPort = healthPort;
+        this.fetchMarionetteConfigurationGateway = fetchMarionetteConfigurationGateway;
+        this.settings = settings;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (ticker != null) {
+            return;
+        }
+        AtomicInteger ids = new AtomicInteger();
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> daemon(runnable, "health-ticker"));
+        probers = Executors.newFixedThreadPool(settings.concurrency(),
+                runnable -> daemon(runnable, "health-probe-" + ids.incrementAndGet()));
+        ticker.scheduleWithFixedDelay(this::tick, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+        System.out.printf("🩺 Health checks started: every %ds to %ds, %d at a time%n",
+                settings.baseInterval().toSeconds(), settings.maxInterval().toSeconds(), settings.concurrency());
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (ticker == null) {
+            return;
+        }
+        ticker.shutdownNow();
+        probers.shutdownNow();
+        ticker = null;
+        probers = null;
+    }
+
+    private void tick() {
+        try {
+            Map<ServiceName, ServiceMetadata> registered = globalRegistry.getAllServiceMetadata();
+            probeStates.keySet().retainAll(registered.keySet());
+            Set<ServiceName> needingDiscovery = globalRegistry.getServicesNeedingDiscovery();
+            long now = System.nanoTime();
+
+            for (Map.Entry<ServiceName, ServiceMetadata> entry : registered.entrySet()) {
+                ServiceName serviceName = entry.getKey();
+                // New services get their first probe spread over the base interval
+                ProbeState state = probeStates.computeIfAbsent(serviceName, name -> new ProbeState(
+                        now + TimeUnit.MILLISECONDS.toNanos(ThreadLocalRandom.current().nextLong(settings.baseInterval().toMillis() + 1)),
+                        settings.baseInterval().toMillis()));
+                synchronized (state) {
+                    if (state.inFlight || now - state.nextDueNanos < 0) {
+                        continue;
+                    }
+                    state.inFlight = true;
+                }
+                boolean refetch = needingDiscovery.contains(serviceName);
+                URI endpoint = entry.getValue().getEndpoint();
+                probers.execute(() -> probe(serviceName, endpoint, refetch, state));
+            }
+        } catch (RuntimeException e) {
+            // Never let an exception cancel the periodic task
+            System.err.println("Health check round failed: " + e.getMessage());
+        }
+    }
+
+    private void probe(ServiceName serviceName, URI endpoint, boolean refetch, ProbeState state) {
+        long start = System.nanoTime();
+        boolean responding = false;
+        try {
+            responding = healthPort.isResponding(endpoint, settings.probeTimeout());
+            if (responding) {
+                if (refetch && refetchConfiguration(serviceName, endpoint)) {
+                    synchronized (state) {
+                        state.refetches++;
+                    }
+                }
+                markSeen(serviceName);
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Health check of " + serviceName + " failed: " + e.getMessage());
+        } finally {
+            long latencyMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+            boolean markUnavailable;
+            synchronized (state) {
+                state.probes++;
+                state.lastProbeAt = Instant.now();
+                state.lastLatencyMillis = latencyMillis;
+                if (responding) {
+                    state.consecutiveFailures = 0;
+                    state.intervalMillis = Math.min(state.intervalMillis * 2, settings.maxInterval().toMillis());
+                } else {
+                    state.failures++;
+                    state.consecutiveFailures++;
+                    state.intervalMillis = settings.baseInterval().toMillis();
+                }
+                markUnavailable = !responding && state.consecutiveFailures == settings.failureThreshold();
+                state.nextDueNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(withJitter(state.intervalMillis));
+                state.inFlight = false;
+            }
+            if (markUnavailable) {
+                globalRegistry.markServiceUnavailable(serviceName);
+                System.out.println("💔 Service " + serviceName + " not responding, marked unavailable");
+            }
+        }
+    }
+
+    /**
+     * lastSeen is only written when it would otherwise go stale, so healthy services do not produce a registry
+     * revision (and a journal record) on every probe
+     */
+    private void markSeen(ServiceName serviceName) {
+        ServiceMetadata metadata = globalRegistry.getAllServiceMetadata().get(serviceName);
+        if (metadata == null) {
+            return;
+        }
+        if (metadata.getStatus() == ServiceStatus.UNAVAILABLE
+                || metadata.getLastSeen().isBefore(Instant.now().minus(settings.maxInterval()))) {
+            globalRegistry.markServiceSeen(serviceName);
+        }
+    }
+
+    private boolean refetchConfiguration(ServiceName serviceName, URI endpoint) {
+        try {
+            ServiceConfigData serviceConfigData = fetchMarionetteConfigurationGateway.fetchMarionetteConfiguration(endpoint.toString());
+            ServiceConfig serviceConfig = ServiceConfigDataMapper.toDomainServiceConfig(serviceConfigData);
+            globalRegistry.addDiscoveredService(ServiceName.of(serviceConfigData.serviceName()), serviceConfig, endpoint);
+            System.out.println("🔁 Configuration of " + serviceName + " fetched again after it came back");
+            return true;
+        } catch (FetchMarionetteConfigurationException e) {
+            System.out.println("There was a problem fetching the configuration for the marionette node " + endpoint);
+            return false;
+        }
+    }
+
+    @Override
+    public ServiceHealthReport healthReport() {
+        Map<ServiceName, ServiceMetadata> registered = globalRegistry.getAllServiceMetadata();
+        List<ServiceHealthData> services = new ArrayList<>();
+        int healthy = 0;
+        long probes = 0;
+        long failures = 0;
+        long refetches = 0;
+
+        for (Map.Entry<ServiceName, ServiceMetadata> entry : registered.entrySet()) {
+            ServiceMetadata metadata = entry.getValue();
+            ProbeState state = probeStates.get(entry.getKey());
+            ServiceHealthData data;
+            if (state == null) {
+                data = new ServiceHealthData(entry.getKey().getServiceName(), metadata.getEndpoint().toString(),
+                        metadata.getStatus().name(), metadata.getStatus() != ServiceStatus.UNAVAILABLE, 0,
+                        settings.baseInterval().toMillis(), null, 0, 0, 0, 0);
+            } else {
+                synchronized (state) {
+                    data = new ServiceHealthData(entry.getKey().getServiceName(), metadata.getEndpoint().toString(),
+                            metadata.getStatus().name(),
+                            state.consecutiveFailures == 0 && metadata.getStatus() != ServiceStatus.UNAVAILABLE,
+                            state.consecutiveFailures, state.intervalMillis, state.lastProbeAt, state.lastLatencyMillis,
+                            state.probes, state.failures, state.refetches);
+                }
+            }
+            services.add(data);
+            healthy += data.healthy() ? 1 : 0;
+            probes += data.probes();
+            failures += data.failures();
+            refetches += data.refetches();
+        }
+        services.sort(Comparator.comparing(ServiceHealthData::serviceName));
+        return new ServiceHealthReport(healthy, services.size() - healthy, probes, failures, refetches, services);
+    }
+
+    private static long withJitter(long intervalMillis) {
+        long jitter = (long) (intervalMillis * JITTER_RATIO);
+        return intervalMillis - jitter + ThreadLocalRandom.current().nextLong(2 * jitter + 1);
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+}
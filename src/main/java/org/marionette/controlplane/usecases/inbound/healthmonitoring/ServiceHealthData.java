@@ -0,0 +1,20 @@
+package org.marionette.controlplane.usecases.inbound.healthmonitoring;
+
+import java.time.Instant;
+
+/**
+ * Health of one registered service as seen by the probes, lastProbeAt is null before the first probe
+ */
+public record ServiceHealthData(
+    String serviceName,
+    String endpoint,
+    String status,
+    boolean healthy,
+    int consecutiveFailures,
+    long probeIntervalMillis,
+    Instant lastProbeAt,
+    long lastLatencyMillis,
+    long probes,
+    long failures,
+    long refetches
+) {}
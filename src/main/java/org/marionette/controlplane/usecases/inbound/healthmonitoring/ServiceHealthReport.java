@@ -0,0 +1,12 @@
+package org.marionette.controlplane.usecases.inbound.healthmonitoring;
+
+import java.util.List;
+
+public record ServiceHealthReport(
+    int healthyServices,
+    int unhealthyServices,
+    long totalProbes,
+    long totalFailures,
+    long totalRefetches,
+    List<ServiceHealthData> services
+) {}
@@ -4,4 +4,7 @@ import java.util.List;
 
 import org.marionette.controlplane.usecases.domain.dto.ServiceConfigData;
 
-public record ReadAllMarionetteConfigsResponse (List<ServiceConfigData> serviceConfigs) {}
+/*
+ * The revision is the one of the registry when the configurations were read, they are at least that recent
+ */
+public record ReadAllMarionetteConfigsResponse (long revision, List<ServiceConfigData> serviceConfigs) {}
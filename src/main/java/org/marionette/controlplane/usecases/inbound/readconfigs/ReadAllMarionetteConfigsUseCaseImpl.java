@@ -27,14 +27,22 @@ public class ReadAllMarionetteConfigsUseCaseImpl implements ReadAllMarionetteCon
     @Override
     public ReadAllMarionetteConfigsResponse execute() {
         
+        // Read before the configurations, so the content is never older than the revision it is tagged with
+        long revision = globalRegistry.getChangeFeed().currentRevision();
+
         List<ServiceConfigData> serviceConfigs = new ArrayList<>();
         for(Map.Entry<ServiceName, ServiceConfig> serviceEntry : globalRegistry.getAllRuntimeConfigurations().entrySet()) {
             ServiceConfigData serviceConfig = ServiceConfigDataMapper.fromDomainServiceConfig(serviceEntry.getValue());
             serviceConfigs.add(serviceConfig);
         }
         
-        return new ReadAllMarionetteConfigsResponse(serviceConfigs);
+        return new ReadAllMarionetteConfigsResponse(revision, serviceConfigs);
+
+    }
 
+    @Override
+    public long currentRevision() {
+        return globalRegistry.getChangeFeed().currentRevision();
     }
     
 }
@@ -3,6 +3,7 @@ package org.marionette.controlplane.usecases.inbound.rediscovery;
 import org.marionette.controlplane.domain.entities.ConfigRegistry;
 import org.marionette.controlplane.usecases.inbound.FullMarionetteServiceConfigDiscoveryUseCase;
 import org.marionette.controlplane.usecases.inbound.TriggerServiceRediscoveryUseCase;
+import org.marionette.controlplane.usecases.inbound.fulldiscovery.IncrementalDiscoveryResponse;
 import org.springframework.stereotype.Service;
 
 import static java.util.Objects.requireNonNull;
@@ -41,4 +42,22 @@ public class TriggerServiceRediscoveryUseCaseImpl implements TriggerServiceRedis
             throw new RuntimeException("Failed to complete service rediscovery", e);
         }
     }
+
+    @Override
+    public IncrementalDiscoveryResponse executeIncremental() {
+        System.out.println("🔄 Starting incremental service rediscovery...");
+        System.out.println("=" .repeat(50));
+
+        try {
+            IncrementalDiscoveryResponse response = discoveryUseCase.executeIncremental();
+
+            System.out.println("✅ Incremental service rediscovery completed successfully");
+            System.out.println("=" .repeat(50));
+            return response;
+
+        } catch (Exception e) {
+            System.err.println("❌ Incremental service rediscovery failed: " + e.getMessage());
+            throw new RuntimeException("Failed to complete incremental service rediscovery", e);
+        }
+    }
 }
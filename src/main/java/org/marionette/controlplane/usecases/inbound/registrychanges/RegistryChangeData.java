@@ -0,0 +1,17 @@
+package org.marionette.controlplane.usecases.inbound.registrychanges;
+
+import java.time.Instant;
+
+/*
+ * Fields that do not apply to the type of change are null
+ */
+public record RegistryChangeData(
+    long revision,
+    String type,
+    String serviceName,
+    String className,
+    String methodName,
+    String behaviourId,
+    String status,
+    Instant occurredAt
+) {}
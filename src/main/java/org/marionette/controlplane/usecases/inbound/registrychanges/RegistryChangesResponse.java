@@ -0,0 +1,9 @@
+package org.marionette.controlplane.usecases.inbound.registrychanges;
+
+import java.util.List;
+
+/*
+ * When resetRequired is set the changes since the requested revision are not available anymore,
+ * the client has to reload all the configurations and follow the changes from currentRevision
+ */
+public record RegistryChangesResponse(long currentRevision, boolean resetRequired, List<RegistryChangeData> changes) {}
@@ -0,0 +1,55 @@
+package org.marionette.controlplane.usecases.inbound.registrychanges;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+
+import org.marionette.controlplane.domain.entities.ConfigRegistry;
+import org.marionette.controlplane.domain.entities.changefeed.RegistryChangeEvent;
+import org.marionette.controlplane.domain.entities.changefeed.RegistryChanges;
+import org.marionette.controlplane.usecases.inbound.WatchRegistryChangesUseCase;
+
+public class WatchRegistryChangesUseCaseImpl implements WatchRegistryChangesUseCase {
+
+    private final ConfigRegistry globalRegistry;
+
+    public WatchRegistryChangesUseCaseImpl(ConfigRegistry globalRegistry) {
+        requireNonNull(globalRegistry, "The reference to the global registry cannot be null");
+        this.globalRegistry = globalRegistry;
+    }
+
+    @Override
+    public long currentRevision() {
+        return globalRegistry.getChangeFeed().currentRevision();
+    }
+
+    @Override
+    public RegistryChangesResponse changesSince(long revision) {
+        return toResponse(globalRegistry.getChangeFeed().changesSince(revision));
+    }
+
+    @Override
+    public RegistryChangesResponse awaitChangesSince(long revision, Duration timeout) throws InterruptedException {
+        return toResponse(globalRegistry.getChangeFeed().awaitChangesSince(revision, timeout));
+    }
+
+    private RegistryChangesResponse toResponse(RegistryChanges changes) {
+        return new RegistryChangesResponse(
+            changes.currentRevision(),
+            changes.resetRequired(),
+            changes.events().stream().map(this::toData).toList());
+    }
+
+    private RegistryChangeData toData(RegistryChangeEvent event) {
+        return new RegistryChangeData(
+            event.revision(),
+            event.type().name(),
+            event.serviceName().getServiceName(),
+            event.className() != null ? event.className().getClassName() : null,
+            event.methodName() != null ? event.methodName().getMethodName() : null,
+            event.behaviourId() != null ? event.behaviourId().getBehaviourId() : null,
+            event.status() != null ? event.status().name() : null,
+            event.occurredAt());
+    }
+
+}
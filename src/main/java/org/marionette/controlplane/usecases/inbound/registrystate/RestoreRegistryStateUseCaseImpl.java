@@ -0,0 +1,109 @@
+package org.marionette.controlplane.usecases.inbound.registrystate;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+
+import org.marionette.controlplane.domain.entities.ClassConfig;
+import org.marionette.controlplane.domain.entities.ConfigRegistry;
+import org.marionette.controlplane.domain.entities.MethodConfig;
+import org.marionette.controlplane.domain.entities.ServiceConfig;
+import org.marionette.controlplane.domain.entities.ServiceMetadata;
+import org.marionette.controlplane.domain.entities.journal.RegistryStateSnapshot;
+import org.marionette.controlplane.domain.values.ServiceName;
+import org.marionette.controlplane.usecases.inbound.RestoreRegistryStateUseCase;
+import org.marionette.controlplane.usecases.outbound.registrystate.RegistryStateStoreGateway;
+import org.marionette.controlplane.usecases.outbound.servicemanipulation.ChangeBehaviourData;
+import org.marionette.controlplane.usecases.outbound.servicemanipulation.ControlMarionetteServiceBehaviourGateway;
+
+public class RestoreRegistryStateUseCaseImpl implements RestoreRegistryStateUseCase {
+
+    private final ConfigRegistry globalRegistry;
+    private final RegistryStateStoreGateway registryStateStore;
+    private final ControlMarionetteServiceBehaviourGateway controlMarionetteGateway;
+    private volatile Instant restoredAt;
+
+    public RestoreRegistryStateUseCaseImpl(ConfigRegistry globalRegistry, RegistryStateStoreGateway registryStateStore,
+            ControlMarionetteServiceBehaviourGateway controlMarionetteGateway) {
+        requireNonNull(globalRegistry, "The global registry cannot be null");
+        requireNonNull(registryStateStore, "The registry state store cannot be null");
+        requireNonNull(controlMarionetteGateway, "The gateway to control marionette services cannot be null");
+        this.globalRegistry = globalRegistry;
+        this.registryStateStore = registryStateStore;
+        this.controlMarionetteGateway = controlMarionetteGateway;
+    }
+
+    @Override
+    public boolean restore() {
+        Optional<RegistryStateSnapshot> snapshot = registryStateStore.load();
+        snapshot.ifPresent(globalRegistry::restore);
+        registryStateStore.startRecording(globalRegistry);
+
+        if (snapshot.isEmpty()) {
+            return false;
+        }
+        restoredAt = Instant.now();
+        System.out.printf("♻️  Registry restored: %d services at revision %d%n",
+                snapshot.get().services().size(), snapshot.get().revision());
+        return true;
+    }
+
+    @Override
+    public void reconcileWithLiveServices() {
+        if (restoredAt == null) {
+            return;
+        }
+        System.out.println("🔁 Reconciling the restored registry with the live services...");
+        int pushed = 0;
+        int unavailable = 0;
+
+        for (Map.Entry<ServiceName, ServiceMetadata> entry : globalRegistry.getAllServiceMetadata().entrySet()) {
+            ServiceName serviceName = entry.getKey();
+            if (entry.getValue().getLastSeen().isBefore(restoredAt)) {
+                // Not found by the discovery that followed the restore
+                globalRegistry.markServiceUnavailable(serviceName);
+                unavailable++;
+                continue;
+            }
+            // After discovery the template is what the service runs, the runtime is what it should run
+            ServiceConfig live = globalRegistry.getTemplateConfiguration(serviceName);
+            ServiceConfig desired = globalRegistry.getRuntimeConfiguration(serviceName);
+            if (live == null || desired == null || live == desired) {
+                continue;
+            }
+            pushed += pushDifferences(serviceName, entry.getValue(), live, desired);
+        }
+
+        System.out.printf("✅ Reconciliation done: %d behaviours pushed again, %d services not found%n", pushed, unavailable);
+    }
+
+    private int pushDifferences(ServiceName serviceName, ServiceMetadata metadata, ServiceConfig live, ServiceConfig desired) {
+        int pushed = 0;
+        for (ClassConfig desiredClass : desired.getClassConfigsList()) {
+            ClassConfig liveClass = live.getClassConfigurations().get(desiredClass.getClassName());
+            if (liveClass == null) {
+                continue;
+            }
+            for (MethodConfig desiredMethod : desiredClass.getMethodConfigsList()) {
+                MethodConfig liveMethod = liveClass.getMethodConfigByName(desiredMethod.getMethodName());
+                if (liveMethod == null || liveMethod.getCurrentBehaviourId().equals(desiredMethod.getCurrentBehaviourId())) {
+                    continue;
+                }
+                try {
+                    controlMarionetteGateway.changeMarionetteServiceBehaviour(metadata.getEndpoint().toString(),
+                            new ChangeBehaviourData(serviceName.getServiceName(), desiredClass.classNameAsString(),
+                                    desiredMethod.methodNameAsString(), desiredMethod.currentBehaviourAsString()));
+                    pushed++;
+                } catch (Exception e) {
+                    System.err.printf("Could not restore %s.%s.%s -> %s: %s%n", serviceName.getServiceName(),
+                            desiredClass.classNameAsString(), desiredMethod.methodNameAsString(),
+                            desiredMethod.currentBehaviourAsString(), e.getMessage());
+                }
+            }
+        }
+        return pushed;
+    }
+
+}
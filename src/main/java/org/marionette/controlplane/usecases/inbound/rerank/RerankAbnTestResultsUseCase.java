@@ -0,0 +1,17 @@
+package org.marionette.controlplane.usecases.inbound.rerank;
+
+import java.util.Optional;
+
+import org.marionette.controlplane.usecases.inbound.downloadresult.AbnTestResultsPage;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.MetricsConfiguration;
+
+public interface RerankAbnTestResultsUseCase {
+
+    /**
+     * Ranks the configurations of a stored run again with another metrics configuration.
+     * The latest run is used when runId is null, the result is empty when the run does not exist.
+     * Only the window [offset, offset + limit) of the new ranking is returned.
+     */
+    public Optional<AbnTestResultsPage> execute(String runId, MetricsConfiguration metricsConfiguration, int offset, int limit);
+
+}
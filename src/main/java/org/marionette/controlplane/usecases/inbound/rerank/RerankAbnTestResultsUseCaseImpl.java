@@ -0,0 +1,148 @@
+package org.marionette.controlplane.usecases.inbound.rerank;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.marionette.controlplane.domain.entities.abntest.AbnTestResultsStorage;
+import org.marionette.controlplane.domain.entities.abntest.SingleAbnTestResult;
+import org.marionette.controlplane.usecases.inbound.abntest.ranking.LexicographicOrder;
+import org.marionette.controlplane.usecases.inbound.abntest.ranking.MetricVectorIndex;
+import org.marionette.controlplane.usecases.inbound.abntest.ranking.MetricVectorIndex.MetricColumn;
+import org.marionette.controlplane.usecases.inbound.abntest.ranking.SimpleConfigurationRanking;
+import org.marionette.controlplane.usecases.inbound.abntest.ranking.SystemMetricsAggregator;
+import org.marionette.controlplane.usecases.inbound.downloadresult.AbnTestResultsPage;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.AggregateMetric;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.MetricsConfiguration;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.OrderedMetricMetadata;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.statistics.MetricDispersion;
+import org.marionette.controlplane.usecases.outbound.resultsstore.AbnTestResultsStoreGateway;
+
+/**
+ * Re-ranks stored runs without touching the system. The metric vectors of the last few runs are kept
+ * in memory and rankings are cached per run and metrics configuration, so asking twice for the same
+ * priorities is a map lookup.
+ */
+public class RerankAbnTestResultsUseCaseImpl implements RerankAbnTestResultsUseCase {
+
+    private static final int CACHED_RUNS = 4;
+    private static final int CACHED_RANKINGS = 128;
+
+    private final AbnTestResultsStorage resultsStorage;
+    private final AbnTestResultsStoreGateway resultsStore;
+    private final SystemMetricsAggregator aggregator;
+
+    private final Map<String, IndexedRun> runs = new LruMap<>(CACHED_RUNS);
+    private final Map<RankingKey, List<SimpleConfigurationRanking>> rankings = new LruMap<>(CACHED_RANKINGS);
+
+    private record IndexedRun(SingleAbnTestResult result, MetricVectorIndex vectors) {}
+
+    // Metric metadata records compare by value, so equal configurations share the cache entry
+    private record RankingKey(String runId, List<OrderedMetricMetadata> metrics) {}
+
+    private static class LruMap<K, V> extends LinkedHashMap<K, V> {
+        private final int capacity;
+
+        LruMap(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            return size() > capacity;
+        }
+    }
+
+    public RerankAbnTestResultsUseCaseImpl(AbnTestResultsStorage resultsStorage, AbnTestResultsStoreGateway resultsStore,
+            SystemMetricsAggregator aggregator) {
+        this.resultsStorage = resultsStorage;
+        this.resultsStore = resultsStore;
+        this.aggregator = aggregator;
+    }
+
+    @Override
+    public synchronized Optional<AbnTestResultsPage> execute(String runId, MetricsConfiguration metricsConfiguration, int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Offset and limit cannot be negative, got offset " + offset + " and limit " + limit);
+        }
+
+        long start = System.nanoTime();
+
+        String resolvedRunId = runId != null ? runId : resultsStorage.getLatestRunId();
+        if (resolvedRunId == null) {
+            return Optional.empty();
+        }
+
+        IndexedRun run = indexedRun(resolvedRunId);
+        if (run == null) {
+            return Optional.empty();
+        }
+
+        RankingKey key = new RankingKey(resolvedRunId, metricsConfiguration.getMetricsConfig());
+        List<SimpleConfigurationRanking> ranking = rankings.get(key);
+        boolean cached = ranking != null;
+        if (!cached) {
+            ranking = rank(run.vectors(), metricsConfiguration.getMetricsConfig());
+            rankings.put(key, ranking);
+        }
+
+        SingleAbnTestResult reranked = new SingleAbnTestResult(metricsConfiguration, run.result().metricsRegistry(), ranking);
+
+        System.out.printf("Re-ranked %d configurations of %s in %.2f ms%s%n",
+                ranking.size(), resolvedRunId, (System.nanoTime() - start) / 1e6, cached ? " (cached)" : "");
+
+        return Optional.of(new AbnTestResultsPage(resolvedRunId, reranked, offset, limit));
+    }
+
+    private IndexedRun indexedRun(String runId) {
+        IndexedRun run = runs.get(runId);
+        if (run != null) {
+            return run;
+        }
+
+        SingleAbnTestResult result = runId.equals(resultsStorage.getLatestRunId())
+                ? resultsStorage.getResults()
+                : resultsStore.loadRun(runId).orElse(null);
+        if (result == null) {
+            return null;
+        }
+
+        run = new IndexedRun(result, MetricVectorIndex.of(result.metricsRegistry(), aggregator));
+        runs.put(runId, run);
+        return run;
+    }
+
+    private List<SimpleConfigurationRanking> rank(MetricVectorIndex vectors, List<OrderedMetricMetadata> metrics) {
+        MetricColumn[] columns = new MetricColumn[metrics.size()];
+        for (int level = 0; level < metrics.size(); level++) {
+            OrderedMetricMetadata metric = metrics.get(level);
+            columns[level] = vectors.column(metric.metricName(), metric.estimator(), metric.serviceAggregator());
+        }
+
+        int[] order = LexicographicOrder.sort(vectors.size(), metrics, (item, level) -> columns[level].values()[item]);
+
+        List<SimpleConfigurationRanking> ranking = new ArrayList<>(order.length);
+        for (int position = 0; position < order.length; position++) {
+            int item = order[position];
+            List<AggregateMetric> systemMetrics = new ArrayList<>();
+            Map<String, MetricDispersion> dispersions = new HashMap<>();
+            for (MetricColumn column : columns) {
+                double value = column.values()[item];
+                if (Double.isNaN(value)) {
+                    continue;
+                }
+                systemMetrics.add(new AggregateMetric(column.metricName(), value, null, column.unit()));
+                if (column.dispersions()[item] != null) {
+                    dispersions.put(column.metricName(), column.dispersions()[item]);
+                }
+            }
+            ranking.add(new SimpleConfigurationRanking(position, vectors.configurationId(item), systemMetrics, dispersions));
+        }
+        return ranking;
+    }
+
+}
@@ -0,0 +1,27 @@
+package org.marionette.controlplane.usecases.inbound.resultshistory;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.marionette.controlplane.domain.entities.abntest.SingleAbnTestResult;
+import org.marionette.controlplane.usecases.inbound.downloadresult.AbnTestResultsPage;
+import org.marionette.controlplane.usecases.outbound.resultsstore.domain.StoredRunSummary;
+
+public interface AbnTestRunsHistoryUseCase {
+
+    /**
+     * All stored runs, oldest first, or only those with the given fingerprint when it is not null
+     */
+    public List<StoredRunSummary> listRuns(String fingerprint);
+
+    /**
+     * The window [offset, offset + limit) of the ranking of a stored run
+     */
+    public Optional<AbnTestResultsPage> downloadRun(String runId, int offset, int limit);
+
+    /**
+     * The full stored run, "latest" resolves to the most recent one
+     */
+    public Optional<SingleAbnTestResult> loadRun(String runId);
+
+}
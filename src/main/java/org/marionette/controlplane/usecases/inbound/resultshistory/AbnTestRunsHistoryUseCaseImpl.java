@@ -0,0 +1,46 @@
+package org.marionette.controlplane.usecases.inbound.resultshistory;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.marionette.controlplane.domain.entities.abntest.SingleAbnTestResult;
+import org.marionette.controlplane.usecases.inbound.downloadresult.AbnTestResultsPage;
+import org.marionette.controlplane.usecases.outbound.resultsstore.AbnTestResultsStoreGateway;
+import org.marionette.controlplane.usecases.outbound.resultsstore.domain.StoredRunSummary;
+
+public class AbnTestRunsHistoryUseCaseImpl implements AbnTestRunsHistoryUseCase {
+
+    private static final String LATEST_RUN = "latest";
+
+    private final AbnTestResultsStoreGateway resultsStore;
+
+    public AbnTestRunsHistoryUseCaseImpl(AbnTestResultsStoreGateway resultsStore) {
+        this.resultsStore = resultsStore;
+    }
+
+    @Override
+    public List<StoredRunSummary> listRuns(String fingerprint) {
+        if (fingerprint == null || fingerprint.isBlank()) {
+            return resultsStore.listRuns();
+        }
+        return resultsStore.findRunsByFingerprint(fingerprint.trim());
+    }
+
+    @Override
+    public Optional<AbnTestResultsPage> downloadRun(String runId, int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Offset and limit cannot be negative, got offset " + offset + " and limit " + limit);
+        }
+        return resultsStore.loadRun(runId)
+                .map(result -> new AbnTestResultsPage(runId, result, offset, limit));
+    }
+
+    @Override
+    public Optional<SingleAbnTestResult> loadRun(String runId) {
+        if (LATEST_RUN.equals(runId)) {
+            return resultsStore.latestRun().flatMap(summary -> resultsStore.loadRun(summary.runId()));
+        }
+        return resultsStore.loadRun(runId);
+    }
+
+}
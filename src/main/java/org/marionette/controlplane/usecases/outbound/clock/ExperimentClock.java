@@ -0,0 +1,16 @@
+package org.marionette.controlplane.usecases.outbound.clock;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Time as seen by the A/B test executor. The wall clock in a cluster, a virtual clock in simulation where
+ * waiting only moves the time forward.
+ */
+public interface ExperimentClock {
+
+    public Instant now();
+
+    public void sleep(Duration duration) throws InterruptedException;
+
+}
@@ -7,4 +7,13 @@ public interface FetchMarionetteConfigurationGateway {
 
     public ServiceConfigData fetchMarionetteConfiguration(String marionetteServiceEndpoint) throws FetchMarionetteConfigurationException;
 
-}
\ No newline at end of file
+    /**
+     * Fetches the configuration only if its content hash differs from the one the caller knows (null when it
+     * knows nothing). Gateways that cannot tell always return the configuration.
+     */
+    public default FetchedMarionetteConfiguration fetchMarionetteConfigurationIfChanged(String marionetteServiceEndpoint,
+            String knownContentHash) throws FetchMarionetteConfigurationException {
+        return FetchedMarionetteConfiguration.changed(fetchMarionetteConfiguration(marionetteServiceEndpoint), null);
+    }
+
+}
@@ -0,0 +1,25 @@
+package org.marionette.controlplane.usecases.outbound.fetchconfig;
+
+import java.util.Optional;
+
+import org.marionette.controlplane.usecases.domain.dto.ServiceConfigData;
+
+/**
+ * Result of a conditional fetch: the configuration is empty when the service still serves the content the
+ * caller already knows. The content hash identifies the body served by the service.
+ */
+public record FetchedMarionetteConfiguration(Optional<ServiceConfigData> configuration, String contentHash) {
+
+    public static FetchedMarionetteConfiguration changed(ServiceConfigData configuration, String contentHash) {
+        return new FetchedMarionetteConfiguration(Optional.of(configuration), contentHash);
+    }
+
+    public static FetchedMarionetteConfiguration unchanged(String contentHash) {
+        return new FetchedMarionetteConfiguration(Optional.empty(), contentHash);
+    }
+
+    public boolean isUnchanged() {
+        return configuration.isEmpty();
+    }
+
+}
@@ -1,6 +1,7 @@
 package org.marionette.controlplane.usecases.outbound.fetchmetrics;
 
 import java.time.Duration;
+import java.util.Collection;
 import java.util.List;
 
 import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.AggregateMetric;
@@ -8,5 +9,18 @@ import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.Aggrega
 public interface FetchMarionetteNodesMetricsGateway {
 
     public List<AggregateMetric> fetchMetricsForService(String serviceName, Duration timeSpan, Duration samplingPeriod);
-    
+
+    /**
+     * Called before a slice is measured, for gateways that collect the samples themselves instead of
+     * querying a metrics store afterwards
+     */
+    default void startCollecting(Collection<String> serviceNames, Duration samplingPeriod) {
+    }
+
+    /**
+     * Called once the metrics of the slice have been fetched
+     */
+    default void stopCollecting() {
+    }
+
 }
@@ -1,5 +1,50 @@
 package org.marionette.controlplane.usecases.outbound.fetchmetrics.domain;
 
 import java.time.Instant;
+import java.util.List;
 
-public record AggregateMetric (String name, double value, Instant timestamp, String unit) {}
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.timeseries.SampleSeries;
+
+/*
+ * The value is the service level reduction of all the instances returned for the metric,
+ * the per-instance breakdown is optional and empty when the source only returned one series.
+ * Samples are the raw observations of the slice, only collected for metrics with a robust estimator,
+ * kept compressed and decoded on read.
+ * The histogram is only present for metrics collected as bucket counts, null otherwise.
+ */
+public record AggregateMetric (String name, double value, Instant timestamp, String unit, List<InstanceMetric> instances, SampleSeries samples, HistogramQuantile histogram) {
+
+    public AggregateMetric {
+        instances = instances != null ? List.copyOf(instances) : List.of();
+        samples = samples != null ? samples : SampleSeries.empty();
+    }
+
+    public AggregateMetric(String name, double value, Instant timestamp, String unit) {
+        this(name, value, timestamp, unit, List.of(), SampleSeries.empty(), null);
+    }
+
+    public AggregateMetric(String name, double value, Instant timestamp, String unit, List<InstanceMetric> instances) {
+        this(name, value, timestamp, unit, instances, SampleSeries.empty(), null);
+    }
+
+    public AggregateMetric(String name, Instant timestamp, String unit, HistogramQuantile histogram) {
+        this(name, histogram.value(), timestamp, unit, List.of(), SampleSeries.empty(), histogram);
+    }
+
+    public AggregateMetric withSamples(SampleSeries newSamples) {
+        return new AggregateMetric(name, value, timestamp, unit, instances, newSamples, histogram);
+    }
+
+    public boolean hasOutlierInstances() {
+        return instances.stream().anyMatch(InstanceMetric::outlier);
+    }
+
+    public boolean hasSamples() {
+        return !samples.isEmpty();
+    }
+
+    public boolean hasHistogram() {
+        return histogram != null;
+    }
+
+}
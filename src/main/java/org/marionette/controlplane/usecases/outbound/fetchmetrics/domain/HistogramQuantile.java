@@ -0,0 +1,19 @@
+package org.marionette.controlplane.usecases.outbound.fetchmetrics.domain;
+
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.statistics.BucketHistogram;
+
+/*
+ * Bucket counts a metric value was derived from, kept so that services are combined by merging
+ * their histograms instead of averaging their quantiles
+ */
+public record HistogramQuantile(BucketHistogram histogram, double quantile) {
+
+    public double value() {
+        return histogram.quantile(quantile);
+    }
+
+    public HistogramQuantile merge(HistogramQuantile other) {
+        return new HistogramQuantile(histogram.merge(other.histogram), quantile);
+    }
+
+}
@@ -0,0 +1,6 @@
+package org.marionette.controlplane.usecases.outbound.fetchmetrics.domain;
+
+/*
+ * Value reported by a single instance (pod) of a service for one metric
+ */
+public record InstanceMetric (String instance, double value, boolean outlier) {}
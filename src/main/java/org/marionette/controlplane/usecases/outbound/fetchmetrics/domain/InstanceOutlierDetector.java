@@ -0,0 +1,67 @@
+package org.marionette.controlplane.usecases.outbound.fetchmetrics.domain;
+
+import java.util.Arrays;
+
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.statistics.SampleEstimators;
+
+/**
+ * Flags instances whose value deviates too much from the other instances of the same service,
+ * using the modified z-score (Iglewicz and Hoaglin) built on median and median absolute deviation.
+ * At least three instances are needed, with fewer there is no majority to compare against.
+ */
+public class InstanceOutlierDetector {
+
+    private static final int MIN_INSTANCES = 3;
+    private static final double DEFAULT_THRESHOLD = 3.5;
+
+    // Scale factors to make MAD and mean absolute deviation consistent with a standard deviation
+    private static final double MAD_SCALE = 0.6745;
+    private static final double MEAN_AD_SCALE = 0.7979;
+
+    private final double threshold;
+
+    public InstanceOutlierDetector() {
+        this(DEFAULT_THRESHOLD);
+    }
+
+    public InstanceOutlierDetector(double threshold) {
+        if (threshold <= 0) {
+            throw new IllegalArgumentException("The outlier threshold must be positive, got: " + threshold);
+        }
+        this.threshold = threshold;
+    }
+
+    public boolean[] flagOutliers(double[] values) {
+        boolean[] outliers = new boolean[values.length];
+        if (values.length < MIN_INSTANCES) {
+            return outliers;
+        }
+
+        double median = SampleEstimators.median(values);
+
+        double[] deviations = new double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            deviations[i] = Math.abs(values[i] - median);
+        }
+        double mad = SampleEstimators.median(deviations);
+
+        double scale;
+        if (mad > 0) {
+            scale = mad / MAD_SCALE;
+        } else {
+            // More than half of the instances agree exactly, fall back to the mean absolute deviation
+            double meanAbsoluteDeviation = Arrays.stream(deviations).average().orElse(0.0);
+            scale = meanAbsoluteDeviation / MEAN_AD_SCALE;
+        }
+
+        if (scale == 0) {
+            return outliers; // All instances report the same value
+        }
+
+        for (int i = 0; i < values.length; i++) {
+            outliers[i] = deviations[i] / scale > threshold;
+        }
+        return outliers;
+    }
+
+}
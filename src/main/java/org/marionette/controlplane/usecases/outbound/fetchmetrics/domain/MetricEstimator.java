@@ -0,0 +1,67 @@
+package org.marionette.controlplane.usecases.outbound.fetchmetrics.domain;
+
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.statistics.SampleEstimators;
+
+/*
+ * Specifies how the samples collected during a slice are reduced to the value used for ranking
+ */
+public enum MetricEstimator {
+
+    MEAN("mean"),
+    MEDIAN("median"),
+    TRIMMED_MEAN("trimmed"),
+    WINSORIZED_MEAN("winsorized"),
+    MAD_FILTERED_MEAN("mad");
+
+    // Fraction of samples discarded (or clamped) on each side by the trimmed and winsorized means
+    private static final double TRIM_FRACTION = 0.1;
+
+    private final String name;
+
+    MetricEstimator(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * The plain mean of per-service values is the historical behaviour, every other estimator
+     * needs the raw samples of the slice to be meaningful
+     */
+    public boolean requiresSamples() {
+        return this != MEAN;
+    }
+
+    public double estimate(double[] samples) {
+        switch (this) {
+            case MEDIAN:
+                return SampleEstimators.median(samples);
+            case TRIMMED_MEAN:
+                return SampleEstimators.trimmedMean(samples, TRIM_FRACTION);
+            case WINSORIZED_MEAN:
+                return SampleEstimators.winsorizedMean(samples, TRIM_FRACTION);
+            case MAD_FILTERED_MEAN:
+                return SampleEstimators.madFilteredMean(samples);
+            case MEAN:
+            default:
+                return SampleEstimators.mean(samples);
+        }
+    }
+
+    public static MetricEstimator fromString(String estimator) {
+        for (MetricEstimator e : MetricEstimator.values()) {
+            if (e.name.equalsIgnoreCase(estimator)) {
+                return e;
+            }
+        }
+        throw new IllegalArgumentException("There is no metric estimator called " + estimator);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+}
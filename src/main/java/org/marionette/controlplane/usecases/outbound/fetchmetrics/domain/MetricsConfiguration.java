@@ -36,11 +36,13 @@ public class MetricsConfiguration implements Iterable<OrderedMetricMetadata> {
 
         for (int i = 0; i < metricsConfig.size(); i++) {
             OrderedMetricMetadata metric = metricsConfig.get(i);
-            sb.append(String.format("    [%d] order=%d, name='%s', direction=%s",
+            sb.append(String.format("    [%d] order=%d, name='%s', direction=%s, estimator=%s, tolerance=%s",
                     i + 1,
                     metric.order(),
                     metric.metricName(),
-                    metric.direction()));
+                    metric.direction(),
+                    metric.estimator(),
+                    metric.tolerance()));
 
             if (i < metricsConfig.size() - 1) {
                 sb.append(",");
@@ -1,3 +1,31 @@
 package org.marionette.controlplane.usecases.outbound.fetchmetrics.domain;
 
-public record OrderedMetricMetadata (String metricName, int order, OptimizationDirection direction, String unit) {}
+/*
+ * The tolerance is relative: two configurations whose values differ by less than tolerance * |value|
+ * are considered tied on this metric and the next metric in order decides. 0 means exact comparison.
+ * The service aggregator, when set, reduces the stored values of the pods of every service again instead of
+ * using the service values reduced at collection. Null keeps the values as collected.
+ */
+public record OrderedMetricMetadata (String metricName, int order, OptimizationDirection direction, String unit, MetricEstimator estimator, double tolerance,
+        ServiceAggregator serviceAggregator) {
+
+    public OrderedMetricMetadata {
+        estimator = estimator != null ? estimator : MetricEstimator.MEAN;
+        if (tolerance < 0 || Double.isNaN(tolerance)) {
+            throw new IllegalArgumentException("The tolerance of metric " + metricName + " must be a non negative number, got " + tolerance);
+        }
+    }
+
+    public OrderedMetricMetadata(String metricName, int order, OptimizationDirection direction, String unit, MetricEstimator estimator, double tolerance) {
+        this(metricName, order, direction, unit, estimator, tolerance, null);
+    }
+
+    public OrderedMetricMetadata(String metricName, int order, OptimizationDirection direction, String unit, MetricEstimator estimator) {
+        this(metricName, order, direction, unit, estimator, 0.0);
+    }
+
+    public OrderedMetricMetadata(String metricName, int order, OptimizationDirection direction, String unit) {
+        this(metricName, order, direction, unit, MetricEstimator.MEAN, 0.0);
+    }
+
+}
@@ -1,5 +1,8 @@
 package org.marionette.controlplane.usecases.outbound.fetchmetrics.domain;
 
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
 /*
  * Specifies aggregation at the level of service, so for multiple instant points returned for the same service
  */
@@ -20,6 +23,72 @@ public enum ServiceAggregator {
         return operator;
     }
 
+    /**
+     * Reduces the values of all the instances of a service to a single value
+     */
+    public double reduce(double[] values) {
+        if (values.length == 0) {
+            throw new IllegalArgumentException("Cannot reduce an empty set of instance values");
+        }
+
+        switch (this) {
+            case SUM:
+                return Arrays.stream(values).sum();
+            case MIN:
+                return Arrays.stream(values).min().getAsDouble();
+            case MAX:
+                return Arrays.stream(values).max().getAsDouble();
+            case AVERAGE:
+            default:
+                return Arrays.stream(values).average().getAsDouble();
+        }
+    }
+
+    /**
+     * Reduces the values of the instances, the flagged outliers are first replaced by the median of the other
+     * instances when the aggregator describes the typical pod
+     */
+    public double reduce(double[] values, boolean[] outliers) {
+        return reduce(replacesOutliers() ? replaceOutliersWithInlierMedian(values, outliers) : values);
+    }
+
+    /**
+     * SUM and AVERAGE describe the typical pod, so an outlier pod is smoothed out before reducing. MIN and MAX
+     * are asked precisely for the extreme pod, which must be kept as it is.
+     */
+    public boolean replacesOutliers() {
+        return this == SUM || this == AVERAGE;
+    }
+
+    /**
+     * Outliers are replaced by the median of the other instances instead of being dropped,
+     * so that SUM keeps counting every pod while a single misbehaving pod does not skew the result
+     */
+    private static double[] replaceOutliersWithInlierMedian(double[] values, boolean[] outliers) {
+        double[] inliers = IntStream.range(0, values.length)
+                .filter(i -> !outliers[i])
+                .mapToDouble(i -> values[i])
+                .sorted()
+                .toArray();
+
+        if (inliers.length == values.length || inliers.length == 0) {
+            return values;
+        }
+
+        int middle = inliers.length / 2;
+        double inlierMedian = inliers.length % 2 == 1
+                ? inliers[middle]
+                : (inliers[middle - 1] + inliers[middle]) / 2.0;
+
+        double[] cleaned = values.clone();
+        for (int i = 0; i < cleaned.length; i++) {
+            if (outliers[i]) {
+                cleaned[i] = inlierMedian;
+            }
+        }
+        return cleaned;
+    }
+
     public static ServiceAggregator fromString(String serviceAggregator) {
         for (ServiceAggregator t : ServiceAggregator.values()) {
             if (t.operator.equalsIgnoreCase(serviceAggregator)) {
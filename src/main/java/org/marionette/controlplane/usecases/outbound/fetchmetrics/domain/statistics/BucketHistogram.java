@@ -0,0 +1,169 @@
+package org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.statistics;
+
+import java.util.Arrays;
+
+/**
+ * Cumulative bucket histogram in the Prometheus layout: counts[i] is the number of observations
+ * less than or equal to upperBounds[i], the last bound is usually +Inf.
+ * Instances are immutable, merging two histograms returns a new one.
+ */
+public final class BucketHistogram {
+
+    private final double[] upperBounds;
+    private final double[] cumulativeCounts;
+
+    private BucketHistogram(double[] upperBounds, double[] cumulativeCounts) {
+        this.upperBounds = upperBounds;
+        this.cumulativeCounts = cumulativeCounts;
+    }
+
+    public static BucketHistogram of(double[] upperBounds, double[] cumulativeCounts) {
+        if (upperBounds.length != cumulativeCounts.length) {
+            throw new IllegalArgumentException("Every bucket bound needs a count, got " + upperBounds.length
+                    + " bounds and " + cumulativeCounts.length + " counts");
+        }
+        Builder builder = new Builder();
+        for (int i = 0; i < upperBounds.length; i++) {
+            builder.add(upperBounds[i], cumulativeCounts[i]);
+        }
+        return builder.build();
+    }
+
+    public double[] upperBounds() {
+        return upperBounds.clone();
+    }
+
+    public double[] cumulativeCounts() {
+        return cumulativeCounts.clone();
+    }
+
+    public int bucketCount() {
+        return upperBounds.length;
+    }
+
+    public double totalCount() {
+        return upperBounds.length == 0 ? 0 : cumulativeCounts[cumulativeCounts.length - 1];
+    }
+
+    public boolean isEmpty() {
+        return totalCount() <= 0;
+    }
+
+    /**
+     * Sums the counts of the two histograms. Buckets with the same bounds are added directly;
+     * when the layouts differ every histogram is evaluated on the union of the bounds, counting
+     * at each bound the observations of its largest bucket not above it.
+     */
+    public BucketHistogram merge(BucketHistogram other) {
+        if (Arrays.equals(upperBounds, other.upperBounds)) {
+            double[] counts = new double[cumulativeCounts.length];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = cumulativeCounts[i] + other.cumulativeCounts[i];
+            }
+            return new BucketHistogram(upperBounds, counts);
+        }
+
+        Builder builder = new Builder();
+        for (double bound : upperBounds) {
+            builder.add(bound, countAtOrBelow(bound) + other.countAtOrBelow(bound));
+        }
+        for (double bound : other.upperBounds) {
+            if (Arrays.binarySearch(upperBounds, bound) < 0) {
+                builder.add(bound, countAtOrBelow(bound) + other.countAtOrBelow(bound));
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Quantile with linear interpolation inside the bucket, the same estimate as PromQL histogram_quantile.
+     * Returns NaN when the histogram holds no observations.
+     */
+    public double quantile(double q) {
+        if (q < 0 || q > 1) {
+            throw new IllegalArgumentException("Quantile must be in [0, 1], got " + q);
+        }
+        if (isEmpty()) {
+            return Double.NaN;
+        }
+
+        double rank = q * totalCount();
+        int bucket = 0;
+        while (bucket < cumulativeCounts.length - 1 && cumulativeCounts[bucket] < rank) {
+            bucket++;
+        }
+
+        // Nothing can be said past the last finite bound
+        if (Double.isInfinite(upperBounds[bucket])) {
+            return bucket > 0 ? upperBounds[bucket - 1] : Double.NaN;
+        }
+
+        double lowerBound = bucket > 0 ? upperBounds[bucket - 1] : Math.min(0, upperBounds[0]);
+        double countBelow = bucket > 0 ? cumulativeCounts[bucket - 1] : 0;
+        double countInBucket = cumulativeCounts[bucket] - countBelow;
+        if (countInBucket <= 0) {
+            return upperBounds[bucket];
+        }
+        return lowerBound + (upperBounds[bucket] - lowerBound) * ((rank - countBelow) / countInBucket);
+    }
+
+    private double countAtOrBelow(double bound) {
+        int position = Arrays.binarySearch(upperBounds, bound);
+        if (position >= 0) {
+            return cumulativeCounts[position];
+        }
+        int insertion = -position - 1;
+        return insertion == 0 ? 0 : cumulativeCounts[insertion - 1];
+    }
+
+    @Override
+    public String toString() {
+        return "BucketHistogram{buckets=" + upperBounds.length + ", count=" + totalCount() + "}";
+    }
+
+    /**
+     * Accumulates (upper bound, cumulative count) pairs, summing the counts of pairs with the same bound,
+     * so the series of several instances can be added in any order
+     */
+    public static final class Builder {
+
+        private double[] bounds = new double[16];
+        private double[] counts = new double[16];
+        private int size;
+
+        public Builder add(double upperBound, double cumulativeCount) {
+            if (Double.isNaN(upperBound) || Double.isNaN(cumulativeCount)) {
+                return this;
+            }
+            int position = Arrays.binarySearch(bounds, 0, size, upperBound);
+            if (position >= 0) {
+                counts[position] += cumulativeCount;
+                return this;
+            }
+
+            int insertion = -position - 1;
+            if (size == bounds.length) {
+                bounds = Arrays.copyOf(bounds, size * 2);
+                counts = Arrays.copyOf(counts, size * 2);
+            }
+            System.arraycopy(bounds, insertion, bounds, insertion + 1, size - insertion);
+            System.arraycopy(counts, insertion, counts, insertion + 1, size - insertion);
+            bounds[insertion] = upperBound;
+            counts[insertion] = cumulativeCount;
+            size++;
+            return this;
+        }
+
+        public BucketHistogram build() {
+            double[] finalCounts = Arrays.copyOf(counts, size);
+            // Counter resets and scrape jitter can break monotonicity, which the quantile search relies on
+            for (int i = 1; i < size; i++) {
+                if (finalCounts[i] < finalCounts[i - 1]) {
+                    finalCounts[i] = finalCounts[i - 1];
+                }
+            }
+            return new BucketHistogram(Arrays.copyOf(bounds, size), finalCounts);
+        }
+    }
+
+}
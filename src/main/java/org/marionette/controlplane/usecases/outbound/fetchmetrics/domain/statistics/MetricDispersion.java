@@ -0,0 +1,74 @@
+package org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.statistics;
+
+/**
+ * Spread of the samples behind a slice metric.
+ * The bimodality coefficient is above 5/9 (the value of a uniform distribution) when the samples
+ * are likely to come from two separate modes, e.g. a slice that switched behaviour half way.
+ */
+public record MetricDispersion(
+    int sampleCount,
+    double standardDeviation,
+    double medianAbsoluteDeviation,
+    double interquartileRange,
+    double bimodalityCoefficient
+) {
+
+    private static final double BIMODALITY_THRESHOLD = 5.0 / 9.0;
+
+    public boolean isLikelyBimodal() {
+        return sampleCount > 3 && bimodalityCoefficient > BIMODALITY_THRESHOLD;
+    }
+
+    public static MetricDispersion of(double[] samples) {
+        int n = samples.length;
+        if (n == 0) {
+            return new MetricDispersion(0, 0, 0, 0, 0);
+        }
+
+        double mean = 0;
+        for (double sample : samples) {
+            mean += sample;
+        }
+        mean /= n;
+
+        double m2 = 0, m3 = 0, m4 = 0;
+        for (double sample : samples) {
+            double d = sample - mean;
+            double d2 = d * d;
+            m2 += d2;
+            m3 += d2 * d;
+            m4 += d2 * d2;
+        }
+        m2 /= n;
+        m3 /= n;
+        m4 /= n;
+
+        double standardDeviation = n > 1 ? Math.sqrt(m2 * n / (n - 1)) : 0;
+
+        double[] work = samples.clone();
+        double median = SampleEstimators.median(work);
+        for (int i = 0; i < n; i++) {
+            work[i] = Math.abs(samples[i] - median);
+        }
+        double mad = SampleEstimators.median(work);
+
+        double interquartileRange = SampleEstimators.quantile(samples, 0.75) - SampleEstimators.quantile(samples, 0.25);
+
+        return new MetricDispersion(n, standardDeviation, mad, interquartileRange,
+                bimodalityCoefficient(n, m2, m3, m4));
+    }
+
+    private static double bimodalityCoefficient(int n, double m2, double m3, double m4) {
+        if (n <= 3 || m2 == 0) {
+            return 0;
+        }
+        // Sample skewness and excess kurtosis with the usual small sample corrections
+        double g1 = m3 / Math.pow(m2, 1.5);
+        double skewness = g1 * Math.sqrt((double) n * (n - 1)) / (n - 2);
+        double g2 = m4 / (m2 * m2) - 3;
+        double excessKurtosis = ((double) (n - 1) / ((n - 2) * (n - 3))) * ((n + 1) * g2 + 6);
+        double correction = 3.0 * (n - 1) * (n - 1) / ((double) (n - 2) * (n - 3));
+        return (skewness * skewness + 1) / (excessKurtosis + correction);
+    }
+
+}
@@ -0,0 +1,112 @@
+package org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.statistics;
+
+import java.util.Arrays;
+
+/**
+ * Streaming quantile estimation with constant memory (Jain and Chlamtac, the P² algorithm).
+ * Keeps five markers whose heights are adjusted with a piecewise-parabolic formula as samples arrive.
+ */
+public class P2QuantileEstimator {
+
+    private final double quantile;
+
+    private final double[] heights = new double[5];
+    private final int[] positions = new int[5];
+    private final double[] desiredPositions = new double[5];
+    private final double[] increments = new double[5];
+
+    private int count = 0;
+
+    public P2QuantileEstimator(double quantile) {
+        if (quantile <= 0 || quantile >= 1) {
+            throw new IllegalArgumentException("Quantile must be in (0, 1), got: " + quantile);
+        }
+        this.quantile = quantile;
+
+        increments[0] = 0;
+        increments[1] = quantile / 2;
+        increments[2] = quantile;
+        increments[3] = (1 + quantile) / 2;
+        increments[4] = 1;
+    }
+
+    public void add(double value) {
+        if (count < 5) {
+            heights[count++] = value;
+            if (count == 5) {
+                Arrays.sort(heights);
+                for (int i = 0; i < 5; i++) {
+                    positions[i] = i;
+                    desiredPositions[i] = 4 * increments[i];
+                }
+            }
+            return;
+        }
+
+        // Find the cell the new value falls in, extending the extremes if needed
+        int cell;
+        if (value < heights[0]) {
+            heights[0] = value;
+            cell = 0;
+        } else if (value >= heights[4]) {
+            heights[4] = value;
+            cell = 3;
+        } else {
+            cell = 0;
+            while (cell < 3 && value >= heights[cell + 1]) {
+                cell++;
+            }
+        }
+
+        for (int i = cell + 1; i < 5; i++) {
+            positions[i]++;
+        }
+        for (int i = 0; i < 5; i++) {
+            desiredPositions[i] += increments[i];
+        }
+
+        // Adjust the heights of the three middle markers
+        for (int i = 1; i <= 3; i++) {
+            double delta = desiredPositions[i] - positions[i];
+            if ((delta >= 1 && positions[i + 1] - positions[i] > 1)
+                    || (delta <= -1 && positions[i - 1] - positions[i] < -1)) {
+                int direction = delta > 0 ? 1 : -1;
+                double candidate = parabolic(i, direction);
+                if (heights[i - 1] < candidate && candidate < heights[i + 1]) {
+                    heights[i] = candidate;
+                } else {
+                    heights[i] = linear(i, direction);
+                }
+                positions[i] += direction;
+            }
+        }
+
+        count++;
+    }
+
+    public double estimate() {
+        if (count == 0) {
+            throw new IllegalStateException("No samples were added to the estimator");
+        }
+        if (count < 5) {
+            // Not enough samples to initialise the markers, answer exactly
+            return QuickSelect.quantile(Arrays.copyOf(heights, count), quantile);
+        }
+        return heights[2];
+    }
+
+    public int count() {
+        return count;
+    }
+
+    private double parabolic(int i, int d) {
+        return heights[i] + (double) d / (positions[i + 1] - positions[i - 1])
+                * ((positions[i] - positions[i - 1] + d) * (heights[i + 1] - heights[i]) / (positions[i + 1] - positions[i])
+                        + (positions[i + 1] - positions[i] - d) * (heights[i] - heights[i - 1]) / (positions[i] - positions[i - 1]));
+    }
+
+    private double linear(int i, int d) {
+        return heights[i] + d * (heights[i + d] - heights[i]) / (positions[i + d] - positions[i]);
+    }
+
+}
@@ -0,0 +1,113 @@
+package org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.statistics;
+
+/**
+ * Selection of order statistics in expected linear time (Hoare's selection with median-of-three pivot).
+ * The partition is three-way, so runs of equal values (common in latency samples) stay linear.
+ * The input array is reordered in place, callers pass a copy when they need the original order.
+ */
+public class QuickSelect {
+
+    private QuickSelect() {
+    }
+
+    /**
+     * Returns the k-th smallest value (0-based) of the array
+     */
+    public static double select(double[] values, int k) {
+        if (values.length == 0) {
+            throw new IllegalArgumentException("Cannot select from an empty array");
+        }
+        if (k < 0 || k >= values.length) {
+            throw new IllegalArgumentException("Rank " + k + " out of bounds for " + values.length + " values");
+        }
+
+        int left = 0;
+        int right = values.length - 1;
+
+        while (left < right) {
+            double pivot = values[medianOfThree(values, left, right)];
+            long equalRange = partition(values, left, right, pivot);
+            int equalStart = (int) (equalRange >>> 32);
+            int equalEnd = (int) equalRange;
+            if (k < equalStart) {
+                right = equalStart - 1;
+            } else if (k > equalEnd) {
+                left = equalEnd + 1;
+            } else {
+                return pivot;
+            }
+        }
+        return values[left];
+    }
+
+    /**
+     * Median of the array, the mean of the two middle values for even sizes
+     */
+    public static double median(double[] values) {
+        return quantile(values, 0.5);
+    }
+
+    /**
+     * Quantile with linear interpolation between the closest ranks
+     */
+    public static double quantile(double[] values, double q) {
+        if (q < 0 || q > 1) {
+            throw new IllegalArgumentException("Quantile must be in [0, 1], got: " + q);
+        }
+        double position = q * (values.length - 1);
+        int lower = (int) Math.floor(position);
+        int upper = (int) Math.ceil(position);
+
+        double lowerValue = select(values, lower);
+        if (upper == lower) {
+            return lowerValue;
+        }
+        // After selecting the lower rank everything to its right is >= it, the next rank is the minimum there
+        double upperValue = Double.POSITIVE_INFINITY;
+        for (int i = lower + 1; i < values.length; i++) {
+            upperValue = Math.min(upperValue, values[i]);
+        }
+        return lowerValue + (position - lower) * (upperValue - lowerValue);
+    }
+
+    private static int medianOfThree(double[] values, int left, int right) {
+        int middle = left + (right - left) / 2;
+        double a = values[left];
+        double b = values[middle];
+        double c = values[right];
+        if ((a <= b && b <= c) || (c <= b && b <= a)) {
+            return middle;
+        }
+        if ((b <= a && a <= c) || (c <= a && a <= b)) {
+            return left;
+        }
+        return right;
+    }
+
+    /**
+     * Dutch national flag partition of [left, right] into values below, equal to and above the pivot.
+     * Returns the bounds of the equal range, first index in the high 32 bits and last index in the low ones.
+     */
+    private static long partition(double[] values, int left, int right, double pivot) {
+        int lower = left;
+        int i = left;
+        int upper = right;
+        while (i <= upper) {
+            if (values[i] < pivot) {
+                swap(values, lower++, i++);
+            } else if (values[i] > pivot) {
+                swap(values, i, upper--);
+            } else {
+                i++;
+            }
+        }
+        return ((long) lower << 32) | (upper & 0xFFFFFFFFL);
+    }
+
+    private static void swap(double[] values, int i, int j) {
+        double tmp = values[i];
+        values[i] = values[j];
+        values[j] = tmp;
+    }
+
+}
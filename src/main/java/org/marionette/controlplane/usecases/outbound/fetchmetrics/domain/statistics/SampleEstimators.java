@@ -0,0 +1,117 @@
+package org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.statistics;
+
+import java.util.Arrays;
+
+/**
+ * Location estimators over raw samples. Selection is exact with quickselect up to
+ * EXACT_SELECTION_LIMIT samples, above that the streaming P² estimator is used to keep memory constant.
+ * None of the methods modifies the array passed in.
+ */
+public class SampleEstimators {
+
+    private static final int EXACT_SELECTION_LIMIT = 100_000;
+
+    // Modified z-score above which a sample is rejected by madFilteredMean
+    private static final double MAD_REJECTION_THRESHOLD = 3.5;
+    private static final double MAD_SCALE = 0.6745;
+
+    private SampleEstimators() {
+    }
+
+    public static double mean(double[] samples) {
+        requireSamples(samples);
+        return Arrays.stream(samples).average().getAsDouble();
+    }
+
+    public static double median(double[] samples) {
+        return quantile(samples, 0.5);
+    }
+
+    public static double quantile(double[] samples, double q) {
+        requireSamples(samples);
+        if (samples.length > EXACT_SELECTION_LIMIT && q > 0 && q < 1) {
+            P2QuantileEstimator estimator = new P2QuantileEstimator(q);
+            for (double sample : samples) {
+                estimator.add(sample);
+            }
+            return estimator.estimate();
+        }
+        return QuickSelect.quantile(samples.clone(), q);
+    }
+
+    /**
+     * Mean after discarding the given fraction of samples on each side
+     */
+    public static double trimmedMean(double[] samples, double trimFraction) {
+        requireSamples(samples);
+        double[] sorted = sortedCopy(samples, trimFraction);
+        int cut = trimCount(sorted.length, trimFraction);
+        double sum = 0;
+        for (int i = cut; i < sorted.length - cut; i++) {
+            sum += sorted[i];
+        }
+        return sum / (sorted.length - 2 * cut);
+    }
+
+    /**
+     * Mean after clamping the given fraction of samples on each side to the closest kept value
+     */
+    public static double winsorizedMean(double[] samples, double trimFraction) {
+        requireSamples(samples);
+        double[] sorted = sortedCopy(samples, trimFraction);
+        int cut = trimCount(sorted.length, trimFraction);
+        double low = sorted[cut];
+        double high = sorted[sorted.length - 1 - cut];
+        double sum = 0;
+        for (double sample : sorted) {
+            sum += Math.min(Math.max(sample, low), high);
+        }
+        return sum / sorted.length;
+    }
+
+    /**
+     * Mean of the samples whose modified z-score (median and MAD based) is within the rejection threshold
+     */
+    public static double madFilteredMean(double[] samples) {
+        requireSamples(samples);
+        double median = median(samples);
+        double[] deviations = new double[samples.length];
+        for (int i = 0; i < samples.length; i++) {
+            deviations[i] = Math.abs(samples[i] - median);
+        }
+        double mad = median(deviations);
+        if (mad == 0) {
+            return median; // More than half of the samples are identical
+        }
+
+        double sum = 0;
+        int kept = 0;
+        for (int i = 0; i < samples.length; i++) {
+            if (MAD_SCALE * deviations[i] / mad <= MAD_REJECTION_THRESHOLD) {
+                sum += samples[i];
+                kept++;
+            }
+        }
+        return kept > 0 ? sum / kept : median;
+    }
+
+    private static double[] sortedCopy(double[] samples, double trimFraction) {
+        if (trimFraction < 0 || trimFraction >= 0.5) {
+            throw new IllegalArgumentException("The trim fraction must be in [0, 0.5), got: " + trimFraction);
+        }
+        double[] sorted = samples.clone();
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    private static int trimCount(int size, double trimFraction) {
+        return (int) Math.floor(size * trimFraction);
+    }
+
+    private static void requireSamples(double[] samples) {
+        if (samples == null || samples.length == 0) {
+            throw new IllegalArgumentException("Cannot estimate a value from an empty set of samples");
+        }
+    }
+
+}
@@ -0,0 +1,36 @@
+package org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.timeseries;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reads back the stream of a BitOutput from a buffer, with absolute gets so the buffer can be shared
+ */
+final class BitInput {
+
+    private final ByteBuffer buffer;
+    private final int offset;
+    private long position;
+
+    BitInput(ByteBuffer buffer, int offset) {
+        this.buffer = buffer;
+        this.offset = offset;
+    }
+
+    boolean readBit() {
+        return readBits(1) == 1;
+    }
+
+    long readBits(int bits) {
+        long result = 0;
+        while (bits > 0) {
+            int current = buffer.get(offset + (int) (position >>> 3)) & 0xFF;
+            int available = 8 - (int) (position & 7);
+            int taken = Math.min(available, bits);
+            result = (result << taken) | ((current >>> (available - taken)) & ((1 << taken) - 1));
+            bits -= taken;
+            position += taken;
+        }
+        return result;
+    }
+
+}
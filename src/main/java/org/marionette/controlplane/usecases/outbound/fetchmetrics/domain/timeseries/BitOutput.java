@@ -0,0 +1,43 @@
+package org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.timeseries;
+
+import java.util.Arrays;
+
+/**
+ * Growable bit stream written most significant bit first
+ */
+final class BitOutput {
+
+    private byte[] bytes = new byte[64];
+    private long bitCount;
+
+    void writeBit(boolean bit) {
+        writeBits(bit ? 1 : 0, 1);
+    }
+
+    /**
+     * Writes the lowest bits of the value, at most 64
+     */
+    void writeBits(long value, int bits) {
+        while (bits > 0) {
+            int byteIndex = (int) (bitCount >>> 3);
+            if (byteIndex == bytes.length) {
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            }
+            int free = 8 - (int) (bitCount & 7);
+            int taken = Math.min(free, bits);
+            int chunk = (int) ((value >>> (bits - taken)) & ((1 << taken) - 1));
+            bytes[byteIndex] |= (byte) (chunk << (free - taken));
+            bits -= taken;
+            bitCount += taken;
+        }
+    }
+
+    int byteLength() {
+        return (int) ((bitCount + 7) >>> 3);
+    }
+
+    byte[] bytes() {
+        return bytes;
+    }
+
+}
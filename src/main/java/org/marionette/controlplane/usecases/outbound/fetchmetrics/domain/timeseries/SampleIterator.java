@@ -0,0 +1,80 @@
+package org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.timeseries;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Decodes a SampleSeries one sample at a time, without boxing:
+ * while (samples.next()) { samples.timestamp(); samples.value(); }
+ */
+public final class SampleIterator {
+
+    private final BitInput input;
+    private final int size;
+    private int read;
+    private long timestamp;
+    private long delta;
+    private long valueBits;
+    private int leadingZeros;
+    private int trailingZeros;
+
+    SampleIterator(ByteBuffer encoded, int size) {
+        this.input = new BitInput(encoded, Integer.BYTES);
+        this.size = size;
+    }
+
+    /**
+     * Moves to the next sample, false when every sample was read
+     */
+    public boolean next() {
+        if (read == size) {
+            return false;
+        }
+        if (read == 0) {
+            timestamp = input.readBits(64);
+            valueBits = input.readBits(64);
+        } else {
+            readTimestamp();
+            readValue();
+        }
+        read++;
+        return true;
+    }
+
+    public long timestamp() {
+        return timestamp;
+    }
+
+    public double value() {
+        return Double.longBitsToDouble(valueBits);
+    }
+
+    private void readTimestamp() {
+        long deltaOfDelta;
+        if (!input.readBit()) {
+            deltaOfDelta = 0;
+        } else if (!input.readBit()) {
+            deltaOfDelta = input.readBits(7) - 63;
+        } else if (!input.readBit()) {
+            deltaOfDelta = input.readBits(9) - 255;
+        } else if (!input.readBit()) {
+            deltaOfDelta = input.readBits(12) - 2047;
+        } else {
+            deltaOfDelta = input.readBits(64);
+        }
+        delta += deltaOfDelta;
+        timestamp += delta;
+    }
+
+    private void readValue() {
+        if (!input.readBit()) {
+            return;
+        }
+        if (input.readBit()) {
+            leadingZeros = (int) input.readBits(5);
+            int meaningfulBits = (int) input.readBits(6) + 1;
+            trailingZeros = 64 - leadingZeros - meaningfulBits;
+        }
+        valueBits ^= input.readBits(64 - leadingZeros - trailingZeros) << trailingZeros;
+    }
+
+}
@@ -0,0 +1,188 @@
+package org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.timeseries;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Raw samples of one metric in the Gorilla chunk layout: timestamps are stored as delta-of-delta and values
+ * as the XOR with the previous value, so regular sampling and slowly moving values take a few bits each.
+ *
+ * The encoded form is a sample count (4 bytes, big endian) followed by the bit stream. Instances are immutable
+ * and can wrap a region of a memory mapped file, reads decode the stream through a SampleIterator.
+ */
+public final class SampleSeries {
+
+    private static final SampleSeries EMPTY = new Builder().build();
+
+    private final ByteBuffer encoded;
+    private final int size;
+
+    private SampleSeries(ByteBuffer encoded) {
+        this.encoded = encoded.slice().order(ByteOrder.BIG_ENDIAN).asReadOnlyBuffer();
+        this.size = this.encoded.getInt(0);
+    }
+
+    public static SampleSeries empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Samples encoded by a Builder, e.g. read back from a block file. The remaining bytes of the buffer are used,
+     * nothing is copied.
+     */
+    public static SampleSeries wrap(ByteBuffer encoded) {
+        if (encoded.remaining() < Integer.BYTES) {
+            throw new IllegalArgumentException("A sample chunk needs at least " + Integer.BYTES + " bytes, got " + encoded.remaining());
+        }
+        return new SampleSeries(encoded);
+    }
+
+    /**
+     * Values without timestamps, all at the same instant (e.g. samples stored before timestamps were kept)
+     */
+    public static SampleSeries of(long timestampMillis, double... values) {
+        Builder builder = new Builder();
+        for (double value : values) {
+            builder.append(timestampMillis, value);
+        }
+        return builder.build();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public SampleIterator iterator() {
+        return new SampleIterator(encoded, size);
+    }
+
+    /**
+     * Decodes every value, in append order
+     */
+    public double[] values() {
+        double[] values = new double[size];
+        SampleIterator samples = iterator();
+        for (int i = 0; samples.next(); i++) {
+            values[i] = samples.value();
+        }
+        return values;
+    }
+
+    /**
+     * Read-only view of the encoded chunk
+     */
+    public ByteBuffer encoded() {
+        return encoded.duplicate();
+    }
+
+    public int encodedBytes() {
+        return encoded.remaining();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof SampleSeries series && encoded.equals(series.encoded);
+    }
+
+    @Override
+    public int hashCode() {
+        return encoded.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "SampleSeries[" + size + " samples in " + encodedBytes() + " bytes]";
+    }
+
+    /**
+     * Encodes the samples as they are appended. Timestamps are expected in increasing order, going back in
+     * time is supported but costs up to 68 bits.
+     */
+    public static final class Builder {
+
+        private final BitOutput output = new BitOutput();
+        private int size;
+        private long previousTimestamp;
+        private long previousDelta;
+        private long previousValueBits;
+        private int previousLeadingZeros = -1;
+        private int previousTrailingZeros;
+
+        public Builder append(long timestampMillis, double value) {
+            long valueBits = Double.doubleToRawLongBits(value);
+            if (size == 0) {
+                output.writeBits(timestampMillis, 64);
+                output.writeBits(valueBits, 64);
+            } else {
+                appendTimestamp(timestampMillis);
+                appendValue(valueBits);
+            }
+            previousTimestamp = timestampMillis;
+            previousValueBits = valueBits;
+            size++;
+            return this;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public SampleSeries build() {
+            ByteBuffer encoded = ByteBuffer.allocate(Integer.BYTES + output.byteLength());
+            encoded.putInt(size);
+            encoded.put(output.bytes(), 0, output.byteLength());
+            encoded.flip();
+            return new SampleSeries(encoded);
+        }
+
+        private void appendTimestamp(long timestampMillis) {
+            long delta = timestampMillis - previousTimestamp;
+            long deltaOfDelta = delta - previousDelta;
+            if (deltaOfDelta == 0) {
+                output.writeBit(false);
+            } else if (deltaOfDelta >= -63 && deltaOfDelta <= 64) {
+                output.writeBits(0b10, 2);
+                output.writeBits(deltaOfDelta + 63, 7);
+            } else if (deltaOfDelta >= -255 && deltaOfDelta <= 256) {
+                output.writeBits(0b110, 3);
+                output.writeBits(deltaOfDelta + 255, 9);
+            } else if (deltaOfDelta >= -2047 && deltaOfDelta <= 2048) {
+                output.writeBits(0b1110, 4);
+                output.writeBits(deltaOfDelta + 2047, 12);
+            } else {
+                output.writeBits(0b1111, 4);
+                output.writeBits(deltaOfDelta, 64);
+            }
+            previousDelta = delta;
+        }
+
+        private void appendValue(long valueBits) {
+            long xor = valueBits ^ previousValueBits;
+            if (xor == 0) {
+                output.writeBit(false);
+                return;
+            }
+            output.writeBit(true);
+            int leadingZeros = Math.min(31, Long.numberOfLeadingZeros(xor));
+            int trailingZeros = Long.numberOfTrailingZeros(xor);
+            if (previousLeadingZeros >= 0 && leadingZeros >= previousLeadingZeros && trailingZeros >= previousTrailingZeros) {
+                // The meaningful bits fit in the window of the previous value
+                output.writeBit(false);
+                output.writeBits(xor >>> previousTrailingZeros, 64 - previousLeadingZeros - previousTrailingZeros);
+                return;
+            }
+            int meaningfulBits = 64 - leadingZeros - trailingZeros;
+            output.writeBit(true);
+            output.writeBits(leadingZeros, 5);
+            output.writeBits(meaningfulBits - 1, 6);
+            output.writeBits(xor >>> trailingZeros, meaningfulBits);
+            previousLeadingZeros = leadingZeros;
+            previousTrailingZeros = trailingZeros;
+        }
+    }
+
+}
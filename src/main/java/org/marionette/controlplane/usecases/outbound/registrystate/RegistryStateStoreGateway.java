@@ -0,0 +1,23 @@
+package org.marionette.controlplane.usecases.outbound.registrystate;
+
+import java.util.Optional;
+
+import org.marionette.controlplane.domain.entities.ConfigRegistry;
+import org.marionette.controlplane.domain.entities.journal.RegistryStateSnapshot;
+
+/*
+ * Keeps the content of the ConfigRegistry across restarts of the control plane
+ */
+public interface RegistryStateStoreGateway {
+
+    /**
+     * Last recorded state of the registry, empty when nothing was recorded yet
+     */
+    public Optional<RegistryStateSnapshot> load();
+
+    /**
+     * Records every change published by the registry from now on
+     */
+    public void startRecording(ConfigRegistry registry);
+
+}
@@ -0,0 +1,24 @@
+package org.marionette.controlplane.usecases.outbound.resultsstore;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.marionette.controlplane.domain.entities.abntest.SingleAbnTestResult;
+import org.marionette.controlplane.usecases.outbound.resultsstore.domain.StoredRunSummary;
+
+/*
+ * Keeps the results of every A/B test run, listing them only reads the index so full runs are loaded one at a time
+ */
+public interface AbnTestResultsStoreGateway {
+
+    public StoredRunSummary append(SingleAbnTestResult result);
+
+    public List<StoredRunSummary> listRuns();
+
+    public List<StoredRunSummary> findRunsByFingerprint(String fingerprint);
+
+    public Optional<StoredRunSummary> latestRun();
+
+    public Optional<SingleAbnTestResult> loadRun(String runId);
+
+}
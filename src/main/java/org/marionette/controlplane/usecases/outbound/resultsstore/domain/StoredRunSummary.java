@@ -0,0 +1,15 @@
+package org.marionette.controlplane.usecases.outbound.resultsstore.domain;
+
+import java.time.Instant;
+
+/*
+ * Index entry of a stored run. The fingerprint identifies the tested configuration space and metrics,
+ * runs with the same fingerprint measured the same experiment and can be compared.
+ */
+public record StoredRunSummary(
+    String runId,
+    Instant completedAt,
+    String fingerprint,
+    int configurationCount,
+    String bestConfigurationId
+) {}
@@ -0,0 +1,17 @@
+package org.marionette.controlplane.usecases.outbound.servicediscovery;
+
+import java.util.List;
+
+import org.marionette.controlplane.usecases.domain.dto.DiscoveredServiceMetadata;
+
+/**
+ * Receives the candidate services appearing and disappearing while they are watched. A batch holds one
+ * candidate for a single watch event and all the differences found when the candidates are listed again.
+ */
+public interface CandidateServicesListener {
+
+    public void onCandidatesAdded(List<DiscoveredServiceMetadata> candidates);
+
+    public void onCandidatesRemoved(List<DiscoveredServiceMetadata> candidates);
+
+}
@@ -0,0 +1,12 @@
+package org.marionette.controlplane.usecases.outbound.servicediscovery;
+
+/**
+ * Outcome of the validation of a candidate service. Only a definitive answer of the service makes it
+ * NOT_MARIONETTE; a service that could not be reached (restarting, timing out, failing with 5xx) is UNREACHABLE
+ * and keeps whatever state the registry has for it.
+ */
+public enum CandidateVerdict {
+    MARIONETTE,
+    NOT_MARIONETTE,
+    UNREACHABLE
+}
@@ -0,0 +1,13 @@
+package org.marionette.controlplane.usecases.outbound.servicediscovery;
+
+import java.net.URI;
+import java.time.Duration;
+
+public interface CheckServiceHealthPort {
+
+    /**
+     * Single, cheap probe of a registered Marionette service (no retries)
+     */
+    public boolean isResponding(URI serviceEndpoint, Duration timeout);
+
+}
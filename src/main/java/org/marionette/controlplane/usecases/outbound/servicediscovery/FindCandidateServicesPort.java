@@ -2,10 +2,11 @@ package org.marionette.controlplane.usecases.outbound.servicediscovery;
 
 import java.util.List;
 
+import org.marionette.controlplane.exceptions.infrastructure.checked.FindCandidateServicesException;
 import org.marionette.controlplane.usecases.domain.dto.DiscoveredServiceMetadata;
 
 public interface FindCandidateServicesPort {
 
-    public List<DiscoveredServiceMetadata> findCandidateServices();
+    public List<DiscoveredServiceMetadata> findCandidateServices() throws FindCandidateServicesException;
     
 }
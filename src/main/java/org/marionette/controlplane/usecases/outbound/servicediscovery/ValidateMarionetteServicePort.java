@@ -5,7 +5,7 @@ import org.marionette.controlplane.usecases.domain.dto.DiscoveredServiceMetadata
 
 public interface ValidateMarionetteServicePort {
 
-    public boolean validateCandidateNode(DiscoveredServiceMetadata candidates);
+    public CandidateVerdict validateCandidateNode(DiscoveredServiceMetadata candidates);
     
 
 }
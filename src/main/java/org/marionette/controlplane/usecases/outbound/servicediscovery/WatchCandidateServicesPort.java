@@ -0,0 +1,12 @@
+package org.marionette.controlplane.usecases.outbound.servicediscovery;
+
+public interface WatchCandidateServicesPort {
+
+    /**
+     * Starts following the candidate services in the background, the listener is called from the watching threads
+     */
+    public void startWatching(CandidateServicesListener listener);
+
+    public void stopWatching();
+
+}
@@ -0,0 +1,143 @@
+package org.marionette.controlplane.adapters.outbound.fetchmetrics.scrape;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.marionette.controlplane.adapters.outbound.fetchmetrics.prometheus.configuration.PrometheusConfiguration;
+import org.marionette.controlplane.adapters.outbound.fetchmetrics.prometheus.domain.MetricCollectionMode;
+import org.marionette.controlplane.adapters.outbound.fetchmetrics.prometheus.domain.PrometheusMetricConfig;
+import org.marionette.controlplane.adapters.outbound.transport.OutboundHttpTransport;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.AggregateMetric;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.ServiceAggregator;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.statistics.BucketHistogram;
+
+import com.sun.net.httpserver.HttpServer;
+
+class DirectScrapeFetchMarionetteNodesMetricsAdapterTest {
+
+    private static final String SERVICE = "checkout";
+
+    private HttpServer server;
+    private OutboundHttpTransport transport;
+    private final Map<String, AtomicInteger> scrapes = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void startPods() throws Exception {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        // Every counter grows by a fixed step per scrape, so the increases follow from the number of scrapes
+        servePod("pod-a", n -> """
+                # TYPE requests_total counter
+                requests_total{code="200"} %d
+                requests_total{code="500"} %d
+                latency_seconds_bucket{le="0.1"} %d
+                latency_seconds_bucket{le="1"} %d
+                latency_seconds_bucket{le="+Inf"} %d
+                """.formatted(5 * n, 100 * n, 10 * n, 10 * n, 10 * n));
+        servePod("pod-b", n -> """
+                requests_total{code="200"} %d
+                latency_seconds_bucket{le="0.1"} 0
+                latency_seconds_bucket{le="1"} %d
+                latency_seconds_bucket{le="+Inf"} %d
+                """.formatted(5 * n, 10 * n, 10 * n));
+        server.start();
+        transport = new OutboundHttpTransport();
+    }
+
+    @AfterEach
+    void stopPods() {
+        server.stop(0);
+        transport.close();
+    }
+
+    @Test
+    void reducesTheScrapedPodsLikePrometheus() throws Exception {
+        PrometheusMetricConfig requests = metric("Requests", "sum(increase(requests_total{service=\"{service}\",code=\"200\"}[1m]))",
+                MetricCollectionMode.QUERY);
+        requests.setServiceAggregator(ServiceAggregator.SUM);
+        PrometheusMetricConfig latency = metric("Latency", "rate(latency_seconds_bucket{service=\"{service}\"}[1m])",
+                MetricCollectionMode.HISTOGRAM);
+        latency.setQuantiles(List.of(0.5));
+        PrometheusMetricConfig unsupported = metric("Top requests", "topk(3, rate(requests_total[1m]))",
+                MetricCollectionMode.QUERY);
+
+        DirectScrapeFetchMarionetteNodesMetricsAdapter adapter = new DirectScrapeFetchMarionetteNodesMetricsAdapter(
+                new PrometheusConfiguration("", List.of(requests, latency, unsupported)),
+                new DirectScrapeConfiguration(Duration.ofMillis(20), "/metrics", Duration.ofSeconds(2), 1000,
+                        Duration.ofSeconds(30), 2),
+                serviceName -> List.of(target("pod-a"), target("pod-b")),
+                transport);
+
+        adapter.startCollecting(List.of(SERVICE), Duration.ofSeconds(1));
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while ((scrapesOf("pod-a") < 3 || scrapesOf("pod-b") < 3) && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        // Waits for the scrapes in flight, the counts of the pods are final from here
+        adapter.stopCollecting();
+        int increasesA = scrapesOf("pod-a") - 1;
+        int increasesB = scrapesOf("pod-b") - 1;
+        assertTrue(increasesA >= 2 && increasesB >= 2, "the pods were not scraped");
+
+        Map<String, AggregateMetric> metrics = adapter.fetchMetricsForService(SERVICE, Duration.ofMinutes(1), Duration.ofSeconds(1))
+                .stream().collect(Collectors.toMap(AggregateMetric::name, metric -> metric));
+        adapter.close();
+
+        // The query without a metric of its own is skipped, the others are still evaluated
+        assertEquals(Set.of("Requests", "Latency"), metrics.keySet());
+
+        AggregateMetric requestsMetric = metrics.get("Requests");
+        assertEquals(5.0 * (increasesA + increasesB), requestsMetric.value(), 1e-9);
+        assertEquals(2, requestsMetric.instances().size());
+
+        BucketHistogram histogram = metrics.get("Latency").histogram().histogram();
+        assertArrayEquals(new double[] { 0.1, 1, Double.POSITIVE_INFINITY }, histogram.upperBounds());
+        assertArrayEquals(new double[] { 10.0 * increasesA, 10.0 * (increasesA + increasesB), 10.0 * (increasesA + increasesB) },
+                histogram.cumulativeCounts(), 1e-9);
+    }
+
+    private void servePod(String pod, IntFunction<String> exposition) {
+        AtomicInteger count = scrapes.computeIfAbsent(pod, name -> new AtomicInteger());
+        server.createContext("/" + pod + "/metrics", exchange -> {
+            byte[] body = exposition.apply(count.incrementAndGet()).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+    }
+
+    private int scrapesOf(String pod) {
+        return scrapes.get(pod).get();
+    }
+
+    private ScrapeTarget target(String pod) {
+        return new ScrapeTarget(SERVICE, pod,
+                URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/" + pod + "/metrics"));
+    }
+
+    private static PrometheusMetricConfig metric(String name, String query, MetricCollectionMode mode) {
+        PrometheusMetricConfig metric = new PrometheusMetricConfig(query, null, ServiceAggregator.AVERAGE, name, "", "");
+        metric.setMode(mode);
+        return metric;
+    }
+
+}
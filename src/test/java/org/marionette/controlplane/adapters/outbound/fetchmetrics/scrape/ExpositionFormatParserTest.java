@@ -0,0 +1,70 @@
+package org.marionette.controlplane.adapters.outbound.fetchmetrics.scrape;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class ExpositionFormatParserTest {
+
+    private static final String EXPOSITION = """
+            # HELP http_requests_total Requests served, "quoted" {braces} in a comment
+            # TYPE http_requests_total counter
+            http_requests_total{code="200",path="/a,b}"} 12 1700000000000
+            http_requests_total{code="500",message="say \\"hi\\"\\nbye"} 3
+            jvm_threads_live 42
+            \r
+            http_requests_total 7\r
+            queue_size{shard="1"} NaN
+            queue_size{shard="2"} +Inf
+            """;
+
+    @Test
+    void keepsOnlyTheWantedMetricsWithTheirLabels() throws Exception {
+        InstanceSeries series = parse(Set.of("http_requests_total"));
+
+        List<ScrapedSeries> requests = series.select(new ScrapeExpression.Selector("http_requests_total", List.of()));
+        assertEquals(3, requests.size());
+        assertEquals(Map.of("code", "200", "path", "/a,b}"), requests.get(0).labels());
+        assertEquals(Map.of("code", "500", "message", "say \"hi\"\nbye"), requests.get(1).labels());
+        assertEquals(Map.of(), requests.get(2).labels());
+        assertEquals(12, requests.get(0).overTime(0, 1000, ScrapedSeries.OverTime.LAST));
+        assertEquals(7, requests.get(2).overTime(0, 1000, ScrapedSeries.OverTime.LAST));
+
+        assertTrue(series.select(new ScrapeExpression.Selector("jvm_threads_live", List.of())).isEmpty());
+    }
+
+    @Test
+    void matchesUnescapedLabelValues() throws Exception {
+        InstanceSeries series = parse(Set.of("http_requests_total"));
+
+        List<ScrapedSeries> selected = series.select(new ScrapeExpression.Selector("http_requests_total",
+                List.of(ScrapeExpression.Matcher.of("message", "=~", "say \"hi\"\\nbye"))));
+        assertEquals(1, selected.size());
+        assertEquals(3, selected.get(0).overTime(0, 1000, ScrapedSeries.OverTime.LAST));
+    }
+
+    @Test
+    void readsSpecialValues() throws Exception {
+        InstanceSeries series = parse(Set.of("queue_size"));
+
+        List<ScrapedSeries> queues = series.select(new ScrapeExpression.Selector("queue_size", List.of()));
+        assertEquals(2, queues.size());
+        assertTrue(Double.isNaN(queues.get(0).overTime(0, 1000, ScrapedSeries.OverTime.LAST)));
+        assertEquals(Double.POSITIVE_INFINITY, queues.get(1).overTime(0, 1000, ScrapedSeries.OverTime.LAST));
+    }
+
+    private static InstanceSeries parse(Set<String> wantedMetrics) throws Exception {
+        InstanceSeries series = new InstanceSeries("pod-a", wantedMetrics, 100);
+        series.beginScrape(1000);
+        new ExpositionFormatParser().parse(new ByteArrayInputStream(EXPOSITION.getBytes(StandardCharsets.UTF_8)), series);
+        return series;
+    }
+
+}
@@ -0,0 +1,51 @@
+package org.marionette.controlplane.adapters.outbound.fetchmetrics.scrape;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class ScrapedSeriesTest {
+
+    @Test
+    void increaseAndRateSurviveCounterResets() {
+        ScrapedSeries series = counter(1000, 10, 2000, 15, 3000, 3, 4000, 8);
+
+        // 15 -> 3 is a restart of the pod, counted as an increase of 3 from zero
+        assertEquals(13, series.increase(0, 4000));
+        assertEquals(13 * 1000.0 / 3000, series.rate(0, 4000), 1e-12);
+    }
+
+    @Test
+    void windowsStartFromTheLastSampleBeforeThem() {
+        ScrapedSeries series = counter(1000, 10, 2000, 15, 3000, 3, 4000, 8);
+
+        assertEquals(8, series.increase(2000, 4000));
+        assertEquals(8, series.increase(2500, 4000));
+        assertEquals(5, series.increase(1000, 2000));
+        // Consecutive windows add up to the increase of the whole span
+        assertEquals(series.increase(0, 4000), series.increase(0, 2500) + series.increase(2500, 4000));
+    }
+
+    @Test
+    void windowsWithoutTwoSamplesHaveNoIncrease() {
+        ScrapedSeries series = counter(1000, 10, 2000, 15, 3000, 3, 4000, 8);
+
+        assertTrue(Double.isNaN(series.increase(0, 500)));
+        assertTrue(Double.isNaN(series.increase(0, 1000)));
+        assertTrue(Double.isNaN(series.increase(4000, 5000)));
+        assertTrue(Double.isNaN(series.increase(4500, 5000)));
+        assertTrue(Double.isNaN(series.rate(4500, 5000)));
+    }
+
+    private static ScrapedSeries counter(long... timestampsAndValues) {
+        ScrapedSeries series = new ScrapedSeries("requests_total", Map.of(), 100);
+        for (int i = 0; i < timestampsAndValues.length; i += 2) {
+            series.append(timestampsAndValues[i], timestampsAndValues[i + 1]);
+        }
+        return series;
+    }
+
+}
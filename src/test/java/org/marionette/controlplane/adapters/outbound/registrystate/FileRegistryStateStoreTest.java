@@ -0,0 +1,103 @@
+package org.marionette.controlplane.adapters.outbound.registrystate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.marionette.controlplane.adapters.outbound.registrystate.RegistryStateStoreConfiguration.Durability;
+import org.marionette.controlplane.domain.entities.ConfigRegistry;
+import org.marionette.controlplane.domain.entities.journal.RegistryServiceState;
+import org.marionette.controlplane.domain.entities.journal.RegistryStateSnapshot;
+import org.marionette.controlplane.domain.values.ServiceName;
+import org.marionette.controlplane.usecases.domain.dto.ClassConfigData;
+import org.marionette.controlplane.usecases.domain.dto.MethodConfigData;
+import org.marionette.controlplane.usecases.domain.dto.ServiceConfigData;
+import org.marionette.controlplane.usecases.domain.mappers.ServiceConfigDataMapper;
+
+class FileRegistryStateStoreTest {
+
+    private static final int THREADS = 4;
+    private static final int SERVICES_PER_THREAD = 50;
+
+    @TempDir
+    Path directory;
+
+    @ParameterizedTest
+    @EnumSource(Durability.class)
+    void concurrentRevisionsAreAllLoggedInBatches(Durability durability) throws Exception {
+        ConfigRegistry registry = new ConfigRegistry();
+        FileRegistryStateStore store = openStore(durability);
+        store.startRecording(registry);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            int writer = thread;
+            writers.add(executor.submit(() -> {
+                for (int i = 0; i < SERVICES_PER_THREAD; i++) {
+                    addService(registry, "service-" + writer + "-" + i);
+                }
+            }));
+        }
+        for (Future<?> writer : writers) {
+            writer.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // Read from the log by another store, before closing writes a snapshot. In interval mode the last
+        // records reach the disk within a flush interval.
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        RegistryStateSnapshot loaded = openStore(durability).load().orElseThrow();
+        while (durability == Durability.INTERVAL && loaded.revision() < registry.getRevision() && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+            loaded = openStore(durability).load().orElseThrow();
+        }
+        assertEquals(registry.getRevision(), loaded.revision());
+        assertEquals(THREADS * SERVICES_PER_THREAD, loaded.services().size());
+        store.close();
+    }
+
+    @Test
+    void aSyncRevisionIsOnDiskWhenTheWriterReturns() {
+        ConfigRegistry registry = new ConfigRegistry();
+        FileRegistryStateStore store = openStore(Durability.SYNC);
+        store.startRecording(registry);
+
+        addService(registry, "catalogue");
+
+        // Read by another store while the first one is still open, nothing was flushed by closing it
+        Optional<RegistryStateSnapshot> loaded = openStore(Durability.SYNC).load();
+        assertTrue(loaded.isPresent());
+        assertEquals(registry.getRevision(), loaded.get().revision());
+        assertEquals(List.of(ServiceName.of("catalogue")), loaded.get().services().stream().map(RegistryServiceState::serviceName).toList());
+        store.close();
+    }
+
+    private FileRegistryStateStore openStore(Durability durability) {
+        return new FileRegistryStateStore(new RegistryStateStoreConfiguration(Optional.of(directory), 10_000, durability,
+                Duration.ofMillis(20)));
+    }
+
+    private static void addService(ConfigRegistry registry, String serviceName) {
+        MethodConfigData method = new MethodConfigData("checkout", "fast", "fast", List.of("fast", "slow"));
+        registry.addDiscoveredService(ServiceName.of(serviceName),
+                ServiceConfigDataMapper.toDomainServiceConfig(new ServiceConfigData(serviceName,
+                        List.of(new ClassConfigData("org.example.Checkout", List.of(method))))),
+                URI.create("http://" + serviceName + ":8080"));
+    }
+
+}
@@ -0,0 +1,63 @@
+package org.marionette.controlplane.adapters.outbound.resultsstore;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.marionette.controlplane.domain.entities.abntest.SingleAbnTestResult;
+import org.marionette.controlplane.usecases.inbound.abntest.domain.GlobalMetricsRegistry;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.MetricsConfiguration;
+import org.marionette.controlplane.usecases.outbound.resultsstore.domain.StoredRunSummary;
+
+class SegmentedAbnTestResultsStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void compactionWritesANewSegmentAndKeepsTheLiveRuns() throws Exception {
+        SegmentedAbnTestResultsStore store = openStore(1);
+        store.append(emptyResult());
+        StoredRunSummary kept = store.append(emptyResult());
+
+        assertFalse(Files.exists(directory.resolve("segment-000000000000.log")));
+        assertTrue(Files.exists(directory.resolve("segment-000000000001.log")));
+        assertEquals("1", Files.readString(directory.resolve("compacted.marker")));
+
+        assertEquals(List.of(kept.runId()), openStore(1).listRuns().stream().map(StoredRunSummary::runId).toList());
+    }
+
+    @Test
+    void segmentsLeftBehindByAnInterruptedCleanupAreNotReplayed() throws Exception {
+        SegmentedAbnTestResultsStore store = openStore(1);
+        StoredRunSummary dropped = store.append(emptyResult());
+        Path firstSegment = directory.resolve("segment-000000000000.log");
+        byte[] beforeCompaction = Files.readAllBytes(firstSegment);
+
+        StoredRunSummary kept = store.append(emptyResult());
+
+        // The dropped run is only in the old segment, as if the compaction stopped before deleting it
+        Files.write(firstSegment, beforeCompaction);
+
+        SegmentedAbnTestResultsStore reopened = openStore(1);
+        assertEquals(List.of(kept.runId()), reopened.listRuns().stream().map(StoredRunSummary::runId).toList());
+        assertEquals(Optional.empty(), reopened.loadRun(dropped.runId()));
+        assertFalse(Files.exists(firstSegment));
+    }
+
+    private SegmentedAbnTestResultsStore openStore(int retainedRuns) {
+        return new SegmentedAbnTestResultsStore(new ResultsStoreConfiguration(Optional.of(directory), 1024 * 1024, retainedRuns));
+    }
+
+    private SingleAbnTestResult emptyResult() {
+        return new SingleAbnTestResult(new MetricsConfiguration(List.of()), new GlobalMetricsRegistry(), List.of());
+    }
+
+}
@@ -0,0 +1,91 @@
+package org.marionette.controlplane.adapters.outbound.resultsstore.segment;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.DoubleSupplier;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.timeseries.SampleIterator;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.timeseries.SampleSeries;
+
+class SampleBlockFileTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void chunksRoundTripThroughTheFile() throws IOException {
+        Random random = new Random(5);
+        Map<String, SampleSeries> chunks = new LinkedHashMap<>();
+        chunks.put("empty", SampleSeries.empty());
+        chunks.put("single", new SampleSeries.Builder().append(-1L, Double.NaN).build());
+        chunks.put("constant", series(random, 500, () -> 3.0));
+        chunks.put("random", series(random, 2_000, () -> Double.longBitsToDouble(random.nextLong())));
+        chunks.put("special", SampleSeries.of(10L, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, -0.0, Double.NaN));
+        chunks.put("ünïcode/kéy", series(random, 10, random::nextGaussian));
+
+        Path path = directory.resolve("samples.block");
+        SampleBlockFile.write(path, directory.resolve("samples.block.tmp"), chunks);
+        assertFalse(Files.exists(directory.resolve("samples.block.tmp")));
+
+        SampleBlockFile block = SampleBlockFile.open(path);
+        assertEquals(chunks.size(), block.chunkCount());
+        for (Map.Entry<String, SampleSeries> chunk : chunks.entrySet()) {
+            SampleSeries read = block.chunk(chunk.getKey());
+            assertEquals(chunk.getValue(), read, chunk.getKey());
+            assertSameSamples(chunk.getValue(), read, chunk.getKey());
+        }
+        assertTrue(block.chunk("missing").isEmpty());
+    }
+
+    @Test
+    void truncatedOrForeignFilesAreRejected() throws IOException {
+        Map<String, SampleSeries> chunks = new LinkedHashMap<>();
+        chunks.put("a", series(new Random(6), 100, () -> 1.0));
+        Path path = directory.resolve("samples.block");
+        SampleBlockFile.write(path, directory.resolve("samples.block.tmp"), chunks);
+
+        byte[] bytes = Files.readAllBytes(path);
+        Path truncated = directory.resolve("truncated.block");
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length - 1));
+        assertThrows(IOException.class, () -> SampleBlockFile.open(truncated));
+
+        Path foreign = directory.resolve("foreign.block");
+        Files.write(foreign, new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 });
+        assertThrows(IOException.class, () -> SampleBlockFile.open(foreign));
+    }
+
+    private static SampleSeries series(Random random, int size, DoubleSupplier values) {
+        SampleSeries.Builder builder = new SampleSeries.Builder();
+        long timestamp = 1_700_000_000_000L;
+        for (int i = 0; i < size; i++) {
+            timestamp += 10_000 + random.nextInt(500);
+            builder.append(timestamp, values.getAsDouble());
+        }
+        return builder.build();
+    }
+
+    private static void assertSameSamples(SampleSeries expected, SampleSeries actual, String key) {
+        assertEquals(expected.size(), actual.size(), key);
+        SampleIterator expectedSamples = expected.iterator();
+        SampleIterator actualSamples = actual.iterator();
+        while (expectedSamples.next()) {
+            assertTrue(actualSamples.next(), key);
+            assertEquals(expectedSamples.timestamp(), actualSamples.timestamp(), key);
+            assertEquals(Double.doubleToRawLongBits(expectedSamples.value()), Double.doubleToRawLongBits(actualSamples.value()), key);
+        }
+        assertFalse(actualSamples.next(), key);
+    }
+
+}
@@ -0,0 +1,257 @@
+package org.marionette.controlplane.adapters.outbound.servicediscovery;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.marionette.controlplane.exceptions.infrastructure.checked.FindCandidateServicesException;
+import org.marionette.controlplane.usecases.domain.dto.DiscoveredServiceMetadata;
+import org.marionette.controlplane.usecases.outbound.servicediscovery.CandidateServicesListener;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import io.kubernetes.client.openapi.ApiClient;
+import io.kubernetes.client.openapi.JSON;
+import io.kubernetes.client.openapi.models.V1ListMeta;
+import io.kubernetes.client.openapi.models.V1ObjectMeta;
+import io.kubernetes.client.openapi.models.V1Service;
+import io.kubernetes.client.openapi.models.V1ServiceList;
+import io.kubernetes.client.openapi.models.V1ServicePort;
+import io.kubernetes.client.openapi.models.V1ServiceSpec;
+
+/**
+ * Runs the adapter against a stand-in of the Kubernetes API server
+ */
+class KubernetesFindServicesAdapterTest {
+
+    private static final String SELECTOR = "marionette=enabled";
+
+    private final JSON json = new JSON();
+    private final List<Map<String, String>> listRequests = new CopyOnWriteArrayList<>();
+    private final List<Map<String, String>> watchRequests = new CopyOnWriteArrayList<>();
+    private final AtomicInteger listings = new AtomicInteger();
+    private final CountDownLatch released = new CountDownLatch(1);
+    private HttpServer server;
+    private KubernetesFindServicesAdapter adapter;
+
+    @BeforeEach
+    void startApiServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "k8s-stand-in");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    @AfterEach
+    void stopApiServer() {
+        if (adapter != null) {
+            adapter.stopWatching();
+        }
+        released.countDown();
+        server.stop(0);
+    }
+
+    @Test
+    void followsTheListAndWatchOfEveryNamespace() throws Exception {
+        server.createContext("/api/v1/services", exchange -> {
+            Map<String, String> query = queryParameters(exchange);
+            if ("true".equals(query.get("watch"))) {
+                watchRequests.add(query);
+                watch(exchange, watchRequests.size());
+                return;
+            }
+            listRequests.add(query);
+            if (!query.containsKey("continue")) {
+                listings.incrementAndGet();
+            }
+            // The first listing has a, b and c, by the time of the second one a and d are gone and e appeared
+            List<V1Service> services = listings.get() == 1
+                    ? List.of(service("a"), service("b"), service("c"))
+                    : List.of(service("b"), service("c"), service("e"));
+            sendJson(exchange, 200, page(services, query));
+        });
+        server.start();
+
+        BlockingQueue<String> events = new LinkedBlockingQueue<>();
+        adapter = new KubernetesFindServicesAdapter(apiClient(), configuration(Set.of(), true));
+        adapter.startWatching(new CandidateServicesListener() {
+
+            @Override
+            public void onCandidatesAdded(List<DiscoveredServiceMetadata> candidates) {
+                events.add("added " + names(candidates));
+            }
+
+            @Override
+            public void onCandidatesRemoved(List<DiscoveredServiceMetadata> candidates) {
+                events.add("removed " + names(candidates));
+            }
+        });
+
+        assertEquals("added [a, b, c]", events.poll(10, TimeUnit.SECONDS));
+        assertEquals("added [d]", events.poll(10, TimeUnit.SECONDS));
+        assertEquals("removed [a]", events.poll(10, TimeUnit.SECONDS));
+        // 410 Gone: the scope is listed again and only the differences are reported
+        assertEquals("removed [d]", events.poll(10, TimeUnit.SECONDS));
+        assertEquals("added [e]", events.poll(10, TimeUnit.SECONDS));
+
+        assertEquals(List.of("http://b.shop.svc.cluster.local:8080", "http://c.shop.svc.cluster.local:8080",
+                "http://e.shop.svc.cluster.local:8080"), endpoints(adapter.findCandidateServices()));
+
+        // Two pages per listing, every request filtered by the label selector
+        assertEquals(4, listRequests.size());
+        assertNull(listRequests.get(0).get("continue"));
+        assertEquals("2", listRequests.get(1).get("continue"));
+        for (Map<String, String> request : listRequests) {
+            assertEquals("2", request.get("limit"));
+            assertEquals(SELECTOR, request.get("labelSelector"));
+        }
+        assertEquals("10", watchRequests.get(0).get("resourceVersion"));
+        assertTrue(watchRequests.stream().allMatch(request -> SELECTOR.equals(request.get("labelSelector"))));
+    }
+
+    @Test
+    void reportsTheNamespacesThatCouldNotBeListed() throws Exception {
+        server.createContext("/api/v1/namespaces/", exchange -> {
+            Map<String, String> query = queryParameters(exchange);
+            listRequests.add(query);
+            if (exchange.getRequestURI().getPath().equals("/api/v1/namespaces/shop/services")) {
+                sendJson(exchange, 200, page(List.of(service("a"), service("b"), service("c")), query));
+            } else {
+                byte[] body = "{\"kind\":\"Status\",\"code\":500}".getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(500, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+        });
+        server.start();
+
+        adapter = new KubernetesFindServicesAdapter(apiClient(), configuration(Set.of("shop", "billing"), false));
+        FindCandidateServicesException e = assertThrows(FindCandidateServicesException.class, adapter::findCandidateServices);
+
+        assertEquals(List.of("http://a.shop.svc.cluster.local:8080", "http://b.shop.svc.cluster.local:8080",
+                "http://c.shop.svc.cluster.local:8080"), endpoints(e.getListedCandidates()));
+        assertTrue(e.getMessage().contains("billing"));
+    }
+
+    /**
+     * The first watch reports d added and a deleted, then that its resource version expired. The watches after
+     * it stay open without events.
+     */
+    private void watch(HttpExchange exchange, int watchNumber) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+            if (watchNumber == 1) {
+                writeEvent(out, "ADDED", json.serialize(service("d")));
+                writeEvent(out, "DELETED", json.serialize(service("a")));
+                writeEvent(out, "ERROR", "{\"kind\":\"Status\",\"apiVersion\":\"v1\",\"status\":\"Failure\","
+                        + "\"reason\":\"Expired\",\"message\":\"too old resource version\",\"code\":410}");
+                return;
+            }
+            out.flush();
+            released.await(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            // The adapter closed the watch
+        }
+    }
+
+    private static void writeEvent(OutputStream out, String type, String object) throws IOException {
+        out.write(("{\"type\":\"" + type + "\",\"object\":" + object + "}\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private static V1ServiceList page(List<V1Service> services, Map<String, String> query) {
+        int from = query.containsKey("continue") ? Integer.parseInt(query.get("continue")) : 0;
+        int to = Math.min(services.size(), from + Integer.parseInt(query.get("limit")));
+        return new V1ServiceList()
+                .items(services.subList(from, to))
+                .metadata(new V1ListMeta().resourceVersion("10")._continue(to < services.size() ? String.valueOf(to) : null));
+    }
+
+    private static V1Service service(String name) {
+        return new V1Service()
+                .metadata(new V1ObjectMeta().name(name).namespace("shop").resourceVersion("11"))
+                .spec(new V1ServiceSpec().ports(List.of(new V1ServicePort().port(8080))));
+    }
+
+    private void sendJson(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = json.serialize(body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static Map<String, String> queryParameters(HttpExchange exchange) {
+        Map<String, String> parameters = new HashMap<>();
+        String rawQuery = exchange.getRequestURI().getRawQuery();
+        if (rawQuery != null) {
+            for (String parameter : rawQuery.split("&")) {
+                int separator = parameter.indexOf('=');
+                if (separator > 0) {
+                    parameters.put(URLDecoder.decode(parameter.substring(0, separator), StandardCharsets.UTF_8),
+                            URLDecoder.decode(parameter.substring(separator + 1), StandardCharsets.UTF_8));
+                }
+            }
+        }
+        return parameters;
+    }
+
+    private ApiClient apiClient() {
+        return KubernetesFindServicesAdapter.defaultApiClient(configuration(Set.of(), true));
+    }
+
+    private KubernetesDiscoveryConfiguration configuration(Set<String> namespaces, boolean watch) {
+        URI apiServer = URI.create("http://127.0.0.1:" + server.getAddress().getPort());
+        return new KubernetesDiscoveryConfiguration(namespaces, Optional.of(SELECTOR), 2, watch, Duration.ofSeconds(30),
+                Optional.of(apiServer.toString()));
+    }
+
+    private static Set<String> names(List<DiscoveredServiceMetadata> candidates) {
+        Set<String> names = new TreeSet<>();
+        candidates.forEach(candidate -> names.add(candidate.serviceName()));
+        return names;
+    }
+
+    private static List<String> endpoints(List<DiscoveredServiceMetadata> candidates) {
+        List<String> endpoints = new ArrayList<>();
+        candidates.forEach(candidate -> endpoints.add(candidate.endpoint()));
+        endpoints.sort(null);
+        return endpoints;
+    }
+
+}
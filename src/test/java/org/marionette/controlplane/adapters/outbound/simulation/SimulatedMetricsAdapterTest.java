@@ -0,0 +1,59 @@
+package org.marionette.controlplane.adapters.outbound.simulation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.marionette.controlplane.adapters.outbound.fetchmetrics.prometheus.configuration.PrometheusConfiguration;
+import org.marionette.controlplane.adapters.outbound.fetchmetrics.prometheus.domain.PrometheusMetricConfig;
+import org.marionette.controlplane.adapters.outbound.simulation.SimulationModel.BehaviourModel;
+import org.marionette.controlplane.adapters.outbound.simulation.SimulationModel.MethodModel;
+import org.marionette.controlplane.adapters.outbound.simulation.SimulationModel.MetricModel;
+import org.marionette.controlplane.adapters.outbound.simulation.SimulationModel.ServiceModel;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.AggregateMetric;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.MetricEstimator;
+import org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.ServiceAggregator;
+
+class SimulatedMetricsAdapterTest {
+
+    @Test
+    void reducesThePodsWithTheServiceAggregator() {
+        PrometheusMetricConfig throughput = new PrometheusMetricConfig("", null, ServiceAggregator.SUM,
+                "Throughput", "req/s", "");
+        throughput.setEstimator(MetricEstimator.MEDIAN);
+        PrometheusMetricConfig latency = new PrometheusMetricConfig("", null, ServiceAggregator.MAX,
+                "Latency", "s", "");
+
+        AggregateMetric[] metrics = fetch(List.of(throughput, latency)).toArray(AggregateMetric[]::new);
+
+        // Noiseless pods all measure the baseline, summed or not depending on the metric
+        assertEquals(30.0, metrics[0].value(), 1e-9);
+        assertEquals(3, metrics[0].instances().size());
+        assertEquals(6, metrics[0].samples().size());
+        for (double sample : metrics[0].samples().values()) {
+            assertEquals(30.0, sample, 1e-9);
+        }
+        assertEquals(0.2, metrics[1].value(), 1e-9);
+        assertFalse(metrics[1].hasSamples());
+    }
+
+    private static List<AggregateMetric> fetch(List<PrometheusMetricConfig> definitions) {
+        ServiceModel service = new ServiceModel("orders",
+                Map.of("Throughput", new MetricModel(10, 0, 0), "Latency", new MetricModel(0.2, 0, 0)),
+                List.of(new MethodModel("org.example.Orders", "place", List.of(
+                        new BehaviourModel("default", Map.of(), 0, 0, null, List.of())))),
+                3);
+        VirtualClock clock = new VirtualClock(Instant.parse("2026-01-01T00:00:00Z"));
+        SimulatedCluster cluster = new SimulatedCluster(new SimulationModel(List.of(service)), clock, 1);
+        clock.advance(Duration.ofMinutes(1));
+
+        return new SimulatedMetricsAdapter(cluster, new PrometheusConfiguration("", definitions), clock)
+                .fetchMetricsForService("orders", Duration.ofMinutes(1), Duration.ofSeconds(10));
+    }
+
+}
@@ -0,0 +1,127 @@
+package org.marionette.controlplane.adapters.outbound.transport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.client.RestTemplate;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Destination limits of the transport, against a local server and a single slot per destination
+ */
+class OutboundHttpTransportTest {
+
+    private final CountDownLatch slowReleased = new CountDownLatch(1);
+    private HttpServer server;
+    private OutboundHttpTransport transport;
+    private URI baseUri;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/fast", exchange -> respond(exchange, "fast"));
+        server.createContext("/slow", exchange -> {
+            try {
+                slowReleased.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            respond(exchange, "slow");
+        });
+        server.start();
+        baseUri = URI.create("http://127.0.0.1:" + server.getAddress().getPort());
+
+        transport = new OutboundHttpTransport(new OutboundHttpTransportSettings(
+                Duration.ofSeconds(2), Duration.ofMillis(300), 1, Duration.ofSeconds(5), 2));
+    }
+
+    @AfterEach
+    void stopServer() {
+        slowReleased.countDown();
+        transport.close();
+        server.stop(0);
+    }
+
+    @Test
+    void waitingForABusyDestinationTimesOut() throws Exception {
+        ExecutorService caller = Executors.newSingleThreadExecutor();
+        Future<HttpResponse<String>> slow = caller.submit(() -> transport.send(
+                HttpRequest.newBuilder(baseUri.resolve("/slow")).timeout(Duration.ofSeconds(10)).build(),
+                HttpResponse.BodyHandlers.ofString()));
+        awaitInFlight(1);
+
+        assertThrows(HttpTimeoutException.class, () -> transport.send(
+                HttpRequest.newBuilder(baseUri.resolve("/fast")).timeout(Duration.ofMillis(200)).build(),
+                HttpResponse.BodyHandlers.ofString()));
+
+        slowReleased.countDown();
+        assertEquals("slow", slow.get(5, TimeUnit.SECONDS).body());
+        caller.shutdown();
+        assertEquals("fast", transport.send(HttpRequest.newBuilder(baseUri.resolve("/fast")).build(),
+                HttpResponse.BodyHandlers.ofString()).body());
+    }
+
+    @Test
+    void restTemplateHoldsTheSlotUntilTheResponseIsClosed() {
+        RestTemplate restTemplate = transport.restTemplate();
+
+        int inFlightWhileReading = restTemplate.execute(baseUri.resolve("/fast"), HttpMethod.GET, null,
+                response -> {
+                    response.getBody().readAllBytes();
+                    return transport.destinationStats().get(0).inFlight();
+                });
+
+        assertEquals(1, inFlightWhileReading);
+        DestinationStats stats = transport.destinationStats().get(0);
+        assertEquals(0, stats.inFlight());
+        assertEquals(1, stats.requests());
+        assertEquals(1, stats.responses2xx());
+
+        // The slot was given back, so the next call does not wait for it
+        assertEquals("fast", restTemplate.getForObject(baseUri.resolve("/fast"), String.class));
+    }
+
+    private void awaitInFlight(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            if (!transport.destinationStats().isEmpty() && transport.destinationStats().get(0).inFlight() == expected) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+        fail("The destination never reached " + expected + " requests in flight");
+    }
+
+    private static void respond(HttpExchange exchange, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+}
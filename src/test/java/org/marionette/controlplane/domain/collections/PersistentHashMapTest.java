@@ -0,0 +1,191 @@
+package org.marionette.controlplane.domain.collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Random updates checked against a HashMap, with keys whose hash codes are picked from a small pool so that
+ * full collisions and long shared prefixes are common
+ */
+class PersistentHashMapTest {
+
+    private static final int OPERATIONS = 20_000;
+
+    // Keys with the same hash code share collision nodes, the others mostly differ in a single level of the trie
+    private static final int[] HASH_CODES = {
+        0, 1, 2, 1 << 5, 1 << 10, 1 << 15, 1 << 20, 1 << 25, 1 << 30, -1, 0x12345678, 0x12345679
+    };
+
+    /**
+     * Key with an explicit hash code, equal only to a key with the same id
+     */
+    private record Key(int id, int hash) {
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key key && key.id == id;
+        }
+    }
+
+    @Test
+    void randomUpdatesMatchAHashMap() {
+        for (long seed = 0; seed < 8; seed++) {
+            Random random = new Random(seed);
+            List<Key> universe = universe(random, 300);
+            run(random, universe, seed);
+        }
+    }
+
+    @Test
+    void onlyCollidingKeysMatchAHashMap() {
+        Random random = new Random(42);
+        List<Key> universe = new ArrayList<>();
+        for (int id = 0; id < 40; id++) {
+            universe.add(new Key(id, id % 2 == 0 ? 7 : 7 + (1 << 5)));
+        }
+        run(random, universe, 42);
+    }
+
+    @Test
+    void removingEverythingCollapsesToTheEmptyMap() {
+        Random random = new Random(7);
+        List<Key> universe = universe(random, 500);
+
+        PersistentHashMap<Key, Integer> map = PersistentHashMap.empty();
+        for (Key key : universe) {
+            map = map.plus(key, key.id());
+        }
+        assertEquals(universe.size(), map.size());
+
+        List<Key> shuffled = new ArrayList<>(universe);
+        Collections.shuffle(shuffled, random);
+        Map<Key, Integer> oracle = new HashMap<>(map);
+        for (Key key : shuffled) {
+            map = map.minus(key);
+            oracle.remove(key);
+            assertNull(map.get(key));
+            assertEquals(oracle.size(), map.size());
+        }
+
+        assertSame(PersistentHashMap.empty(), map);
+        assertTrue(map.entrySet().isEmpty());
+        assertTrue(oracle.isEmpty());
+    }
+
+    @Test
+    void updatesLeaveOlderVersionsUntouched() {
+        Random random = new Random(3);
+        List<Key> universe = universe(random, 200);
+
+        List<PersistentHashMap<Key, Integer>> versions = new ArrayList<>();
+        List<Map<Key, Integer>> expected = new ArrayList<>();
+        PersistentHashMap<Key, Integer> map = PersistentHashMap.empty();
+        Map<Key, Integer> oracle = new HashMap<>();
+        for (int i = 0; i < 2_000; i++) {
+            Key key = universe.get(random.nextInt(universe.size()));
+            if (random.nextInt(3) == 0) {
+                map = map.minus(key);
+                oracle.remove(key);
+            } else {
+                map = map.plus(key, i);
+                oracle.put(key, i);
+            }
+            if (i % 100 == 0) {
+                versions.add(map);
+                expected.add(new HashMap<>(oracle));
+            }
+        }
+
+        for (int v = 0; v < versions.size(); v++) {
+            assertMatches(expected.get(v), versions.get(v), universe, "version " + v);
+        }
+    }
+
+    @Test
+    void unchangedUpdatesReturnTheSameMap() {
+        Key key = new Key(1, 5);
+        Key colliding = new Key(2, 5);
+        Integer value = 10;
+        PersistentHashMap<Key, Integer> map = PersistentHashMap.<Key, Integer>empty().plus(key, value).plus(colliding, 20);
+
+        assertSame(map, map.plus(key, value));
+        assertSame(map, map.minus(new Key(3, 5)));
+        assertSame(map, map.minus(new Key(4, 6)));
+        assertSame(map, map.minus(null));
+    }
+
+    private void run(Random random, List<Key> universe, long seed) {
+        PersistentHashMap<Key, Integer> map = PersistentHashMap.empty();
+        Map<Key, Integer> oracle = new HashMap<>();
+
+        for (int i = 0; i < OPERATIONS; i++) {
+            Key key = universe.get(random.nextInt(universe.size()));
+            // Removals outnumber insertions in the second half, so the map shrinks and nodes collapse
+            boolean remove = random.nextInt(100) < (i < OPERATIONS / 2 ? 35 : 60);
+            if (remove) {
+                map = map.minus(key);
+                oracle.remove(key);
+            } else {
+                int value = random.nextInt(1_000);
+                map = map.plus(key, value);
+                oracle.put(key, value);
+            }
+
+            assertEquals(oracle.size(), map.size(), "seed " + seed + ", operation " + i);
+            assertEquals(oracle.get(key), map.get(key), "seed " + seed + ", operation " + i);
+            if (i % 500 == 0) {
+                assertMatches(oracle, map, universe, "seed " + seed + ", operation " + i);
+            }
+        }
+        assertMatches(oracle, map, universe, "seed " + seed + ", end");
+    }
+
+    private void assertMatches(Map<Key, Integer> oracle, PersistentHashMap<Key, Integer> map, List<Key> universe, String context) {
+        assertEquals(oracle.size(), map.size(), context);
+        assertEquals(oracle.isEmpty(), map.isEmpty(), context);
+        for (Key key : universe) {
+            assertEquals(oracle.get(key), map.get(key), context + ", key " + key);
+            assertEquals(oracle.containsKey(key), map.containsKey(key), context + ", key " + key);
+        }
+
+        // Iteration visits every entry exactly once
+        Set<Key> seen = new HashSet<>();
+        int visited = 0;
+        for (Map.Entry<Key, Integer> entry : map.entrySet()) {
+            assertTrue(seen.add(entry.getKey()), context + ", key " + entry.getKey() + " visited twice");
+            assertEquals(oracle.get(entry.getKey()), entry.getValue(), context);
+            visited++;
+        }
+        assertEquals(oracle.size(), visited, context);
+        assertEquals(oracle, map, context);
+    }
+
+    private static List<Key> universe(Random random, int count) {
+        List<Key> keys = new ArrayList<>();
+        for (int id = 0; id < count; id++) {
+            // Half the keys from the colliding pool, the rest spread over the whole hash range
+            int hash = random.nextBoolean() ? HASH_CODES[random.nextInt(HASH_CODES.length)] : random.nextInt();
+            keys.add(new Key(id, hash));
+        }
+        return keys;
+    }
+
+}
@@ -0,0 +1,129 @@
+package org.marionette.controlplane.domain.entities;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.marionette.controlplane.domain.values.BehaviourId;
+import org.marionette.controlplane.domain.values.ClassName;
+import org.marionette.controlplane.domain.values.MethodName;
+import org.marionette.controlplane.domain.values.ServiceName;
+import org.marionette.controlplane.usecases.domain.dto.ClassConfigData;
+import org.marionette.controlplane.usecases.domain.dto.MethodConfigData;
+import org.marionette.controlplane.usecases.domain.dto.ServiceConfigData;
+import org.marionette.controlplane.usecases.domain.mappers.ServiceConfigDataMapper;
+
+class ConfigRegistryConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final int OPERATIONS_PER_THREAD = 400;
+    private static final int SERVICES = 4;
+    private static final int ADD_EVERY = 10;
+    private static final String CLASS_NAME = "org.example.Component";
+
+    @Test
+    void concurrentWritersLoseNoUpdateAndEachOneGetsItsRevision() throws Exception {
+        ConfigRegistry registry = new ConfigRegistry();
+        for (int service = 0; service < SERVICES; service++) {
+            registry.addDiscoveredService(serviceName(service), serviceConfig("service-" + service), endpoint("service-" + service));
+        }
+
+        NavigableSet<Long> journaledRevisions = new ConcurrentSkipListSet<>();
+        registry.attachJournal((revision, changedServices) -> journaledRevisions.add(revision));
+        long initialRevision = registry.getRevision();
+
+        AtomicLong successfulUpdates = new AtomicLong();
+        Map<String, String> lastWritten = new ConcurrentHashMap<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> writers = new ArrayList<>();
+
+        for (int thread = 0; thread < THREADS; thread++) {
+            int writer = thread;
+            writers.add(executor.submit(() -> {
+                start.await();
+                // Every writer owns one method in every service, so the last value it wrote must be the final one
+                MethodName method = MethodName.of("method" + writer);
+                for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                    int service = i % SERVICES;
+                    String behaviour = (i / SERVICES) % 2 == 0 ? "behaviour-1" : "behaviour-2";
+                    registry.modifyCurrentBehaviourForMethod(serviceName(service), ClassName.of(CLASS_NAME), method,
+                            BehaviourId.of(behaviour));
+                    lastWritten.put(service + "/" + writer, behaviour);
+                    successfulUpdates.incrementAndGet();
+
+                    registry.markServiceSeen(serviceName(service));
+                    successfulUpdates.incrementAndGet();
+
+                    if (i % ADD_EVERY == 0) {
+                        String added = "added-" + writer + "-" + i;
+                        registry.addDiscoveredService(ServiceName.of(added), serviceConfig(added), endpoint(added));
+                        successfulUpdates.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> writer : writers) {
+            writer.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        for (int service = 0; service < SERVICES; service++) {
+            for (int writer = 0; writer < THREADS; writer++) {
+                assertEquals(BehaviourId.of(lastWritten.get(service + "/" + writer)),
+                        registry.getCurrentBehaviourIdForMethod(serviceName(service), ClassName.of(CLASS_NAME),
+                                MethodName.of("method" + writer)),
+                        "Lost behaviour change of writer " + writer + " on service " + service);
+            }
+        }
+        for (int writer = 0; writer < THREADS; writer++) {
+            for (int i = 0; i < OPERATIONS_PER_THREAD; i += ADD_EVERY) {
+                assertNotNull(registry.getRuntimeConfiguration(ServiceName.of("added-" + writer + "-" + i)));
+            }
+        }
+        assertEquals(SERVICES + THREADS * (OPERATIONS_PER_THREAD / ADD_EVERY), registry.getAllServiceMetadata().size());
+
+        // Every update published exactly one revision, with no gap and no revision published twice
+        long finalRevision = registry.getRevision();
+        assertEquals(initialRevision + successfulUpdates.get(), finalRevision);
+        assertEquals(successfulUpdates.get(), journaledRevisions.size());
+        assertEquals(initialRevision + 1, journaledRevisions.first());
+        assertEquals(finalRevision, journaledRevisions.last());
+    }
+
+    private static ServiceName serviceName(int service) {
+        return ServiceName.of("service-" + service);
+    }
+
+    private static URI endpoint(String serviceName) {
+        return URI.create("http://" + serviceName + ":8080");
+    }
+
+    private static ServiceConfig serviceConfig(String serviceName) {
+        List<MethodConfigData> methods = new ArrayList<>();
+        for (int writer = 0; writer < THREADS; writer++) {
+            methods.add(new MethodConfigData("method" + writer, "behaviour-0", "behaviour-0",
+                    List.of("behaviour-0", "behaviour-1", "behaviour-2")));
+        }
+        return ServiceConfigDataMapper.toDomainServiceConfig(
+                new ServiceConfigData(serviceName, List.of(new ClassConfigData(CLASS_NAME, methods))));
+    }
+
+}
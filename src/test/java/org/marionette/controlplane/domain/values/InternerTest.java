@@ -0,0 +1,28 @@
+package org.marionette.controlplane.domain.values;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+class InternerTest {
+
+    @Test
+    void lookupReturnsTheCanonicalInstanceOfKnownNames() {
+        BehaviourId known = BehaviourId.of("interner-test-known");
+
+        assertSame(known, BehaviourId.lookup("interner-test-known"));
+    }
+
+    @Test
+    void lookupNeverInternsUnknownNames() {
+        ServiceName first = ServiceName.lookup("interner-test-unknown");
+        ServiceName second = ServiceName.lookup("interner-test-unknown");
+
+        assertEquals(first, second);
+        assertNotSame(first, second);
+        assertNotSame(first, ServiceName.of("interner-test-unknown"));
+    }
+
+}
@@ -0,0 +1,91 @@
+package org.marionette.controlplane.usecases.inbound.candidatetracking;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.marionette.controlplane.domain.entities.ConfigRegistry;
+import org.marionette.controlplane.domain.values.ServiceName;
+import org.marionette.controlplane.usecases.domain.dto.ClassConfigData;
+import org.marionette.controlplane.usecases.domain.dto.DiscoveredServiceMetadata;
+import org.marionette.controlplane.usecases.domain.dto.MethodConfigData;
+import org.marionette.controlplane.usecases.domain.dto.ServiceConfigData;
+import org.marionette.controlplane.usecases.outbound.servicediscovery.CandidateServicesListener;
+import org.marionette.controlplane.usecases.outbound.servicediscovery.CandidateVerdict;
+import org.marionette.controlplane.usecases.outbound.servicediscovery.WatchCandidateServicesPort;
+
+class TrackCandidateServicesUseCaseImplTest {
+
+    private static final DiscoveredServiceMetadata CHECKOUT = new DiscoveredServiceMetadata("checkout", "http://checkout:8080");
+
+    @Test
+    void retriesAServiceWhosePodsWereNotReadyWhenItAppeared() throws Exception {
+        // Nobody answers the first validation, as when the Service is created before its pods are ready
+        AtomicInteger validations = new AtomicInteger();
+        ConfigRegistry registry = new ConfigRegistry();
+        TrackCandidateServicesUseCaseImpl tracker = new TrackCandidateServicesUseCaseImpl(
+                new NoWatch(),
+                candidate -> validations.incrementAndGet() == 1 ? CandidateVerdict.UNREACHABLE : CandidateVerdict.MARIONETTE,
+                endpoint -> new ServiceConfigData("checkout", List.of(new ClassConfigData("org.example.Checkout",
+                        List.of(new MethodConfigData("checkout", "fast", "fast", List.of("fast", "slow")))))),
+                registry);
+        try {
+            tracker.onCandidatesAdded(List.of(CHECKOUT));
+
+            long deadline = System.nanoTime() + 10_000_000_000L;
+            while (registry.getAllServiceMetadata().isEmpty() && System.nanoTime() < deadline) {
+                Thread.sleep(50);
+            }
+            assertTrue(registry.getAllServiceMetadata().containsKey(ServiceName.of("checkout")));
+            assertEquals(2, validations.get());
+        } finally {
+            tracker.stop();
+        }
+    }
+
+    @Test
+    void stopsRetryingACandidateRemovedFromTheCluster() throws Exception {
+        AtomicInteger validations = new AtomicInteger();
+        TrackCandidateServicesUseCaseImpl tracker = new TrackCandidateServicesUseCaseImpl(
+                new NoWatch(),
+                candidate -> {
+                    validations.incrementAndGet();
+                    return CandidateVerdict.UNREACHABLE;
+                },
+                endpoint -> {
+                    throw new AssertionError("an unreachable candidate is never fetched");
+                },
+                new ConfigRegistry());
+        try {
+            tracker.onCandidatesAdded(List.of(CHECKOUT));
+            long deadline = System.nanoTime() + 5_000_000_000L;
+            while (validations.get() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            // Leaves the worker the time to schedule its retry
+            Thread.sleep(200);
+            tracker.onCandidatesRemoved(List.of(CHECKOUT));
+
+            // The first retry would come after one second
+            Thread.sleep(1500);
+            assertEquals(1, validations.get());
+        } finally {
+            tracker.stop();
+        }
+    }
+
+    private static final class NoWatch implements WatchCandidateServicesPort {
+
+        @Override
+        public void startWatching(CandidateServicesListener listener) {
+        }
+
+        @Override
+        public void stopWatching() {
+        }
+    }
+
+}
@@ -0,0 +1,111 @@
+package org.marionette.controlplane.usecases.inbound.fulldiscovery;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.Test;
+import org.marionette.controlplane.domain.entities.ConfigRegistry;
+import org.marionette.controlplane.domain.values.ServiceName;
+import org.marionette.controlplane.exceptions.infrastructure.checked.FindCandidateServicesException;
+import org.marionette.controlplane.usecases.domain.dto.ClassConfigData;
+import org.marionette.controlplane.usecases.domain.dto.DiscoveredServiceMetadata;
+import org.marionette.controlplane.usecases.domain.dto.MethodConfigData;
+import org.marionette.controlplane.usecases.domain.dto.ServiceConfigData;
+import org.marionette.controlplane.usecases.outbound.servicediscovery.CandidateVerdict;
+
+class FullMarionetteServiceConfigDiscoveryUseCaseImplTest {
+
+    // More candidates than a Phaser can count parties
+    private static final int CANDIDATES = 70_000;
+    private static final int MARIONETTE_EVERY = 1_000;
+
+    @Test
+    void discoveryWaitsForEveryCandidateOfALargeNamespace() {
+        List<DiscoveredServiceMetadata> candidates = new ArrayList<>(CANDIDATES);
+        for (int i = 0; i < CANDIDATES; i++) {
+            candidates.add(new DiscoveredServiceMetadata("service-" + i, "http://service-" + i + ":8080"));
+        }
+
+        ConfigRegistry registry = new ConfigRegistry();
+        FullMarionetteServiceConfigDiscoveryUseCaseImpl discovery = new FullMarionetteServiceConfigDiscoveryUseCaseImpl(
+                () -> candidates,
+                candidate -> Integer.parseInt(candidate.serviceName().substring("service-".length())) % MARIONETTE_EVERY == 0
+                        ? CandidateVerdict.MARIONETTE
+                        : CandidateVerdict.NOT_MARIONETTE,
+                endpoint -> configurationOf(endpoint.substring("http://".length(), endpoint.lastIndexOf(':'))),
+                registry,
+                new DiscoveryPipelineSettings(8, 4, Duration.ofSeconds(10), Duration.ofSeconds(10), Duration.ofSeconds(120)));
+
+        IncrementalDiscoveryResponse response = discovery.executeIncremental();
+
+        assertEquals(CANDIDATES / MARIONETTE_EVERY, response.added().size());
+        assertEquals(List.of(), response.unresolvedEndpoints());
+        assertEquals(CANDIDATES / MARIONETTE_EVERY, registry.getAllServiceMetadata().size());
+    }
+
+    @Test
+    void incrementalDiscoveryKeepsUnreachableServicesAndDropsRejectedOnes() {
+        List<DiscoveredServiceMetadata> candidates = List.of(
+                new DiscoveredServiceMetadata("restarting", "http://restarting:8080"),
+                new DiscoveredServiceMetadata("retired", "http://retired:8080"));
+        Map<String, CandidateVerdict> verdicts = new ConcurrentHashMap<>(Map.of(
+                "restarting", CandidateVerdict.MARIONETTE, "retired", CandidateVerdict.MARIONETTE));
+
+        ConfigRegistry registry = new ConfigRegistry();
+        FullMarionetteServiceConfigDiscoveryUseCaseImpl discovery = new FullMarionetteServiceConfigDiscoveryUseCaseImpl(
+                () -> candidates,
+                candidate -> verdicts.get(candidate.serviceName()),
+                endpoint -> configurationOf(endpoint.substring("http://".length(), endpoint.lastIndexOf(':'))),
+                registry,
+                new DiscoveryPipelineSettings(2, 2, Duration.ofSeconds(10), Duration.ofSeconds(10), Duration.ofSeconds(30)));
+        assertEquals(2, discovery.executeIncremental().added().size());
+
+        verdicts.put("restarting", CandidateVerdict.UNREACHABLE);
+        verdicts.put("retired", CandidateVerdict.NOT_MARIONETTE);
+        IncrementalDiscoveryResponse response = discovery.executeIncremental();
+
+        assertEquals(List.of("retired"), response.removed());
+        assertEquals(List.of("http://restarting:8080"), response.unresolvedEndpoints());
+        assertTrue(registry.getAllServiceMetadata().containsKey(ServiceName.of("restarting")));
+    }
+
+    @Test
+    void incrementalDiscoveryKeepsTheServicesOfAFailedListing() {
+        DiscoveredServiceMetadata listed = new DiscoveredServiceMetadata("listed", "http://listed:8080");
+        DiscoveredServiceMetadata hidden = new DiscoveredServiceMetadata("hidden", "http://hidden:8080");
+        boolean[] listingFails = { false };
+
+        ConfigRegistry registry = new ConfigRegistry();
+        FullMarionetteServiceConfigDiscoveryUseCaseImpl discovery = new FullMarionetteServiceConfigDiscoveryUseCaseImpl(
+                () -> {
+                    if (listingFails[0]) {
+                        throw new FindCandidateServicesException("namespace b could not be listed", "", List.of(listed));
+                    }
+                    return List.of(listed, hidden);
+                },
+                candidate -> CandidateVerdict.MARIONETTE,
+                endpoint -> configurationOf(endpoint.substring("http://".length(), endpoint.lastIndexOf(':'))),
+                registry,
+                new DiscoveryPipelineSettings(2, 2, Duration.ofSeconds(10), Duration.ofSeconds(10), Duration.ofSeconds(30)));
+        assertEquals(2, discovery.executeIncremental().added().size());
+
+        listingFails[0] = true;
+        IncrementalDiscoveryResponse response = discovery.executeIncremental();
+
+        assertEquals(List.of(), response.removed());
+        assertEquals(List.of("http://hidden:8080"), response.unresolvedEndpoints());
+        assertEquals(2, registry.getAllServiceMetadata().size());
+    }
+
+    private static ServiceConfigData configurationOf(String serviceName) {
+        return new ServiceConfigData(serviceName, List.of(new ClassConfigData("org.example.Checkout",
+                List.of(new MethodConfigData("checkout", "fast", "fast", List.of("fast", "slow"))))));
+    }
+
+}
@@ -0,0 +1,48 @@
+package org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.statistics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class QuickSelectTest {
+
+    @Test
+    void selectsEveryRankLikeASort() {
+        Random random = new Random(7);
+        for (int round = 0; round < 200; round++) {
+            double[] values = new double[1 + random.nextInt(50)];
+            for (int i = 0; i < values.length; i++) {
+                // Few distinct values, so that most ranks fall in runs of equal values
+                values[i] = random.nextInt(5);
+            }
+            double[] sorted = values.clone();
+            Arrays.sort(sorted);
+            for (int k = 0; k < values.length; k++) {
+                assertEquals(sorted[k], QuickSelect.select(values.clone(), k));
+            }
+        }
+    }
+
+    @Test
+    void quantileInterpolatesBetweenClosestRanks() {
+        assertEquals(2.5, QuickSelect.median(new double[] { 4, 1, 3, 2 }));
+        assertEquals(3.7, QuickSelect.quantile(new double[] { 5, 1, 2, 3, 4 }, 0.675), 1e-12);
+    }
+
+    @Test
+    void staysLinearWhenAllValuesAreEqual() {
+        double[] values = new double[100_000];
+        Arrays.fill(values, 12.5);
+        assertTimeoutPreemptively(Duration.ofSeconds(2), () -> {
+            for (int k = 0; k < 50; k++) {
+                assertEquals(12.5, QuickSelect.select(values, k * 2_000));
+            }
+        });
+    }
+
+}
@@ -0,0 +1,199 @@
+package org.marionette.controlplane.usecases.outbound.fetchmetrics.domain.timeseries;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Round trips through the builder and the iterator, values compared bit for bit so NaN payloads and -0.0 count
+ */
+class SampleSeriesTest {
+
+    @Test
+    void bitStreamRoundTripsEveryWidth() {
+        Random random = new Random(1);
+        int count = 10_000;
+        long[] values = new long[count];
+        int[] widths = new int[count];
+
+        BitOutput output = new BitOutput();
+        for (int i = 0; i < count; i++) {
+            widths[i] = 1 + random.nextInt(64);
+            values[i] = widths[i] == 64 ? random.nextLong() : random.nextLong() & ((1L << widths[i]) - 1);
+            output.writeBits(values[i], widths[i]);
+        }
+
+        // Read from an offset to check the stream does not assume it starts the buffer
+        ByteBuffer buffer = ByteBuffer.allocate(3 + output.byteLength());
+        buffer.put(new byte[3]).put(output.bytes(), 0, output.byteLength()).flip();
+        BitInput input = new BitInput(buffer, 3);
+        for (int i = 0; i < count; i++) {
+            assertEquals(values[i], input.readBits(widths[i]), "value " + i + " of " + widths[i] + " bits");
+        }
+    }
+
+    @Test
+    void randomSeriesRoundTrip() {
+        Random random = new Random(2);
+        for (int run = 0; run < 20; run++) {
+            int size = 1 + random.nextInt(2_000);
+            long[] timestamps = new long[size];
+            double[] values = new double[size];
+            long timestamp = random.nextLong();
+            for (int i = 0; i < size; i++) {
+                timestamp += random.nextInt(100_000);
+                timestamps[i] = timestamp;
+                // Any bit pattern, NaNs with payloads and subnormals included
+                values[i] = Double.longBitsToDouble(random.nextLong());
+            }
+            assertRoundTrip(timestamps, values);
+        }
+    }
+
+    @Test
+    void constantSeriesRoundTripsInAFewBitsPerSample() {
+        int size = 1_000;
+        long[] timestamps = new long[size];
+        double[] values = new double[size];
+        for (int i = 0; i < size; i++) {
+            timestamps[i] = 1_700_000_000_000L + 15_000L * i;
+            values[i] = 42.5;
+        }
+
+        SampleSeries series = assertRoundTrip(timestamps, values);
+        // 128 bits for the first sample, 68 for the first delta, then one bit for the timestamp and one for the value
+        assertTrue(series.encodedBytes() <= Integer.BYTES + (128 + 68 + 2 * size + 7) / 8, series.toString());
+    }
+
+    @Test
+    void specialValuesRoundTrip() {
+        double[] specials = {
+            Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, 0.0, -0.0,
+            Double.MIN_VALUE, -Double.MIN_VALUE, Double.MAX_VALUE, -Double.MAX_VALUE, Double.MIN_NORMAL,
+            Double.longBitsToDouble(0x7ff0000000000001L), Double.longBitsToDouble(0xfff8000000000abcL),
+            1.0, 1.0000000000000002, Double.NaN, Double.NaN, Double.POSITIVE_INFINITY
+        };
+        long[] timestamps = new long[specials.length];
+        for (int i = 0; i < specials.length; i++) {
+            timestamps[i] = 1000L * i;
+        }
+        assertRoundTrip(timestamps, specials);
+    }
+
+    @Test
+    void slowlyMovingValuesReuseTheBitWindow() {
+        Random random = new Random(3);
+        int size = 5_000;
+        long[] timestamps = new long[size];
+        double[] values = new double[size];
+        double value = 100.0;
+        for (int i = 0; i < size; i++) {
+            timestamps[i] = 5_000L * i;
+            value += random.nextInt(5) - 2;
+            values[i] = value;
+        }
+        assertRoundTrip(timestamps, values);
+    }
+
+    @Test
+    void irregularTimestampsRoundTrip() {
+        // Delta of deltas at and around every boundary of the encoding, going back in time and overflowing
+        long[] deltaOfDeltas = {
+            0, 1, -1, 63, -63, 64, -64, 65, 255, -255, 256, -256, 257, 2047, -2047, 2048, -2048, 2049,
+            1L << 40, -(1L << 40), Long.MAX_VALUE, Long.MIN_VALUE, 0, 0, -5, 7
+        };
+        long[] timestamps = new long[deltaOfDeltas.length + 1];
+        double[] values = new double[timestamps.length];
+        long delta = 0;
+        timestamps[0] = 1_700_000_000_000L;
+        for (int i = 0; i < deltaOfDeltas.length; i++) {
+            delta += deltaOfDeltas[i];
+            timestamps[i + 1] = timestamps[i] + delta;
+            values[i + 1] = i;
+        }
+        assertRoundTrip(timestamps, values);
+
+        Random random = new Random(4);
+        long[] jittered = new long[3_000];
+        double[] gauge = new double[jittered.length];
+        for (int i = 1; i < jittered.length; i++) {
+            // Mostly regular scrapes, some late, some missed, a few out of order
+            int kind = random.nextInt(20);
+            long step = kind == 0 ? -random.nextInt(10_000) : kind == 1 ? 15_000L * (2 + random.nextInt(10)) : 15_000 + random.nextInt(200) - 100;
+            jittered[i] = jittered[i - 1] + step;
+            gauge[i] = random.nextGaussian();
+        }
+        assertRoundTrip(jittered, gauge);
+    }
+
+    @Test
+    void emptyAndSingleSampleSeries() {
+        assertEquals(0, SampleSeries.empty().size());
+        assertFalse(SampleSeries.empty().iterator().next());
+        assertEquals(0, SampleSeries.empty().values().length);
+
+        assertRoundTrip(new long[] { Long.MIN_VALUE }, new double[] { Double.NaN });
+        assertRoundTrip(new long[] { Long.MAX_VALUE }, new double[] { -0.0 });
+    }
+
+    @Test
+    void valuesAtOneInstantRoundTrip() {
+        SampleSeries series = SampleSeries.of(1234L, 1.5, 2.5, Double.NaN, 2.5);
+
+        SampleIterator samples = series.iterator();
+        double[] values = new double[series.size()];
+        for (int i = 0; samples.next(); i++) {
+            assertEquals(1234L, samples.timestamp());
+            values[i] = samples.value();
+        }
+        assertEquals(4, series.size());
+        assertBitsEqual(new double[] { 1.5, 2.5, Double.NaN, 2.5 }, values);
+    }
+
+    private static SampleSeries assertRoundTrip(long[] timestamps, double[] values) {
+        SampleSeries.Builder builder = new SampleSeries.Builder();
+        for (int i = 0; i < timestamps.length; i++) {
+            builder.append(timestamps[i], values[i]);
+        }
+        SampleSeries series = builder.build();
+        assertEquals(timestamps.length, builder.size());
+
+        assertDecodes(series, timestamps, values);
+        assertBitsEqual(values, series.values());
+
+        // The encoded form read back from a copy placed at an offset, as a block file chunk would be
+        ByteBuffer encoded = series.encoded();
+        ByteBuffer copy = ByteBuffer.allocate(7 + encoded.remaining());
+        copy.position(7);
+        copy.put(encoded).position(7);
+        SampleSeries wrapped = SampleSeries.wrap(copy);
+        assertEquals(series, wrapped);
+        assertEquals(series.hashCode(), wrapped.hashCode());
+        assertDecodes(wrapped, timestamps, values);
+        return series;
+    }
+
+    private static void assertDecodes(SampleSeries series, long[] timestamps, double[] values) {
+        assertEquals(timestamps.length, series.size());
+        SampleIterator samples = series.iterator();
+        for (int i = 0; i < timestamps.length; i++) {
+            assertTrue(samples.next(), "sample " + i);
+            assertEquals(timestamps[i], samples.timestamp(), "timestamp " + i);
+            assertEquals(Double.doubleToRawLongBits(values[i]), Double.doubleToRawLongBits(samples.value()), "value " + i);
+        }
+        assertFalse(samples.next());
+    }
+
+    private static void assertBitsEqual(double[] expected, double[] actual) {
+        assertEquals(expected.length, actual.length);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(Double.doubleToRawLongBits(expected[i]), Double.doubleToRawLongBits(actual[i]), "value " + i);
+        }
+    }
+
+}